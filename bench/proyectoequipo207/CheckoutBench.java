@@ -0,0 +1,95 @@
+package proyectoequipo207;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// El ciclo de cobro de POSFrame.checkoutOrder sin los diálogos: armar la orden, validar el pago
+// y registrarla en el turno abierto. Se mide también la parte en memoria por separado, y el cobro
+// contra InMemoryRepository para separar lo que cuesta SQLite del resto del ciclo.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutBench {
+
+    @Param({"10000", "1000000"})
+    public int ventas;
+
+    // Productos distintos en la orden
+    @Param({"1", "5"})
+    public int lineas;
+
+    // sqlite: cada cobro escribe en la base; diario: se confirma al quedar en el diario de ventas
+    @Param({"sqlite", "diario", "memoria"})
+    public String backend;
+
+    private Path archivo;
+    private DatabaseManager db;
+    private PosBackend pos;
+    private List<Producto> productos;
+    private Turno turno;
+
+    @Setup(Level.Trial)
+    public void abrir() throws Exception {
+        archivo = GeneradorDatos.copiaTemporal(ventas);
+        db = GeneradorDatos.abrir(archivo, "diario".equals(backend));
+        productos = db.obtenerProductos();
+        pos = "memoria".equals(backend) ? InMemoryRepository.conProductos(productos, 1000) : db;
+        turno = pos.abrirTurno("vendedor", Dinero.deUnidades(100000));
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws Exception {
+        db.cerrar();
+        GeneradorDatos.borrar(archivo);
+    }
+
+    private Orden armarOrden() {
+        Orden orden = new Orden();
+        for (int i = 0; i < lineas; i++) {
+            // Cantidades de 1 a 3, como quien toca el mismo producto varias veces
+            for (int j = 0; j <= i % 3; j++) {
+                orden.agregar(productos.get(i % productos.size()));
+            }
+        }
+        return orden;
+    }
+
+    // Solo la parte en memoria: armar la orden, validar el pago y calcular el cambio.
+    @Benchmark
+    public Dinero armarOrdenYCobrar() {
+        Orden orden = armarOrden();
+        Dinero total = orden.getTotal();
+        Dinero pago = Dinero.parse("500000");
+        return pago.esMenorQue(total) ? Dinero.CERO : pago.restar(total);
+    }
+
+    // El cobro completo, incluida la transacción que registra la orden y actualiza los resúmenes.
+    @Benchmark
+    public int cobrarVenta() {
+        Orden orden = armarOrden();
+        Dinero total = orden.getTotal();
+        Dinero pago = Dinero.parse("500000");
+        if (pago.esMenorQue(total)) {
+            return -1;
+        }
+        return pos.registrarOrden(orden.comoMapa(), turno.getId());
+    }
+}
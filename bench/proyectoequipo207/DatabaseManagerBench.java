@@ -0,0 +1,110 @@
+package proyectoequipo207;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Caminos frecuentes de DatabaseManager sobre una copia temporal de la base sintética (GeneradorDatos).
+// Cada tamaño de historial se mide por separado: el costo de las consultas no debería crecer con él.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatabaseManagerBench {
+
+    @Param({"10000", "100000", "1000000", "5000000"})
+    public int ventas;
+
+    // Las ventas pasan por el diario de ventas (true) o van directo a la base (false)
+    @Param({"false", "true"})
+    public boolean diario;
+
+    private Path archivo;
+    private DatabaseManager db;
+    private Producto producto;
+    private Date inicioDia;
+    private Date finDia;
+    private int maxIdVenta;
+
+    @Setup(Level.Trial)
+    public void abrir() throws Exception {
+        archivo = GeneradorDatos.copiaTemporal(ventas);
+        db = GeneradorDatos.abrir(archivo, diario);
+        producto = db.obtenerProductos().get(0);
+        // El último día del historial generado, que es el que consulta un reporte de cierre
+        inicioDia = DatabaseManager.inicioDelDia(new Date());
+        finDia = DatabaseManager.sumarDias(inicioDia, 1);
+        maxIdVenta = db.obtenerMaxIdVenta();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws Exception {
+        db.cerrar();
+        GeneradorDatos.borrar(archivo);
+    }
+
+    // Venta de un producto por nombre (busca el producto y registra una orden de una línea).
+    @Benchmark
+    public void registrarVenta() {
+        db.registrarVenta(producto.getNombre(), 1, producto.getPrecio());
+    }
+
+    // Desde el catálogo en memoria (el caso normal).
+    @Benchmark
+    public List<Producto> obtenerProductos() {
+        return db.obtenerProductos();
+    }
+
+    // Forzando la lectura de la tabla, como después de editar un producto.
+    @Benchmark
+    public List<Producto> obtenerProductosRecarga() {
+        db.getCatalogo().invalidar();
+        return db.obtenerProductos();
+    }
+
+    @Benchmark
+    public List<Venta> obtenerVentasDelDia() {
+        return db.obtenerVentas(inicioDia, finDia);
+    }
+
+    // Primera página del historial, como la pide la tabla de SalesReporter.
+    @Benchmark
+    public List<Venta> obtenerPaginaVentas() {
+        return db.obtenerPaginaVentas(maxIdVenta + 1, VentasTableModel.TAMANO_PAGINA);
+    }
+
+    @Benchmark
+    public ResumenVentas obtenerResumenDelDia() {
+        return db.obtenerResumenVentas(inicioDia, finDia);
+    }
+
+    // Credenciales verificadas hace poco (SessionCache): volver a entrar no toca la base.
+    @Benchmark
+    public Usuario autenticarUsuario() {
+        return db.autenticarUsuario("admin", "123");
+    }
+
+    // Primer inicio de sesión: consulta más PBKDF2 con el factor de trabajo configurado.
+    @Benchmark
+    public Usuario autenticarUsuarioSinCache() {
+        db.invalidarSesiones();
+        return db.autenticarUsuario("admin", "123");
+    }
+}
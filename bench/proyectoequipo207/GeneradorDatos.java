@@ -0,0 +1,173 @@
+package proyectoequipo207;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Random;
+
+// Generador de datos sintéticos para las pruebas de rendimiento: una base con el esquema actual,
+// un catálogo de PRODUCTOS productos y 'ventas' líneas de venta repartidas en el último año.
+// Con la misma cantidad y semilla genera siempre los mismos datos, así las mediciones son comparables.
+//
+// Uso: java proyectoequipo207.GeneradorDatos <ventas> [archivo.db]
+// Sin archivo, genera (o reutiliza) la plantilla que usan las pruebas.
+public final class GeneradorDatos {
+
+    static final int PRODUCTOS = 40;
+    static final int DIAS = 365;
+    static final long SEMILLA = 207L;
+
+    // Las bases generadas se guardan aquí y se reutilizan entre corridas (generar 5M de líneas toma minutos).
+    static final Path DIRECTORIO = Paths.get("build", "bench", "datos");
+
+    private GeneradorDatos() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Uso: GeneradorDatos <ventas> [archivo.db]");
+            System.exit(1);
+        }
+        int ventas = Integer.parseInt(args[0]);
+        if (args.length == 1) {
+            System.out.println("Plantilla: " + plantilla(ventas));
+            return;
+        }
+        Path archivo = Paths.get(args[1]);
+        if (Files.exists(archivo)) {
+            System.err.println("El archivo " + archivo + " ya existe; los datos se generan sobre una base nueva.");
+            System.exit(1);
+        }
+        generar(archivo, ventas);
+    }
+
+    // Base de plantilla para una cantidad de ventas; se genera la primera vez que se pide.
+    static synchronized Path plantilla(int ventas) throws IOException, SQLException {
+        Path archivo = DIRECTORIO.resolve("ventas-" + ventas + ".db");
+        if (!Files.exists(archivo)) {
+            Files.createDirectories(DIRECTORIO);
+            // Se genera con otro nombre y se renombra al final: una generación interrumpida no queda como plantilla
+            Path parcial = DIRECTORIO.resolve("ventas-" + ventas + ".db.parcial");
+            Files.deleteIfExists(parcial);
+            generar(parcial, ventas);
+            Files.move(parcial, archivo, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return archivo;
+    }
+
+    // Copia de trabajo de la plantilla en un archivo temporal, para que cada prueba empiece con los mismos datos.
+    static Path copiaTemporal(int ventas) throws IOException, SQLException {
+        Path copia = Files.createTempFile("cafesoft-bench-", ".db");
+        Files.copy(plantilla(ventas), copia, StandardCopyOption.REPLACE_EXISTING);
+        return copia;
+    }
+
+    // diario: si el cobro pasa por el diario de ventas (SalesJournal) o va directo a la base. Se fija
+    // aquí para que el resultado no dependa del cafesoft.properties de la máquina que corre la prueba.
+    static DatabaseManager abrir(Path archivo, boolean diario) {
+        return new DatabaseManager(StorageProfile.cargar().conUrl("jdbc:sqlite:" + archivo).conDiarioVentas(diario));
+    }
+
+    static void borrar(Path archivo) throws IOException {
+        Files.deleteIfExists(archivo);
+        Files.deleteIfExists(Paths.get(archivo + "-wal"));
+        Files.deleteIfExists(Paths.get(archivo + "-shm"));
+        Files.deleteIfExists(Paths.get(archivo + "-ventas"));
+        Files.deleteIfExists(Paths.get(archivo + "-ventas-rechazadas"));
+    }
+
+    static void generar(Path archivo, int ventas) throws SQLException {
+        long inicio = System.currentTimeMillis();
+
+        // El esquema, los usuarios y los productos iniciales los crea DatabaseManager, igual que en producción
+        DatabaseManager db = abrir(archivo, false);
+        for (int i = db.obtenerProductos().size(); i < PRODUCTOS; i++) {
+            db.agregarProducto(String.format("Producto %02d", i + 1), Dinero.deUnidades(2000 + 100 * ((i * 37) % 130)));
+        }
+        db.cerrar();
+
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + archivo);
+             Statement stmt = conn.createStatement()) {
+            // Carga masiva sin diario: si se interrumpe, la plantilla parcial se descarta
+            stmt.execute("PRAGMA journal_mode = OFF");
+            stmt.execute("PRAGMA synchronous = OFF");
+            conn.setAutoCommit(false);
+
+            long[] precios = new long[PRODUCTOS + 1];
+            try (ResultSet rs = stmt.executeQuery("SELECT id, precio FROM productos WHERE id <= " + PRODUCTOS)) {
+                while (rs.next()) {
+                    precios[rs.getInt(1)] = rs.getLong(2);
+                }
+            }
+
+            Random random = new Random(SEMILLA);
+            long fin = System.currentTimeMillis();
+            long desde = fin - DIAS * 86400000L;
+            // En promedio 2.5 líneas por orden
+            int ordenes = Math.max(1, (int) (ventas / 2.5));
+            long paso = Math.max(1, (fin - desde) / ordenes);
+
+            try (PreparedStatement insOrden = conn.prepareStatement("INSERT INTO ordenes(id, total, fecha) VALUES(?, ?, ?)");
+                 PreparedStatement insItem = conn.prepareStatement(
+                         "INSERT INTO orden_items(orden_id, producto_id, cantidad, precio_unitario) VALUES(?, ?, ?, ?)")) {
+                int lineas = 0;
+                int ordenId = 0;
+                long fecha = desde;
+                boolean[] usados = new boolean[PRODUCTOS + 1];
+                while (lineas < ventas) {
+                    ordenId++;
+                    fecha += 1 + (long) (random.nextDouble() * 2 * paso);
+                    int enOrden = Math.min(1 + random.nextInt(4), ventas - lineas);
+                    long total = 0;
+                    Arrays.fill(usados, false);
+                    for (int j = 0; j < enOrden; j++) {
+                        int producto;
+                        do {
+                            producto = 1 + random.nextInt(PRODUCTOS);
+                        } while (usados[producto]);
+                        usados[producto] = true;
+                        int cantidad = 1 + random.nextInt(3);
+                        total += cantidad * precios[producto];
+
+                        insItem.setInt(1, ordenId);
+                        insItem.setInt(2, producto);
+                        insItem.setInt(3, cantidad);
+                        insItem.setLong(4, precios[producto]);
+                        insItem.addBatch();
+                    }
+                    insOrden.setInt(1, ordenId);
+                    insOrden.setLong(2, total);
+                    insOrden.setLong(3, Math.min(fecha, fin));
+                    insOrden.addBatch();
+                    lineas += enOrden;
+
+                    if (ordenId % 10000 == 0) {
+                        insOrden.executeBatch();
+                        insItem.executeBatch();
+                    }
+                }
+                insOrden.executeBatch();
+                insItem.executeBatch();
+            }
+
+            SalesRollup.reconstruir(stmt);
+            // Stock de sobra: los cobros repetidos de las pruebas no deben quedarse sin insumos
+            stmt.execute("UPDATE insumos SET stock = 1000000000");
+            conn.commit();
+            conn.setAutoCommit(true);
+            stmt.execute("PRAGMA journal_mode = DELETE");
+            stmt.execute("VACUUM");
+        }
+        System.out.println("Generadas " + ventas + " líneas de venta en " + archivo
+                + " (" + (System.currentTimeMillis() - inicio) + " ms)");
+    }
+}
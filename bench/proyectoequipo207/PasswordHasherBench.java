@@ -0,0 +1,42 @@
+package proyectoequipo207;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Costo de verificar una contraseña según el factor de trabajo de PBKDF2.
+// Sirve para elegir auth.pbkdf2_iteraciones en la máquina de la caja: el mayor valor cuyo
+// tiempo quede dentro del presupuesto del login (unos 250 ms, el umbral del EDT; el login corre fuera de él).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHasherBench {
+
+    @Param({"100000", "210000", "310000", "600000"})
+    public int iteraciones;
+
+    private String hash;
+
+    @Setup
+    public void preparar() {
+        hash = new PasswordHasher(iteraciones).hashear("123");
+    }
+
+    @Benchmark
+    public boolean verificar() {
+        return PasswordHasher.verificar("123", hash);
+    }
+}
@@ -0,0 +1,189 @@
+package proyectoequipo207;
+
+import javax.swing.JOptionPane;
+import javax.swing.JRootPane;
+import javax.swing.SwingUtilities;
+import java.awt.Component;
+import java.awt.Cursor;
+import java.awt.event.MouseAdapter;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Fachada asíncrona sobre DatabaseManager: las consultas corren en un pool de hilos acotado
+// y los resultados vuelven al Event Dispatch Thread, así la interfaz nunca espera al disco.
+public class AsyncDatabase {
+
+    private static final int HILOS = 2;
+    private static final int TAREAS_EN_COLA = 64;
+    private static final String TAREAS_EN_CURSO = "cafesoft.tareasEnCurso";
+    private static final MouseAdapter BLOQUEO_CLICS = new MouseAdapter() { };
+
+    private final DatabaseManager dbManager;
+    private final ThreadPoolExecutor executor;
+
+    // Cola del EDT: cuánto espera un resultado listo para entrar al EDT, y cuánto lo ocupa su manejo
+    // (si el manejo abre un diálogo modal, el tiempo incluye lo que el diálogo estuvo abierto)
+    private static final MetricsRegistry.Histograma ESPERA_EDT = MetricsRegistry.global().histograma("edt.espera");
+    private static final MetricsRegistry.Histograma MANEJO_EDT = MetricsRegistry.global().histograma("edt.manejoResultado");
+
+    public AsyncDatabase(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+        AtomicInteger contador = new AtomicInteger();
+        // Cola acotada: si se llena, la tarea se rechaza en vez de acumular trabajo sin límite
+        this.executor = new ThreadPoolExecutor(HILOS, HILOS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(TAREAS_EN_COLA),
+                r -> {
+                    Thread t = new Thread(r, "cafesoft-db-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    // Ejecuta la tarea fuera del EDT.
+    public <T> CompletableFuture<T> ejecutar(Supplier<T> tarea) {
+        try {
+            return CompletableFuture.supplyAsync(tarea, executor);
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            CompletableFuture<T> rechazada = new CompletableFuture<>();
+            rechazada.completeExceptionally(new IllegalStateException("El sistema está ocupado, intente de nuevo.", e));
+            return rechazada;
+        }
+    }
+
+    // Ejecuta la tarea fuera del EDT mostrando el cursor de espera en la ventana del componente,
+    // y entrega el resultado en el EDT. Los errores se informan con un diálogo.
+    public <T> void ejecutarEnSwing(Component componente, Supplier<T> tarea, Consumer<T> alTerminar) {
+        alTerminarEnSwing(componente, ejecutar(tarea), alTerminar);
+    }
+
+    public <T> void ejecutarEnSwing(Component componente, Supplier<T> tarea, Consumer<T> alTerminar, Consumer<Throwable> alFallar) {
+        alTerminarEnSwing(componente, ejecutar(tarea), alTerminar, alFallar);
+    }
+
+    // Igual que ejecutarEnSwing, pero para un futuro ya lanzado (p. ej. varias consultas combinadas con allOf).
+    public <T> void alTerminarEnSwing(Component componente, CompletableFuture<T> futuro, Consumer<T> alTerminar) {
+        alTerminarEnSwing(componente, futuro, alTerminar, error -> JOptionPane.showMessageDialog(componente,
+                "Error accediendo a la base de datos: " + error.getMessage(),
+                "Error de DB", JOptionPane.ERROR_MESSAGE));
+    }
+
+    public <T> void alTerminarEnSwing(Component componente, CompletableFuture<T> futuro, Consumer<T> alTerminar, Consumer<Throwable> alFallar) {
+        JRootPane raiz = componente == null ? null : SwingUtilities.getRootPane(componente);
+        mostrarOcupado(raiz, true);
+        futuro.whenComplete((resultado, error) -> {
+            long listo = System.nanoTime();
+            SwingUtilities.invokeLater(() -> {
+                long inicio = System.nanoTime();
+                ESPERA_EDT.registrar(inicio - listo);
+                mostrarOcupado(raiz, false);
+                try {
+                    if (error != null) {
+                        alFallar.accept(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                    } else {
+                        alTerminar.accept(resultado);
+                    }
+                } finally {
+                    MANEJO_EDT.registrarDesde(inicio);
+                }
+            });
+        });
+    }
+
+    // Indicador de ocupado: cursor de espera sobre el glass pane, que además absorbe los clics
+    // mientras haya tareas de esa ventana en curso. Solo se llama desde el EDT.
+
+    private static void mostrarOcupado(JRootPane raiz, boolean ocupado) {
+        if (raiz == null) {
+            return;
+        }
+        Integer actuales = (Integer) raiz.getClientProperty(TAREAS_EN_CURSO);
+        int enCurso = Math.max(0, (actuales == null ? 0 : actuales) + (ocupado ? 1 : -1));
+        raiz.putClientProperty(TAREAS_EN_CURSO, enCurso);
+
+        Component glass = raiz.getGlassPane();
+        if (enCurso > 0 && !glass.isVisible()) {
+            glass.addMouseListener(BLOQUEO_CLICS);
+            glass.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+            glass.setVisible(true);
+        } else if (enCurso == 0 && glass.isVisible()) {
+            glass.removeMouseListener(BLOQUEO_CLICS);
+            glass.setCursor(Cursor.getDefaultCursor());
+            glass.setVisible(false);
+        }
+    }
+
+    // Tareas pendientes en la cola (útil para diagnósticos).
+    public int getTareasPendientes() {
+        return executor.getQueue().size();
+    }
+
+    public void cerrar() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // VARIANTES ASÍNCRONAS DE DatabaseManager
+
+    public CompletableFuture<Usuario> autenticarUsuario(String username, String password) {
+        return ejecutar(() -> dbManager.autenticarUsuario(username, password));
+    }
+
+    public CompletableFuture<Usuario> autenticarPorPin(String username, String pin) {
+        return ejecutar(() -> dbManager.autenticarPorPin(username, pin));
+    }
+
+    public CompletableFuture<List<Usuario>> obtenerUsuariosConPin() {
+        return ejecutar(dbManager::obtenerUsuariosConPin);
+    }
+
+    public CompletableFuture<List<Producto>> obtenerProductos() {
+        return ejecutar(dbManager::obtenerProductos);
+    }
+
+    public CompletableFuture<Boolean> eliminarProducto(int id) {
+        return ejecutar(() -> dbManager.eliminarProducto(id));
+    }
+
+    public CompletableFuture<Integer> registrarOrden(Map<Producto, Integer> orden, int turnoId) {
+        return ejecutar(() -> dbManager.registrarOrden(orden, turnoId));
+    }
+
+    public CompletableFuture<Turno> obtenerTurnoAbierto(String usuario) {
+        return ejecutar(() -> dbManager.obtenerTurnoAbierto(usuario));
+    }
+
+    public CompletableFuture<Cierre> cerrarTurno(int turnoId, Dinero efectivoContado) {
+        return ejecutar(() -> dbManager.cerrarTurno(turnoId, efectivoContado));
+    }
+
+    public CompletableFuture<List<Venta>> obtenerVentas(Date desde, Date hasta) {
+        return ejecutar(() -> dbManager.obtenerVentas(desde, hasta));
+    }
+
+    public CompletableFuture<ResumenVentas> obtenerResumenVentas(Date desde, Date hasta) {
+        return ejecutar(() -> dbManager.obtenerResumenVentas(desde, hasta));
+    }
+
+    public CompletableFuture<List<TotalAgrupado>> obtenerTopProductos(Date desde, Date hasta, int limite) {
+        return ejecutar(() -> dbManager.obtenerTopProductos(desde, hasta, limite));
+    }
+
+    public CompletableFuture<List<TotalAgrupado>> obtenerVentasPorHora(Date desde, Date hasta) {
+        return ejecutar(() -> dbManager.obtenerVentasPorHora(desde, hasta));
+    }
+}
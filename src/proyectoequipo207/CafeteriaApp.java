@@ -1,6 +1,5 @@
 package proyectoequipo207;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -22,14 +21,13 @@ public class CafeteriaApp extends JFrame {
     private JComboBox<Producto> productoComboBox;
     private JSpinner cantidadSpinner;
     private JTable ordenTable;
-    private DefaultTableModel ordenTableModel;
+    private OrdenTableModel ordenTableModel;
     private JLabel totalLabel;
     private Map<String, Producto> productosMap;
 
-    public CafeteriaApp() {
-        // Inicializar el gestor de base de datos y asegurar que las tablas existan
-        dbManager = new DatabaseManager();
-        dbManager.inicializarBaseDeDatos();
+    // Usa el DatabaseManager de la aplicación: uno solo por base (el diario de ventas no se comparte)
+    public CafeteriaApp(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
         this.productosMap = new Hashtable<>();
         configurarLookAndFeel();
     }
@@ -38,7 +36,7 @@ public class CafeteriaApp extends JFrame {
         try {
             UIManager.setLookAndFeel(UIManager.getCrossPlatformLookAndFeelClassName());
         } catch (Exception e) {
-            System.err.println("Error al configurar Look and Feel: " + e.getMessage());
+            Log.error("Error al configurar Look and Feel: " + e.getMessage());
         }
     }
     
@@ -46,7 +44,7 @@ public class CafeteriaApp extends JFrame {
         try {
             return Toolkit.getDefaultToolkit().getImage(getClass().getResource(path));
         } catch (Exception e) {
-            System.err.println("Error al cargar icono: " + path + ". Usando icono por defecto si existe.");
+            Log.warn("Error al cargar icono: " + path + ". Usando icono por defecto si existe.");
             return null;
         }
     }
@@ -67,13 +65,7 @@ public class CafeteriaApp extends JFrame {
             setIconImage(icon);
         }
 
-        ordenTableModel = new DefaultTableModel(new String[]{"Producto", "Cant.", "Precio Unit.", "Subtotal"}, 0) {
-            // Hacer las celdas no editables directamente
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        ordenTableModel = new OrdenTableModel(new Orden());
         ordenTable = new JTable(ordenTableModel);
         ordenTable.setFont(new Font("Arial", Font.PLAIN, 14));
         ordenTable.setRowHeight(25);
@@ -100,7 +92,7 @@ public class CafeteriaApp extends JFrame {
 
     // Carga los productos desde la base de datos y actualiza el ComboBox
     private void cargarProductos() {
-        List<Producto> productos = dbManager.obtenerTodosLosProductos();
+        List<Producto> productos = dbManager.obtenerProductos();
         productoComboBox = new JComboBox<>();
         productosMap.clear();
 
@@ -116,7 +108,7 @@ public class CafeteriaApp extends JFrame {
                 super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
                 if (value instanceof Producto) {
                     Producto p = (Producto) value;
-                    setText(p.getNombre() + " ($" + String.format(Locale.US , "%.2f", p.getPrecio()) + ")");
+                    setText(p.getNombre() + " ($" + p.getPrecio() + ")");
                 }
                 return this;
             }
@@ -225,54 +217,14 @@ public class CafeteriaApp extends JFrame {
             return;
         }
 
-        String nombre = productoSeleccionado.getNombre();
-        double precioUnitario = productoSeleccionado.getPrecio();
-        double subtotal = precioUnitario * cantidad;
-
-        // 1. Verificar si el producto ya está en la orden para actualizar la cantidad
-        boolean encontrado = false;
-        for (int i = 0; i < ordenTableModel.getRowCount(); i++) {
-            if (ordenTableModel.getValueAt(i, 0).equals(nombre)) {
-                // Producto encontrado, actualizar cantidad y subtotal
-                int nuevaCantidad = (int) ordenTableModel.getValueAt(i, 1) + cantidad;
-                double nuevoSubtotal = nuevaCantidad * precioUnitario;
-                
-                ordenTableModel.setValueAt(nuevaCantidad, i, 1);
-                // Usar Locale.US para asegurar el formato con punto decimal para cálculos
-                ordenTableModel.setValueAt(String.format(Locale.US, "$%.2f", nuevoSubtotal), i, 3);
-                encontrado = true;
-                break;
-            }
-        }
-
-        // 2. Si no se encontró, añadir como nueva fila
-        if (!encontrado) {
-            ordenTableModel.addRow(new Object[]{
-                nombre, 
-                cantidad, 
-                String.format(Locale.US, "$%.2f", precioUnitario), 
-                String.format(Locale.US, "$%.2f", subtotal)
-            });
-        }
-        
+        // La orden suma la cantidad a la línea del producto si ya estaba y mantiene el total
+        ordenTableModel.agregar(productoSeleccionado, cantidad);
         calcularTotalOrden();
     }
     
-    // Calcula el total de la orden sumando todos los subtotales.
+    // Muestra el total de la orden, que se mantiene como suma acumulada (no se relee de la tabla).
     private void calcularTotalOrden() {
-        double total = 0.0;
-        for (int i = 0; i < ordenTableModel.getRowCount(); i++) {
-            // El subtotal está en la columna 3, pero necesitamos parsear el String 
-            String subtotalStr = (String) ordenTableModel.getValueAt(i, 3);
-            try {
-                 // Eliminar el símbolo de moneda y parsear
-                total += Double.parseDouble(subtotalStr.replace("$", "").replace(",", ""));
-            } catch (NumberFormatException e) {
-                System.err.println("Error al parsear subtotal: " + subtotalStr);
-            }
-        }
-        // Actualizar la etiqueta del total
-        totalLabel.setText("Total: $" + String.format(Locale.US, "%.2f", total));
+        totalLabel.setText("Total: $" + ordenTableModel.getOrden().getTotal());
     }
     
     // Inicia el proceso de pago.
@@ -282,70 +234,63 @@ public class CafeteriaApp extends JFrame {
             return;
         }
         
-        // Extraer el total (eliminar el prefijo "Total: $")
-        String totalStr = totalLabel.getText().replace("Total: $", "").replace(",", "");
-        double total;
-        try {
-            total = Double.parseDouble(totalStr);
-        } catch (NumberFormatException e) {
-            JOptionPane.showMessageDialog(this, "Error al calcular el total. Por favor, revisa la orden.", "Error Interno", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
         // 1. Simulación de pago y registro en la base de datos
-
-        // Mapear la orden para facilitar el registro Producto, Cantidad
-        Map<String, Integer> ordenParaDB = new HashMap<>();
-        for (int i = 0; i < ordenTableModel.getRowCount(); i++) {
-            String nombre = (String) ordenTableModel.getValueAt(i, 0);
-            int cantidad = (int) ordenTableModel.getValueAt(i, 1);
-            ordenParaDB.put(nombre, cantidad);
-        }
-        
-        // Lista para guardar los nombres de los productos que fallaron
-        List<String> ventasFallidas = new ArrayList<>();
-        
-        for (Map.Entry<String, Integer> entry : ordenParaDB.entrySet()) {
-            String nombre = entry.getKey();
-            int cantidad = entry.getValue();
-            Producto p = productosMap.get(nombre);
-            
-            // Intentar registrar en la BD
-            if (p != null) {
-                if (!dbManager.registrarVenta(p.getNombre(), cantidad, p.getPrecio(), usuarioActual)) { 
-                    ventasFallidas.add(nombre);
-                }
-            }
-        }
+        // La orden completa se registra en una sola transacción: o quedan todas las líneas o ninguna
+        int ordenId = dbManager.registrarOrden(ordenTableModel.getOrden().comoMapa());
         
         // 2. Mostrar resultado y limpiar
-        if (ventasFallidas.isEmpty()) {
+        if (ordenId > 0) {
             JOptionPane.showMessageDialog(this, 
                 "¡Pago exitoso! La venta ha sido registrada. " + totalLabel.getText(), 
                 "Venta Exitosa", JOptionPane.INFORMATION_MESSAGE);
             limpiarOrden();
         } else {
             JOptionPane.showMessageDialog(this, 
-                "Venta procesada con errores. Falló el registro de: " + String.join(", ", ventasFallidas),
-                "Error Parcial de Venta", JOptionPane.WARNING_MESSAGE);
+                "No se pudo registrar la venta. La orden no fue cobrada, intente de nuevo.",
+                "Error de Venta", JOptionPane.ERROR_MESSAGE);
         }
     }
     
     //Limpia la tabla del carrito y reinicia el total.
      
     private void limpiarOrden() {
-        ordenTableModel.setRowCount(0);
+        ordenTableModel.limpiar();
         calcularTotalOrden();
     }
 
     public static void main(String[] args) {
+        // Inicializa las dependencias antes de mostrar la UI: crear tablas y migrar no ocurre en el EDT
+        DatabaseManager dbManager = new DatabaseManager();
+
+        // Comando de mantenimiento: recalcula las tablas de resumen de ventas y termina
+        if (args.length > 0 && "--reconstruir-resumenes".equals(args[0])) {
+            boolean ok = dbManager.reconstruirResumenes();
+            Log.info(ok ? "Resúmenes de ventas reconstruidos." : "No se pudieron reconstruir los resúmenes.");
+            dbManager.cerrar();
+            System.exit(ok ? 0 : 1);
+        }
+
+        // Métricas visibles por JMX (jconsole/VisualVM) además de la ventana de diagnóstico
+        MetricsRegistry.global().publicarEnJmx();
+
+        // Registra la pila del EDT cuando un evento lo bloquea más del umbral (congelamientos del POS)
+        EdtWatchdog.instalar(dbManager.getPerfil().getUmbralEdtMs());
+
+        // Modo multi-caja: si servidor.puerto está configurado, esta máquina atiende a las demás cajas
+        SalesServer servidor = SalesServer.iniciar(dbManager);
+
+        // Cierra el servidor y el pool de conexiones al salir (System.exit desde el Dashboard/Login)
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (servidor != null) {
+                servidor.detener();
+            }
+            dbManager.cerrar();
+        }));
+
         // Ejecutar la aplicación en el hilo de eventos de Swing
        SwingUtilities.invokeLater(new Runnable() {
         @Override
         public void run() {
-            // Inicializa las dependencias
-            DatabaseManager dbManager = new DatabaseManager();
-            
             // Lanza la ventana del POS con el nuevo estilo CAFESOFT
             LoginFrame LoginFrame = new LoginFrame(dbManager);
             LoginFrame.setVisible(true);
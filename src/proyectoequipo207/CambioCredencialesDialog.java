@@ -0,0 +1,61 @@
+package proyectoequipo207;
+
+import javax.swing.*;
+import java.awt.Component;
+import java.util.function.Consumer;
+
+// Primer ingreso de una cuenta que conserva las credenciales de fábrica (admin y vendedor de una
+// instalación nueva): antes de entrar se eligen contraseña y PIN propios. Lo usan el login y el
+// cambio rápido de cajero, así ninguna de las dos puertas deja pasar con el PIN de fábrica.
+public final class CambioCredencialesDialog {
+
+    private CambioCredencialesDialog() {
+    }
+
+    // Si la cuenta no tiene credenciales de fábrica, alEntrar corre enseguida. Si las tiene, alEntrar
+    // corre solo después de guardar las nuevas; si se cancela el diálogo el usuario no entra.
+    public static void exigir(Component padre, DatabaseManager dbManager, Usuario usuario, Consumer<Usuario> alEntrar) {
+        if (!usuario.debeCambiarCredenciales()) {
+            alEntrar.accept(usuario);
+            return;
+        }
+        String username = usuario.getNombreUsuario();
+        JPasswordField passField = new JPasswordField();
+        JPasswordField confirmPassField = new JPasswordField();
+        JPasswordField pinField = new JPasswordField();
+        JPasswordField confirmPinField = new JPasswordField();
+        Object[] campos = {"Esta cuenta usa las credenciales de fábrica. Elija unas propias para continuar.",
+            "Nueva contraseña:", passField, "Repita la contraseña:", confirmPassField,
+            "Nuevo PIN (4 a 6 dígitos):", pinField, "Repita el PIN:", confirmPinField};
+        int opcion = JOptionPane.showConfirmDialog(padre, campos, "Primer ingreso - " + username, JOptionPane.OK_CANCEL_OPTION, JOptionPane.WARNING_MESSAGE);
+        if (opcion != JOptionPane.OK_OPTION) {
+            return;
+        }
+        String password = new String(passField.getPassword());
+        String pin = new String(pinField.getPassword());
+        String problema = null;
+        if (password.trim().isEmpty()) {
+            problema = "La contraseña no puede quedar vacía.";
+        } else if (!password.equals(new String(confirmPassField.getPassword()))) {
+            problema = "Las contraseñas no coinciden.";
+        } else if (!DatabaseManager.esPinValido(pin)) {
+            problema = "El PIN debe tener de 4 a 6 dígitos.";
+        } else if (!pin.equals(new String(confirmPinField.getPassword()))) {
+            problema = "Los PIN no coinciden.";
+        }
+        if (problema != null) {
+            JOptionPane.showMessageDialog(padre, problema, "Credenciales inválidas", JOptionPane.WARNING_MESSAGE);
+            exigir(padre, dbManager, usuario, alEntrar);
+            return;
+        }
+
+        dbManager.async().ejecutarEnSwing(padre, () -> dbManager.cambiarCredenciales(username, password, pin), ok -> {
+            if (ok) {
+                alEntrar.accept(new Usuario(username, usuario.getRol()));
+            } else {
+                JOptionPane.showMessageDialog(padre, "No se pudieron guardar. La contraseña y el PIN deben ser distintos de los de fábrica.", "Credenciales inválidas", JOptionPane.WARNING_MESSAGE);
+                exigir(padre, dbManager, usuario, alEntrar);
+            }
+        });
+    }
+}
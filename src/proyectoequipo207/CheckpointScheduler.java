@@ -0,0 +1,55 @@
+package proyectoequipo207;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Hace checkpoints periódicos del WAL en un hilo de fondo.
+// Con WAL los lectores (reportes) no bloquean a los escritores (cajas), pero el archivo -wal
+// crece hasta que alguien lo vuelca a la base; aquí se hace fuera del camino del cobro.
+public class CheckpointScheduler {
+
+    private final ConnectionPool pool;
+    private final String modo;
+    private final ScheduledExecutorService executor;
+
+    public CheckpointScheduler(ConnectionPool pool, String modo, long periodoSegundos) {
+        this.pool = pool;
+        this.modo = modo;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cafesoft-checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::checkpoint, periodoSegundos, periodoSegundos, TimeUnit.SECONDS);
+    }
+
+    private void checkpoint() {
+        ejecutar(modo);
+    }
+
+    // Ejecuta un checkpoint con el modo indicado (PASSIVE, FULL, RESTART o TRUNCATE).
+    public void ejecutar(String modoCheckpoint) {
+        if (pool.estaCerrado()) {
+            return;
+        }
+        try (ConnectionPool.Conexion c = pool.obtener();
+             Statement stmt = c.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA wal_checkpoint(" + modoCheckpoint + ")")) {
+            if (rs.next() && rs.getInt(1) != 0) {
+                Log.warn("Checkpoint " + modoCheckpoint + " incompleto: la base estaba ocupada.");
+            }
+        } catch (SQLException e) {
+            Log.error("Error en checkpoint del WAL: " + e.getMessage());
+        }
+    }
+
+    // Detiene el hilo y hace un último checkpoint TRUNCATE para dejar el -wal vacío.
+    public void detener() {
+        executor.shutdownNow();
+        ejecutar("TRUNCATE");
+    }
+}
@@ -0,0 +1,49 @@
+package proyectoequipo207;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+// Reporte Z de un turno: los totales se congelan en la tabla cierres al cerrar el turno,
+// así que consultarlo después no vuelve a recorrer las ventas.
+public class Cierre {
+    private final Turno turno;
+    private final int tickets;
+    private final int lineas;
+    private final int unidades;
+    private final Dinero total;
+    private final Dinero efectivoEsperado;
+    private final Dinero efectivoContado;
+    private final List<TotalAgrupado> detalle; // por producto; vacío en los listados
+
+    public Cierre(Turno turno, int tickets, int lineas, int unidades, Dinero total,
+                  Dinero efectivoEsperado, Dinero efectivoContado, List<TotalAgrupado> detalle) {
+        this.turno = turno;
+        this.tickets = tickets;
+        this.lineas = lineas;
+        this.unidades = unidades;
+        this.total = total;
+        this.efectivoEsperado = efectivoEsperado;
+        this.efectivoContado = efectivoContado;
+        this.detalle = detalle == null ? Collections.<TotalAgrupado>emptyList() : Collections.unmodifiableList(detalle);
+    }
+
+    public Turno getTurno() { return turno; }
+    public Instant getFecha() { return turno.getCierre(); }
+    public int getTickets() { return tickets; }
+    public int getLineas() { return lineas; }
+    public int getUnidades() { return unidades; }
+    public Dinero getTotal() { return total; }
+    public Dinero getEfectivoEsperado() { return efectivoEsperado; }
+    public Dinero getEfectivoContado() { return efectivoContado; }
+    public List<TotalAgrupado> getDetalle() { return detalle; }
+
+    // Sobrante (positivo) o faltante (negativo) de caja.
+    public Dinero getDiferencia() {
+        return efectivoContado.restar(efectivoEsperado);
+    }
+
+    public Dinero getTicketPromedio() {
+        return tickets == 0 ? Dinero.CERO : total.dividir(tickets);
+    }
+}
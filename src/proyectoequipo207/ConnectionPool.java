@@ -0,0 +1,304 @@
+package proyectoequipo207;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Pool acotado de conexiones SQLite de larga vida.
+// El driver se carga una sola vez y cada conexión guarda sus PreparedStatement ya compilados,
+// así que una consulta repetida no vuelve a pagar ni la conexión ni el parseo del SQL.
+public class ConnectionPool {
+
+    private static final String DRIVER = "org.sqlite.JDBC";
+
+    private final String url;
+    private final int maxConexiones;
+    private final long esperaMaximaMs;
+    private final InicializadorConexion inicializador;
+
+    private final BlockingQueue<Conexion> libres;
+    private final List<Conexion> todas = new CopyOnWriteArrayList<>();
+    private final AtomicInteger creadas = new AtomicInteger();
+    private volatile boolean cerrado = false;
+
+    // Métricas del pool
+    private final AtomicLong prestamos = new AtomicLong();
+    private final AtomicLong esperas = new AtomicLong();
+    private final AtomicLong nanosAdquisicion = new AtomicLong();
+    private final AtomicLong aciertosSentencias = new AtomicLong();
+    private final AtomicLong fallosSentencias = new AtomicLong();
+    private final MetricsRegistry.Histograma adquisicion = MetricsRegistry.global().histograma("pool.adquisicion");
+
+    // Configuración que se aplica una vez a cada conexión física recién abierta (PRAGMAs, etc.).
+    public interface InicializadorConexion {
+        void inicializar(Connection conn) throws SQLException;
+    }
+
+    public ConnectionPool(String url, int maxConexiones, long esperaMaximaMs) {
+        this(url, maxConexiones, esperaMaximaMs, conn -> { });
+    }
+
+    public ConnectionPool(String url, int maxConexiones, long esperaMaximaMs, InicializadorConexion inicializador) {
+        if (maxConexiones < 1) {
+            throw new IllegalArgumentException("El pool necesita al menos una conexión.");
+        }
+        this.url = url;
+        this.maxConexiones = maxConexiones;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.inicializador = inicializador;
+        this.libres = new ArrayBlockingQueue<>(maxConexiones);
+        cargarDriver();
+    }
+
+    private static void cargarDriver() {
+        try {
+            Class.forName(DRIVER);
+        } catch (ClassNotFoundException e) {
+            Log.error("Error FATAL: No se encontró el driver JDBC de SQLite. Asegúrate de que el JAR esté en el classpath.");
+        }
+    }
+
+    // Presta una conexión del pool. Se devuelve al pool con close() (try-with-resources).
+    public Conexion obtener() throws SQLException {
+        return obtener(null);
+    }
+
+    // Igual que obtener(), y al devolver la conexión registra en 'operacion' el tiempo total del préstamo
+    // (espera incluida): es la latencia de la operación que la usó.
+    public Conexion obtener(MetricsRegistry.Histograma operacion) throws SQLException {
+        if (cerrado) {
+            throw new SQLException("El pool de conexiones está cerrado.");
+        }
+        long inicio = System.nanoTime();
+        Conexion c = libres.poll();
+        if (c == null) {
+            c = crearSiHayCupo();
+        }
+        if (c == null) {
+            esperas.incrementAndGet();
+            try {
+                c = libres.poll(esperaMaximaMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrumpido esperando una conexión libre.", e);
+            }
+            if (c == null) {
+                throw new SQLException("Tiempo de espera agotado: no hay conexiones libres en el pool.");
+            }
+        }
+        long espera = System.nanoTime() - inicio;
+        nanosAdquisicion.addAndGet(espera);
+        adquisicion.registrar(espera);
+        prestamos.incrementAndGet();
+        c.operacion = operacion;
+        c.inicioOperacion = inicio;
+        return c;
+    }
+
+    private Conexion crearSiHayCupo() throws SQLException {
+        while (true) {
+            int actuales = creadas.get();
+            if (actuales >= maxConexiones) {
+                return null;
+            }
+            if (creadas.compareAndSet(actuales, actuales + 1)) {
+                break;
+            }
+        }
+        Connection conn = null;
+        try {
+            conn = DriverManager.getConnection(url);
+            inicializador.inicializar(conn);
+            Conexion c = new Conexion(conn);
+            todas.add(c);
+            return c;
+        } catch (SQLException e) {
+            creadas.decrementAndGet();
+            if (conn != null) {
+                conn.close();
+            }
+            throw e;
+        }
+    }
+
+    // Devuelve la conexión al pool, deshaciendo cualquier transacción que haya quedado abierta.
+    private void liberar(Conexion c) {
+        long duracion = System.nanoTime() - c.inicioOperacion;
+        if (c.operacion != null) {
+            c.operacion.registrar(duracion);
+        }
+        if (c.ultimoSql != null) {
+            String operacion = c.operacion == null ? "conexión" : c.operacion.getNombre();
+            String sql = c.ultimoSql;
+            Log.debug(() -> String.format(java.util.Locale.US, "%s: %.3f ms [%s]", operacion, duracion / 1_000_000.0, sql));
+            c.ultimoSql = null;
+        }
+        c.operacion = null;
+        try {
+            if (c.conn.isClosed()) {
+                descartar(c);
+                return;
+            }
+            if (!c.conn.getAutoCommit()) {
+                c.conn.rollback();
+                c.conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            Log.warn("Conexión descartada del pool: " + e.getMessage());
+            descartar(c);
+            return;
+        }
+        if (cerrado || !libres.offer(c)) {
+            descartar(c);
+        }
+    }
+
+    private void descartar(Conexion c) {
+        if (todas.remove(c)) {
+            creadas.decrementAndGet();
+        }
+        c.cerrarFisicamente();
+    }
+
+    // Cierra todas las conexiones del pool. Las conexiones prestadas se cierran al devolverse.
+    public void cerrar() {
+        cerrado = true;
+        Conexion c;
+        while ((c = libres.poll()) != null) {
+            descartar(c);
+        }
+    }
+
+    public boolean estaCerrado() {
+        return cerrado;
+    }
+
+    public Estadisticas getEstadisticas() {
+        return new Estadisticas(
+                creadas.get(),
+                libres.size(),
+                maxConexiones,
+                prestamos.get(),
+                esperas.get(),
+                nanosAdquisicion.get(),
+                aciertosSentencias.get(),
+                fallosSentencias.get());
+    }
+
+    // Conexión prestada por el pool con su caché de sentencias preparadas.
+    public final class Conexion implements AutoCloseable {
+        private final Connection conn;
+        private final Map<String, PreparedStatement> sentencias = new HashMap<>();
+        // Medición del préstamo en curso (solo la toca el hilo que tiene la conexión)
+        private MetricsRegistry.Histograma operacion;
+        private long inicioOperacion;
+        // Último SQL preparado en el préstamo; solo se guarda con el registro en DEBUG
+        private String ultimoSql;
+
+        private Conexion(Connection conn) {
+            this.conn = conn;
+        }
+
+        // Retorna la sentencia cacheada para este SQL. No debe cerrarse: vive con la conexión.
+        public PreparedStatement preparar(String sql) throws SQLException {
+            if (Log.debugActivo()) {
+                ultimoSql = sql;
+            }
+            PreparedStatement ps = sentencias.get(sql);
+            if (ps != null) {
+                aciertosSentencias.incrementAndGet();
+                return ps;
+            }
+            fallosSentencias.incrementAndGet();
+            ps = conn.prepareStatement(sql);
+            sentencias.put(sql, ps);
+            return ps;
+        }
+
+        // Cierra las sentencias cacheadas. Se llama cuando una falla a mitad de ejecución: el driver
+        // la deja inutilizable ("statement is not executing") y cada préstamo siguiente fallaría igual.
+        public void descartarSentencias() {
+            for (PreparedStatement ps : sentencias.values()) {
+                try {
+                    ps.close();
+                } catch (SQLException ignored) {
+                    // Se vuelve a preparar en el próximo uso
+                }
+            }
+            sentencias.clear();
+        }
+
+        // Acceso a la conexión JDBC para transacciones y DDL.
+        public Connection getConnection() {
+            return conn;
+        }
+
+        @Override
+        public void close() {
+            liberar(this);
+        }
+
+        private void cerrarFisicamente() {
+            descartarSentencias();
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                Log.error("Error cerrando conexión: " + e.getMessage());
+            }
+        }
+    }
+
+    // Foto inmutable de las métricas del pool.
+    public static final class Estadisticas {
+        private final int conexionesAbiertas;
+        private final int conexionesLibres;
+        private final int maxConexiones;
+        private final long prestamos;
+        private final long esperas;
+        private final long nanosAdquisicion;
+        private final long aciertosSentencias;
+        private final long fallosSentencias;
+
+        private Estadisticas(int conexionesAbiertas, int conexionesLibres, int maxConexiones, long prestamos,
+                             long esperas, long nanosAdquisicion, long aciertosSentencias, long fallosSentencias) {
+            this.conexionesAbiertas = conexionesAbiertas;
+            this.conexionesLibres = conexionesLibres;
+            this.maxConexiones = maxConexiones;
+            this.prestamos = prestamos;
+            this.esperas = esperas;
+            this.nanosAdquisicion = nanosAdquisicion;
+            this.aciertosSentencias = aciertosSentencias;
+            this.fallosSentencias = fallosSentencias;
+        }
+
+        public int getConexionesAbiertas() { return conexionesAbiertas; }
+        public int getConexionesLibres() { return conexionesLibres; }
+        public int getMaxConexiones() { return maxConexiones; }
+        public long getPrestamos() { return prestamos; }
+        public long getEsperas() { return esperas; }
+        public long getAciertosSentencias() { return aciertosSentencias; }
+        public long getFallosSentencias() { return fallosSentencias; }
+
+        public double getAdquisicionPromedioMs() {
+            return prestamos == 0 ? 0.0 : (nanosAdquisicion / 1_000_000.0) / prestamos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(java.util.Locale.US,
+                    "Pool[abiertas=%d/%d, libres=%d, préstamos=%d, esperas=%d, adquisición promedio=%.3f ms, sentencias cacheadas=%d aciertos/%d fallos]",
+                    conexionesAbiertas, maxConexiones, conexionesLibres, prestamos, esperas,
+                    getAdquisicionPromedioMs(), aciertosSentencias, fallosSentencias);
+        }
+    }
+}
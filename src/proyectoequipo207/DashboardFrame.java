@@ -11,6 +11,17 @@ public class DashboardFrame extends JFrame {
 
     private DatabaseManager dbManager;
     private Usuario usuario; 
+    private final LoginFrame loginFrame;
+
+    // Ventanas que se conservan entre cajeros: cambiar de usuario no reconstruye nada
+    private POSFrame posFrame;
+    private PinPadDialog pinPad;
+
+    // Componentes que dependen del usuario (ver aplicarUsuario)
+    private JLabel welcomeLabel;
+    private JButton diagnosticsButton;
+    private JButton menuButton;
+    private JButton reportButton;
     
     // Constantes de Estilo
     private final Color COLOR_FONDO = new Color(245, 239, 230);        // Fondo
@@ -21,10 +32,11 @@ public class DashboardFrame extends JFrame {
     private final Font FONT_TARJETA_TITULO = new Font("Arial", Font.BOLD, 22);
     private final Font FONT_TARJETA_DESC = new Font("Arial", Font.PLAIN, 14);
 
-    public DashboardFrame(DatabaseManager dbManager, Usuario usuario) {
+    public DashboardFrame(DatabaseManager dbManager, Usuario usuario, LoginFrame loginFrame) {
         super("CAFESOFT - Dashboard");
         this.dbManager = dbManager;
         this.usuario = usuario; 
+        this.loginFrame = loginFrame;
         
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setSize(1000, 700); 
@@ -33,9 +45,41 @@ public class DashboardFrame extends JFrame {
         getContentPane().setBackground(COLOR_FONDO);
 
         initComponents();
+        aplicarUsuario();
         
         validate();
     }
+
+    // Cambia el usuario del Dashboard (y del POS, si ya se abrió) sin reconstruir las ventanas.
+    public void setUsuario(Usuario usuario) {
+        this.usuario = usuario;
+        aplicarUsuario();
+        if (posFrame != null) {
+            posFrame.setUsuario(usuario);
+        }
+    }
+
+    // Nombre, rol y botones habilitados según el usuario actual.
+    private void aplicarUsuario() {
+        welcomeLabel.setText("<html><div style='text-align: right;'><b>" + usuario.getNombreUsuario() + "</b><br><span style='color: #A88775;'>Rol: " + usuario.getRol() + "</span></div></html>");
+        diagnosticsButton.setVisible(usuario.esAdmin());
+
+        if (usuario.esAdmin()) {
+            styleButton(menuButton, COLOR_ACCENT_BOTON, Color.WHITE);
+            menuButton.setEnabled(true);
+            menuButton.setText("GESTIÓN DE PRODUCTOS");
+            styleButton(reportButton, COLOR_ACCENT_BOTON, Color.WHITE);
+            reportButton.setEnabled(true);
+            reportButton.setText("REPORTES Y CIERRES");
+        } else {
+            styleButton(menuButton, Color.LIGHT_GRAY, Color.DARK_GRAY);
+            menuButton.setEnabled(false);
+            menuButton.setText("GESTIÓN DE PRODUCTOS (Solo Admin)");
+            styleButton(reportButton, Color.LIGHT_GRAY, Color.DARK_GRAY);
+            reportButton.setEnabled(false);
+            reportButton.setText("REPORTES Y CIERRES (Solo Admin)");
+        }
+    }
     
     private void initComponents() {
         // 1. Panel Superior Header con Logo, Bienvenida y Logout
@@ -53,18 +97,32 @@ public class DashboardFrame extends JFrame {
         JPanel userArea = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 0));
         userArea.setOpaque(false);
 
-        JLabel welcomeLabel = new JLabel("<html><div style='text-align: right;'><b>" + usuario.getNombreUsuario() + "</b><br><span style='color: #A88775;'>Rol: " + usuario.getRol() + "</span></div></html>");
+        welcomeLabel = new JLabel();
         welcomeLabel.setFont(new Font("Arial", Font.PLAIN, 16));
         welcomeLabel.setForeground(Color.WHITE);
         userArea.add(welcomeLabel);
 
         JButton logoutButton = new JButton("Cerrar Sesión");
         styleButton(logoutButton, COLOR_ACCENT_BOTON, COLOR_PRIMARIO);
-        logoutButton.addActionListener(e -> {
-            this.dispose();
-            LoginFrame loginFrame = new LoginFrame(dbManager);
-            loginFrame.setVisible(true);
-        });
+        logoutButton.addActionListener(e -> logout());
+
+        // Diagnóstico de rendimiento, solo para administradores
+        diagnosticsButton = new JButton("Diagnóstico");
+        styleButton(diagnosticsButton, COLOR_ACCENT_BOTON, COLOR_PRIMARIO);
+        diagnosticsButton.addActionListener(e -> openDiagnostics());
+        userArea.add(diagnosticsButton);
+
+        // Cambio rápido de cajero con PIN
+        JButton pinButton = new JButton("Mi PIN");
+        styleButton(pinButton, COLOR_ACCENT_BOTON, COLOR_PRIMARIO);
+        pinButton.addActionListener(e -> changePin());
+        userArea.add(pinButton);
+
+        JButton switchButton = new JButton("Cambiar Usuario");
+        styleButton(switchButton, COLOR_ACCENT_BOTON, COLOR_PRIMARIO);
+        switchButton.addActionListener(e -> switchUser(this));
+        userArea.add(switchButton);
+
         userArea.add(logoutButton);
         
         headerPanel.add(userArea, BorderLayout.EAST);
@@ -98,27 +156,13 @@ public class DashboardFrame extends JFrame {
         buttonContainer.add(posButton);
         
         // Botón 2: Gestión de Menú 
-        JButton menuButton = new JButton("GESTIÓN DE PRODUCTOS");
-        if (usuario.esAdmin()) {
-            styleButton(menuButton, COLOR_ACCENT_BOTON, Color.WHITE);
-            menuButton.addActionListener(e -> openMenuManager());
-        } else {
-            styleButton(menuButton, Color.LIGHT_GRAY, Color.DARK_GRAY);
-            menuButton.setEnabled(false);
-            menuButton.setText("GESTIÓN DE PRODUCTOS (Solo Admin)");
-        }
+        menuButton = new JButton("GESTIÓN DE PRODUCTOS");
+        menuButton.addActionListener(e -> openMenuManager());
         buttonContainer.add(menuButton);
         
         // Botón 3: Reportes de Ventas 
-        JButton reportButton = new JButton("REPORTES Y CIERRES");
-        if (usuario.esAdmin()) {
-            styleButton(reportButton, COLOR_ACCENT_BOTON, Color.WHITE);
-            reportButton.addActionListener(e -> openSalesReporter());
-        } else {
-            styleButton(reportButton, Color.LIGHT_GRAY, Color.DARK_GRAY);
-            reportButton.setEnabled(false);
-            reportButton.setText("REPORTES Y CIERRES (Solo Admin)");
-        }
+        reportButton = new JButton("REPORTES Y CIERRES");
+        reportButton.addActionListener(e -> openSalesReporter());
         buttonContainer.add(reportButton);
 
         // Añadir los componentes centrales: Logo, espacio, Botones
@@ -160,16 +204,70 @@ public class DashboardFrame extends JFrame {
 
     //Métodos de Apertura de Ventanas Sin cambios en la lógica
     
+    // El POS se crea la primera vez y después solo se muestra y oculta.
     private void openPOS() {
         this.setVisible(false);
-        POSFrame posFrame = new POSFrame(dbManager);
-        posFrame.addWindowListener(new java.awt.event.WindowAdapter() {
-            @Override
-            public void windowClosed(java.awt.event.WindowEvent windowEvent) {
-                setVisible(true);
+        if (posFrame == null) {
+            posFrame = new POSFrame(dbManager, usuario);
+            posFrame.setCambioDeUsuario(() -> switchUser(posFrame));
+            posFrame.addWindowListener(new java.awt.event.WindowAdapter() {
+                @Override
+                public void windowClosing(java.awt.event.WindowEvent windowEvent) {
+                    setVisible(true);
+                }
+            });
+        } else {
+            posFrame.refrescarProductos();
+        }
+        posFrame.setVisible(true);
+    }
+
+    // Teclado de PIN sobre la ventana que lo pidió; si alguien entra, pasa a ser el usuario de las ventanas abiertas.
+    private void switchUser(Component origen) {
+        if (pinPad == null) {
+            pinPad = new PinPadDialog(this, dbManager);
+        }
+        Usuario nuevo = pinPad.pedir(origen, usuario.getNombreUsuario());
+        if (nuevo != null) {
+            CambioCredencialesDialog.exigir(origen, dbManager, nuevo, this::setUsuario);
+        }
+    }
+
+    private void changePin() {
+        JPasswordField pinField = new JPasswordField();
+        JPasswordField confirmField = new JPasswordField();
+        Object[] campos = {"Nuevo PIN (4 a 6 dígitos):", pinField, "Repita el PIN:", confirmField};
+        int opcion = JOptionPane.showConfirmDialog(this, campos, "Mi PIN - " + usuario.getNombreUsuario(), JOptionPane.OK_CANCEL_OPTION, JOptionPane.QUESTION_MESSAGE);
+        if (opcion != JOptionPane.OK_OPTION) {
+            return;
+        }
+        String pin = new String(pinField.getPassword());
+        if (!DatabaseManager.esPinValido(pin)) {
+            JOptionPane.showMessageDialog(this, "El PIN debe tener de 4 a 6 dígitos.", "PIN inválido", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        if (!pin.equals(new String(confirmField.getPassword()))) {
+            JOptionPane.showMessageDialog(this, "Los PIN no coinciden.", "PIN inválido", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        String username = usuario.getNombreUsuario();
+        dbManager.async().ejecutarEnSwing(this, () -> dbManager.asignarPin(username, pin), ok -> {
+            if (ok) {
+                JOptionPane.showMessageDialog(this, "PIN actualizado.", "Mi PIN", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this, "No se pudo guardar el PIN.", "Error de DB", JOptionPane.ERROR_MESSAGE);
             }
         });
-        posFrame.setVisible(true);
+    }
+
+    // Vuelve a la ventana de login; Dashboard y POS quedan ocultos para el próximo usuario.
+    private void logout() {
+        if (posFrame != null) {
+            posFrame.setVisible(false);
+        }
+        this.setVisible(false);
+        loginFrame.reiniciar();
+        loginFrame.setVisible(true);
     }
 
     private void openMenuManager() {
@@ -188,6 +286,15 @@ public class DashboardFrame extends JFrame {
         menuManager.setVisible(true);
     }
 
+    // No oculta el Dashboard: se puede dejar abierta mientras se usa el POS.
+    private void openDiagnostics() {
+        if (!usuario.esAdmin()) {
+            JOptionPane.showMessageDialog(this, "Acceso denegado. Se requiere rol de Administrador.", "Permisos", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        new DiagnosticsFrame().setVisible(true);
+    }
+
     private void openSalesReporter() {
         if (!usuario.esAdmin()) {
             JOptionPane.showMessageDialog(this, "Acceso denegado. Se requiere rol de Administrador.", "Permisos", JOptionPane.WARNING_MESSAGE);
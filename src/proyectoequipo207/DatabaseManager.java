@@ -1,235 +1,1950 @@
 package proyectoequipo207;
 
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Date;
-import java.text.SimpleDateFormat;
-import java.text.ParseException;
+import java.time.Instant;
+import java.time.ZoneId;
 
-public class DatabaseManager {
+public class DatabaseManager implements PosBackend, ProductoRepository, VentaRepository, UsuarioRepository {
     
-    private static final String URL = "jdbc:sqlite:cafesoft.db";
+    private final StorageProfile perfil;
+    private final ConnectionPool pool;
+    private CheckpointScheduler checkpoints;
+    private final AsyncDatabase async;
+    private final PosBackend pos; // this, o el cliente del servidor de ventas en modo multi-caja
+    private final ProductCatalog catalogo;
+    private final Inventory inventario = new Inventory();
+    private final SalesJournal diario; // null si las ventas se escriben directo en la base
+    // Recargar la vista del inventario y aplicar un lote del diario no se mezclan (ver Inventory.reservar)
+    private final Object cargaInventario = new Object();
+    private final MetricsRegistry metricas = MetricsRegistry.global();
+    private final PasswordHasher hasher;
+    private final SessionCache sesiones;
+    private final SessionCache sesionesPin;
+    // Hash de referencia para que un usuario inexistente tarde lo mismo que una contraseña incorrecta
+    private volatile String hashFicticio;
 
     public DatabaseManager() {
-        conectar();
+        this(StorageProfile.cargar());
+    }
+
+    public DatabaseManager(StorageProfile perfil) {
+        this.perfil = perfil;
+        pool = new ConnectionPool(perfil.getUrl(), perfil.getMaxConexiones(), perfil.getEsperaMaximaMs(), perfil::aplicar);
+        catalogo = new ProductCatalog(this::leerProductos);
+        hasher = new PasswordHasher(perfil.getIteracionesHash());
+        sesiones = new SessionCache(perfil.getCacheSesionSegundos());
+        sesionesPin = new SessionCache(perfil.getCacheSesionSegundos());
         crearTablas(); 
         inicializarDatosDummy();
+        recargarInventario();
+        // En modo multi-caja (servidor.url) las ventas de esta caja no se guardan aquí
+        diario = perfil.usaDiarioVentas() && perfil.getUrlServidor().isEmpty()
+                ? SalesJournal.abrir(this, inventario, perfil) : null;
+        if (perfil.usaWal() && perfil.getCheckpointSegundos() > 0) {
+            checkpoints = new CheckpointScheduler(pool, perfil.getCheckpointModo(), perfil.getCheckpointSegundos());
+        }
+        async = new AsyncDatabase(this);
+        pos = perfil.getUrlServidor().isEmpty() ? this : new SalesClient(perfil);
+        registrarIndicadores();
+    }
+
+    // Contadores del pool, del catálogo y de la cola asíncrona, leídos al consultarlos.
+    private void registrarIndicadores() {
+        metricas.registrarIndicador("catalogo.aciertos", catalogo::getAciertos);
+        metricas.registrarIndicador("catalogo.fallos", catalogo::getFallos);
+        metricas.registrarIndicador("catalogo.recargas", catalogo::getRecargas);
+        metricas.registrarIndicador("pool.prestamos", () -> pool.getEstadisticas().getPrestamos());
+        metricas.registrarIndicador("pool.esperas", () -> pool.getEstadisticas().getEsperas());
+        metricas.registrarIndicador("pool.conexionesAbiertas", () -> pool.getEstadisticas().getConexionesAbiertas());
+        metricas.registrarIndicador("pool.sentencias.aciertos", () -> pool.getEstadisticas().getAciertosSentencias());
+        metricas.registrarIndicador("pool.sentencias.fallos", () -> pool.getEstadisticas().getFallosSentencias());
+        metricas.registrarIndicador("async.tareasPendientes", async::getTareasPendientes);
+        metricas.registrarIndicador("log.descartados", Log::getDescartados);
+        metricas.registrarIndicador("log.pendientes", Log::getPendientes);
+        metricas.registrarIndicador("inventario.bajoMinimo", () -> inventario.getBajoMinimo().size());
+        metricas.registrarIndicador("auth.cache.aciertos", sesiones::getAciertos);
+        metricas.registrarIndicador("auth.cache.fallos", sesiones::getFallos);
+    }
+
+    // Variantes asíncronas de este gestor, para no hacer I/O en el Event Dispatch Thread.
+    public AsyncDatabase async() {
+        return async;
     }
     
-    // Establece y retorna la conexión a la base de datos SQLite.
-    
-    private Connection conectar() {
-        Connection conn = null;
-        try {
-            // Cargar el driver SQLite
-            Class.forName("org.sqlite.JDBC");
-            conn = DriverManager.getConnection(URL);
-            System.out.println("Conexión a la base de datos exitosa.");
-        } catch (ClassNotFoundException e) {
-            System.err.println("Error FATAL: No se encontró el driver JDBC de SQLite. Asegúrate de que el JAR esté en el classpath.");
-        } catch (SQLException e) {
-            System.err.println("Error de conexión a la base de datos: " + e.getMessage());
+    // Presta una conexión del pool; se devuelve al cerrar el try-with-resources.
+    // El tiempo del préstamo queda en el histograma "db.<operacion>" (ver MetricsRegistry).
+    private ConnectionPool.Conexion conectar(String operacion) throws SQLException {
+        return pool.obtener(metricas.histograma("db." + operacion));
+    }
+
+    // Cierra las conexiones del pool. Se llama al salir de la aplicación.
+    public void cerrar() {
+        async.cerrar();
+        if (diario != null) {
+            diario.cerrar();
         }
-        return conn;
+        if (checkpoints != null) {
+            checkpoints.detener();
+        }
+        Log.info(pool.getEstadisticas().toString());
+        Log.info(catalogo.toString());
+        pool.cerrar();
+    }
+
+    public StorageProfile getPerfil() {
+        return perfil;
     }
+
+    public ConnectionPool.Estadisticas getEstadisticasPool() {
+        return pool.getEstadisticas();
+    }
+
+    public ProductCatalog getCatalogo() {
+        return catalogo;
+    }
+
+    public Inventory getInventario() {
+        return inventario;
+    }
+
+    // Diario de ventas, o null si está desactivado (ventas.diario=false) o no se pudo abrir.
+    public SalesJournal getDiario() {
+        return diario;
+    }
+
+    // Con servidor.url configurado, el POS registra ventas y turnos en el servidor de ventas en lugar del archivo local.
+    public PosBackend getPos() {
+        return pos;
+    }
+
+    public boolean esPosLocal() {
+        return pos == this;
+    }
+
+    // Definiciones de las tablas; %s es el nombre, para poder reconstruirlas en las migraciones.
+    // Los montos (precio, total, precio_unitario) son INTEGER en centavos, ver Dinero.
+    // Las fechas son INTEGER en milisegundos desde epoch (UTC).
+
+    // Los productos vendidos no se borran físicamente (activo = 0) para no romper el historial
+    private static final String DDL_PRODUCTOS = "CREATE TABLE IF NOT EXISTS %s ("
+            + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+            + "nombre TEXT NOT NULL UNIQUE,"
+            + "precio INTEGER NOT NULL,"
+            + "activo INTEGER NOT NULL DEFAULT 1)";
+
+    // Encabezado de orden (un ticket por cobro); turno_id es NULL en ventas hechas fuera de un turno
+    private static final String DDL_ORDENES = "CREATE TABLE IF NOT EXISTS %s ("
+            + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+            + "total INTEGER NOT NULL,"
+            + "fecha INTEGER NOT NULL DEFAULT (CAST(strftime('%%s', 'now') AS INTEGER) * 1000),"
+            + "turno_id INTEGER REFERENCES turnos(id))";
+
+    // Detalle de la orden, referenciando al producto por id
+    private static final String DDL_ORDEN_ITEMS = "CREATE TABLE IF NOT EXISTS %s ("
+            + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+            + "orden_id INTEGER NOT NULL REFERENCES ordenes(id),"
+            + "producto_id INTEGER NOT NULL REFERENCES productos(id),"
+            + "cantidad INTEGER NOT NULL,"
+            + "precio_unitario INTEGER NOT NULL)";
+
+    // Turnos de caja; cierre es NULL mientras está abierto
+    private static final String DDL_TURNOS = "CREATE TABLE IF NOT EXISTS turnos ("
+            + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+            + "usuario TEXT NOT NULL REFERENCES usuarios(username),"
+            + "apertura INTEGER NOT NULL,"
+            + "cierre INTEGER,"
+            + "fondo_inicial INTEGER NOT NULL DEFAULT 0)";
+
+    // Reporte Z: totales del turno congelados al cerrarlo
+    private static final String DDL_CIERRES = "CREATE TABLE IF NOT EXISTS cierres ("
+            + "turno_id INTEGER PRIMARY KEY REFERENCES turnos(id),"
+            + "tickets INTEGER NOT NULL,"
+            + "lineas INTEGER NOT NULL,"
+            + "unidades INTEGER NOT NULL,"
+            + "total INTEGER NOT NULL,"
+            + "efectivo_esperado INTEGER NOT NULL,"
+            + "efectivo_contado INTEGER NOT NULL)";
+
+    // Desglose por producto del reporte Z; guarda el nombre por si el producto cambia después
+    private static final String DDL_CIERRE_ITEMS = "CREATE TABLE IF NOT EXISTS cierre_items ("
+            + "turno_id INTEGER NOT NULL REFERENCES cierres(turno_id),"
+            + "producto_id INTEGER NOT NULL,"
+            + "nombre TEXT NOT NULL,"
+            + "unidades INTEGER NOT NULL,"
+            + "total INTEGER NOT NULL,"
+            + "tickets INTEGER NOT NULL,"
+            + "PRIMARY KEY (turno_id, producto_id)) WITHOUT ROWID";
+
     private void crearTablas() {
-        try (Connection conn = conectar();
-             Statement stmt = conn.createStatement()) {
-            String sqlProductos = "CREATE TABLE IF NOT EXISTS productos ("
-                    + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
-                    + "nombre TEXT NOT NULL UNIQUE,"
-                    + "precio REAL NOT NULL)";
-            
-            // Verificación de nombres de columna: producto, precio_unitario, fecha_venta
-            String sqlVentas = "CREATE TABLE IF NOT EXISTS ventas ("
-                    + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
-                    + "producto TEXT NOT NULL,"
-                    + "cantidad INTEGER NOT NULL,"
-                    + "precio_unitario REAL NOT NULL,"
-                    + "fecha_venta DATETIME DEFAULT CURRENT_TIMESTAMP)";
+        try (ConnectionPool.Conexion c = conectar("crearTablas");
+             Statement stmt = c.getConnection().createStatement()) {
+            // Una base sin productos es nueva: nace con el esquema actual y no necesita migraciones
+            boolean baseNueva = !existeTabla(stmt, "productos");
 
             // TABLA DE USUARIOS 
             String sqlUsuarios = "CREATE TABLE IF NOT EXISTS usuarios ("
                     + "username TEXT PRIMARY KEY,"
                     + "password TEXT NOT NULL,"
-                    + "rol TEXT NOT NULL)";
+                    + "rol TEXT NOT NULL,"
+                    + "pin TEXT,"
+                    + "cambiar_credenciales INTEGER NOT NULL DEFAULT 0)";
 
-            stmt.execute(sqlProductos);
-            stmt.execute(sqlVentas);
+            stmt.execute(String.format(DDL_PRODUCTOS, "productos"));
             stmt.execute(sqlUsuarios); 
+            stmt.execute(String.format(DDL_ORDENES, "ordenes"));
+            stmt.execute(String.format(DDL_ORDEN_ITEMS, "orden_items"));
+            SalesRollup.crearTablas(stmt);
+            Inventory.crearTablas(stmt);
+            stmt.execute(DDL_TURNOS);
+            stmt.execute(DDL_CIERRES);
+            stmt.execute(DDL_CIERRE_ITEMS);
+
+            // Bases creadas antes del borrado lógico no tienen la columna activo
+            if (!existeColumna(stmt, "productos", "activo")) {
+                stmt.execute("ALTER TABLE productos ADD COLUMN activo INTEGER NOT NULL DEFAULT 1");
+            }
+
+            if (baseNueva) {
+                stmt.execute("PRAGMA user_version = " + VERSION_ESQUEMA);
+            } else {
+                migrarEsquema(c.getConnection(), stmt);
+            }
+
+            // Los índices van después de migrar: reconstruir una tabla borra sus índices
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_orden_items_orden ON orden_items(orden_id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_orden_items_producto ON orden_items(producto_id)");
+            // Los reportes filtran por rango de fechas
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_ordenes_fecha ON ordenes(fecha)");
+            // El cierre suma solo las órdenes de su turno
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_ordenes_turno ON ordenes(turno_id)");
+            // A lo sumo un turno abierto por usuario
+            stmt.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_turnos_abierto ON turnos(usuario) WHERE cierre IS NULL");
         } catch (SQLException e) {
-            System.err.println("Error creando tablas: " + e.getMessage());
+            Log.error("Error creando tablas: " + e.getMessage());
         }
     }
 
+    // MIGRACIONES DE ESQUEMA
+    // La versión del esquema se guarda en PRAGMA user_version. Cada paso corre una sola vez,
+    // dentro de una transacción, sobre bases creadas por versiones anteriores del sistema.
+
+    private static final int VERSION_ESQUEMA = 9;
+
+    private void migrarEsquema(Connection conn, Statement stmt) throws SQLException {
+        int version;
+        try (ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            version = rs.next() ? rs.getInt(1) : 0;
+        }
+        if (version >= VERSION_ESQUEMA) {
+            return;
+        }
+        conn.setAutoCommit(false);
+        try {
+            if (version < 1) {
+                migrarVentasAOrdenes(conn, stmt);
+            }
+            if (version < 2) {
+                migrarMontosACentavos(stmt);
+            }
+            if (version < 3) {
+                migrarFechasAEpoch(stmt);
+            }
+            if (version < 4) {
+                // v4: tablas de resumen de ventas, calculadas sobre el historial existente
+                SalesRollup.reconstruir(stmt);
+            }
+            if (version < 5) {
+                // v5: turnos de caja. Las órdenes anteriores quedan sin turno (NULL).
+                // Si un paso anterior reconstruyó ordenes, la columna ya viene en DDL_ORDENES.
+                if (!existeColumna(stmt, "ordenes", "turno_id")) {
+                    stmt.execute("ALTER TABLE ordenes ADD COLUMN turno_id INTEGER REFERENCES turnos(id)");
+                }
+            }
+            if (version < 6) {
+                migrarPasswordsAHash(conn, stmt);
+            }
+            if (version < 7) {
+                // v7: PIN para el cambio rápido de cajero. Nadie tiene PIN hasta que lo asigna.
+                if (!existeColumna(stmt, "usuarios", "pin")) {
+                    stmt.execute("ALTER TABLE usuarios ADD COLUMN pin TEXT");
+                }
+            }
+            if (version < 8) {
+                // v8: el resumen por hora agrupa por hora local. Solo cambia en zonas con desfase
+                // que no es de horas enteras, y solo entonces se recalcula.
+                if (SalesRollup.horasDesalineadas(stmt)) {
+                    SalesRollup.reconstruir(stmt);
+                }
+            }
+            if (version < 9) {
+                // v9: quien siga con las credenciales de fábrica debe cambiarlas al entrar
+                if (!existeColumna(stmt, "usuarios", "cambiar_credenciales")) {
+                    stmt.execute("ALTER TABLE usuarios ADD COLUMN cambiar_credenciales INTEGER NOT NULL DEFAULT 0");
+                }
+                marcarCredencialesDeFabrica(conn);
+            }
+            stmt.execute("PRAGMA user_version = " + VERSION_ESQUEMA);
+            conn.commit();
+            Log.info("Esquema migrado de la versión " + version + " a la " + VERSION_ESQUEMA + ".");
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // v1: la tabla plana ventas (producto por nombre) pasa a ordenes + orden_items (producto por id).
+    // Las líneas que ya tenían orden_id conservan su orden; cada línea suelta se vuelve su propia orden.
+    // Los montos se copian tal cual (en pesos); el paso v2 los convierte a centavos.
+    private void migrarVentasAOrdenes(Connection conn, Statement stmt) throws SQLException {
+        if (!existeTabla(stmt, "ventas")) {
+            return;
+        }
+        boolean tieneOrdenId = existeColumna(stmt, "ventas", "orden_id");
+
+        // Productos vendidos que ya no están en el catálogo se recrean como inactivos
+        stmt.executeUpdate("INSERT OR IGNORE INTO productos(nombre, precio, activo) "
+                + "SELECT producto, MAX(precio_unitario), 0 FROM ventas GROUP BY producto");
+
+        if (tieneOrdenId) {
+            stmt.executeUpdate("INSERT INTO orden_items(id, orden_id, producto_id, cantidad, precio_unitario) "
+                    + "SELECT v.id, v.orden_id, p.id, v.cantidad, v.precio_unitario "
+                    + "FROM ventas v JOIN productos p ON p.nombre = v.producto "
+                    + "WHERE v.orden_id IS NOT NULL");
+        }
+
+        String sqlSueltas = "SELECT v.id, p.id AS producto_id, v.cantidad, v.precio_unitario, v.fecha_venta "
+                + "FROM ventas v JOIN productos p ON p.nombre = v.producto"
+                + (tieneOrdenId ? " WHERE v.orden_id IS NULL" : "")
+                + " ORDER BY v.id";
+        try (Statement lectura = conn.createStatement();
+             ResultSet rs = lectura.executeQuery(sqlSueltas);
+             PreparedStatement insOrden = conn.prepareStatement("INSERT INTO ordenes(total, fecha) VALUES(?, ?)");
+             PreparedStatement insItem = conn.prepareStatement("INSERT INTO orden_items(id, orden_id, producto_id, cantidad, precio_unitario) "
+                     + "VALUES(?, last_insert_rowid(), ?, ?, ?)")) {
+            while (rs.next()) {
+                insOrden.setDouble(1, rs.getInt("cantidad") * rs.getDouble("precio_unitario"));
+                insOrden.setString(2, rs.getString("fecha_venta"));
+                insOrden.executeUpdate();
+
+                insItem.setInt(1, rs.getInt("id"));
+                insItem.setInt(2, rs.getInt("producto_id"));
+                insItem.setInt(3, rs.getInt("cantidad"));
+                insItem.setDouble(4, rs.getDouble("precio_unitario"));
+                insItem.executeUpdate();
+            }
+        }
+
+        stmt.execute("DROP TABLE ventas");
+    }
+
+    // v2: los montos pasan de REAL (pesos con decimales) a INTEGER (centavos).
+    // SQLite no permite cambiar el tipo de una columna, así que cada tabla se reconstruye:
+    // se crea la nueva, se copian las filas convirtiendo, se borra la vieja y se renombra.
+    private void migrarMontosACentavos(Statement stmt) throws SQLException {
+        reconstruirTabla(stmt, "productos", DDL_PRODUCTOS, "id, nombre, precio, activo",
+                "id, nombre, CAST(ROUND(precio * 100) AS INTEGER), activo");
+        reconstruirTabla(stmt, "ordenes", DDL_ORDENES, "id, total, fecha",
+                "id, CAST(ROUND(total * 100) AS INTEGER), fecha");
+        reconstruirTabla(stmt, "orden_items", DDL_ORDEN_ITEMS, "id, orden_id, producto_id, cantidad, precio_unitario",
+                "id, orden_id, producto_id, cantidad, CAST(ROUND(precio_unitario * 100) AS INTEGER)");
+    }
+
+    // v3: ordenes.fecha pasa de texto 'yyyy-MM-dd HH:mm:ss' (UTC, CURRENT_TIMESTAMP) a milisegundos
+    // desde epoch. Leer una fila deja de requerir parsear texto y los rangos comparan enteros.
+    private void migrarFechasAEpoch(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM ordenes "
+                + "WHERE typeof(fecha) <> 'integer' AND strftime('%s', fecha) IS NULL")) {
+            if (rs.next() && rs.getInt(1) > 0) {
+                Log.warn("Migración de fechas: " + rs.getInt(1) + " órdenes sin fecha válida quedan en 1970-01-01.");
+            }
+        }
+        reconstruirTabla(stmt, "ordenes", DDL_ORDENES, "id, total, fecha",
+                "id, total, CASE WHEN typeof(fecha) = 'integer' THEN fecha "
+                + "ELSE COALESCE(CAST(strftime('%s', fecha) AS INTEGER) * 1000, 0) END");
+    }
+
+    private void reconstruirTabla(Statement stmt, String tabla, String ddl, String columnas, String seleccion) throws SQLException {
+        String nueva = tabla + "_nueva";
+        stmt.execute("DROP TABLE IF EXISTS " + nueva);
+        stmt.execute(String.format(ddl, nueva));
+        stmt.executeUpdate("INSERT INTO " + nueva + "(" + columnas + ") SELECT " + seleccion + " FROM " + tabla);
+        stmt.execute("DROP TABLE " + tabla);
+        stmt.execute("ALTER TABLE " + nueva + " RENAME TO " + tabla);
+    }
+
+    private boolean existeTabla(Statement stmt, String tabla) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = '" + tabla + "'")) {
+            return rs.next();
+        }
+    }
+
+    // v6: las contraseñas en texto plano pasan a PBKDF2 con sal (ver PasswordHasher).
+    private void migrarPasswordsAHash(Connection conn, Statement stmt) throws SQLException {
+        Map<String, String> planas = new java.util.LinkedHashMap<>();
+        try (ResultSet rs = stmt.executeQuery("SELECT username, password FROM usuarios")) {
+            while (rs.next()) {
+                if (!PasswordHasher.esHash(rs.getString("password"))) {
+                    planas.put(rs.getString("username"), rs.getString("password"));
+                }
+            }
+        }
+        try (PreparedStatement ps = conn.prepareStatement("UPDATE usuarios SET password = ? WHERE username = ?")) {
+            for (Map.Entry<String, String> usuario : planas.entrySet()) {
+                ps.setString(1, hasher.hashear(usuario.getValue()));
+                ps.setString(2, usuario.getKey());
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    // v9: marca las cuentas iniciales cuya contraseña o PIN todavía es el de fábrica.
+    private void marcarCredencialesDeFabrica(Connection conn) throws SQLException {
+        try (PreparedStatement select = conn.prepareStatement("SELECT password, pin FROM usuarios WHERE username = ?");
+             PreparedStatement update = conn.prepareStatement("UPDATE usuarios SET cambiar_credenciales = 1 WHERE username = ?")) {
+            for (String[] inicial : USUARIOS_INICIALES) {
+                boolean deFabrica = false;
+                select.setString(1, inicial[0]);
+                try (ResultSet rs = select.executeQuery()) {
+                    if (rs.next()) {
+                        String pin = rs.getString("pin");
+                        deFabrica = PasswordHasher.verificar(inicial[1], rs.getString("password"))
+                                || (pin != null && PasswordHasher.verificar(inicial[2], pin));
+                    }
+                }
+                if (deFabrica) {
+                    update.setString(1, inicial[0]);
+                    update.executeUpdate();
+                }
+            }
+        }
+    }
+
+    private boolean existeColumna(Statement stmt, String tabla, String columna) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + tabla + ")")) {
+            while (rs.next()) {
+                if (columna.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     private void inicializarDatosDummy() {
         // Inicialización de productos (dejamos tu lógica si ya existe)
         if (obtenerProductos().isEmpty()) {
-            agregarProducto("Café Americano", 4500);
-            agregarProducto("Cappuccino", 6500);
-            agregarProducto("Latte", 6000);
-            agregarProducto("Muffin de Arándanos", 4800);
-            agregarProducto("Sandwich de Pollo", 8500);
-            System.out.println("Datos de productos inicializados.");
+            agregarProducto("Café Americano", Dinero.deUnidades(4500));
+            agregarProducto("Cappuccino", Dinero.deUnidades(6500));
+            agregarProducto("Latte", Dinero.deUnidades(6000));
+            agregarProducto("Muffin de Arándanos", Dinero.deUnidades(4800));
+            agregarProducto("Sandwich de Pollo", Dinero.deUnidades(8500));
+            inicializarInventarioDummy();
+            Log.info("Datos de productos inicializados.");
         }
         
         // Inicialización de Usuarios por defecto si no existen
-        try (Connection conn = conectar();
-             PreparedStatement checkStmt = conn.prepareStatement("SELECT count(*) FROM usuarios");
-             ResultSet rs = checkStmt.executeQuery()) {
-            
-            if (rs.next() && rs.getInt(1) == 0) {
-                insertInitialUser(conn, "admin", "123", "ADMIN");
-                insertInitialUser(conn, "vendedor", "456", "VENDEDOR");
-                System.out.println("Usuarios por defecto creados (admin/123, vendedor/456).");
+        try (ConnectionPool.Conexion c = conectar("inicializarDatosDummy")) {
+            PreparedStatement checkStmt = c.preparar("SELECT count(*) FROM usuarios");
+            try (ResultSet rs = checkStmt.executeQuery()) {
+                if (rs.next() && rs.getInt(1) == 0) {
+                    for (String[] inicial : USUARIOS_INICIALES) {
+                        insertInitialUser(c, inicial[0], inicial[1], inicial[2], inicial[3]);
+                    }
+                    // Las credenciales no van al log: son de fábrica y se cambian en el primer ingreso
+                    Log.info("Usuarios por defecto creados (admin, vendedor). Deben cambiar su contraseña y PIN al entrar.");
+                }
             }
         } catch (SQLException e) {
-            System.err.println("Error verificando o creando usuarios iniciales: " + e.getMessage());
+            Log.error("Error verificando o creando usuarios iniciales: " + e.getMessage());
         }
     }
     
-    private void insertInitialUser(Connection conn, String username, String password, String rol) throws SQLException {
-        String sql = "INSERT OR IGNORE INTO usuarios(username, password, rol) VALUES(?, ?, ?)";
-        // Reutilizamos la conexión 'conn' que está abierta en inicializarDatosDummy
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, username);
-            pstmt.setString(2, password);
-            pstmt.setString(3, rol);
-            pstmt.executeUpdate();
+    // Insumos y recetas de ejemplo para los productos iniciales (solo en una base nueva).
+    private void inicializarInventarioDummy() {
+        ProductCatalog.Snapshot productos = catalogo.getSnapshot();
+        int espresso = agregarInsumo("Shot de Espresso", "u", 400, 50);
+        int leche = agregarInsumo("Leche", "ml", 20000, 3000);
+        int muffin = agregarInsumo("Muffin de Arándanos", "u", 24, 6);
+        int sandwich = agregarInsumo("Sandwich de Pollo", "u", 15, 4);
+        guardarRecetaDummy(productos.porNombre("Café Americano"), espresso, 1);
+        guardarRecetaDummy(productos.porNombre("Cappuccino"), espresso, 1, leche, 120);
+        guardarRecetaDummy(productos.porNombre("Latte"), espresso, 1, leche, 200);
+        guardarRecetaDummy(productos.porNombre("Muffin de Arándanos"), muffin, 1);
+        guardarRecetaDummy(productos.porNombre("Sandwich de Pollo"), sandwich, 1);
+    }
+
+    // Pares (insumo, cantidad) para la receta del producto.
+    private void guardarRecetaDummy(Producto producto, int... insumosYCantidades) {
+        if (producto == null) {
+            return;
+        }
+        Map<Integer, Long> receta = new java.util.TreeMap<>();
+        for (int i = 0; i + 1 < insumosYCantidades.length; i += 2) {
+            if (insumosYCantidades[i] > 0) {
+                receta.put(insumosYCantidades[i], (long) insumosYCantidades[i + 1]);
+            }
         }
+        guardarReceta(producto.getId(), receta);
+    }
+
+    // Cuentas de una instalación nueva: usuario, contraseña, PIN y rol. Son iguales en todas las
+    // instalaciones, así que nacen marcadas y el primer ingreso obliga a cambiarlas (ver cambiarCredenciales).
+    private static final String[][] USUARIOS_INICIALES = {
+            {"admin", "123", "1234", "ADMIN"},
+            {"vendedor", "456", "4567", "VENDEDOR"}};
+
+    private void insertInitialUser(ConnectionPool.Conexion c, String username, String password, String pin, String rol) throws SQLException {
+        String sql = "INSERT OR IGNORE INTO usuarios(username, password, rol, pin, cambiar_credenciales) VALUES(?, ?, ?, ?, 1)";
+        // Reutilizamos la conexión que está abierta en inicializarDatosDummy
+        PreparedStatement pstmt = c.preparar(sql);
+        pstmt.setString(1, username);
+        pstmt.setString(2, hasher.hashear(password));
+        pstmt.setString(3, rol);
+        pstmt.setString(4, hasher.hashear(pin));
+        pstmt.executeUpdate();
     }
 
 
     //  MÉTODOS DE USUARIOS 
 
-    // Este método sigue abriendo una nueva conexión para el registro en tiempo de ejecución.
-    public void registrarUsuario(String username, String password, String rol) {
+    @Override
+    public boolean registrarUsuario(String username, String password, String rol) {
         String sql = "INSERT OR IGNORE INTO usuarios(username, password, rol) VALUES(?, ?, ?)";
-        try (Connection conn = conectar();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        // El hash se calcula antes de pedir la conexión: PBKDF2 tarda a propósito
+        String hash = hasher.hashear(password);
+        sesiones.invalidar(username);
+        try (ConnectionPool.Conexion c = conectar("registrarUsuario")) {
+            PreparedStatement pstmt = c.preparar(sql);
             pstmt.setString(1, username);
-            pstmt.setString(2, password);
+            pstmt.setString(2, hash);
             pstmt.setString(3, rol);
-            pstmt.executeUpdate();
+            return pstmt.executeUpdate() > 0;
         } catch (SQLException e) {
-            System.err.println("Error registrando usuario: " + e.getMessage());
+            Log.error("Error registrando usuario: " + e.getMessage());
+            return false;
         }
     }
 
+    @Override
     public Usuario autenticarUsuario(String username, String password) {
-        String sql = "SELECT rol FROM usuarios WHERE username = ? AND password = ?";
-        try (Connection conn = conectar();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        // Credenciales verificadas hace poco: ni consulta ni PBKDF2
+        Usuario enCache = sesiones.buscar(username, password);
+        if (enCache != null) {
+            return enCache;
+        }
+
+        String sql = "SELECT password, rol, cambiar_credenciales FROM usuarios WHERE username = ?";
+        String almacenado = null;
+        String rol = null;
+        boolean cambiar = false;
+        try (ConnectionPool.Conexion c = conectar("autenticarUsuario")) {
+            PreparedStatement pstmt = c.preparar(sql);
             pstmt.setString(1, username);
-            pstmt.setString(2, password);
             
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                String rol = rs.getString("rol");
-                return new Usuario(username, rol); 
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    almacenado = rs.getString("password");
+                    rol = rs.getString("rol");
+                    cambiar = rs.getInt("cambiar_credenciales") != 0;
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("Error de autenticación: " + e.getMessage());
+            return null;
+        }
+
+        // La verificación corre con la conexión ya devuelta al pool
+        if (almacenado == null) {
+            PasswordHasher.verificar(password, hashFicticio());
+            return null; // Retorna null si el login falla
+        }
+        if (!PasswordHasher.verificar(password, almacenado)) {
+            return null;
+        }
+        if (cambiar) {
+            // Credenciales de fábrica: no se guardan en la caché, así cada ingreso vuelve a ver la marca
+            return new Usuario(username, rol, true);
+        }
+        if (hasher.necesitaRehash(almacenado)) {
+            actualizarHash(username, almacenado, hasher.hashear(password));
+        }
+        sesiones.guardar(username, password, rol);
+        return new Usuario(username, rol);
+    }
+
+    // Rehace el hash con el factor de trabajo configurado, salvo que la contraseña haya cambiado mientras tanto.
+    private void actualizarHash(String username, String anterior, String nuevo) {
+        String sql = "UPDATE usuarios SET password = ? WHERE username = ? AND password = ?";
+        try (ConnectionPool.Conexion c = conectar("actualizarHash")) {
+            PreparedStatement pstmt = c.preparar(sql);
+            pstmt.setString(1, nuevo);
+            pstmt.setString(2, username);
+            pstmt.setString(3, anterior);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            Log.warn("No se pudo actualizar el hash de la contraseña de " + username + ": " + e.getMessage());
+        }
+    }
+
+    private String hashFicticio() {
+        String hash = hashFicticio;
+        if (hash == null) {
+            hash = hasher.hashear("");
+            hashFicticio = hash;
+        }
+        return hash;
+    }
+
+    // Descarta las credenciales verificadas en memoria (la próxima autenticación vuelve a la base).
+    void invalidarSesiones() {
+        sesiones.invalidarTodo();
+        sesionesPin.invalidarTodo();
+    }
+
+    // PIN PARA CAMBIO RÁPIDO DE CAJERO
+    // El PIN se guarda con el mismo hash que la contraseña. Tras varios intentos fallidos seguidos
+    // el usuario queda bloqueado unos segundos (ver SessionCache).
+
+    public static boolean esPinValido(String pin) {
+        return pin != null && pin.matches("\\d{4,6}");
+    }
+
+    @Override
+    public boolean asignarPin(String username, String pin) {
+        if (!esPinValido(pin)) {
+            return false;
+        }
+        String sql = "UPDATE usuarios SET pin = ? WHERE username = ?";
+        String hash = hasher.hashear(pin);
+        sesionesPin.invalidar(username);
+        try (ConnectionPool.Conexion c = conectar("asignarPin")) {
+            PreparedStatement pstmt = c.preparar(sql);
+            pstmt.setString(1, hash);
+            pstmt.setString(2, username);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            Log.error("Error asignando PIN: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public Usuario autenticarPorPin(String username, String pin) {
+        if (sesionesPin.estaBloqueado(username)) {
+            return null;
+        }
+        Usuario enCache = sesionesPin.buscar(username, pin);
+        if (enCache != null) {
+            return enCache;
+        }
+
+        String sql = "SELECT pin, rol, cambiar_credenciales FROM usuarios WHERE username = ?";
+        String almacenado = null;
+        String rol = null;
+        boolean cambiar = false;
+        try (ConnectionPool.Conexion c = conectar("autenticarPorPin")) {
+            PreparedStatement pstmt = c.preparar(sql);
+            pstmt.setString(1, username);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    almacenado = rs.getString("pin");
+                    rol = rs.getString("rol");
+                    cambiar = rs.getInt("cambiar_credenciales") != 0;
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("Error de autenticación por PIN: " + e.getMessage());
+            return null;
+        }
+
+        if (almacenado == null || !PasswordHasher.verificar(pin, almacenado)) {
+            sesionesPin.registrarFallo(username);
+            return null;
+        }
+        sesionesPin.registrarExito(username);
+        if (cambiar) {
+            return new Usuario(username, rol, true);
+        }
+        sesionesPin.guardar(username, pin, rol);
+        return new Usuario(username, rol);
+    }
+
+    @Override
+    public boolean estaBloqueadoPin(String username) {
+        return sesionesPin.estaBloqueado(username);
+    }
+
+    // Reemplaza contraseña y PIN de una vez y quita la marca de credenciales de fábrica.
+    // Se rechaza si alguno de los dos sigue igual al actual o al de fábrica.
+    @Override
+    public boolean cambiarCredenciales(String username, String password, String pin) {
+        if (password == null || password.isEmpty() || !esPinValido(pin)) {
+            return false;
+        }
+        for (String[] inicial : USUARIOS_INICIALES) {
+            if (inicial[0].equals(username) && (inicial[1].equals(password) || inicial[2].equals(pin))) {
+                Log.warn("Cambio de credenciales rechazado para " + username + ": la contraseña o el PIN es el de fábrica");
+                return false;
+            }
+        }
+        String passwordActual = null;
+        String pinActual = null;
+        try (ConnectionPool.Conexion c = conectar("cambiarCredenciales")) {
+            PreparedStatement pstmt = c.preparar("SELECT password, pin FROM usuarios WHERE username = ?");
+            pstmt.setString(1, username);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return false;
+                }
+                passwordActual = rs.getString("password");
+                pinActual = rs.getString("pin");
+            }
+        } catch (SQLException e) {
+            Log.error("Error cambiando credenciales: " + e.getMessage());
+            return false;
+        }
+        if (PasswordHasher.verificar(password, passwordActual) || (pinActual != null && PasswordHasher.verificar(pin, pinActual))) {
+            Log.warn("Cambio de credenciales rechazado para " + username + ": la contraseña o el PIN no cambió");
+            return false;
+        }
+
+        String hashPassword = hasher.hashear(password);
+        String hashPin = hasher.hashear(pin);
+        sesiones.invalidar(username);
+        sesionesPin.invalidar(username);
+        String sql = "UPDATE usuarios SET password = ?, pin = ?, cambiar_credenciales = 0 WHERE username = ?";
+        try (ConnectionPool.Conexion c = conectar("cambiarCredenciales")) {
+            PreparedStatement pstmt = c.preparar(sql);
+            pstmt.setString(1, hashPassword);
+            pstmt.setString(2, hashPin);
+            pstmt.setString(3, username);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            Log.error("Error cambiando credenciales: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Usuarios que pueden entrar con PIN, para los botones del teclado de cambio rápido.
+    @Override
+    public List<Usuario> obtenerUsuariosConPin() {
+        List<Usuario> usuarios = new ArrayList<>();
+        String sql = "SELECT username, rol FROM usuarios WHERE pin IS NOT NULL ORDER BY username";
+        try (ConnectionPool.Conexion c = conectar("obtenerUsuariosConPin")) {
+            PreparedStatement pstmt = c.preparar(sql);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    usuarios.add(new Usuario(rs.getString("username"), rs.getString("rol")));
+                }
             }
         } catch (SQLException e) {
-            System.err.println("Error de autenticación: " + e.getMessage());
+            Log.error("Error obteniendo usuarios con PIN: " + e.getMessage());
         }
-        return null; // Retorna null si el login falla
+        return usuarios;
     }
 
     // MÉTODOS DE PRODUCTOS 
 
-    public boolean agregarProducto(String nombre, double precio) {
+    public boolean agregarProducto(String nombre, Dinero precio) {
+        // Si el nombre pertenece a un producto dado de baja, se reactiva conservando su id
+        String sqlReactivar = "UPDATE productos SET precio = ?, activo = 1 WHERE nombre = ? AND activo = 0";
         String sql = "INSERT INTO productos(nombre, precio) VALUES(?, ?)";
-        try (Connection conn = conectar();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, nombre);
-            pstmt.setDouble(2, precio);
-            pstmt.executeUpdate();
+        try (ConnectionPool.Conexion c = conectar("agregarProducto")) {
+            PreparedStatement reactivar = c.preparar(sqlReactivar);
+            reactivar.setLong(1, precio.getCentavos());
+            reactivar.setString(2, nombre);
+            if (reactivar.executeUpdate() == 0) {
+                PreparedStatement pstmt = c.preparar(sql);
+                pstmt.setString(1, nombre);
+                pstmt.setLong(2, precio.getCentavos());
+                pstmt.executeUpdate();
+            }
+            catalogo.invalidar();
             return true;
         } catch (SQLException e) {
-            System.err.println("Error agregando producto: " + e.getMessage());
+            Log.error("Error agregando producto: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean agregarProducto(Producto producto) {
+        return agregarProducto(producto.getNombre(), producto.getPrecio());
+    }
+
+    @Override
+    public boolean actualizarProducto(Producto producto) {
+        String sql = "UPDATE productos SET nombre = ?, precio = ? WHERE id = ? AND activo = 1";
+        try (ConnectionPool.Conexion c = conectar("actualizarProducto")) {
+            PreparedStatement pstmt = c.preparar(sql);
+            pstmt.setString(1, producto.getNombre());
+            pstmt.setLong(2, producto.getPrecio().getCentavos());
+            pstmt.setInt(3, producto.getId());
+            boolean actualizado = pstmt.executeUpdate() > 0;
+            catalogo.invalidar();
+            return actualizado;
+        } catch (SQLException e) {
+            // Incluye el nombre repetido (productos.nombre es UNIQUE)
+            Log.error("Error actualizando producto: " + e.getMessage());
             return false;
         }
     }
 
+    // Productos activos, servidos desde el catálogo en memoria (la lista no se puede modificar).
+    @Override
     public List<Producto> obtenerProductos() {
+        return catalogo.getSnapshot().getProductos();
+    }
+
+    @Override
+    public Producto obtenerProductoPorId(int id) {
+        return catalogo.getSnapshot().porId(id);
+    }
+
+    @Override
+    public Producto obtenerProductoPorNombre(String nombre) {
+        return catalogo.getSnapshot().porNombre(nombre);
+    }
+
+    // Lectura real de la tabla; solo la usa el catálogo al (re)cargarse. Retorna null si falla.
+    private List<Producto> leerProductos() {
         List<Producto> productos = new ArrayList<>();
-        String sql = "SELECT id, nombre, precio FROM productos";
-        try (Connection conn = conectar();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        String sql = "SELECT id, nombre, precio FROM productos WHERE activo = 1 ORDER BY id";
+        try (ConnectionPool.Conexion c = conectar("leerProductos");
+             ResultSet rs = c.preparar(sql).executeQuery()) {
             while (rs.next()) {
                 productos.add(new Producto(
                     rs.getInt("id"),
                     rs.getString("nombre"),
-                    rs.getDouble("precio")
+                    Dinero.deCentavos(rs.getLong("precio"))
                 ));
             }
         } catch (SQLException e) {
-            System.err.println("Error obteniendo productos: " + e.getMessage());
+            Log.error("Error obteniendo productos: " + e.getMessage());
+            return null;
         }
         return productos;
     }
 
+    // Productos por los que se puede filtrar el historial: los activos y los dados de baja que
+    // tienen ventas. Va a la tabla (el catálogo solo tiene activos), así que no se llama desde el EDT.
+    public List<Producto> obtenerProductosConHistorial() {
+        List<Producto> productos = new ArrayList<>();
+        String sql = "SELECT id, nombre, precio FROM productos p WHERE activo = 1"
+                + " OR EXISTS (SELECT 1 FROM orden_items i WHERE i.producto_id = p.id) ORDER BY id";
+        try (ConnectionPool.Conexion c = conectar("obtenerProductosConHistorial");
+             ResultSet rs = c.preparar(sql).executeQuery()) {
+            while (rs.next()) {
+                productos.add(new Producto(
+                    rs.getInt("id"),
+                    rs.getString("nombre"),
+                    Dinero.deCentavos(rs.getLong("precio"))
+                ));
+            }
+        } catch (SQLException e) {
+            Log.error("Error obteniendo productos con historial: " + e.getMessage());
+        }
+        return productos;
+    }
+
+    // Baja lógica: el producto deja de ofrecerse pero sus ventas siguen referenciándolo.
+    @Override
     public boolean eliminarProducto(int id) {
-        String sql = "DELETE FROM productos WHERE id = ?";
-        try (Connection conn = conectar();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        String sql = "UPDATE productos SET activo = 0 WHERE id = ?";
+        try (ConnectionPool.Conexion c = conectar("eliminarProducto")) {
+            PreparedStatement pstmt = c.preparar(sql);
             pstmt.setInt(1, id);
             pstmt.executeUpdate();
+            catalogo.quitar(id);
             return true;
         } catch (SQLException e) {
-            System.err.println("Error eliminando producto: " + e.getMessage());
+            Log.error("Error eliminando producto: " + e.getMessage());
             return false;
         }
     }
 
     // MÉTODOS DE VENTAS 
 
-    public void registrarVenta(String producto, int cantidad, double precioUnitario) {
-        // Asegúrate que los nombres de las columnas coincidan con la definición de la tabla.
-        String sql = "INSERT INTO ventas(producto, cantidad, precio_unitario) VALUES(?, ?, ?)";
-        try (Connection conn = conectar();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, producto);
-            pstmt.setInt(2, cantidad);
-            pstmt.setDouble(3, precioUnitario);
+    // Registra una venta de un solo producto como una orden de una línea.
+    @Override
+    public boolean registrarVenta(String producto, int cantidad, Dinero precioUnitario) {
+        Producto p = obtenerProductoPorNombre(producto);
+        if (p == null) {
+            Log.error("Error registrando venta: producto desconocido '" + producto + "'");
+            return false;
+        }
+        return registrarOrden(Collections.singletonMap(new Producto(p.getId(), p.getNombre(), precioUnitario), cantidad)) > 0;
+    }
+
+    // Registra una orden fuera de cualquier turno de caja.
+    public int registrarOrden(Map<Producto, Integer> orden) {
+        return registrarOrden(orden, 0);
+    }
+
+    // Registra todas las líneas de una orden en una sola transacción con inserciones en lote.
+    // Si turnoId > 0 la orden se asocia a ese turno, que debe seguir abierto: si ya se cerró la venta
+    // se rechaza, para que no quede fuera de un reporte Z ya congelado.
+    // Retorna el id de la orden, o -1 si falló (en ese caso no queda ninguna línea escrita).
+    @Override
+    public int registrarOrden(Map<Producto, Integer> orden, int turnoId) {
+        return registrarOrdenes(Collections.singletonList(new OrdenPorRegistrar(orden, turnoId)))[0];
+    }
+
+    // Orden en espera de escribirse junto con otras (ver registrarOrdenes).
+    public static final class OrdenPorRegistrar {
+        final Map<Producto, Integer> orden;
+        final int turnoId;
+
+        public OrdenPorRegistrar(Map<Producto, Integer> orden, int turnoId) {
+            this.orden = orden;
+            this.turnoId = turnoId;
+        }
+    }
+
+    // Registra varias órdenes en una sola transacción: un solo commit (y un solo fsync) para todo el lote.
+    // Es el group commit del servidor de ventas. Cada orden va en su propio SAVEPOINT, así una orden
+    // rechazada (stock, turno cerrado) se deshace sin arrastrar a las demás.
+    // Con el diario de ventas activo el lote se confirma en el diario (también con un solo fsync)
+    // y llega a la base poco después.
+    // Retorna el id de cada orden en el mismo orden de la lista, o -1 en las que fallaron.
+    public int[] registrarOrdenes(List<OrdenPorRegistrar> ordenes) {
+        if (diario != null) {
+            return diario.registrar(ordenes);
+        }
+        int[] ids = new int[ordenes.size()];
+        Arrays.fill(ids, -1);
+
+        // La disponibilidad se valida contra la vista en memoria: una orden que no alcanza no toca la base
+        List<Map<Integer, Long>> requeridos = new ArrayList<>(ordenes.size());
+        boolean hayValidas = false;
+        for (OrdenPorRegistrar o : ordenes) {
+            Map<Integer, Long> requerida = null;
+            if (o.orden != null && !o.orden.isEmpty()) {
+                List<String> faltantes = inventario.faltantes(o.orden);
+                if (faltantes.isEmpty()) {
+                    requerida = inventario.requerimientos(o.orden);
+                    hayValidas = true;
+                } else {
+                    Log.warn("Orden rechazada por falta de stock: " + String.join("; ", faltantes));
+                }
+            }
+            requeridos.add(requerida);
+        }
+        if (!hayValidas) {
+            return ids;
+        }
+
+        Map<Integer, Long> descontados = new java.util.TreeMap<>();
+        boolean stockDesactualizado = false;
+        try (ConnectionPool.Conexion c = conectar("registrarOrdenes")) {
+            Connection conn = c.getConnection();
+            conn.setAutoCommit(false);
+            try {
+                long fecha = System.currentTimeMillis();
+                for (int i = 0; i < ordenes.size(); i++) {
+                    if (requeridos.get(i) == null) {
+                        continue;
+                    }
+                    c.preparar("SAVEPOINT orden").execute();
+                    try {
+                        ids[i] = insertarOrden(c, ordenes.get(i), fecha, requeridos.get(i));
+                        for (Map.Entry<Integer, Long> entry : requeridos.get(i).entrySet()) {
+                            descontados.merge(entry.getKey(), entry.getValue(), Long::sum);
+                        }
+                    } catch (Inventory.StockInsuficiente e) {
+                        // Otra caja (u otro proceso) descontó antes: la vista en memoria quedó vieja
+                        c.preparar("ROLLBACK TO orden").execute();
+                        Log.warn("Orden rechazada: " + e.getMessage());
+                        stockDesactualizado = true;
+                    } catch (SQLException e) {
+                        c.preparar("ROLLBACK TO orden").execute();
+                        // La sentencia que falló queda inutilizable en la caché (ver ConnectionPool.descartarSentencias)
+                        c.descartarSentencias();
+                        Log.error("Error registrando orden: " + e.getMessage());
+                    }
+                    c.preparar("RELEASE orden").execute();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            Log.error("Error registrando órdenes: " + e.getMessage());
+            Arrays.fill(ids, -1);
+            return ids;
+        }
+        inventario.aplicar(descontados);
+        if (stockDesactualizado) {
+            recargarInventario();
+        }
+        return ids;
+    }
+
+    // Escribe una orden dentro de la transacción en curso y retorna su id.
+    private int insertarOrden(ConnectionPool.Conexion c, OrdenPorRegistrar o, long fecha, Map<Integer, Long> requeridos) throws SQLException {
+        Dinero total = totalDe(o.orden);
+        String sqlOrden = o.turnoId > 0
+                ? "INSERT INTO ordenes(total, fecha, turno_id) SELECT ?, ?, id FROM turnos WHERE id = ? AND cierre IS NULL"
+                : "INSERT INTO ordenes(total, fecha) VALUES(?, ?)";
+
+        PreparedStatement pstmtOrden = c.preparar(sqlOrden);
+        pstmtOrden.setLong(1, total.getCentavos());
+        pstmtOrden.setLong(2, fecha);
+        if (o.turnoId > 0) {
+            pstmtOrden.setInt(3, o.turnoId);
+        }
+        if (pstmtOrden.executeUpdate() == 0) {
+            throw new SQLException("el turno #" + o.turnoId + " no está abierto");
+        }
+        int ordenId = ultimoIdInsertado(c);
+        insertarLineas(c, ordenId, fecha, o.orden);
+        Inventory.descontar(c, requeridos);
+        return ordenId;
+    }
+
+    // Líneas de la orden y resúmenes, en la misma transacción que el encabezado.
+    private void insertarLineas(ConnectionPool.Conexion c, int ordenId, long fecha, Map<Producto, Integer> orden) throws SQLException {
+        String sqlLinea = "INSERT INTO orden_items(orden_id, producto_id, cantidad, precio_unitario) VALUES(?, ?, ?, ?)";
+        PreparedStatement pstmtLinea = c.preparar(sqlLinea);
+        for (Map.Entry<Producto, Integer> entry : orden.entrySet()) {
+            Producto p = entry.getKey();
+            pstmtLinea.setInt(1, ordenId);
+            pstmtLinea.setInt(2, p.getId());
+            pstmtLinea.setInt(3, entry.getValue());
+            pstmtLinea.setLong(4, p.getPrecio().getCentavos());
+            pstmtLinea.addBatch();
+        }
+        pstmtLinea.executeBatch();
+
+        // Los resúmenes se actualizan en la misma transacción que la orden
+        SalesRollup.acumular(c, fecha, orden);
+    }
+
+    private static Dinero totalDe(Map<Producto, Integer> orden) {
+        Dinero total = Dinero.CERO;
+        for (Map.Entry<Producto, Integer> entry : orden.entrySet()) {
+            total = total.sumar(entry.getKey().getPrecio().multiplicar(entry.getValue()));
+        }
+        return total;
+    }
+
+    // Aplica en una sola transacción un lote de órdenes ya confirmadas en el diario de ventas, con el id
+    // que les asignó el diario. No se rechazan: el turno se cerró después (el cierre espera al diario)
+    // y si un ajuste dejó menos stock del vendido, el insumo queda en cero y se recarga la vista.
+    // Retorna false si la transacción falló; el diario reintenta el lote completo.
+    boolean aplicarDelDiario(List<SalesJournal.Entrada> entradas) {
+        String sqlOrden = "INSERT INTO ordenes(id, total, fecha, turno_id) VALUES(?, ?, ?, ?)";
+        boolean stockDesactualizado = false;
+        synchronized (cargaInventario) {
+            try (ConnectionPool.Conexion c = conectar("aplicarDelDiario")) {
+                Connection conn = c.getConnection();
+                conn.setAutoCommit(false);
+                try {
+                    for (SalesJournal.Entrada e : entradas) {
+                        PreparedStatement pstmtOrden = c.preparar(sqlOrden);
+                        pstmtOrden.setInt(1, e.ordenId);
+                        pstmtOrden.setLong(2, totalDe(e.orden).getCentavos());
+                        pstmtOrden.setLong(3, e.fecha);
+                        if (e.turnoId > 0) {
+                            pstmtOrden.setInt(4, e.turnoId);
+                        } else {
+                            pstmtOrden.setNull(4, Types.INTEGER);
+                        }
+                        pstmtOrden.executeUpdate();
+                        insertarLineas(c, e.ordenId, e.fecha, e.orden);
+                        if (!Inventory.descontarHastaCero(c, e.requeridos)) {
+                            Log.warn("Orden #" + e.ordenId + ": el stock en la base no alcanzaba, el insumo queda en cero");
+                            stockDesactualizado = true;
+                        }
+                    }
+                    conn.commit();
+                } catch (SQLException ex) {
+                    conn.rollback();
+                    c.descartarSentencias();
+                    throw ex;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException ex) {
+                Log.error("Error aplicando el diario de ventas: " + ex.getMessage());
+                return false;
+            }
+            for (SalesJournal.Entrada e : entradas) {
+                inventario.confirmar(e.requeridos);
+            }
+        }
+        if (stockDesactualizado) {
+            recargarInventario();
+        }
+        return true;
+    }
+
+    // Ids de orden en [desde, hasta] que ya están en la base, o null si falló la consulta.
+    Set<Integer> ordenesRegistradas(int desde, int hasta) {
+        Set<Integer> ids = new HashSet<>();
+        try (ConnectionPool.Conexion c = conectar("ordenesRegistradas")) {
+            PreparedStatement pstmt = c.preparar("SELECT id FROM ordenes WHERE id BETWEEN ? AND ?");
+            pstmt.setInt(1, desde);
+            pstmt.setInt(2, hasta);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+            return ids;
+        } catch (SQLException e) {
+            Log.error("Error consultando órdenes registradas: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Reserva cantidad ids de orden consecutivos avanzando sqlite_sequence, por encima de toda orden
+    // registrada y de minimo. Las ventas que se insertan con AUTOINCREMENT siguen después del bloque.
+    // Retorna el primer id del bloque, o -1 si falló.
+    int reservarOrdenIds(int cantidad, int minimo) {
+        String sqlAvanzar = "UPDATE sqlite_sequence SET seq = MAX(seq, COALESCE((SELECT MAX(id) FROM ordenes), 0), ?) + ? "
+                + "WHERE name = 'ordenes'";
+        // La fila de ordenes aparece en sqlite_sequence con la primera orden insertada
+        String sqlCrear = "INSERT INTO sqlite_sequence(name, seq) SELECT 'ordenes', MAX(COALESCE(MAX(id), 0), ?) + ? FROM ordenes";
+        try (ConnectionPool.Conexion c = conectar("reservarOrdenIds")) {
+            Connection conn = c.getConnection();
+            conn.setAutoCommit(false);
+            try {
+                // Primero la escritura: toma el lock de escritura antes de leer el valor nuevo
+                PreparedStatement avanzar = c.preparar(sqlAvanzar);
+                avanzar.setInt(1, minimo);
+                avanzar.setInt(2, cantidad);
+                if (avanzar.executeUpdate() == 0) {
+                    PreparedStatement crear = c.preparar(sqlCrear);
+                    crear.setInt(1, minimo);
+                    crear.setInt(2, cantidad);
+                    crear.executeUpdate();
+                }
+                long seq;
+                try (ResultSet rs = c.preparar("SELECT seq FROM sqlite_sequence WHERE name = 'ordenes'").executeQuery()) {
+                    seq = rs.next() ? rs.getLong(1) : -1;
+                }
+                if (seq < cantidad) {
+                    throw new SQLException("sqlite_sequence sin la fila de ordenes");
+                }
+                conn.commit();
+                return (int) (seq - cantidad + 1);
+            } catch (SQLException e) {
+                conn.rollback();
+                c.descartarSentencias();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            Log.error("Error reservando ids de orden: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // Indica si el turno existe y sigue abierto.
+    boolean turnoAbierto(int turnoId) {
+        try (ConnectionPool.Conexion c = conectar("turnoAbierto")) {
+            PreparedStatement pstmt = c.preparar("SELECT 1 FROM turnos WHERE id = ? AND cierre IS NULL");
+            pstmt.setInt(1, turnoId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        } catch (SQLException e) {
+            Log.error("Error consultando turno: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // MÉTODOS DE INVENTARIO
+    // Cada cambio se escribe en la base y luego se vuelve a leer la vista en memoria (son pocas filas).
+
+    public void recargarInventario() {
+        List<Insumo> insumos = new ArrayList<>();
+        Map<Integer, Map<Integer, Long>> recetas = new java.util.HashMap<>();
+        // Con el diario activo, la vista descuenta las ventas reservadas que la base todavía no tiene
+        synchronized (cargaInventario) {
+            try (ConnectionPool.Conexion c = conectar("recargarInventario")) {
+                try (ResultSet rs = c.preparar("SELECT id, nombre, unidad, stock, minimo FROM insumos ORDER BY nombre").executeQuery()) {
+                    while (rs.next()) {
+                        insumos.add(new Insumo(rs.getInt("id"), rs.getString("nombre"), rs.getString("unidad"),
+                                rs.getLong("stock"), rs.getLong("minimo")));
+                    }
+                }
+                // Las recetas de productos dados de baja no se cargan
+                try (ResultSet rs = c.preparar("SELECT r.producto_id, r.insumo_id, r.cantidad FROM recetas r "
+                        + "JOIN productos p ON p.id = r.producto_id WHERE p.activo = 1").executeQuery()) {
+                    while (rs.next()) {
+                        recetas.computeIfAbsent(rs.getInt("producto_id"), k -> new java.util.HashMap<>())
+                                .put(rs.getInt("insumo_id"), rs.getLong("cantidad"));
+                    }
+                }
+                inventario.reemplazar(insumos, recetas);
+            } catch (SQLException e) {
+                Log.error("Error cargando inventario: " + e.getMessage());
+            }
+        }
+    }
+
+    // Retorna el id del insumo creado, o -1 si falló (p. ej. el nombre ya existe).
+    public int agregarInsumo(String nombre, String unidad, long stock, long minimo) {
+        String sql = "INSERT INTO insumos(nombre, unidad, stock, minimo) VALUES(?, ?, ?, ?)";
+        int id;
+        try (ConnectionPool.Conexion c = conectar("agregarInsumo")) {
+            PreparedStatement pstmt = c.preparar(sql);
+            pstmt.setString(1, nombre);
+            pstmt.setString(2, unidad);
+            pstmt.setLong(3, stock);
+            pstmt.setLong(4, minimo);
             pstmt.executeUpdate();
+            id = ultimoIdInsertado(c);
+        } catch (SQLException e) {
+            Log.error("Error agregando insumo: " + e.getMessage());
+            return -1;
+        }
+        // La vista se recarga con la conexión ya devuelta al pool
+        recargarInventario();
+        return id;
+    }
+
+    // Suma (entrada de mercancía) o resta (ajuste por merma) stock. Un ajuste no puede dejar el stock negativo.
+    public boolean ajustarStock(int insumoId, long cantidad) {
+        String sql = "UPDATE insumos SET stock = stock + ? WHERE id = ? AND stock + ? >= 0";
+        boolean ok;
+        try (ConnectionPool.Conexion c = conectar("ajustarStock")) {
+            PreparedStatement pstmt = c.preparar(sql);
+            pstmt.setLong(1, cantidad);
+            pstmt.setInt(2, insumoId);
+            pstmt.setLong(3, cantidad);
+            ok = pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            Log.error("Error ajustando stock: " + e.getMessage());
+            return false;
+        }
+        recargarInventario();
+        return ok;
+    }
+
+    public boolean actualizarMinimo(int insumoId, long minimo) {
+        String sql = "UPDATE insumos SET minimo = ? WHERE id = ?";
+        boolean ok;
+        try (ConnectionPool.Conexion c = conectar("actualizarMinimo")) {
+            PreparedStatement pstmt = c.preparar(sql);
+            pstmt.setLong(1, minimo);
+            pstmt.setInt(2, insumoId);
+            ok = pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            Log.error("Error actualizando mínimo: " + e.getMessage());
+            return false;
+        }
+        recargarInventario();
+        return ok;
+    }
+
+    // Reemplaza la receta del producto (insumo -> cantidad por unidad). Una receta vacía quita el control de stock.
+    public boolean guardarReceta(int productoId, Map<Integer, Long> receta) {
+        try (ConnectionPool.Conexion c = conectar("guardarReceta")) {
+            Connection conn = c.getConnection();
+            conn.setAutoCommit(false);
+            try {
+                PreparedStatement borrar = c.preparar("DELETE FROM recetas WHERE producto_id = ?");
+                borrar.setInt(1, productoId);
+                borrar.executeUpdate();
+                PreparedStatement insertar = c.preparar("INSERT INTO recetas(producto_id, insumo_id, cantidad) VALUES(?, ?, ?)");
+                for (Map.Entry<Integer, Long> ingrediente : receta.entrySet()) {
+                    if (ingrediente.getValue() <= 0) {
+                        continue;
+                    }
+                    insertar.setInt(1, productoId);
+                    insertar.setInt(2, ingrediente.getKey());
+                    insertar.setLong(3, ingrediente.getValue());
+                    insertar.addBatch();
+                }
+                insertar.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         } catch (SQLException e) {
-            System.err.println("Error registrando venta: " + e.getMessage());
+            Log.error("Error guardando receta: " + e.getMessage());
+            return false;
+        }
+        recargarInventario();
+        return true;
+    }
+
+    private int ultimoIdInsertado(ConnectionPool.Conexion c) throws SQLException {
+        try (ResultSet rs = c.preparar("SELECT last_insert_rowid()").executeQuery()) {
+            return rs.next() ? rs.getInt(1) : -1;
+        }
+    }
+
+    // Cantidad de órdenes (tickets) registradas.
+    public int contarOrdenes() {
+        try (ConnectionPool.Conexion c = conectar("contarOrdenes");
+             ResultSet rs = c.preparar("SELECT COUNT(*) FROM ordenes").executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            Log.error("Error contando órdenes: " + e.getMessage());
+            return 0;
         }
     }
 
+    // Cantidad de órdenes en el rango [desde, hasta).
+    public int contarOrdenes(Date desde, Date hasta) {
+        String sql = "SELECT COUNT(*) FROM ordenes WHERE fecha >= ? AND fecha < ?";
+        try (ConnectionPool.Conexion c = conectar("contarOrdenes")) {
+            PreparedStatement pstmt = c.preparar(sql);
+            pstmt.setLong(1, desde.getTime());
+            pstmt.setLong(2, hasta.getTime());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            Log.error("Error contando órdenes: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private static final String SELECT_VENTAS = "SELECT oi.id, oi.orden_id, o.fecha, oi.producto_id, p.nombre, oi.cantidad, oi.precio_unitario "
+            + "FROM ordenes o "
+            + "JOIN orden_items oi ON oi.orden_id = o.id "
+            + "JOIN productos p ON p.id = oi.producto_id ";
+
+    // Líneas de venta (una por producto de cada orden), de la más reciente a la más antigua.
+    // Recorre todo el historial: para reportes usar obtenerVentas(desde, hasta).
     public List<Venta> obtenerVentas() {
-        List<Venta> ventas = new ArrayList<>();
-        // Asegúrate que los nombres de las columnas en el SELECT coincidan con la tabla.
-        String sql = "SELECT id, fecha_venta, producto, cantidad, precio_unitario FROM ventas ORDER BY fecha_venta DESC";
-        try (Connection conn = conectar();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                Date fecha = new Date(); 
-                try {
-                     // El nombre de la columna en la BD es 'fecha_venta'
-                     String dateStr = rs.getString("fecha_venta"); 
-                     java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-                     fecha = sdf.parse(dateStr);
-                } catch(Exception ex) {
-                    System.err.println("Error al parsear fecha: " + ex.getMessage());
-                    // Usamos la fecha actual como fallback si falla el parseo
-                    fecha = new Date(); 
+        String sql = SELECT_VENTAS + "ORDER BY o.fecha DESC, oi.id DESC";
+        try (ConnectionPool.Conexion c = conectar("obtenerVentas")) {
+            return leerVentas(c.preparar(sql));
+        } catch (SQLException e) {
+            Log.error("Error al obtener ventas: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    // Líneas de venta con fecha en [desde, hasta), de la más reciente a la más antigua.
+    // Usa el índice sobre ordenes(fecha), así que el costo depende del rango y no del historial.
+    @Override
+    public List<Venta> obtenerVentas(Date desde, Date hasta) {
+        String sql = SELECT_VENTAS + "WHERE o.fecha >= ? AND o.fecha < ? ORDER BY o.fecha DESC, oi.id DESC";
+        try (ConnectionPool.Conexion c = conectar("obtenerVentas")) {
+            PreparedStatement pstmt = c.preparar(sql);
+            pstmt.setLong(1, desde.getTime());
+            pstmt.setLong(2, hasta.getTime());
+            return leerVentas(pstmt);
+        } catch (SQLException e) {
+            Log.error("Error al obtener ventas: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    // Recibe una por una las líneas de venta de recorrerVentas.
+    public interface LectorVentas {
+        // Retorna false para dejar de leer (p. ej. exportación cancelada).
+        boolean leer(Venta venta) throws IOException;
+    }
+
+    private static String filtroVentas(int productoId) {
+        return "WHERE o.fecha >= ? AND o.fecha < ?" + (productoId > 0 ? " AND oi.producto_id = ? " : " ");
+    }
+
+    // Líneas de venta con fecha en [desde, hasta), de un producto o de todos (productoId <= 0).
+    public long contarLineasVenta(Date desde, Date hasta, int productoId) {
+        incluirVentasDelDiario();
+        String sql = "SELECT COUNT(*) FROM ordenes o JOIN orden_items oi ON oi.orden_id = o.id " + filtroVentas(productoId);
+        try (ConnectionPool.Conexion c = conectar("contarLineasVenta")) {
+            PreparedStatement pstmt = c.preparar(sql);
+            pstmt.setLong(1, desde.getTime());
+            pstmt.setLong(2, hasta.getTime());
+            if (productoId > 0) {
+                pstmt.setInt(3, productoId);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            Log.error("Error contando líneas de venta: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // Recorre las líneas de venta con fecha en [desde, hasta), de la más antigua a la más reciente, sin
+    // juntarlas en una lista: el ResultSet es de solo avance y el driver trae las filas de a tamanoLote.
+    // Es para exportar historiales largos (ver SalesExporter); la conexión queda prestada todo el recorrido.
+    // Retorna cuántas líneas recibió el lector, o -1 si falló la consulta o el lector.
+    public long recorrerVentas(Date desde, Date hasta, int productoId, int tamanoLote, LectorVentas lector) {
+        // Las ventas ya confirmadas en el diario también entran
+        if (diario != null) {
+            diario.esperarAplicadas();
+        }
+        String sql = SELECT_VENTAS + filtroVentas(productoId) + "ORDER BY o.fecha, oi.id";
+        long leidas = 0;
+        try (ConnectionPool.Conexion c = conectar("recorrerVentas");
+             // Sentencia propia, no la de la caché del pool: el tamaño de lote solo aplica a este recorrido
+             PreparedStatement pstmt = c.getConnection().prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            pstmt.setFetchSize(tamanoLote);
+            pstmt.setLong(1, desde.getTime());
+            pstmt.setLong(2, hasta.getTime());
+            if (productoId > 0) {
+                pstmt.setInt(3, productoId);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    leidas++;
+                    if (!lector.leer(leerVenta(rs))) {
+                        break;
+                    }
                 }
+            }
+            return leidas;
+        } catch (SQLException | IOException e) {
+            Log.error("Error recorriendo ventas: " + e.getMessage());
+            return -1;
+        }
+    }
 
-                ventas.add(new Venta(
-                    rs.getInt("id"),
-                    fecha,
-                    rs.getString("producto"),
-                    rs.getInt("cantidad"),
-                    rs.getDouble("precio_unitario")
-                ));
+    // Ventas del día calendario (hora local) que contiene a la fecha indicada.
+    public List<Venta> obtenerVentasDelDia(Date fecha) {
+        Date inicio = inicioDelDia(fecha);
+        return obtenerVentas(inicio, sumarDias(inicio, 1));
+    }
+
+    public static Date inicioDelDia(Date fecha) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(fecha);
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        return cal.getTime();
+    }
+
+    public static Date sumarDias(Date fecha, int dias) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(fecha);
+        cal.add(Calendar.DAY_OF_MONTH, dias);
+        return cal.getTime();
+    }
+
+    // PAGINACIÓN DEL HISTORIAL
+    // El historial se recorre por id descendente. Las páginas se piden por keyset (id < último id visto),
+    // y solo cuando se salta a una página lejana sin vecinas cargadas se usa OFFSET.
+
+    // Id de la línea de venta más reciente; sirve como "foto" fija del historial mientras se pagina.
+    public int obtenerMaxIdVenta() {
+        try (ConnectionPool.Conexion c = conectar("obtenerMaxIdVenta");
+             ResultSet rs = c.preparar("SELECT COALESCE(MAX(id), 0) FROM orden_items").executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            Log.error("Error obteniendo última venta: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    public int contarLineasVenta(int hastaId) {
+        String sql = "SELECT COUNT(*) FROM orden_items WHERE id <= ?";
+        try (ConnectionPool.Conexion c = conectar("contarLineasVenta")) {
+            PreparedStatement pstmt = c.preparar(sql);
+            pstmt.setInt(1, hastaId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            Log.error("Error contando ventas: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private static final String SELECT_LINEAS = "SELECT oi.id, oi.orden_id, o.fecha, oi.producto_id, p.nombre, oi.cantidad, oi.precio_unitario "
+            + "FROM orden_items oi "
+            + "JOIN ordenes o ON o.id = oi.orden_id "
+            + "JOIN productos p ON p.id = oi.producto_id ";
+
+    // Siguiente página por keyset: las 'limite' líneas con id menor a 'antesDeId'.
+    public List<Venta> obtenerPaginaVentas(int antesDeId, int limite) {
+        String sql = SELECT_LINEAS + "WHERE oi.id < ? ORDER BY oi.id DESC LIMIT ?";
+        try (ConnectionPool.Conexion c = conectar("obtenerPaginaVentas")) {
+            PreparedStatement pstmt = c.preparar(sql);
+            pstmt.setInt(1, antesDeId);
+            pstmt.setInt(2, limite);
+            return leerVentas(pstmt);
+        } catch (SQLException e) {
+            Log.error("Error obteniendo página de ventas: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    // Página por posición, para saltos del scroll a zonas sin páginas vecinas cargadas.
+    public List<Venta> obtenerPaginaVentasPorPosicion(int hastaId, int desplazamiento, int limite) {
+        String sql = SELECT_LINEAS + "WHERE oi.id <= ? ORDER BY oi.id DESC LIMIT ? OFFSET ?";
+        try (ConnectionPool.Conexion c = conectar("obtenerPaginaVentasPorPosicion")) {
+            PreparedStatement pstmt = c.preparar(sql);
+            pstmt.setInt(1, hastaId);
+            pstmt.setInt(2, limite);
+            pstmt.setInt(3, desplazamiento);
+            return leerVentas(pstmt);
+        } catch (SQLException e) {
+            Log.error("Error obteniendo página de ventas: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    // TURNOS Y CIERRES DE CAJA
+    // Cada usuario abre un turno con un fondo inicial; las órdenes que cobra quedan asociadas a él.
+    // Al cerrar, los totales del turno se congelan en cierres/cierre_items (reporte Z) y los reportes
+    // posteriores leen esa foto en lugar de volver a sumar las ventas.
+
+    private static final String SELECT_TURNOS = "SELECT id, usuario, apertura, cierre, fondo_inicial FROM turnos ";
+
+    // Abre un turno para el usuario. Si ya tiene uno abierto, retorna ese. Retorna null si falla.
+    @Override
+    public Turno abrirTurno(String usuario, Dinero fondoInicial) {
+        Turno abierto = obtenerTurnoAbierto(usuario);
+        if (abierto != null) {
+            return abierto;
+        }
+        String sql = "INSERT INTO turnos(usuario, apertura, fondo_inicial) VALUES(?, ?, ?)";
+        try (ConnectionPool.Conexion c = conectar("abrirTurno")) {
+            PreparedStatement pstmt = c.preparar(sql);
+            pstmt.setString(1, usuario);
+            pstmt.setLong(2, System.currentTimeMillis());
+            pstmt.setLong(3, fondoInicial.getCentavos());
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            // Puede ser otro inicio de sesión del mismo usuario que abrió el turno primero (idx_turnos_abierto)
+            Log.error("Error abriendo turno: " + e.getMessage());
+        }
+        return obtenerTurnoAbierto(usuario);
+    }
+
+    // Turno abierto del usuario, o null si no tiene.
+    @Override
+    public Turno obtenerTurnoAbierto(String usuario) {
+        List<Turno> turnos = leerTurnos(SELECT_TURNOS + "WHERE usuario = ? AND cierre IS NULL", usuario);
+        return turnos.isEmpty() ? null : turnos.get(0);
+    }
+
+    // Todos los turnos abiertos, del más antiguo al más reciente.
+    public List<Turno> obtenerTurnosAbiertos() {
+        return leerTurnos(SELECT_TURNOS + "WHERE cierre IS NULL ORDER BY apertura", null);
+    }
+
+    private List<Turno> leerTurnos(String sql, String usuario) {
+        List<Turno> turnos = new ArrayList<>();
+        try (ConnectionPool.Conexion c = conectar("leerTurnos")) {
+            PreparedStatement pstmt = c.preparar(sql);
+            if (usuario != null) {
+                pstmt.setString(1, usuario);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    turnos.add(leerTurno(rs));
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("Error obteniendo turnos: " + e.getMessage());
+        }
+        return turnos;
+    }
+
+    private Turno leerTurno(ResultSet rs) throws SQLException {
+        long cierre = rs.getLong("cierre");
+        Instant fechaCierre = rs.wasNull() ? null : Instant.ofEpochMilli(cierre);
+        return new Turno(rs.getInt("id"), rs.getString("usuario"), Instant.ofEpochMilli(rs.getLong("apertura")),
+                fechaCierre, Dinero.deCentavos(rs.getLong("fondo_inicial")));
+    }
+
+    // Cierra el turno y congela su reporte Z en una sola transacción. El efectivo esperado es el fondo
+    // inicial más lo cobrado en el turno (todas las ventas se cobran en efectivo).
+    // Retorna el cierre guardado, o null si el turno no existe, ya estaba cerrado o la escritura falló.
+    @Override
+    public Cierre cerrarTurno(int turnoId, Dinero efectivoContado) {
+        if (diario == null) {
+            return cerrarTurnoEnBase(turnoId, efectivoContado);
+        }
+        // Con el diario, primero se cierra el turno para las ventas nuevas y se espera a que las
+        // confirmadas lleguen a la base; el reporte Z se calcula después, como siempre
+        if (!diario.cerrarTurno(turnoId)) {
+            Log.error("Error cerrando turno: las ventas del turno #" + turnoId + " no terminaron de aplicarse");
+            diario.olvidarTurno(turnoId);
+            return null;
+        }
+        Cierre cierre = cerrarTurnoEnBase(turnoId, efectivoContado);
+        if (cierre == null) {
+            diario.olvidarTurno(turnoId);
+        }
+        return cierre;
+    }
+
+    private Cierre cerrarTurnoEnBase(int turnoId, Dinero efectivoContado) {
+        // Marcar el turno primero toma el bloqueo de escritura: una venta concurrente espera y,
+        // al ver el turno cerrado, se rechaza en lugar de quedar fuera del reporte.
+        String sqlMarcar = "UPDATE turnos SET cierre = ? WHERE id = ? AND cierre IS NULL";
+        String desde = "FROM ordenes o JOIN orden_items oi ON oi.orden_id = o.id WHERE o.turno_id = ?";
+        String sqlItems = "INSERT INTO cierre_items(turno_id, producto_id, nombre, unidades, total, tickets) "
+                + "SELECT o.turno_id, oi.producto_id, p.nombre, SUM(oi.cantidad), SUM(oi.cantidad * oi.precio_unitario), "
+                + "COUNT(DISTINCT o.id) FROM ordenes o JOIN orden_items oi ON oi.orden_id = o.id "
+                + "JOIN productos p ON p.id = oi.producto_id WHERE o.turno_id = ? GROUP BY oi.producto_id";
+        String sqlTotales = "SELECT COUNT(DISTINCT o.id), COUNT(oi.id), COALESCE(SUM(oi.cantidad), 0), "
+                + "COALESCE(SUM(oi.cantidad * oi.precio_unitario), 0) " + desde;
+        String sqlCierre = "INSERT INTO cierres(turno_id, tickets, lineas, unidades, total, efectivo_esperado, efectivo_contado) "
+                + "SELECT id, ?, ?, ?, ?, fondo_inicial + ?, ? FROM turnos WHERE id = ?";
+        try (ConnectionPool.Conexion c = conectar("cerrarTurno")) {
+            Connection conn = c.getConnection();
+            conn.setAutoCommit(false);
+            try {
+                PreparedStatement marcar = c.preparar(sqlMarcar);
+                marcar.setLong(1, System.currentTimeMillis());
+                marcar.setInt(2, turnoId);
+                if (marcar.executeUpdate() == 0) {
+                    conn.rollback();
+                    Log.warn("Error cerrando turno: el turno #" + turnoId + " no existe o ya está cerrado");
+                    return null;
+                }
+
+                PreparedStatement totales = c.preparar(sqlTotales);
+                totales.setInt(1, turnoId);
+                PreparedStatement cierre = c.preparar(sqlCierre);
+                try (ResultSet rs = totales.executeQuery()) {
+                    rs.next();
+                    cierre.setInt(1, rs.getInt(1));
+                    cierre.setInt(2, rs.getInt(2));
+                    cierre.setInt(3, rs.getInt(3));
+                    cierre.setLong(4, rs.getLong(4));
+                    cierre.setLong(5, rs.getLong(4));
+                }
+                cierre.setLong(6, efectivoContado.getCentavos());
+                cierre.setInt(7, turnoId);
+                cierre.executeUpdate();
+
+                PreparedStatement items = c.preparar(sqlItems);
+                items.setInt(1, turnoId);
+                items.executeUpdate();
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            return leerCierre(c, turnoId);
+        } catch (SQLException e) {
+            Log.error("Error cerrando turno: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static final String SELECT_CIERRES = "SELECT t.id, t.usuario, t.apertura, t.cierre, t.fondo_inicial, "
+            + "c.tickets, c.lineas, c.unidades, c.total, c.efectivo_esperado, c.efectivo_contado "
+            + "FROM cierres c JOIN turnos t ON t.id = c.turno_id ";
+
+    // Reporte Z guardado de un turno, con su desglose por producto. Retorna null si no existe.
+    public Cierre obtenerCierre(int turnoId) {
+        try (ConnectionPool.Conexion c = conectar("obtenerCierre")) {
+            return leerCierre(c, turnoId);
+        } catch (SQLException e) {
+            Log.error("Error obteniendo cierre: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private Cierre leerCierre(ConnectionPool.Conexion c, int turnoId) throws SQLException {
+        PreparedStatement items = c.preparar("SELECT nombre, unidades, total, tickets FROM cierre_items "
+                + "WHERE turno_id = ? ORDER BY unidades DESC, total DESC");
+        items.setInt(1, turnoId);
+        List<TotalAgrupado> detalle = leerTotales(items);
+
+        PreparedStatement pstmt = c.preparar(SELECT_CIERRES + "WHERE c.turno_id = ?");
+        pstmt.setInt(1, turnoId);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? leerCierre(rs, detalle) : null;
+        }
+    }
+
+    // Los últimos cierres (sin desglose), del más reciente al más antiguo. Solo lee las tablas de cierre.
+    public List<Cierre> obtenerCierres(int limite) {
+        List<Cierre> cierres = new ArrayList<>();
+        try (ConnectionPool.Conexion c = conectar("obtenerCierres")) {
+            PreparedStatement pstmt = c.preparar(SELECT_CIERRES + "ORDER BY t.cierre DESC LIMIT ?");
+            pstmt.setInt(1, limite);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    cierres.add(leerCierre(rs, null));
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("Error obteniendo cierres: " + e.getMessage());
+        }
+        return cierres;
+    }
+
+    private Cierre leerCierre(ResultSet rs, List<TotalAgrupado> detalle) throws SQLException {
+        return new Cierre(leerTurno(rs), rs.getInt("tickets"), rs.getInt("lineas"), rs.getInt("unidades"),
+                Dinero.deCentavos(rs.getLong("total")), Dinero.deCentavos(rs.getLong("efectivo_esperado")),
+                Dinero.deCentavos(rs.getLong("efectivo_contado")), detalle);
+    }
+
+    // AGREGACIONES
+    // Se leen de las tablas de resumen (SalesRollup) cuando el rango cae en límites de día o de hora,
+    // que es el caso de los reportes; si no, se calculan con GROUP BY sobre las líneas de venta.
+    // Con el diario de ventas activo, antes se espera un momento a que lleguen las ventas ya cobradas.
+
+    // Espera máxima de un reporte por las ventas del diario que todavía no están en la base
+    private static final long ESPERA_DIARIO_REPORTES_MS = 2000;
+
+    private void incluirVentasDelDiario() {
+        if (diario != null && !diario.esperarAplicadas(ESPERA_DIARIO_REPORTES_MS)) {
+            Log.warn("Reporte calculado sin " + diario.getPendientes() + " ventas del diario que aún no llegan a la base");
+        }
+    }
+
+    // Totales del periodo [desde, hasta): tickets, líneas, unidades, recaudo y primera/última venta.
+    public ResumenVentas obtenerResumenVentas(Date desde, Date hasta) {
+        incluirVentasDelDiario();
+        Fuente f = Fuente.mejorPara(desde, hasta);
+        String sql = "SELECT COALESCE(" + f.tickets + ", 0), COALESCE(" + f.lineas + ", 0), COALESCE(" + f.unidades + ", 0), "
+                + "COALESCE(" + f.total + ", 0) FROM " + f.origen + " WHERE " + f.condicion + f.soloTodos;
+        // Primera y última venta: cada subconsulta es una sola búsqueda en el índice de ordenes(fecha)
+        String sqlExtremos = "SELECT (SELECT MIN(fecha) FROM ordenes WHERE fecha >= ? AND fecha < ?), "
+                + "(SELECT MAX(fecha) FROM ordenes WHERE fecha >= ? AND fecha < ?)";
+        try (ConnectionPool.Conexion c = conectar("obtenerResumenVentas")) {
+            PreparedStatement pstmt = c.preparar(sql);
+            f.enlazar(pstmt, 1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) == 0) {
+                    return new ResumenVentas(0, 0, 0, Dinero.CERO, null, null);
+                }
+                PreparedStatement extremos = c.preparar(sqlExtremos);
+                for (int i = 1; i <= 4; i += 2) {
+                    extremos.setLong(i, desde.getTime());
+                    extremos.setLong(i + 1, hasta.getTime());
+                }
+                try (ResultSet rsExtremos = extremos.executeQuery()) {
+                    rsExtremos.next();
+                    return new ResumenVentas(rs.getInt(1), rs.getInt(2), rs.getInt(3), Dinero.deCentavos(rs.getLong(4)),
+                            Instant.ofEpochMilli(rsExtremos.getLong(1)), Instant.ofEpochMilli(rsExtremos.getLong(2)));
+                }
             }
         } catch (SQLException e) {
-            System.err.println("Error al obtener ventas: " + e.getMessage());
+            Log.error("Error calculando resumen de ventas: " + e.getMessage());
+        }
+        return new ResumenVentas(0, 0, 0, Dinero.CERO, null, null);
+    }
+
+    // Los N productos con más unidades vendidas en el periodo (suma real por producto).
+    public List<TotalAgrupado> obtenerTopProductos(Date desde, Date hasta, int limite) {
+        incluirVentasDelDiario();
+        Fuente f = Fuente.mejorPara(desde, hasta);
+        // Se agrupa por id y solo después se une con productos para traer el nombre
+        String sql = "SELECT p.nombre, t.unidades, t.total, t.tickets FROM ("
+                + "SELECT " + f.producto + " AS producto_id, " + f.unidades + " AS unidades, "
+                + f.total + " AS total, " + f.tickets + " AS tickets "
+                + "FROM " + f.origen + " WHERE " + f.condicion + f.soloProductos
+                + " GROUP BY " + f.producto + " ORDER BY unidades DESC, total DESC LIMIT ?) t "
+                + "JOIN productos p ON p.id = t.producto_id "
+                + "ORDER BY t.unidades DESC, t.total DESC";
+        try (ConnectionPool.Conexion c = conectar("obtenerTopProductos")) {
+            PreparedStatement pstmt = c.preparar(sql);
+            f.enlazar(pstmt, 1);
+            pstmt.setInt(3, limite);
+            return leerTotales(pstmt);
+        } catch (SQLException e) {
+            Log.error("Error calculando productos más vendidos: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    // Totales por hora local del día ("00".."23") en el periodo.
+    public List<TotalAgrupado> obtenerVentasPorHora(Date desde, Date hasta) {
+        incluirVentasDelDiario();
+        Fuente f = Fuente.porHora(desde, hasta);
+        if (f == null) {
+            f = Fuente.lineas(desde, hasta);
+        }
+        return agruparPorFecha(f, "strftime('%H', " + f.fecha + " / 1000, 'unixepoch', 'localtime')");
+    }
+
+    // Totales por día local ("yyyy-MM-dd") en el periodo.
+    public List<TotalAgrupado> obtenerVentasPorDia(Date desde, Date hasta) {
+        incluirVentasDelDiario();
+        Fuente f = Fuente.mejorPara(desde, hasta);
+        return agruparPorFecha(f, f.dia);
+    }
+
+    private List<TotalAgrupado> agruparPorFecha(Fuente f, String expresion) {
+        String sql = "SELECT " + expresion + " AS clave, " + f.unidades + ", " + f.total + ", " + f.tickets + " "
+                + "FROM " + f.origen + " WHERE " + f.condicion + f.soloTodos
+                + " GROUP BY clave ORDER BY clave";
+        try (ConnectionPool.Conexion c = conectar("agruparPorFecha")) {
+            PreparedStatement pstmt = c.preparar(sql);
+            f.enlazar(pstmt, 1);
+            return leerTotales(pstmt);
+        } catch (SQLException e) {
+            Log.error("Error agrupando ventas: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    // Total recaudado de todo el historial, desde el resumen diario.
+    public Dinero obtenerTotalHistorico() {
+        incluirVentasDelDiario();
+        String sql = "SELECT COALESCE(SUM(total), 0) FROM " + SalesRollup.DIARIAS + " WHERE producto_id = " + SalesRollup.TODOS;
+        try (ConnectionPool.Conexion c = conectar("obtenerTotalHistorico");
+             ResultSet rs = c.preparar(sql).executeQuery()) {
+            return rs.next() ? Dinero.deCentavos(rs.getLong(1)) : Dinero.CERO;
+        } catch (SQLException e) {
+            Log.error("Error sumando ventas: " + e.getMessage());
+            return Dinero.CERO;
+        }
+    }
+
+    // Recalcula las tablas de resumen desde las líneas de venta, en una sola transacción.
+    // Para datos históricos o después de corregir ventas a mano en la base.
+    public boolean reconstruirResumenes() {
+        try (ConnectionPool.Conexion c = conectar("reconstruirResumenes");
+             Statement stmt = c.getConnection().createStatement()) {
+            Connection conn = c.getConnection();
+            conn.setAutoCommit(false);
+            try {
+                SalesRollup.reconstruir(stmt);
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            Log.error("Error reconstruyendo resúmenes de ventas: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // De dónde sale una agregación sobre [desde, hasta): las líneas de venta o una tabla de resumen.
+    // Cada campo es un fragmento de SQL; la condición del rango lleva dos parámetros.
+    private static final class Fuente {
+        final String origen;
+        final String condicion;
+        final String soloTodos;
+        final String soloProductos;
+        final String producto;
+        final String tickets;
+        final String lineas;
+        final String unidades;
+        final String total;
+        final String fecha; // ms desde epoch; null si la fuente no tiene hora
+        final String dia;
+        final Object inicio;
+        final Object fin;
+
+        private Fuente(String origen, String condicion, boolean resumen, String fecha, String dia, Object inicio, Object fin) {
+            this.origen = origen;
+            this.condicion = condicion;
+            this.soloTodos = resumen ? " AND producto_id = " + SalesRollup.TODOS : "";
+            this.soloProductos = resumen ? " AND producto_id <> " + SalesRollup.TODOS : "";
+            this.producto = resumen ? "producto_id" : "oi.producto_id";
+            this.tickets = resumen ? "SUM(tickets)" : "COUNT(DISTINCT o.id)";
+            this.lineas = resumen ? "SUM(lineas)" : "COUNT(oi.id)";
+            this.unidades = resumen ? "SUM(unidades)" : "SUM(oi.cantidad)";
+            this.total = resumen ? "SUM(total)" : "SUM(oi.cantidad * oi.precio_unitario)";
+            this.fecha = fecha;
+            this.dia = dia;
+            this.inicio = inicio;
+            this.fin = fin;
+        }
+
+        static Fuente lineas(Date desde, Date hasta) {
+            return new Fuente("ordenes o JOIN orden_items oi ON oi.orden_id = o.id", "o.fecha >= ? AND o.fecha < ?", false,
+                    "o.fecha", String.format(SalesRollup.CLAVE_DIA, "o.fecha"), desde.getTime(), hasta.getTime());
+        }
+
+        // Resumen por hora, si ambos límites son horas locales exactas.
+        static Fuente porHora(Date desde, Date hasta) {
+            if (SalesRollup.inicioDeHora(desde.getTime()) != desde.getTime() || SalesRollup.inicioDeHora(hasta.getTime()) != hasta.getTime()) {
+                return null;
+            }
+            return new Fuente(SalesRollup.POR_HORA, "hora >= ? AND hora < ?", true,
+                    "hora", String.format(SalesRollup.CLAVE_DIA, "hora"), desde.getTime(), hasta.getTime());
+        }
+
+        // Resumen diario, si ambos límites son medianoche local.
+        static Fuente diaria(Date desde, Date hasta) {
+            if (!inicioDelDia(desde).equals(desde) || !inicioDelDia(hasta).equals(hasta)) {
+                return null;
+            }
+            return new Fuente(SalesRollup.DIARIAS, "dia >= ? AND dia < ?", true,
+                    null, "dia", diaLocal(desde), diaLocal(hasta));
+        }
+
+        // La fuente con menos filas que cubre exactamente el rango.
+        static Fuente mejorPara(Date desde, Date hasta) {
+            Fuente f = diaria(desde, hasta);
+            if (f == null) {
+                f = porHora(desde, hasta);
+            }
+            return f != null ? f : lineas(desde, hasta);
+        }
+
+        void enlazar(PreparedStatement pstmt, int indice) throws SQLException {
+            pstmt.setObject(indice, inicio);
+            pstmt.setObject(indice + 1, fin);
+        }
+
+        private static String diaLocal(Date fecha) {
+            return fecha.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toString();
+        }
+    }
+
+    private List<TotalAgrupado> leerTotales(PreparedStatement pstmt) throws SQLException {
+        List<TotalAgrupado> totales = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                totales.add(new TotalAgrupado(rs.getString(1), rs.getInt(2), Dinero.deCentavos(rs.getLong(3)), rs.getInt(4)));
+            }
+        }
+        return totales;
+    }
+
+    private List<Venta> leerVentas(PreparedStatement pstmt) throws SQLException {
+        List<Venta> ventas = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                ventas.add(leerVenta(rs));
+            }
         }
         return ventas;
     }
-}
\ No newline at end of file
+
+    private static Venta leerVenta(ResultSet rs) throws SQLException {
+        return new Venta(
+            rs.getInt("id"),
+            rs.getInt("orden_id"),
+            Instant.ofEpochMilli(rs.getLong("fecha")),
+            rs.getInt("producto_id"),
+            rs.getString("nombre"),
+            rs.getInt("cantidad"),
+            Dinero.deCentavos(rs.getLong("precio_unitario"))
+        );
+    }
+}
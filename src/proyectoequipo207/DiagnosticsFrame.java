@@ -0,0 +1,194 @@
+package proyectoequipo207;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Ventana de diagnóstico (solo administradores): latencias de las operaciones y contadores internos,
+// leídos de MetricsRegistry. Se refresca sola cada segundo; no consulta la base de datos.
+public class DiagnosticsFrame extends JFrame {
+
+    private static final int REFRESCO_MS = 1000;
+
+    private final MetricsRegistry metricas = MetricsRegistry.global();
+    private final LatenciasTableModel latencias = new LatenciasTableModel();
+    private final IndicadoresTableModel indicadores = new IndicadoresTableModel();
+    private final JLabel lblTasas = new JLabel(" ");
+    private final Timer refresco;
+
+    private final Color COLOR_FONDO = new Color(245, 239, 230);
+    private final Color COLOR_PRIMARIO = new Color(74, 49, 39);
+    private final Color COLOR_ACCENT_BOTON = new Color(175, 140, 107);
+
+    public DiagnosticsFrame() {
+        super("CAFESOFT - Diagnóstico de Rendimiento");
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setSize(950, 600);
+        setLayout(new BorderLayout(10, 10));
+        setLocationRelativeTo(null);
+        getContentPane().setBackground(COLOR_FONDO);
+
+        JLabel titleLabel = new JLabel("Diagnóstico de Rendimiento", SwingConstants.CENTER);
+        titleLabel.setFont(new Font("Serif", Font.BOLD, 26));
+        titleLabel.setForeground(COLOR_PRIMARIO);
+        titleLabel.setBorder(BorderFactory.createEmptyBorder(15, 0, 5, 0));
+        add(titleLabel, BorderLayout.NORTH);
+
+        JTable tablaLatencias = new JTable(latencias);
+        tablaLatencias.setRowHeight(22);
+        tablaLatencias.setAutoCreateRowSorter(true);
+        JTable tablaIndicadores = new JTable(indicadores);
+        tablaIndicadores.setRowHeight(22);
+
+        JSplitPane split = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT,
+                conTitulo(new JScrollPane(tablaLatencias), "Latencias (ms)"),
+                conTitulo(new JScrollPane(tablaIndicadores), "Contadores"));
+        split.setResizeWeight(0.7);
+        split.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 10));
+        add(split, BorderLayout.CENTER);
+
+        JPanel sur = new JPanel(new BorderLayout());
+        sur.setBackground(COLOR_FONDO);
+        sur.setBorder(BorderFactory.createEmptyBorder(5, 15, 10, 15));
+        lblTasas.setFont(new Font("SansSerif", Font.BOLD, 14));
+        lblTasas.setForeground(COLOR_PRIMARIO);
+        sur.add(lblTasas, BorderLayout.CENTER);
+
+        JButton btnReiniciar = new JButton("Reiniciar Latencias");
+        btnReiniciar.setFont(new Font("SansSerif", Font.BOLD, 14));
+        btnReiniciar.setBackground(COLOR_ACCENT_BOTON);
+        btnReiniciar.setForeground(Color.WHITE);
+        btnReiniciar.addActionListener(e -> {
+            metricas.reiniciar();
+            refrescar();
+        });
+        sur.add(btnReiniciar, BorderLayout.EAST);
+        add(sur, BorderLayout.SOUTH);
+
+        refresco = new Timer(REFRESCO_MS, e -> refrescar());
+        refrescar();
+        refresco.start();
+    }
+
+    @Override
+    public void dispose() {
+        refresco.stop();
+        super.dispose();
+    }
+
+    private JComponent conTitulo(JComponent componente, String titulo) {
+        componente.setBorder(BorderFactory.createTitledBorder(titulo));
+        return componente;
+    }
+
+    private void refrescar() {
+        latencias.setFilas(metricas.getHistogramas());
+        Map<String, Long> valores = metricas.getIndicadores();
+        indicadores.setFilas(new ArrayList<>(valores.entrySet()));
+        lblTasas.setText("Aciertos del catálogo: " + tasa(valores, "catalogo.aciertos", "catalogo.fallos")
+                + "   |   Sentencias reutilizadas: " + tasa(valores, "pool.sentencias.aciertos", "pool.sentencias.fallos"));
+    }
+
+    private static String tasa(Map<String, Long> valores, String aciertos, String fallos) {
+        long a = valores.getOrDefault(aciertos, 0L);
+        long f = valores.getOrDefault(fallos, 0L);
+        return a + f == 0 ? "-" : String.format("%.1f%%", 100.0 * a / (a + f));
+    }
+
+    private static class LatenciasTableModel extends AbstractTableModel {
+        private static final String[] COLUMNAS = {"Operación", "Cantidad", "Promedio", "p50", "p95", "p99", "Máximo"};
+        private List<MetricsRegistry.Histograma.Foto> filas = new ArrayList<>();
+
+        void setFilas(List<MetricsRegistry.Histograma.Foto> nuevas) {
+            boolean mismoTamano = nuevas.size() == filas.size();
+            filas = nuevas;
+            // Si no cambió la cantidad de filas se conservan la selección y el orden de la tabla
+            if (mismoTamano && !filas.isEmpty()) {
+                fireTableRowsUpdated(0, filas.size() - 1);
+            } else {
+                fireTableDataChanged();
+            }
+        }
+
+        @Override
+        public int getRowCount() {
+            return filas.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNAS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNAS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int columnIndex) {
+            return columnIndex == 0 ? String.class : (columnIndex == 1 ? Long.class : Double.class);
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            MetricsRegistry.Histograma.Foto f = filas.get(rowIndex);
+            switch (columnIndex) {
+                case 0: return f.getNombre();
+                case 1: return f.getCuenta();
+                case 2: return redondear(f.getPromedioMs());
+                case 3: return redondear(f.getP50Ms());
+                case 4: return redondear(f.getP95Ms());
+                case 5: return redondear(f.getP99Ms());
+                default: return redondear(f.getMaximoMs());
+            }
+        }
+
+        private static double redondear(double ms) {
+            return Math.round(ms * 1000) / 1000.0;
+        }
+    }
+
+    private static class IndicadoresTableModel extends AbstractTableModel {
+        private List<Map.Entry<String, Long>> filas = new ArrayList<>();
+
+        void setFilas(List<Map.Entry<String, Long>> nuevas) {
+            boolean mismoTamano = nuevas.size() == filas.size();
+            filas = nuevas;
+            if (mismoTamano && !filas.isEmpty()) {
+                fireTableRowsUpdated(0, filas.size() - 1);
+            } else {
+                fireTableDataChanged();
+            }
+        }
+
+        @Override
+        public int getRowCount() {
+            return filas.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return 2;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return column == 0 ? "Contador" : "Valor";
+        }
+
+        @Override
+        public Class<?> getColumnClass(int columnIndex) {
+            return columnIndex == 0 ? String.class : Long.class;
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            Map.Entry<String, Long> fila = filas.get(rowIndex);
+            return columnIndex == 0 ? fila.getKey() : fila.getValue();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package proyectoequipo207;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Cantidad de dinero en punto fijo: se guarda como un long de centavos, así las sumas de
+// una orden o de un reporte son exactas y no arrastran errores de redondeo de double.
+// Es inmutable; en la base se guarda en columnas INTEGER (centavos).
+public final class Dinero implements Comparable<Dinero> {
+
+    public static final Dinero CERO = new Dinero(0);
+
+    private final long centavos;
+
+    private Dinero(long centavos) {
+        this.centavos = centavos;
+    }
+
+    public static Dinero deCentavos(long centavos) {
+        return centavos == 0 ? CERO : new Dinero(centavos);
+    }
+
+    // Monto entero, sin centavos (p. ej. los precios de la carta en pesos).
+    public static Dinero deUnidades(long unidades) {
+        return deCentavos(Math.multiplyExact(unidades, 100L));
+    }
+
+    // Interpreta lo que escribe el usuario: "4500", "4500.5", "4500,50" o "$4500".
+    // Se redondea al centavo. Lanza NumberFormatException si el texto no es un número.
+    public static Dinero parse(String texto) {
+        String limpio = texto.trim().replace("$", "").replace(" ", "").replace(',', '.');
+        BigDecimal valor = new BigDecimal(limpio).setScale(2, RoundingMode.HALF_UP);
+        try {
+            return deCentavos(valor.unscaledValue().longValueExact());
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Monto fuera de rango: " + texto);
+        }
+    }
+
+    public long getCentavos() {
+        return centavos;
+    }
+
+    public Dinero sumar(Dinero otro) {
+        return otro.centavos == 0 ? this : deCentavos(Math.addExact(centavos, otro.centavos));
+    }
+
+    public Dinero restar(Dinero otro) {
+        return otro.centavos == 0 ? this : deCentavos(Math.subtractExact(centavos, otro.centavos));
+    }
+
+    public Dinero multiplicar(int cantidad) {
+        return cantidad == 1 ? this : deCentavos(Math.multiplyExact(centavos, (long) cantidad));
+    }
+
+    // División redondeada al centavo (p. ej. ticket promedio).
+    public Dinero dividir(int partes) {
+        return deCentavos(BigDecimal.valueOf(centavos).divide(BigDecimal.valueOf(partes), 0, RoundingMode.HALF_UP).longValue());
+    }
+
+    public boolean esCero() {
+        return centavos == 0;
+    }
+
+    public boolean esPositivo() {
+        return centavos > 0;
+    }
+
+    public boolean esMenorQue(Dinero otro) {
+        return centavos < otro.centavos;
+    }
+
+    // Para NumberFormat de moneda y otros formatos que reciben un número.
+    public BigDecimal aBigDecimal() {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    @Override
+    public int compareTo(Dinero otro) {
+        return Long.compare(centavos, otro.centavos);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Dinero && ((Dinero) o).centavos == centavos);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(centavos);
+    }
+
+    // Siempre con punto decimal y dos decimales ("4500.00"), sin importar la configuración regional.
+    @Override
+    public String toString() {
+        long absoluto = Math.abs(centavos);
+        long resto = absoluto % 100;
+        StringBuilder sb = new StringBuilder(24);
+        if (centavos < 0) {
+            sb.append('-');
+        }
+        sb.append(absoluto / 100).append('.');
+        if (resto < 10) {
+            sb.append('0');
+        }
+        return sb.append(resto).toString();
+    }
+}
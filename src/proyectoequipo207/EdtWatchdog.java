@@ -0,0 +1,224 @@
+package proyectoequipo207;
+
+import javax.swing.SwingUtilities;
+import java.awt.AWTEvent;
+import java.awt.Component;
+import java.awt.EventQueue;
+import java.awt.KeyboardFocusManager;
+import java.awt.Toolkit;
+import java.awt.Window;
+import java.awt.event.InvocationEvent;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Vigila el hilo de eventos de Swing (EDT) para encontrar los "congelamientos" del POS.
+// Reemplaza la cola de eventos por una que mide cada despacho; un hilo aparte revisa si el
+// despacho en curso ya superó el umbral y, si es así, registra la pila del EDT en ese momento
+// (el manejador que está bloqueando) junto con la ventana activa. Los congelamientos se cuentan
+// por ventana y manejador y se publican en MetricsRegistry ("edt.lentos.<ventana> > <manejador>").
+public class EdtWatchdog extends EventQueue {
+
+    private static final String PAQUETE = EdtWatchdog.class.getPackage().getName() + ".";
+    private static final int MAX_LINEAS_PILA = 40;
+
+    private final long umbralNanos;
+    private final MetricsRegistry metricas = MetricsRegistry.global();
+    private final MetricsRegistry.Histograma despacho = metricas.histograma("edt.despacho");
+    private final AtomicLong lentos = new AtomicLong();
+    private final Map<String, AtomicLong> lentosPorManejador = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService vigilante;
+
+    // Despacho en curso. Solo los escribe el EDT; el vigilante los lee
+    private volatile AWTEvent actual;
+    private volatile long inicio;
+    private volatile long secuencia;
+    private volatile Thread hiloEdt;
+    // Secuencia del último despacho ya reportado por el vigilante
+    private volatile long reportada = -1;
+    // Despacho en curso visto desde el EDT (actual queda en null mientras el EDT espera eventos)
+    private AWTEvent enCurso;
+    // Si el despacho en curso abrió un ciclo de eventos anidado (diálogo modal)
+    private boolean anidado;
+
+    private EdtWatchdog(long umbralMs) {
+        this.umbralNanos = TimeUnit.MILLISECONDS.toNanos(umbralMs);
+        metricas.registrarIndicador("edt.lentos", lentos::get);
+        this.vigilante = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cafesoft-edt-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(10, umbralMs / 4);
+        vigilante.scheduleWithFixedDelay(this::revisar, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    // Instala el vigilante en la cola de eventos del sistema. Un umbral de 0 o menos no instala nada.
+    public static EdtWatchdog instalar(long umbralMs) {
+        if (umbralMs <= 0) {
+            return null;
+        }
+        EdtWatchdog watchdog = new EdtWatchdog(umbralMs);
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(watchdog);
+        Log.info("Vigilancia del EDT activa: se registran los despachos de más de " + umbralMs + " ms.");
+        return watchdog;
+    }
+
+    @Override
+    public AWTEvent getNextEvent() throws InterruptedException {
+        // El EDT pide otro evento: no hay nada bloqueándolo (también pasa con un diálogo modal abierto)
+        actual = null;
+        return super.getNextEvent();
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent evento) {
+        // Un despacho puede contener otros (los diálogos modales abren su propio ciclo de eventos):
+        // se guarda el estado del despacho externo y se restaura al volver
+        AWTEvent externo = enCurso;
+        boolean anidadoExterno = externo != null;
+        hiloEdt = Thread.currentThread();
+        anidado = false;
+        enCurso = evento;
+        actual = evento;
+        long comienzo = System.nanoTime();
+        inicio = comienzo;
+        long miSecuencia = ++secuencia;
+        try {
+            super.dispatchEvent(evento);
+        } finally {
+            long duracion = System.nanoTime() - comienzo;
+            // Si hubo un ciclo anidado la duración incluye el tiempo que el diálogo estuvo abierto: no es un bloqueo
+            if (!anidado) {
+                despacho.registrar(duracion);
+                if (duracion > umbralNanos) {
+                    terminarLento(evento, miSecuencia, duracion);
+                }
+            }
+            anidado = anidadoExterno;
+            enCurso = externo;
+            actual = externo;
+            if (externo != null) {
+                // El reloj del despacho externo vuelve a correr desde aquí
+                inicio = System.nanoTime();
+                secuencia++;
+            }
+        }
+    }
+
+    // Lo llama el EDT al terminar un despacho lento.
+    private void terminarLento(AWTEvent evento, long miSecuencia, long duracion) {
+        if (reportada == miSecuencia) {
+            // El vigilante ya registró la pila mientras estaba bloqueado; solo falta la duración total
+            Log.warn(String.format(java.util.Locale.US, "EDT liberado después de %.0f ms (%s).",
+                    duracion / 1_000_000.0, descripcion(evento)));
+            return;
+        }
+        // Terminó antes de que el vigilante lo viera: se cuenta sin pila
+        String ventana = nombreVentana(evento);
+        contar(ventana + " > " + descripcion(evento));
+        Log.warn(String.format(java.util.Locale.US, "Despacho lento en el EDT: %.0f ms en %s (%s).",
+                duracion / 1_000_000.0, ventana, descripcion(evento)));
+    }
+
+    // Corre en el hilo vigilante.
+    private void revisar() {
+        long miSecuencia = secuencia;
+        AWTEvent evento = actual;
+        long comienzo = inicio;
+        Thread hilo = hiloEdt;
+        if (evento == null || hilo == null || miSecuencia == reportada || secuencia != miSecuencia) {
+            return;
+        }
+        long transcurrido = System.nanoTime() - comienzo;
+        if (transcurrido <= umbralNanos) {
+            return;
+        }
+        StackTraceElement[] pila = hilo.getStackTrace();
+        if (secuencia != miSecuencia) {
+            return; // El despacho terminó mientras se leía la pila
+        }
+        reportada = miSecuencia;
+
+        String ventana = nombreVentana(evento);
+        String manejador = manejador(pila);
+        contar(ventana + " > " + (manejador != null ? manejador : descripcion(evento)));
+
+        StringBuilder mensaje = new StringBuilder(String.format(java.util.Locale.US,
+                "EDT bloqueado hace %.0f ms en %s (%s). Pila del EDT:", transcurrido / 1_000_000.0, ventana, descripcion(evento)));
+        int lineas = Math.min(pila.length, MAX_LINEAS_PILA);
+        for (int i = 0; i < lineas; i++) {
+            mensaje.append(System.lineSeparator()).append("\tat ").append(pila[i]);
+        }
+        if (pila.length > lineas) {
+            mensaje.append(System.lineSeparator()).append("\t... ").append(pila.length - lineas).append(" más");
+        }
+        Log.warn(mensaje.toString());
+    }
+
+    private void contar(String clave) {
+        lentos.incrementAndGet();
+        AtomicLong contador = lentosPorManejador.get(clave);
+        if (contador == null) {
+            contador = lentosPorManejador.computeIfAbsent(clave, k -> {
+                AtomicLong nuevo = new AtomicLong();
+                metricas.registrarIndicador("edt.lentos." + k, nuevo::get);
+                return nuevo;
+            });
+        }
+        contador.incrementAndGet();
+    }
+
+    // Método de la aplicación más externo de la pila (p. ej. "POSFrame.checkout"): es el manejador
+    // del evento; lo que bloquea dentro de él (una consulta, un archivo) queda en la pila registrada.
+    private static String manejador(StackTraceElement[] pila) {
+        for (int i = pila.length - 1; i >= 0; i--) {
+            StackTraceElement e = pila[i];
+            if (e.getClassName().startsWith(PAQUETE) && !e.getClassName().contains("$$Lambda")
+                    && !e.getClassName().equals(EdtWatchdog.class.getName())) {
+                String clase = e.getClassName().substring(PAQUETE.length());
+                return clase + "." + e.getMethodName();
+            }
+        }
+        return null;
+    }
+
+    private static String descripcion(AWTEvent evento) {
+        if (evento instanceof InvocationEvent) {
+            return "tarea en invokeLater";
+        }
+        return evento.getClass().getSimpleName() + " #" + evento.getID();
+    }
+
+    // Ventana de la aplicación donde ocurrió el evento. Los diálogos (JOptionPane, etc.) se
+    // atribuyen a la ventana de la aplicación que los abrió.
+    private static String nombreVentana(AWTEvent evento) {
+        Window ventana = null;
+        Object origen = evento.getSource();
+        if (origen instanceof Window) {
+            ventana = (Window) origen;
+        } else if (origen instanceof Component) {
+            ventana = SwingUtilities.getWindowAncestor((Component) origen);
+        }
+        if (ventana == null) {
+            ventana = KeyboardFocusManager.getCurrentKeyboardFocusManager().getActiveWindow();
+        }
+        for (Window w = ventana; w != null; w = w.getOwner()) {
+            if (w.getClass().getName().startsWith(PAQUETE)) {
+                return w.getClass().getSimpleName();
+            }
+        }
+        return ventana != null ? ventana.getClass().getSimpleName() : "sin ventana";
+    }
+
+    public long getLentos() {
+        return lentos.get();
+    }
+
+    public void detener() {
+        vigilante.shutdownNow();
+    }
+}
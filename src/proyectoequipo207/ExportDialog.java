@@ -0,0 +1,234 @@
+package proyectoequipo207;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Exportación del historial de ventas a CSV o Excel (ver SalesExporter): rango de fechas, producto y formato.
+// La exportación corre en su propio hilo (puede tardar con un historial largo) y se puede cancelar;
+// el avance llega a la barra de progreso por el EDT.
+public class ExportDialog extends JDialog {
+
+    private static final String TODOS = "Todos los productos";
+
+    private final DatabaseManager dbManager;
+    private final JTextField desdeField;
+    private final JTextField hastaField;
+    private final JComboBox<Object> productoCombo;
+    private final JComboBox<SalesExporter.Formato> formatoCombo;
+    private final JProgressBar progressBar;
+    private final JLabel estadoLabel;
+    private final JButton exportarButton;
+    private final JButton cancelarButton;
+    private volatile SalesExporter enCurso;
+    // Ids de la lista que ya no están en el catálogo (dados de baja, con ventas)
+    private final Set<Integer> dadosDeBaja = ConcurrentHashMap.newKeySet();
+
+    private final Color COLOR_FONDO_CLARO = new Color(245, 239, 230);
+    private final Color COLOR_PRIMARIO = new Color(74, 49, 39);
+
+    public ExportDialog(Window owner, DatabaseManager dbManager) {
+        super(owner, "CAFESOFT - Exportar Ventas", ModalityType.MODELESS);
+        this.dbManager = dbManager;
+        setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+        setSize(520, 340);
+        setLayout(new BorderLayout(10, 10));
+        getContentPane().setBackground(COLOR_FONDO_CLARO);
+
+        // Por defecto, el año en curso hasta hoy
+        LocalDate hoy = LocalDate.now();
+        desdeField = new JTextField(hoy.withDayOfYear(1).toString());
+        hastaField = new JTextField(hoy.toString());
+        productoCombo = new JComboBox<>();
+        productoCombo.addItem(TODOS);
+        productoCombo.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                Object texto = value;
+                if (value instanceof Producto) {
+                    Producto p = (Producto) value;
+                    texto = dadosDeBaja.contains(p.getId()) ? p.getNombre() + " (dado de baja)" : p.getNombre();
+                }
+                return super.getListCellRendererComponent(list, texto, index, isSelected, cellHasFocus);
+            }
+        });
+        // La lista se lee fuera del EDT; mientras tanto solo se puede exportar todo
+        dbManager.async().ejecutarEnSwing(this, () -> {
+            List<Producto> productos = dbManager.obtenerProductosConHistorial();
+            for (Producto p : productos) {
+                // El catálogo solo tiene los activos
+                if (dbManager.obtenerProductoPorId(p.getId()) == null) {
+                    dadosDeBaja.add(p.getId());
+                }
+            }
+            return productos;
+        }, this::mostrarProductos);
+        formatoCombo = new JComboBox<>(SalesExporter.Formato.values());
+        formatoCombo.setSelectedItem(SalesExporter.Formato.XLSX);
+
+        JPanel form = new JPanel(new GridLayout(0, 2, 8, 8));
+        form.setOpaque(false);
+        form.add(new JLabel("Desde (AAAA-MM-DD):"));
+        form.add(desdeField);
+        form.add(new JLabel("Hasta, inclusive (AAAA-MM-DD):"));
+        form.add(hastaField);
+        form.add(new JLabel("Producto:"));
+        form.add(productoCombo);
+        form.add(new JLabel("Formato:"));
+        form.add(formatoCombo);
+
+        progressBar = new JProgressBar();
+        progressBar.setStringPainted(true);
+        progressBar.setString("");
+        estadoLabel = new JLabel(" ");
+        estadoLabel.setForeground(COLOR_PRIMARIO);
+
+        JPanel centro = new JPanel(new BorderLayout(0, 12));
+        centro.setOpaque(false);
+        centro.setBorder(new EmptyBorder(20, 20, 0, 20));
+        centro.add(form, BorderLayout.NORTH);
+        centro.add(progressBar, BorderLayout.CENTER);
+        centro.add(estadoLabel, BorderLayout.SOUTH);
+        add(centro, BorderLayout.CENTER);
+
+        exportarButton = crearBoton("Exportar...");
+        exportarButton.addActionListener(e -> export());
+        cancelarButton = crearBoton("Cancelar");
+        cancelarButton.setEnabled(false);
+        cancelarButton.addActionListener(e -> cancel());
+        JPanel botones = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        botones.setOpaque(false);
+        botones.setBorder(new EmptyBorder(0, 20, 15, 20));
+        botones.add(exportarButton);
+        botones.add(cancelarButton);
+        add(botones, BorderLayout.SOUTH);
+
+        // Cerrar la ventana cancela la exportación en curso
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                cancel();
+                dispose();
+            }
+        });
+        setLocationRelativeTo(owner);
+    }
+
+    private void mostrarProductos(List<Producto> productos) {
+        for (Producto p : productos) {
+            productoCombo.addItem(p);
+        }
+    }
+
+    private JButton crearBoton(String texto) {
+        JButton button = new JButton(texto);
+        button.setFont(new Font("SansSerif", Font.BOLD, 13));
+        button.setBackground(COLOR_PRIMARIO);
+        button.setForeground(Color.WHITE);
+        return button;
+    }
+
+    private void export() {
+        Date desde;
+        Date hasta;
+        try {
+            LocalDate inicio = LocalDate.parse(desdeField.getText().trim());
+            LocalDate fin = LocalDate.parse(hastaField.getText().trim());
+            if (fin.isBefore(inicio)) {
+                JOptionPane.showMessageDialog(this, "La fecha final es anterior a la inicial.", "Error de Validación", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            desde = Date.from(inicio.atStartOfDay(ZoneId.systemDefault()).toInstant());
+            hasta = Date.from(fin.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        } catch (DateTimeParseException e) {
+            JOptionPane.showMessageDialog(this, "Las fechas deben tener el formato AAAA-MM-DD.", "Error de Formato", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        Object seleccion = productoCombo.getSelectedItem();
+        int productoId = seleccion instanceof Producto ? ((Producto) seleccion).getId() : 0;
+        SalesExporter.Formato formato = (SalesExporter.Formato) formatoCombo.getSelectedItem();
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("ventas_" + desdeField.getText().trim() + "_" + hastaField.getText().trim()
+                + "." + formato.getExtension()));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File elegido = chooser.getSelectedFile();
+        File archivo = elegido.getName().toLowerCase().endsWith("." + formato.getExtension())
+                ? elegido : new File(elegido.getPath() + "." + formato.getExtension());
+        if (archivo.exists() && JOptionPane.showConfirmDialog(this, "El archivo " + archivo.getName() + " ya existe. ¿Reemplazarlo?",
+                "Confirmar", JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        SalesExporter exportador = new SalesExporter(dbManager);
+        enCurso = exportador;
+        exportarButton.setEnabled(false);
+        cancelarButton.setEnabled(true);
+        progressBar.setIndeterminate(true);
+        progressBar.setString("Contando ventas...");
+        estadoLabel.setText("Exportando a " + archivo.getName());
+
+        Thread hilo = new Thread(() -> {
+            long filas = exportador.exportar(archivo.toPath(), formato, desde, hasta, productoId,
+                    (hechas, total) -> SwingUtilities.invokeLater(() -> showProgress(hechas, total)));
+            SwingUtilities.invokeLater(() -> finish(exportador, archivo, filas));
+        }, "cafesoft-exportacion");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    private void showProgress(long hechas, long total) {
+        if (total > 0) {
+            progressBar.setIndeterminate(false);
+            progressBar.setValue((int) Math.min(100, hechas * 100 / total));
+            progressBar.setString(String.format("%,d de %,d ventas", hechas, total));
+        } else {
+            progressBar.setString(String.format("%,d ventas", hechas));
+        }
+    }
+
+    private void cancel() {
+        SalesExporter exportador = enCurso;
+        if (exportador != null) {
+            exportador.cancelar();
+            cancelarButton.setEnabled(false);
+            estadoLabel.setText("Cancelando...");
+        }
+    }
+
+    private void finish(SalesExporter exportador, File archivo, long filas) {
+        enCurso = null;
+        exportarButton.setEnabled(true);
+        cancelarButton.setEnabled(false);
+        progressBar.setIndeterminate(false);
+        if (!isDisplayable()) {
+            return;
+        }
+        if (exportador.estaCancelado()) {
+            progressBar.setValue(0);
+            progressBar.setString("");
+            estadoLabel.setText("Exportación cancelada.");
+        } else if (filas < 0) {
+            progressBar.setValue(0);
+            progressBar.setString("");
+            estadoLabel.setText("La exportación falló.");
+            JOptionPane.showMessageDialog(this, "No se pudo exportar las ventas. Revise el registro de la aplicación.",
+                    "Error de Exportación", JOptionPane.ERROR_MESSAGE);
+        } else {
+            progressBar.setValue(100);
+            estadoLabel.setText(String.format("%,d ventas exportadas a %s", filas, archivo.getName()));
+        }
+    }
+}
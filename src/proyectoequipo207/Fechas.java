@@ -0,0 +1,26 @@
+package proyectoequipo207;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+// Formatos de fecha para pantalla. DateTimeFormatter es inmutable y seguro entre hilos,
+// así que cada formato se crea una sola vez y se comparte (a diferencia de SimpleDateFormat).
+// En la base las fechas se guardan como milisegundos desde epoch (UTC); aquí se pasan a hora local.
+public final class Fechas {
+
+    // Historial de ventas
+    public static final DateTimeFormatter TABLA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+
+    // Reportes (cierre de caja)
+    public static final DateTimeFormatter REPORTE = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+
+    private Fechas() {
+    }
+
+    public static String formatear(DateTimeFormatter formato, Instant instante) {
+        return instante == null ? "" : formato.format(instante);
+    }
+}
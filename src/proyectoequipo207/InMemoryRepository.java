@@ -0,0 +1,411 @@
+package proyectoequipo207;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Repositorio completo en memoria, sin SQLite: para pruebas de rendimiento y de carga de la interfaz
+// que no deben medir el disco. No persiste nada y no lleva inventario (ningún producto tiene receta).
+// No usa candados: mapas concurrentes, ids atómicos y objetos inmutables que se reemplazan con CAS.
+public class InMemoryRepository implements ProductoRepository, VentaRepository, UsuarioRepository, PosBackend {
+
+    private final PasswordHasher hasher;
+    private final SessionCache intentosPin = new SessionCache(0);
+
+    // Productos activos por id, y los dados de baja por nombre (agregar uno con ese nombre lo reactiva)
+    private final ConcurrentSkipListMap<Integer, Producto> productos = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, Producto> bajas = new ConcurrentHashMap<>();
+    private final AtomicInteger siguienteProducto = new AtomicInteger(1);
+    // La lista que se entrega se arma una vez por versión del menú, como ProductCatalog
+    private final AtomicLong versionProductos = new AtomicLong();
+    private final AtomicReference<Foto> foto = new AtomicReference<>();
+
+    private final ConcurrentHashMap<String, Cuenta> usuarios = new ConcurrentHashMap<>();
+
+    // Líneas de venta por id (el historial se recorre por id descendente, igual que en la base)
+    private final ConcurrentSkipListMap<Integer, Venta> ventas = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Integer, Integer> turnoDeOrden = new ConcurrentHashMap<>();
+    private final AtomicInteger siguienteOrden = new AtomicInteger(1);
+    private final AtomicInteger siguienteVenta = new AtomicInteger(1);
+
+    private final ConcurrentHashMap<Integer, EstadoTurno> turnos = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> turnoAbierto = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Cierre> cierres = new ConcurrentHashMap<>();
+    private final AtomicInteger siguienteTurno = new AtomicInteger(1);
+
+    private static final class Foto {
+        final long version;
+        final List<Producto> lista;
+
+        Foto(long version, List<Producto> lista) {
+            this.version = version;
+            this.lista = lista;
+        }
+    }
+
+    private static final class Cuenta {
+        final String rol;
+        final String password;
+        final String pin; // null si no tiene
+
+        Cuenta(String rol, String password, String pin) {
+            this.rol = rol;
+            this.password = password;
+            this.pin = pin;
+        }
+    }
+
+    // Un turno abierto cuenta las ventas que se están registrando en él; al cerrarse el contador queda en -1.
+    // El cierre espera a que no haya ventas a medias, así ninguna queda fuera del reporte Z.
+    private static final class EstadoTurno {
+        final Turno turno;
+        final AtomicInteger ventasEnCurso = new AtomicInteger();
+
+        EstadoTurno(Turno turno) {
+            this.turno = turno;
+        }
+
+        boolean entrar() {
+            while (true) {
+                int actual = ventasEnCurso.get();
+                if (actual < 0) {
+                    return false;
+                }
+                if (ventasEnCurso.compareAndSet(actual, actual + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void salir() {
+            ventasEnCurso.decrementAndGet();
+        }
+
+        boolean cerrar() {
+            while (true) {
+                int actual = ventasEnCurso.get();
+                if (actual < 0) {
+                    return false;
+                }
+                if (actual == 0 && ventasEnCurso.compareAndSet(0, -1)) {
+                    return true;
+                }
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    // Repositorio vacío. Con pocas iteraciones de PBKDF2 el login no domina las pruebas de carga.
+    public InMemoryRepository(int iteracionesHash) {
+        this.hasher = new PasswordHasher(iteracionesHash);
+    }
+
+    // Repositorio con los mismos productos que otro (p. ej. el catálogo de una base de pruebas).
+    public static InMemoryRepository conProductos(List<Producto> origen, int iteracionesHash) {
+        InMemoryRepository repo = new InMemoryRepository(iteracionesHash);
+        for (Producto p : origen) {
+            repo.productos.put(p.getId(), new Producto(p.getId(), p.getNombre(), p.getPrecio()));
+            repo.siguienteProducto.accumulateAndGet(p.getId() + 1, Math::max);
+        }
+        repo.versionProductos.incrementAndGet();
+        return repo;
+    }
+
+    // PRODUCTOS
+
+    @Override
+    public List<Producto> obtenerProductos() {
+        // La versión se lee antes de armar la lista: si un cambio llega mientras tanto, la foto nace vieja y se rehace
+        long version = versionProductos.get();
+        Foto actual = foto.get();
+        if (actual != null && actual.version == version) {
+            return actual.lista;
+        }
+        List<Producto> lista = Collections.unmodifiableList(new ArrayList<>(productos.values()));
+        foto.set(new Foto(version, lista));
+        return lista;
+    }
+
+    @Override
+    public Producto obtenerProductoPorId(int id) {
+        return productos.get(id);
+    }
+
+    @Override
+    public Producto obtenerProductoPorNombre(String nombre) {
+        for (Producto p : productos.values()) {
+            if (p.getNombre().equals(nombre)) {
+                return p;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean agregarProducto(Producto producto) {
+        if (obtenerProductoPorNombre(producto.getNombre()) != null) {
+            return false;
+        }
+        Producto baja = bajas.remove(producto.getNombre());
+        int id = baja != null ? baja.getId() : siguienteProducto.getAndIncrement();
+        productos.put(id, new Producto(id, producto.getNombre(), producto.getPrecio()));
+        versionProductos.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public boolean actualizarProducto(Producto producto) {
+        Producto otro = obtenerProductoPorNombre(producto.getNombre());
+        if (otro != null && otro.getId() != producto.getId()) {
+            return false;
+        }
+        Producto nuevo = new Producto(producto.getId(), producto.getNombre(), producto.getPrecio());
+        if (productos.replace(producto.getId(), nuevo) == null) {
+            return false;
+        }
+        versionProductos.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public boolean eliminarProducto(int id) {
+        Producto quitado = productos.remove(id);
+        if (quitado != null) {
+            bajas.put(quitado.getNombre(), quitado);
+            versionProductos.incrementAndGet();
+        }
+        return true;
+    }
+
+    // VENTAS
+
+    @Override
+    public int registrarOrden(Map<Producto, Integer> orden, int turnoId) {
+        if (orden == null || orden.isEmpty()) {
+            return -1;
+        }
+        EstadoTurno estado = null;
+        if (turnoId > 0) {
+            estado = turnos.get(turnoId);
+            if (estado == null || !estado.entrar()) {
+                Log.error("Error registrando orden: el turno #" + turnoId + " no está abierto");
+                return -1;
+            }
+        }
+        try {
+            int ordenId = siguienteOrden.getAndIncrement();
+            Instant fecha = Instant.now();
+            // Las líneas se agregan después de asociar la orden al turno: el cierre las encuentra todas
+            turnoDeOrden.put(ordenId, turnoId);
+            for (Map.Entry<Producto, Integer> entry : orden.entrySet()) {
+                Producto p = entry.getKey();
+                int ventaId = siguienteVenta.getAndIncrement();
+                ventas.put(ventaId, new Venta(ventaId, ordenId, fecha, p.getId(), p.getNombre(), entry.getValue(), p.getPrecio()));
+            }
+            return ordenId;
+        } finally {
+            if (estado != null) {
+                estado.salir();
+            }
+        }
+    }
+
+    public int registrarOrden(Map<Producto, Integer> orden) {
+        return registrarOrden(orden, 0);
+    }
+
+    @Override
+    public boolean registrarVenta(String producto, int cantidad, Dinero precioUnitario) {
+        Producto p = obtenerProductoPorNombre(producto);
+        if (p == null) {
+            Log.error("Error registrando venta: producto desconocido '" + producto + "'");
+            return false;
+        }
+        return registrarOrden(Collections.singletonMap(new Producto(p.getId(), p.getNombre(), precioUnitario), cantidad)) > 0;
+    }
+
+    @Override
+    public List<Venta> obtenerVentas(Date desde, Date hasta) {
+        Instant inicio = desde.toInstant();
+        Instant fin = hasta.toInstant();
+        List<Venta> resultado = new ArrayList<>();
+        // Ids y fechas crecen juntos salvo por ventas concurrentes del mismo instante
+        for (Venta v : ventas.descendingMap().values()) {
+            if (!v.getFechaVenta().isBefore(inicio) && v.getFechaVenta().isBefore(fin)) {
+                resultado.add(v);
+            }
+        }
+        resultado.sort((a, b) -> {
+            int porFecha = b.getFechaVenta().compareTo(a.getFechaVenta());
+            return porFecha != 0 ? porFecha : Integer.compare(b.getIdVenta(), a.getIdVenta());
+        });
+        return resultado;
+    }
+
+    public int contarVentas() {
+        return ventas.size();
+    }
+
+    // USUARIOS
+
+    @Override
+    public boolean registrarUsuario(String username, String password, String rol) {
+        return usuarios.putIfAbsent(username, new Cuenta(rol, hasher.hashear(password), null)) == null;
+    }
+
+    @Override
+    public Usuario autenticarUsuario(String username, String password) {
+        Cuenta cuenta = usuarios.get(username);
+        if (cuenta == null || !PasswordHasher.verificar(password, cuenta.password)) {
+            return null;
+        }
+        return new Usuario(username, cuenta.rol);
+    }
+
+    @Override
+    public boolean asignarPin(String username, String pin) {
+        if (!DatabaseManager.esPinValido(pin)) {
+            return false;
+        }
+        String hash = hasher.hashear(pin);
+        while (true) {
+            Cuenta actual = usuarios.get(username);
+            if (actual == null) {
+                return false;
+            }
+            if (usuarios.replace(username, actual, new Cuenta(actual.rol, actual.password, hash))) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public Usuario autenticarPorPin(String username, String pin) {
+        if (!DatabaseManager.esPinValido(pin) || intentosPin.estaBloqueado(username)) {
+            return null;
+        }
+        Cuenta cuenta = usuarios.get(username);
+        if (cuenta == null || cuenta.pin == null || !PasswordHasher.verificar(pin, cuenta.pin)) {
+            intentosPin.registrarFallo(username);
+            return null;
+        }
+        intentosPin.registrarExito(username);
+        return new Usuario(username, cuenta.rol);
+    }
+
+    @Override
+    public boolean estaBloqueadoPin(String username) {
+        return intentosPin.estaBloqueado(username);
+    }
+
+    @Override
+    public boolean cambiarCredenciales(String username, String password, String pin) {
+        if (password == null || password.isEmpty() || !DatabaseManager.esPinValido(pin)) {
+            return false;
+        }
+        Cuenta actual = usuarios.get(username);
+        if (actual == null) {
+            return false;
+        }
+        return usuarios.replace(username, actual, new Cuenta(actual.rol, hasher.hashear(password), hasher.hashear(pin)));
+    }
+
+    @Override
+    public List<Usuario> obtenerUsuariosConPin() {
+        List<Usuario> conPin = new ArrayList<>();
+        for (Map.Entry<String, Cuenta> entry : usuarios.entrySet()) {
+            if (entry.getValue().pin != null) {
+                conPin.add(new Usuario(entry.getKey(), entry.getValue().rol));
+            }
+        }
+        conPin.sort((a, b) -> a.getNombreUsuario().compareTo(b.getNombreUsuario()));
+        return conPin;
+    }
+
+    // TURNOS
+
+    @Override
+    public Turno abrirTurno(String usuario, Dinero fondoInicial) {
+        Turno abierto = obtenerTurnoAbierto(usuario);
+        if (abierto != null) {
+            return abierto;
+        }
+        int id = siguienteTurno.getAndIncrement();
+        Turno turno = new Turno(id, usuario, Instant.now(), null, fondoInicial);
+        turnos.put(id, new EstadoTurno(turno));
+        // Si otro inicio de sesión del mismo usuario se adelantó, vale el suyo
+        Integer previo = turnoAbierto.putIfAbsent(usuario, id);
+        if (previo != null) {
+            turnos.remove(id);
+            return obtenerTurnoAbierto(usuario);
+        }
+        return turno;
+    }
+
+    @Override
+    public Turno obtenerTurnoAbierto(String usuario) {
+        Integer id = turnoAbierto.get(usuario);
+        EstadoTurno estado = id == null ? null : turnos.get(id);
+        return estado == null ? null : estado.turno;
+    }
+
+    @Override
+    public Cierre cerrarTurno(int turnoId, Dinero efectivoContado) {
+        EstadoTurno estado = turnos.get(turnoId);
+        if (estado == null || !estado.cerrar()) {
+            Log.warn("Error cerrando turno: el turno #" + turnoId + " no existe o ya está cerrado");
+            return null;
+        }
+        Turno abierto = estado.turno;
+        turnoAbierto.remove(abierto.getUsuario(), turnoId);
+        Turno cerrado = new Turno(abierto.getId(), abierto.getUsuario(), abierto.getApertura(), Instant.now(), abierto.getFondoInicial());
+
+        // Reporte Z: totales del turno y desglose por producto
+        Map<String, int[]> unidadesYTickets = new LinkedHashMap<>();
+        Map<String, Dinero> totales = new LinkedHashMap<>();
+        Map<String, Integer> ultimaOrden = new LinkedHashMap<>();
+        Set<Integer> ordenes = new HashSet<>();
+        int lineas = 0;
+        int unidades = 0;
+        Dinero total = Dinero.CERO;
+        for (Venta v : ventas.values()) {
+            Integer turnoDeVenta = turnoDeOrden.get(v.getIdOrden());
+            if (turnoDeVenta == null || turnoDeVenta != turnoId) {
+                continue;
+            }
+            ordenes.add(v.getIdOrden());
+            lineas++;
+            unidades += v.getCantidad();
+            total = total.sumar(v.getSubtotal());
+            int[] acumulado = unidadesYTickets.computeIfAbsent(v.getNombreProducto(), k -> new int[2]);
+            acumulado[0] += v.getCantidad();
+            if (!Integer.valueOf(v.getIdOrden()).equals(ultimaOrden.put(v.getNombreProducto(), v.getIdOrden()))) {
+                acumulado[1]++;
+            }
+            totales.merge(v.getNombreProducto(), v.getSubtotal(), Dinero::sumar);
+        }
+        List<TotalAgrupado> detalle = new ArrayList<>();
+        for (Map.Entry<String, int[]> entry : unidadesYTickets.entrySet()) {
+            detalle.add(new TotalAgrupado(entry.getKey(), entry.getValue()[0], totales.get(entry.getKey()), entry.getValue()[1]));
+        }
+        Cierre cierre = new Cierre(cerrado, ordenes.size(), lineas, unidades, total,
+                abierto.getFondoInicial().sumar(total), efectivoContado, detalle);
+        cierres.put(turnoId, cierre);
+        return cierre;
+    }
+
+    public Cierre obtenerCierre(int turnoId) {
+        return cierres.get(turnoId);
+    }
+}
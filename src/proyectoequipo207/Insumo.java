@@ -0,0 +1,38 @@
+package proyectoequipo207;
+
+// Insumo del inventario (leche, shots de espresso, muffins...). Las cantidades son enteras en la
+// unidad del insumo ("u", "ml", "g"), igual que los montos van en centavos: sin decimales que redondear.
+public class Insumo {
+    private final int id;
+    private final String nombre;
+    private final String unidad;
+    private final long stock;
+    private final long minimo; // por debajo de este stock se avisa
+
+    public Insumo(int id, String nombre, String unidad, long stock, long minimo) {
+        this.id = id;
+        this.nombre = nombre;
+        this.unidad = unidad;
+        this.stock = stock;
+        this.minimo = minimo;
+    }
+
+    public int getId() { return id; }
+    public String getNombre() { return nombre; }
+    public String getUnidad() { return unidad; }
+    public long getStock() { return stock; }
+    public long getMinimo() { return minimo; }
+
+    public boolean estaBajoMinimo() {
+        return stock < minimo;
+    }
+
+    public Insumo conStock(long nuevoStock) {
+        return new Insumo(id, nombre, unidad, nuevoStock, minimo);
+    }
+
+    @Override
+    public String toString() {
+        return nombre + " (" + stock + " " + unidad + ")";
+    }
+}
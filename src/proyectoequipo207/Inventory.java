@@ -0,0 +1,258 @@
+package proyectoequipo207;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Inventario de insumos y recetas (qué insumos y cuánto consume cada producto).
+// Las tablas son la fuente de verdad; aquí se guarda una vista en memoria que DatabaseManager
+// mantiene al día, así el POS valida la disponibilidad de una orden sin consultar la base.
+// El descuento real se hace dentro de la transacción del cobro con un UPDATE condicionado
+// (stock >= cantidad): si otra caja se adelantó, la orden completa se deshace.
+// Con el diario de ventas (ver SalesJournal) el descuento se reserva en la vista al confirmar
+// la venta y llega a la base después; la reserva se mantiene al recargar hasta que se aplica.
+// Un producto sin receta no lleva control de stock.
+public class Inventory {
+
+    private static final String DDL_INSUMOS = "CREATE TABLE IF NOT EXISTS insumos ("
+            + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+            + "nombre TEXT NOT NULL UNIQUE,"
+            + "unidad TEXT NOT NULL,"
+            + "stock INTEGER NOT NULL DEFAULT 0 CHECK (stock >= 0),"
+            + "minimo INTEGER NOT NULL DEFAULT 0)";
+
+    private static final String DDL_RECETAS = "CREATE TABLE IF NOT EXISTS recetas ("
+            + "producto_id INTEGER NOT NULL REFERENCES productos(id),"
+            + "insumo_id INTEGER NOT NULL REFERENCES insumos(id),"
+            + "cantidad INTEGER NOT NULL CHECK (cantidad > 0),"
+            + "PRIMARY KEY (producto_id, insumo_id)) WITHOUT ROWID";
+
+    // Se lanza dentro de la transacción del cobro cuando un insumo no alcanza.
+    static final class StockInsuficiente extends SQLException {
+        private final int insumoId;
+
+        StockInsuficiente(int insumoId) {
+            super("stock insuficiente del insumo #" + insumoId);
+            this.insumoId = insumoId;
+        }
+
+        int getInsumoId() {
+            return insumoId;
+        }
+    }
+
+    // Vista en memoria: se reemplaza completa al recargar y cada insumo se reemplaza al descontar
+    private Map<Integer, Insumo> insumos = Collections.emptyMap();
+    private Map<Integer, Map<Integer, Long>> recetas = Collections.emptyMap();
+    // Descuentos ya vendidos que todavía no están en la tabla insumos (insumo -> cantidad)
+    private final Map<Integer, Long> reservado = new TreeMap<>();
+    private final List<Consumer<Insumo>> alertas = new CopyOnWriteArrayList<>();
+
+    static void crearTablas(Statement stmt) throws SQLException {
+        stmt.execute(DDL_INSUMOS);
+        stmt.execute(DDL_RECETAS);
+    }
+
+    // Descuenta lo que consume una orden. Debe llamarse dentro de la transacción de la orden.
+    static void descontar(ConnectionPool.Conexion c, Map<Integer, Long> requeridos) throws SQLException {
+        PreparedStatement ps = c.preparar("UPDATE insumos SET stock = stock - ? WHERE id = ? AND stock >= ?");
+        for (Map.Entry<Integer, Long> entry : requeridos.entrySet()) {
+            ps.setLong(1, entry.getValue());
+            ps.setInt(2, entry.getKey());
+            ps.setLong(3, entry.getValue());
+            if (ps.executeUpdate() == 0) {
+                throw new StockInsuficiente(entry.getKey());
+            }
+        }
+    }
+
+    // Descuenta lo que consume una venta ya confirmada en el diario, cuando llega a la base.
+    // La venta no se puede rechazar a esta altura: si el stock no alcanza (un ajuste hecho mientras
+    // tanto) queda en cero. Retorna false en ese caso, para volver a leer la vista.
+    static boolean descontarHastaCero(ConnectionPool.Conexion c, Map<Integer, Long> requeridos) throws SQLException {
+        boolean alcanzo = true;
+        PreparedStatement ps = c.preparar("UPDATE insumos SET stock = MAX(stock - ?, 0) WHERE id = ?");
+        try {
+            descontar(c, requeridos);
+        } catch (StockInsuficiente e) {
+            // descontar se detuvo en el insumo que faltó; los anteriores ya quedaron descontados
+            alcanzo = false;
+            for (Map.Entry<Integer, Long> entry : requeridos.entrySet()) {
+                if (entry.getKey() < e.getInsumoId()) {
+                    continue;
+                }
+                ps.setLong(1, entry.getValue());
+                ps.setInt(2, entry.getKey());
+                ps.executeUpdate();
+            }
+        }
+        return alcanzo;
+    }
+
+    // Reemplaza la vista con lo leído de la base.
+    synchronized void reemplazar(List<Insumo> leidos, Map<Integer, Map<Integer, Long>> recetasLeidas) {
+        Map<Integer, Insumo> nuevos = new LinkedHashMap<>();
+        for (Insumo i : leidos) {
+            Long pendiente = reservado.get(i.getId());
+            nuevos.put(i.getId(), pendiente == null ? i : i.conStock(Math.max(0, i.getStock() - pendiente)));
+        }
+        Map<Integer, Map<Integer, Long>> nuevasRecetas = new TreeMap<>();
+        for (Map.Entry<Integer, Map<Integer, Long>> entry : recetasLeidas.entrySet()) {
+            nuevasRecetas.put(entry.getKey(), Collections.unmodifiableMap(new TreeMap<>(entry.getValue())));
+        }
+        insumos = nuevos;
+        recetas = nuevasRecetas;
+    }
+
+    // Insumos que consume la orden, sumados por insumo (ordenados por id para descontar siempre en el mismo orden).
+    public synchronized Map<Integer, Long> requerimientos(Map<Producto, Integer> orden) {
+        Map<Integer, Long> requeridos = new TreeMap<>();
+        for (Map.Entry<Producto, Integer> entry : orden.entrySet()) {
+            Map<Integer, Long> receta = recetas.get(entry.getKey().getId());
+            if (receta == null) {
+                continue;
+            }
+            for (Map.Entry<Integer, Long> ingrediente : receta.entrySet()) {
+                requeridos.merge(ingrediente.getKey(), ingrediente.getValue() * entry.getValue(), Long::sum);
+            }
+        }
+        return requeridos;
+    }
+
+    // Descripción de los insumos que no alcanzan para la orden (vacía si alcanza todo).
+    public synchronized List<String> faltantes(Map<Producto, Integer> orden) {
+        List<String> faltan = new ArrayList<>();
+        for (Map.Entry<Integer, Long> entry : requerimientos(orden).entrySet()) {
+            Insumo insumo = insumos.get(entry.getKey());
+            if (insumo != null && insumo.getStock() < entry.getValue()) {
+                faltan.add(insumo.getNombre() + ": se necesitan " + entry.getValue() + " " + insumo.getUnidad()
+                        + ", hay " + insumo.getStock());
+            }
+        }
+        return faltan;
+    }
+
+    // Aplica en memoria un descuento ya confirmado en la base y avisa de los insumos que quedaron bajo el mínimo.
+    void aplicar(Map<Integer, Long> descontados) {
+        List<Insumo> nuevosBajos = new ArrayList<>();
+        synchronized (this) {
+            Map<Integer, Insumo> copia = new LinkedHashMap<>(insumos);
+            for (Map.Entry<Integer, Long> entry : descontados.entrySet()) {
+                Insumo antes = copia.get(entry.getKey());
+                if (antes == null) {
+                    continue;
+                }
+                Insumo despues = antes.conStock(antes.getStock() - entry.getValue());
+                copia.put(despues.getId(), despues);
+                if (despues.estaBajoMinimo() && !antes.estaBajoMinimo()) {
+                    nuevosBajos.add(despues);
+                }
+            }
+            insumos = copia;
+        }
+        for (Insumo bajo : nuevosBajos) {
+            Log.warn("Stock bajo: " + bajo + ", mínimo " + bajo.getMinimo() + " " + bajo.getUnidad());
+            for (Consumer<Insumo> alerta : alertas) {
+                alerta.accept(bajo);
+            }
+        }
+    }
+
+    // Reserva en la vista lo que consume una venta confirmada en el diario y todavía no escrita en la base.
+    void reservar(Map<Integer, Long> requeridos) {
+        synchronized (this) {
+            for (Map.Entry<Integer, Long> entry : requeridos.entrySet()) {
+                reservado.merge(entry.getKey(), entry.getValue(), Long::sum);
+            }
+        }
+        aplicar(requeridos);
+    }
+
+    // La venta reservada ya está en la base: la vista no cambia, solo deja de contarse como pendiente.
+    synchronized void confirmar(Map<Integer, Long> requeridos) {
+        for (Map.Entry<Integer, Long> entry : requeridos.entrySet()) {
+            reservado.computeIfPresent(entry.getKey(), (id, cantidad) -> cantidad - entry.getValue() > 0 ? cantidad - entry.getValue() : null);
+        }
+    }
+
+    // La venta reservada no llegó a confirmarse (falló la escritura del diario): se devuelve el stock.
+    void liberar(Map<Integer, Long> requeridos) {
+        confirmar(requeridos);
+        Map<Integer, Long> devueltos = new TreeMap<>();
+        for (Map.Entry<Integer, Long> entry : requeridos.entrySet()) {
+            devueltos.put(entry.getKey(), -entry.getValue());
+        }
+        aplicar(devueltos);
+    }
+
+    // Unidades del producto que alcanzan con el stock actual, o -1 si el producto no lleva control de stock.
+    public synchronized long disponibles(int productoId) {
+        Map<Integer, Long> receta = recetas.get(productoId);
+        if (receta == null || receta.isEmpty()) {
+            return -1;
+        }
+        long minimo = Long.MAX_VALUE;
+        for (Map.Entry<Integer, Long> ingrediente : receta.entrySet()) {
+            Insumo insumo = insumos.get(ingrediente.getKey());
+            long alcanza = insumo == null ? 0 : insumo.getStock() / ingrediente.getValue();
+            minimo = Math.min(minimo, alcanza);
+        }
+        return minimo;
+    }
+
+    // Indica si algún insumo de la receta del producto está bajo su mínimo.
+    public synchronized boolean usaInsumoBajo(int productoId) {
+        Map<Integer, Long> receta = recetas.get(productoId);
+        if (receta == null) {
+            return false;
+        }
+        for (Integer insumoId : receta.keySet()) {
+            Insumo insumo = insumos.get(insumoId);
+            if (insumo != null && insumo.estaBajoMinimo()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized List<Insumo> getInsumos() {
+        return new ArrayList<>(insumos.values());
+    }
+
+    public synchronized Insumo getInsumo(int id) {
+        return insumos.get(id);
+    }
+
+    public synchronized List<Insumo> getBajoMinimo() {
+        List<Insumo> bajos = new ArrayList<>();
+        for (Insumo i : insumos.values()) {
+            if (i.estaBajoMinimo()) {
+                bajos.add(i);
+            }
+        }
+        return bajos;
+    }
+
+    // Receta del producto: insumo -> cantidad por unidad vendida (vacía si no tiene).
+    public synchronized Map<Integer, Long> getReceta(int productoId) {
+        Map<Integer, Long> receta = recetas.get(productoId);
+        return receta == null ? Collections.<Integer, Long>emptyMap() : receta;
+    }
+
+    // La alerta se llama desde el hilo que registró la venta (no el EDT).
+    public void agregarAlerta(Consumer<Insumo> alerta) {
+        alertas.add(alerta);
+    }
+
+    public void quitarAlerta(Consumer<Insumo> alerta) {
+        alertas.remove(alerta);
+    }
+}
@@ -0,0 +1,212 @@
+package proyectoequipo207;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.awt.event.ActionListener;
+import java.util.List;
+
+// Inventario de insumos: alta de insumos, entradas/ajustes de stock y mínimos de alerta.
+// La tabla se llena desde la vista en memoria del inventario; los cambios van a la base en segundo plano
+// y al terminar se vuelve a mostrar la vista, que DatabaseManager ya recargó.
+public class InventoryDialog extends JDialog {
+
+    private final DatabaseManager dbManager;
+    private final DefaultTableModel tableModel;
+    private final JTable insumosTable;
+
+    private final Color COLOR_FONDO_CLARO = new Color(245, 239, 230);
+    private final Color COLOR_PRIMARIO = new Color(74, 49, 39);
+    private final Color COLOR_ACCENT_BOTON = new Color(175, 140, 107);
+    private final Color COLOR_BAJO = new Color(185, 28, 28);
+
+    public InventoryDialog(Window owner, DatabaseManager dbManager) {
+        super(owner, "CAFESOFT - Inventario de Insumos", ModalityType.APPLICATION_MODAL);
+        this.dbManager = dbManager;
+        setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        setSize(760, 480);
+        setLayout(new BorderLayout(20, 0));
+        getContentPane().setBackground(COLOR_FONDO_CLARO);
+
+        tableModel = new DefaultTableModel(new String[]{"ID", "Insumo", "Unidad", "Stock", "Mínimo"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+            @Override
+            public Class<?> getColumnClass(int column) {
+                if (column == 0) return Integer.class;
+                if (column == 3 || column == 4) return Long.class;
+                return String.class;
+            }
+        };
+        insumosTable = new JTable(tableModel);
+        insumosTable.setFont(new Font("SansSerif", Font.PLAIN, 14));
+        insumosTable.setRowHeight(30);
+        insumosTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        insumosTable.getTableHeader().setFont(new Font("SansSerif", Font.BOLD, 14));
+        insumosTable.getTableHeader().setBackground(COLOR_ACCENT_BOTON);
+        insumosTable.getTableHeader().setForeground(Color.WHITE);
+        insumosTable.getColumnModel().getColumn(3).setCellRenderer(new DefaultTableCellRenderer() {
+            @Override
+            public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+                super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+                setHorizontalAlignment(JLabel.RIGHT);
+                // El stock bajo el mínimo se marca en rojo
+                long minimo = (Long) table.getValueAt(row, 4);
+                boolean bajo = (Long) value < minimo;
+                setForeground(bajo ? COLOR_BAJO : (isSelected ? table.getSelectionForeground() : table.getForeground()));
+                setFont(getFont().deriveFont(bajo ? Font.BOLD : Font.PLAIN));
+                return this;
+            }
+        });
+
+        JScrollPane scrollPane = new JScrollPane(insumosTable);
+        scrollPane.setBorder(BorderFactory.createLineBorder(COLOR_PRIMARIO, 1, true));
+        JPanel tablePanel = new JPanel(new BorderLayout());
+        tablePanel.setBackground(COLOR_FONDO_CLARO);
+        tablePanel.setBorder(new EmptyBorder(20, 20, 20, 0));
+        tablePanel.add(scrollPane, BorderLayout.CENTER);
+        add(tablePanel, BorderLayout.CENTER);
+
+        JPanel botones = new JPanel();
+        botones.setLayout(new BoxLayout(botones, BoxLayout.Y_AXIS));
+        botones.setBackground(COLOR_FONDO_CLARO);
+        botones.setBorder(new EmptyBorder(20, 0, 20, 20));
+        botones.add(crearBoton("Nuevo Insumo", e -> addInsumo()));
+        botones.add(Box.createVerticalStrut(12));
+        botones.add(crearBoton("Entrada / Ajuste", e -> adjustStock()));
+        botones.add(Box.createVerticalStrut(12));
+        botones.add(crearBoton("Cambiar Mínimo", e -> changeMinimum()));
+        botones.add(Box.createVerticalGlue());
+        add(botones, BorderLayout.EAST);
+
+        showInsumos();
+    }
+
+    private JButton crearBoton(String texto, ActionListener listener) {
+        JButton button = new JButton(texto);
+        button.setFont(new Font("SansSerif", Font.BOLD, 13));
+        button.setBackground(COLOR_PRIMARIO);
+        button.setForeground(Color.WHITE);
+        button.setAlignmentX(Component.CENTER_ALIGNMENT);
+        button.setMaximumSize(new Dimension(180, 40));
+        button.addActionListener(listener);
+        return button;
+    }
+
+    private void showInsumos() {
+        int seleccionado = insumosTable.getSelectedRow();
+        tableModel.setRowCount(0);
+        List<Insumo> insumos = dbManager.getInventario().getInsumos();
+        for (Insumo i : insumos) {
+            tableModel.addRow(new Object[]{i.getId(), i.getNombre(), i.getUnidad(), i.getStock(), i.getMinimo()});
+        }
+        if (seleccionado >= 0 && seleccionado < tableModel.getRowCount()) {
+            insumosTable.setRowSelectionInterval(seleccionado, seleccionado);
+        }
+    }
+
+    // Insumo seleccionado en la tabla, o null (avisando) si no hay selección.
+    private Insumo seleccionado() {
+        int selectedRow = insumosTable.getSelectedRow();
+        if (selectedRow == -1) {
+            JOptionPane.showMessageDialog(this, "Selecciona un insumo de la tabla.", "Advertencia", JOptionPane.WARNING_MESSAGE);
+            return null;
+        }
+        return dbManager.getInventario().getInsumo((int) tableModel.getValueAt(selectedRow, 0));
+    }
+
+    private void addInsumo() {
+        JTextField nombreField = new JTextField();
+        JTextField unidadField = new JTextField("u");
+        JTextField stockField = new JTextField("0");
+        JTextField minimoField = new JTextField("0");
+        JPanel form = new JPanel(new GridLayout(0, 2, 8, 8));
+        form.add(new JLabel("Nombre:"));
+        form.add(nombreField);
+        form.add(new JLabel("Unidad (u, ml, g):"));
+        form.add(unidadField);
+        form.add(new JLabel("Stock inicial:"));
+        form.add(stockField);
+        form.add(new JLabel("Mínimo de alerta:"));
+        form.add(minimoField);
+
+        int opcion = JOptionPane.showConfirmDialog(this, form, "Nuevo Insumo", JOptionPane.OK_CANCEL_OPTION, JOptionPane.QUESTION_MESSAGE);
+        if (opcion != JOptionPane.OK_OPTION) {
+            return;
+        }
+        String nombre = nombreField.getText().trim();
+        String unidad = unidadField.getText().trim();
+        if (nombre.isEmpty() || unidad.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "El nombre y la unidad no pueden estar vacíos.", "Error de Validación", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        try {
+            long stock = Long.parseLong(stockField.getText().trim());
+            long minimo = Long.parseLong(minimoField.getText().trim());
+            if (stock < 0 || minimo < 0) {
+                JOptionPane.showMessageDialog(this, "El stock y el mínimo no pueden ser negativos.", "Error de Validación", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            dbManager.async().ejecutarEnSwing(this, () -> dbManager.agregarInsumo(nombre, unidad, stock, minimo), id -> {
+                showInsumos();
+                if (id < 0) {
+                    JOptionPane.showMessageDialog(this, "No se pudo agregar el insumo. ¿Ya existe uno con ese nombre?", "Error de DB", JOptionPane.ERROR_MESSAGE);
+                }
+            });
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "El stock y el mínimo deben ser números enteros.", "Error de Formato", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void adjustStock() {
+        Insumo insumo = seleccionado();
+        if (insumo == null) {
+            return;
+        }
+        String input = JOptionPane.showInputDialog(this,
+            "<html>Stock actual de <b>" + insumo.getNombre() + "</b>: " + insumo.getStock() + " " + insumo.getUnidad()
+                + "<br>Cantidad a sumar (entrada) o restar con signo '-' (merma):</html>",
+            "Entrada / Ajuste", JOptionPane.QUESTION_MESSAGE);
+        if (input == null || input.trim().isEmpty()) {
+            return;
+        }
+        try {
+            long cantidad = Long.parseLong(input.trim());
+            dbManager.async().ejecutarEnSwing(this, () -> dbManager.ajustarStock(insumo.getId(), cantidad), ok -> {
+                showInsumos();
+                if (!ok) {
+                    JOptionPane.showMessageDialog(this, "El ajuste dejaría el stock en negativo.", "Error de Validación", JOptionPane.ERROR_MESSAGE);
+                }
+            });
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "La cantidad debe ser un número entero.", "Error de Formato", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void changeMinimum() {
+        Insumo insumo = seleccionado();
+        if (insumo == null) {
+            return;
+        }
+        String input = (String) JOptionPane.showInputDialog(this,
+            "Mínimo de alerta para " + insumo.getNombre() + " (" + insumo.getUnidad() + "):",
+            "Cambiar Mínimo", JOptionPane.QUESTION_MESSAGE, null, null, String.valueOf(insumo.getMinimo()));
+        if (input == null || input.trim().isEmpty()) {
+            return;
+        }
+        try {
+            long minimo = Long.parseLong(input.trim());
+            if (minimo < 0) {
+                JOptionPane.showMessageDialog(this, "El mínimo no puede ser negativo.", "Error de Validación", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            dbManager.async().ejecutarEnSwing(this, () -> dbManager.actualizarMinimo(insumo.getId(), minimo), ok -> showInsumos());
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "El mínimo debe ser un número entero.", "Error de Formato", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+}
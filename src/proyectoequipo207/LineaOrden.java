@@ -0,0 +1,37 @@
+package proyectoequipo207;
+
+// Una línea de la orden en curso: un producto y cuántas unidades lleva.
+// El precio es el del producto al momento de agregarlo; si se vuelve a agregar después de recargar
+// el catálogo, la línea conserva ese precio.
+public class LineaOrden {
+
+    private final Producto producto;
+    private int cantidad;
+    // Fila que ocupa en la orden; la mantiene Orden al quitar otra línea
+    int posicion;
+
+    LineaOrden(Producto producto, int posicion) {
+        this.producto = producto;
+        this.posicion = posicion;
+    }
+
+    public Producto getProducto() {
+        return producto;
+    }
+
+    public int getCantidad() {
+        return cantidad;
+    }
+
+    void sumar(int unidades) {
+        cantidad += unidades;
+    }
+
+    public int getPosicion() {
+        return posicion;
+    }
+
+    public Dinero getSubtotal() {
+        return producto.getPrecio().multiplicar(cantidad);
+    }
+}
@@ -0,0 +1,382 @@
+package proyectoequipo207;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Registro de eventos de la aplicación con niveles. Quien registra solo deja el evento en un búfer
+// circular en memoria; un hilo aparte les da formato y los escribe en la consola y en un archivo que
+// rota por tamaño. Así un error en plena venta no espera a la consola ni al disco.
+//
+// Se configura con las claves log.* de cafesoft.properties (o -Dcafesoft.config=ruta):
+//   log.nivel=INFO            DEBUG muestra además el SQL y el tiempo de cada operación
+//   log.archivo=logs/cafesoft.log
+//   log.tamano_max_kb=5120    al superarlo el archivo rota a .1, .2, ...
+//   log.archivos=5            archivos rotados que se conservan
+//   log.consola=true
+//   log.buffer=8192           eventos en espera; si se llena se descartan (y se cuentan)
+public final class Log {
+
+    public enum Nivel { DEBUG, INFO, WARN, ERROR }
+
+    private static final DateTimeFormatter FORMATO_FECHA =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private static final Log INSTANCIA = new Log(leerConfiguracion());
+
+    private final Nivel nivel;
+    private final Path archivo;
+    private final long tamanoMaximo;
+    private final int archivosRotados;
+    private final boolean consola;
+
+    private final Anillo anillo;
+    private final AtomicLong descartados = new AtomicLong();
+    private final Thread escritor;
+    private volatile boolean cerrado = false;
+
+    // Solo los usa el hilo escritor (o quien escriba después de cerrar, bajo el lock de la instancia)
+    private Writer salida;
+    private long bytesEscritos;
+    private boolean archivoFallido = false;
+
+    private Log(Properties props) {
+        this.nivel = nivel(props.getProperty("log.nivel"));
+        String ruta = props.getProperty("log.archivo", "logs/cafesoft.log").trim();
+        this.archivo = ruta.isEmpty() ? null : Paths.get(ruta);
+        this.tamanoMaximo = numero(props, "log.tamano_max_kb", 5120) * 1024;
+        this.archivosRotados = (int) numero(props, "log.archivos", 5);
+        this.consola = !"false".equalsIgnoreCase(props.getProperty("log.consola", "true").trim());
+        this.anillo = new Anillo((int) Math.max(16, numero(props, "log.buffer", 8192)));
+
+        escritor = new Thread(this::escribirPendientes, "cafesoft-log");
+        escritor.setDaemon(true);
+        escritor.start();
+        // Lo pendiente se escribe al salir; si otro hook registra algo después, se escribe directo
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::cerrar, "cafesoft-log-cierre"));
+    }
+
+    // API
+
+    public static void debug(String mensaje) {
+        INSTANCIA.registrar(Nivel.DEBUG, mensaje, null);
+    }
+
+    // El mensaje solo se arma si DEBUG está activo (para SQL, tiempos y otros detalles caros de formatear).
+    public static void debug(Supplier<String> mensaje) {
+        if (debugActivo()) {
+            INSTANCIA.registrar(Nivel.DEBUG, mensaje.get(), null);
+        }
+    }
+
+    public static void info(String mensaje) {
+        INSTANCIA.registrar(Nivel.INFO, mensaje, null);
+    }
+
+    public static void warn(String mensaje) {
+        INSTANCIA.registrar(Nivel.WARN, mensaje, null);
+    }
+
+    public static void error(String mensaje) {
+        INSTANCIA.registrar(Nivel.ERROR, mensaje, null);
+    }
+
+    public static void error(String mensaje, Throwable error) {
+        INSTANCIA.registrar(Nivel.ERROR, mensaje, error);
+    }
+
+    public static boolean debugActivo() {
+        return INSTANCIA.nivel == Nivel.DEBUG;
+    }
+
+    // Eventos descartados porque el búfer estaba lleno.
+    public static long getDescartados() {
+        return INSTANCIA.descartados.get();
+    }
+
+    public static int getPendientes() {
+        return INSTANCIA.anillo.tamano();
+    }
+
+    // Escribe lo pendiente y cierra el archivo. Lo que se registre después se escribe de forma síncrona.
+    public static void cerrar() {
+        INSTANCIA.detener();
+    }
+
+    // IMPLEMENTACIÓN
+
+    private void registrar(Nivel nivelEvento, String mensaje, Throwable error) {
+        if (nivelEvento.compareTo(nivel) < 0) {
+            return;
+        }
+        Evento evento = new Evento(System.currentTimeMillis(), nivelEvento, Thread.currentThread().getName(), mensaje, error);
+        if (cerrado) {
+            synchronized (this) {
+                escribir(evento);
+                vaciar();
+            }
+            return;
+        }
+        if (!anillo.poner(evento)) {
+            descartados.incrementAndGet();
+        } else if (cerrado) {
+            // Se cerró mientras se encolaba: el escritor ya terminó, así que se escribe aquí
+            List<Evento> lote = new ArrayList<>();
+            synchronized (this) {
+                anillo.sacar(lote);
+                for (Evento pendiente : lote) {
+                    escribir(pendiente);
+                }
+                vaciar();
+            }
+        }
+    }
+
+    private void escribirPendientes() {
+        List<Evento> lote = new ArrayList<>();
+        long avisados = 0;
+        while (!cerrado || anillo.tamano() > 0) {
+            try {
+                anillo.tomar(lote, 500);
+            } catch (InterruptedException e) {
+                // Solo se sale al cerrar, después de vaciar el búfer
+            }
+            synchronized (this) {
+                long perdidos = descartados.get();
+                if (perdidos > avisados) {
+                    escribir(new Evento(System.currentTimeMillis(), Nivel.WARN, "cafesoft-log",
+                            (perdidos - avisados) + " eventos descartados: el búfer de registro estaba lleno", null));
+                    avisados = perdidos;
+                }
+                for (Evento evento : lote) {
+                    escribir(evento);
+                }
+                vaciar();
+            }
+            lote.clear();
+        }
+    }
+
+    private void detener() {
+        if (cerrado) {
+            return;
+        }
+        cerrado = true;
+        // Se despierta al escritor sin interrumpirlo: una interrupción cerraría el canal del archivo
+        anillo.despertar();
+        try {
+            escritor.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            vaciar();
+        }
+    }
+
+    private void escribir(Evento evento) {
+        String linea = evento.formatear();
+        if (consola) {
+            (evento.nivel.compareTo(Nivel.WARN) >= 0 ? System.err : System.out).print(linea);
+        }
+        if (archivo == null || archivoFallido) {
+            return;
+        }
+        try {
+            if (salida == null) {
+                abrirArchivo();
+            }
+            salida.write(linea);
+            bytesEscritos += linea.length(); // aproximado (caracteres), suficiente para rotar
+            if (bytesEscritos >= tamanoMaximo) {
+                rotar();
+            }
+        } catch (IOException e) {
+            // Sin archivo no hay dónde registrar el problema: se avisa por consola y se sigue solo con ella
+            System.err.println("No se pudo escribir el registro en " + archivo + ": " + e.getMessage());
+            archivoFallido = true;
+            cerrarArchivo();
+        }
+    }
+
+    private void abrirArchivo() throws IOException {
+        if (archivo.getParent() != null) {
+            Files.createDirectories(archivo.getParent());
+        }
+        salida = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        bytesEscritos = Files.size(archivo);
+    }
+
+    // cafesoft.log -> cafesoft.log.1 -> cafesoft.log.2 ... y el más antiguo se borra.
+    private void rotar() throws IOException {
+        cerrarArchivo();
+        Files.deleteIfExists(Paths.get(archivo + "." + archivosRotados));
+        for (int i = archivosRotados - 1; i >= 1; i--) {
+            Path origen = Paths.get(archivo + "." + i);
+            if (Files.exists(origen)) {
+                Files.move(origen, Paths.get(archivo + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (archivosRotados > 0) {
+            Files.move(archivo, Paths.get(archivo + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(archivo);
+        }
+        abrirArchivo();
+    }
+
+    private void vaciar() {
+        if (consola) {
+            System.out.flush();
+        }
+        if (salida != null) {
+            try {
+                salida.flush();
+            } catch (IOException e) {
+                cerrarArchivo();
+            }
+        }
+    }
+
+    private void cerrarArchivo() {
+        if (salida != null) {
+            try {
+                salida.close();
+            } catch (IOException ignored) {
+                // Se abre de nuevo en la próxima escritura
+            }
+            salida = null;
+        }
+    }
+
+    private static Properties leerConfiguracion() {
+        Properties props = new Properties();
+        Path ruta = Paths.get(System.getProperty("cafesoft.config", StorageProfile.ARCHIVO_POR_DEFECTO));
+        if (Files.exists(ruta)) {
+            try (InputStream in = Files.newInputStream(ruta)) {
+                props.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                System.err.println("No se pudo leer " + ruta + " para configurar el registro: " + e.getMessage());
+            }
+        }
+        return props;
+    }
+
+    private static Nivel nivel(String valor) {
+        if (valor == null || valor.trim().isEmpty()) {
+            return Nivel.INFO;
+        }
+        try {
+            return Nivel.valueOf(valor.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Valor inválido para log.nivel: '" + valor + "'. Se usa INFO");
+            return Nivel.INFO;
+        }
+    }
+
+    private static long numero(Properties props, String clave, long porDefecto) {
+        String valor = props.getProperty(clave);
+        try {
+            return valor == null || valor.trim().isEmpty() ? porDefecto : Long.parseLong(valor.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Valor inválido para " + clave + ": '" + valor + "'. Se usa " + porDefecto);
+            return porDefecto;
+        }
+    }
+
+    private static final class Evento {
+        final long fecha;
+        final Nivel nivel;
+        final String hilo;
+        final String mensaje;
+        final Throwable error;
+
+        Evento(long fecha, Nivel nivel, String hilo, String mensaje, Throwable error) {
+            this.fecha = fecha;
+            this.nivel = nivel;
+            this.hilo = hilo;
+            this.mensaje = mensaje;
+            this.error = error;
+        }
+
+        String formatear() {
+            StringBuilder sb = new StringBuilder(64 + (mensaje == null ? 4 : mensaje.length()));
+            sb.append(FORMATO_FECHA.format(Instant.ofEpochMilli(fecha))).append(' ')
+              .append(String.format("%-5s", nivel)).append(" [").append(hilo).append("] ")
+              .append(mensaje).append(System.lineSeparator());
+            if (error != null) {
+                StringWriter traza = new StringWriter();
+                error.printStackTrace(new PrintWriter(traza));
+                sb.append(traza);
+            }
+            return sb.toString();
+        }
+    }
+
+    // Búfer circular de tamaño fijo. Poner nunca bloquea: si está lleno retorna false.
+    private static final class Anillo {
+        private final Evento[] eventos;
+        private long escritos;
+        private long leidos;
+
+        Anillo(int capacidad) {
+            eventos = new Evento[capacidad];
+        }
+
+        synchronized boolean poner(Evento evento) {
+            if (escritos - leidos == eventos.length) {
+                return false;
+            }
+            boolean estabaVacio = escritos == leidos;
+            eventos[(int) (escritos % eventos.length)] = evento;
+            escritos++;
+            if (estabaVacio) {
+                notify();
+            }
+            return true;
+        }
+
+        // Pasa al lote todo lo pendiente, esperando hasta 'esperaMs' si no hay nada.
+        synchronized void tomar(List<Evento> lote, long esperaMs) throws InterruptedException {
+            if (escritos == leidos) {
+                wait(esperaMs);
+            }
+            sacar(lote);
+        }
+
+        synchronized void sacar(List<Evento> lote) {
+            while (leidos < escritos) {
+                int i = (int) (leidos % eventos.length);
+                lote.add(eventos[i]);
+                eventos[i] = null;
+                leidos++;
+            }
+        }
+
+        synchronized void despertar() {
+            notifyAll();
+        }
+
+        synchronized int tamano() {
+            return (int) (escritos - leidos);
+        }
+    }
+}
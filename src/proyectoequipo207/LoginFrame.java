@@ -11,6 +11,8 @@ public class LoginFrame extends JFrame {
     private JTextField userField;
     private JPasswordField passField;
     private DatabaseManager dbManager;
+    private DashboardFrame dashboard; // se crea en el primer ingreso y se reutiliza después
+    private PinPadDialog pinPad;
 
     private final Color COLOR_FONDO = new Color(245, 239, 230);
     private final Color COLOR_PRIMARIO = new Color(74, 49, 39);
@@ -116,6 +118,19 @@ public class LoginFrame extends JFrame {
         passField.addActionListener(e -> attemptLogin());
 
         mainPanel.add(loginButton);
+        mainPanel.add(Box.createRigidArea(new Dimension(0, 15)));
+
+        // Cambio rápido de cajero: PIN en vez de usuario y contraseña
+        JButton pinButton = new JButton("INGRESAR CON PIN");
+        pinButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        pinButton.setBackground(COLOR_ACCENT_BOTON);
+        pinButton.setForeground(Color.WHITE);
+        pinButton.setFont(new Font("SansSerif", Font.BOLD, 14));
+        pinButton.setFocusPainted(false);
+        pinButton.setBorder(BorderFactory.createEmptyBorder(10, 25, 10, 25));
+        pinButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        pinButton.addActionListener(e -> attemptPinLogin());
+        mainPanel.add(pinButton);
         mainPanel.add(Box.createVerticalGlue()); 
         
         add(mainPanel, BorderLayout.CENTER);
@@ -130,20 +145,49 @@ public class LoginFrame extends JFrame {
             return;
         }
 
-        // Usamos el DatabaseManager para la autenticación
-        Usuario usuarioAutenticado = dbManager.autenticarUsuario(username, password);
-
-        if (usuarioAutenticado != null) {
-            JOptionPane.showMessageDialog(this, "Bienvenido, " + usuarioAutenticado.getNombreUsuario() + "!", "Éxito", JOptionPane.INFORMATION_MESSAGE);
-            
-            // Abrir Dashboard
-            DashboardFrame dashboard = new DashboardFrame(dbManager, usuarioAutenticado);
-            dashboard.setVisible(true);
-            
-            this.dispose(); // Cierra la ventana de Login
+        // Usamos el DatabaseManager para la autenticación, fuera del EDT
+        dbManager.async().ejecutarEnSwing(this, () -> dbManager.autenticarUsuario(username, password), usuarioAutenticado -> {
+            if (usuarioAutenticado != null) {
+                JOptionPane.showMessageDialog(this, "Bienvenido, " + usuarioAutenticado.getNombreUsuario() + "!", "Éxito", JOptionPane.INFORMATION_MESSAGE);
+                
+                entrar(usuarioAutenticado);
+            } else {
+                JOptionPane.showMessageDialog(this, "Credenciales incorrectas. Inténtalo de nuevo.", "Error de Login", JOptionPane.ERROR_MESSAGE);
+                passField.setText(""); // Limpia contraseña
+            }
+        });
+    }
+
+    private void attemptPinLogin() {
+        if (pinPad == null) {
+            pinPad = new PinPadDialog(this, dbManager);
+        }
+        // Se preselecciona el usuario escrito en el formulario
+        Usuario usuario = pinPad.pedir(this, userField.getText().trim());
+        if (usuario != null) {
+            entrar(usuario);
+        }
+    }
+
+    // Abre el Dashboard (creándolo solo la primera vez) y oculta el login hasta el próximo cierre de sesión.
+    // Una cuenta con credenciales de fábrica entra después de cambiarlas.
+    private void entrar(Usuario usuario) {
+        if (usuario.debeCambiarCredenciales()) {
+            CambioCredencialesDialog.exigir(this, dbManager, usuario, this::entrar);
+            return;
+        }
+        if (dashboard == null) {
+            dashboard = new DashboardFrame(dbManager, usuario, this);
         } else {
-            JOptionPane.showMessageDialog(this, "Credenciales incorrectas. Inténtalo de nuevo.", "Error de Login", JOptionPane.ERROR_MESSAGE);
-            passField.setText(""); // Limpia contraseña
+            dashboard.setUsuario(usuario);
         }
+        dashboard.setVisible(true);
+        this.setVisible(false);
+    }
+
+    // Deja el formulario listo para el siguiente usuario.
+    public void reiniciar() {
+        passField.setText("");
+        userField.requestFocusInWindow();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,99 @@
+package proyectoequipo207;
+
+import java.util.Arrays;
+
+// Mapa int -> int de direccionamiento abierto (sondeo lineal), sin cajas Integer.
+// Las claves son ids de producto, siempre > 0: el 0 marca una celda libre.
+final class MapaEnteros {
+
+    private static final int LIBRE = 0;
+
+    private int[] claves;
+    private int[] valores;
+    private int tamano;
+
+    MapaEnteros() {
+        claves = new int[16];
+        valores = new int[16];
+    }
+
+    // Valor de la clave, o porDefecto si no está.
+    int get(int clave, int porDefecto) {
+        int mascara = claves.length - 1;
+        for (int i = indice(clave, mascara); claves[i] != LIBRE; i = (i + 1) & mascara) {
+            if (claves[i] == clave) {
+                return valores[i];
+            }
+        }
+        return porDefecto;
+    }
+
+    void put(int clave, int valor) {
+        if (clave == LIBRE) {
+            throw new IllegalArgumentException("Clave inválida: " + clave);
+        }
+        int mascara = claves.length - 1;
+        int i = indice(clave, mascara);
+        while (claves[i] != LIBRE) {
+            if (claves[i] == clave) {
+                valores[i] = valor;
+                return;
+            }
+            i = (i + 1) & mascara;
+        }
+        claves[i] = clave;
+        valores[i] = valor;
+        // Se mantiene a menos de la mitad de ocupación para que las búsquedas sean cortas
+        if (++tamano * 2 > claves.length) {
+            crecer();
+        }
+    }
+
+    // Quita la clave y corre hacia atrás las que venían detrás en la misma secuencia de sondeo,
+    // así no hacen falta marcas de borrado.
+    void remove(int clave) {
+        int mascara = claves.length - 1;
+        int i = indice(clave, mascara);
+        while (claves[i] != clave) {
+            if (claves[i] == LIBRE) {
+                return;
+            }
+            i = (i + 1) & mascara;
+        }
+        tamano--;
+        int hueco = i;
+        for (int j = (hueco + 1) & mascara; claves[j] != LIBRE; j = (j + 1) & mascara) {
+            int ideal = indice(claves[j], mascara);
+            // Se mueve si su posición ideal no está entre el hueco (excluido) y j (incluido)
+            if (((j - ideal) & mascara) >= ((j - hueco) & mascara)) {
+                claves[hueco] = claves[j];
+                valores[hueco] = valores[j];
+                hueco = j;
+            }
+        }
+        claves[hueco] = LIBRE;
+    }
+
+    void clear() {
+        Arrays.fill(claves, LIBRE);
+        tamano = 0;
+    }
+
+    private void crecer() {
+        int[] viejasClaves = claves;
+        int[] viejosValores = valores;
+        claves = new int[viejasClaves.length * 2];
+        valores = new int[viejasClaves.length * 2];
+        tamano = 0;
+        for (int i = 0; i < viejasClaves.length; i++) {
+            if (viejasClaves[i] != LIBRE) {
+                put(viejasClaves[i], viejosValores[i]);
+            }
+        }
+    }
+
+    private static int indice(int clave, int mascara) {
+        int h = clave * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mascara;
+    }
+}
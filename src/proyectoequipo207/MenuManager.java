@@ -8,6 +8,8 @@ import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.text.NumberFormat;
 import java.util.Locale;
 
@@ -18,12 +20,15 @@ public class MenuManager extends JFrame {
     private JTable productTable;
     
     // Columna MODIFICADA: Ahora solo incluye ID, Nombre y Precio Venta.
-    private final String[] NEW_COLUMN_NAMES = {"ID", "Nombre", "Precio Venta"};
+    // "Stock" son las unidades que alcanzan con los insumos de la receta (-1 si el producto no lleva control).
+    private final String[] NEW_COLUMN_NAMES = {"ID", "Nombre", "Precio Venta", "Stock"};
     
     // Colores basados en el Dashboard (Alineación de Marca)
     private final Color COLOR_FONDO_CLARO = new Color(245, 239, 230); 
     private final Color COLOR_PRIMARIO = new Color(74, 49, 39);       
     private final Color COLOR_ACCENT_BOTON = new Color(175, 140, 107); 
+    private final Color COLOR_AGOTADO = new Color(185, 28, 28);
+    private final Color COLOR_STOCK_BAJO = new Color(217, 119, 6);
     
     private final NumberFormat currencyFormatter = NumberFormat.getCurrencyInstance(new Locale("es", "CO"));
 
@@ -138,7 +143,8 @@ public class MenuManager extends JFrame {
             @Override
             public Class<?> getColumnClass(int column) {
                 if (column == 0) return Integer.class; 
-                if (column == 2) return Double.class; 
+                if (column == 2) return Dinero.class; 
+                if (column == 3) return Long.class;
                 return String.class;
             }
         };
@@ -162,6 +168,7 @@ public class MenuManager extends JFrame {
         DefaultTableCellRenderer rightRenderer = new DefaultTableCellRenderer();
         rightRenderer.setHorizontalAlignment(JLabel.RIGHT);
         productTable.getColumnModel().getColumn(2).setCellRenderer(rightRenderer); 
+        productTable.getColumnModel().getColumn(3).setCellRenderer(new StockCellRenderer());
         
         // 4. Listener para cargar los datos al seleccionar una fila (para Editar/Eliminar)
         productTable.addMouseListener(new MouseAdapter() {
@@ -194,12 +201,18 @@ public class MenuManager extends JFrame {
         JButton btnAdd = createIconStyledButton("Añadir Nuevo Producto", "➕", e -> addProduct());
         JButton btnUpdate = createIconStyledButton("Editar Producto", "✏️", e -> editProduct());
         JButton btnDelete = createIconStyledButton("Eliminar Producto", "🗑️", e -> deleteProduct());
+        JButton btnRecipe = createIconStyledButton("Editar Receta", "🧾", e -> editRecipe());
+        JButton btnInventory = createIconStyledButton("Inventario", "📦", e -> openInventory());
 
         panel.add(btnAdd);
         panel.add(Box.createVerticalStrut(15));
         panel.add(btnUpdate);
         panel.add(Box.createVerticalStrut(15));
         panel.add(btnDelete);
+        panel.add(Box.createVerticalStrut(40));
+        panel.add(btnRecipe);
+        panel.add(Box.createVerticalStrut(15));
+        panel.add(btnInventory);
         
         panel.add(Box.createVerticalGlue()); // Empuja los botones hacia arriba
 
@@ -220,9 +233,17 @@ public class MenuManager extends JFrame {
 
     // Lógica de Negocio 
 
+    // Llena la tabla desde el catálogo en memoria; si fue invalidado, lo recarga en segundo plano.
     private void loadProducts() {
+        if (dbManager.getCatalogo().estaCargado()) {
+            showProducts(dbManager.obtenerProductos());
+            return;
+        }
+        dbManager.async().ejecutarEnSwing(this, dbManager::obtenerProductos, this::showProducts);
+    }
+
+    private void showProducts(List<Producto> productos) {
         tableModel.setRowCount(0);
-        List<Producto> productos = dbManager.obtenerProductos();
         
         // Se elimina la lógica de categorías mock
         for (Producto p : productos) {
@@ -231,7 +252,8 @@ public class MenuManager extends JFrame {
             tableModel.addRow(new Object[]{
                 p.getId(), 
                 p.getNombre(), 
-                p.getPrecio()
+                p.getPrecio(),
+                dbManager.getInventario().disponibles(p.getId())
             });
         }
     }
@@ -254,17 +276,22 @@ public class MenuManager extends JFrame {
         }
 
         try {
-            double precio = Double.parseDouble(precioStr.replace(',', '.'));
+            Dinero precio = Dinero.parse(precioStr);
             
-            if (precio <= 0) {
+            if (!precio.esPositivo()) {
                  JOptionPane.showMessageDialog(this, "El precio debe ser un valor positivo.", "Error de Validación", JOptionPane.ERROR_MESSAGE);
                 return;
             }
             
             Producto nuevoProducto = new Producto(0, nombre, precio);
-            dbManager.agregarProducto(nuevoProducto);
-            loadProducts();
-            JOptionPane.showMessageDialog(this, "Producto agregado con éxito.", "Éxito", JOptionPane.INFORMATION_MESSAGE);
+            dbManager.async().ejecutarEnSwing(this, () -> dbManager.agregarProducto(nuevoProducto), agregado -> {
+                if (agregado) {
+                    loadProducts();
+                    JOptionPane.showMessageDialog(this, "Producto agregado con éxito.", "Éxito", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(this, "Error al agregar. ¿Ya existe un producto con ese nombre?", "Error de DB", JOptionPane.ERROR_MESSAGE);
+                }
+            });
 
         } catch (NumberFormatException e) {
             JOptionPane.showMessageDialog(this, "El precio debe ser un número válido.", "Error de Formato", JOptionPane.ERROR_MESSAGE);
@@ -281,7 +308,7 @@ public class MenuManager extends JFrame {
         try {
             int id = (int) tableModel.getValueAt(selectedRow, 0);
             String currentName = (String) tableModel.getValueAt(selectedRow, 1); 
-            double currentPrice = (double) tableModel.getValueAt(selectedRow, 2); 
+            Dinero currentPrice = (Dinero) tableModel.getValueAt(selectedRow, 2); 
 
             String newName = (String) JOptionPane.showInputDialog(this, "Nuevo nombre para el producto ID " + id + ":", "Editar Nombre", JOptionPane.QUESTION_MESSAGE, null, null, currentName);
             
@@ -292,8 +319,8 @@ public class MenuManager extends JFrame {
                  return;
             }
             
-            // Usamos un formato estándar con Locale.US punto decimal para el valor por defecto
-            String defaultPriceFormat = String.format(Locale.US, "%.2f", currentPrice); 
+            // Dinero se muestra con punto decimal, el mismo formato que se pide al editar
+            String defaultPriceFormat = currentPrice.toString(); 
             String newPriceStr = (String) JOptionPane.showInputDialog(this, 
                 "<html>Ingrese el nuevo precio para <b>" + newName + "</b>:<br><i>(Use el punto '.' como separador decimal)</i></html>", 
                 "Editar Precio", 
@@ -305,23 +332,22 @@ public class MenuManager extends JFrame {
             
             if (newPriceStr == null) return; 
             
-            // Sanitizamos el string para asegurar que solo tenga un punto decimal antes de parsear
-            newPriceStr = newPriceStr.trim().replace(',', '.');
-            
-            double newPrice = Double.parseDouble(newPriceStr);
+            Dinero newPrice = Dinero.parse(newPriceStr);
 
-            if (newPrice <= 0) {
+            if (!newPrice.esPositivo()) {
                  JOptionPane.showMessageDialog(this, "El precio debe ser un valor positivo.", "Error de Validación", JOptionPane.ERROR_MESSAGE);
                 return;
             }
 
             Producto productoActualizado = new Producto(id, newName, newPrice);
-            if (dbManager.actualizarProducto(productoActualizado)) {
-                loadProducts();
-                JOptionPane.showMessageDialog(this, "Producto actualizado con éxito.", "Éxito", JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                JOptionPane.showMessageDialog(this, "Error al actualizar. ¿El producto existe?", "Error de DB", JOptionPane.ERROR_MESSAGE);
-            }
+            dbManager.async().ejecutarEnSwing(this, () -> dbManager.actualizarProducto(productoActualizado), actualizado -> {
+                if (actualizado) {
+                    loadProducts();
+                    JOptionPane.showMessageDialog(this, "Producto actualizado con éxito.", "Éxito", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(this, "Error al actualizar. ¿El producto existe?", "Error de DB", JOptionPane.ERROR_MESSAGE);
+                }
+            });
 
         } catch (NumberFormatException e) {
             // Error específico para el formato del número 
@@ -331,11 +357,11 @@ public class MenuManager extends JFrame {
         } catch (ClassCastException e) {
             // Error si los datos de la tabla no son del tipo esperado (
             JOptionPane.showMessageDialog(this, "Error interno al leer los datos de la tabla. Verifica el tipo de dato en la columna.", "Error Interno", JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace(); // Imprimir el stack trace para depuración
+            Log.error("Error leyendo los datos de la tabla de productos", e);
         } catch (Exception e) {
             // Cualquier otro error inesperado 
             JOptionPane.showMessageDialog(this, "Ocurrió un error inesperado durante la edición: " + e.getMessage(), "Error Desconocido", JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace(); // Imprimir el stack trace
+            Log.error("Error inesperado editando un producto", e);
         }
     }
 
@@ -357,16 +383,112 @@ public class MenuManager extends JFrame {
                     "Confirmar Eliminación", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
             if (confirm == JOptionPane.YES_OPTION) {
-                if (dbManager.eliminarProducto(id)) {
-                    loadProducts();
-                    JOptionPane.showMessageDialog(this, "Producto eliminado con éxito.", "Éxito", JOptionPane.INFORMATION_MESSAGE);
-                } else {
-                    JOptionPane.showMessageDialog(this, "Error al eliminar el producto de la base de datos.", "Error de DB", JOptionPane.ERROR_MESSAGE);
-                }
+                dbManager.async().ejecutarEnSwing(this, () -> dbManager.eliminarProducto(id), eliminado -> {
+                    if (eliminado) {
+                        loadProducts();
+                        JOptionPane.showMessageDialog(this, "Producto eliminado con éxito.", "Éxito", JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(this, "Error al eliminar el producto de la base de datos.", "Error de DB", JOptionPane.ERROR_MESSAGE);
+                    }
+                });
             }
 
         } catch (ClassCastException e) {
             JOptionPane.showMessageDialog(this, "Error al leer datos de la tabla. Inténtalo de nuevo.", "Error Interno", JOptionPane.ERROR_MESSAGE);
         }
     }
-}
\ No newline at end of file
+
+    private void openInventory() {
+        new InventoryDialog(this, dbManager).setVisible(true);
+        // Al cerrar el inventario la columna de stock se vuelve a calcular
+        loadProducts();
+    }
+
+    // Edita qué insumos (y cuánto de cada uno) consume una unidad del producto seleccionado.
+    private void editRecipe() {
+        int selectedRow = productTable.getSelectedRow();
+        if (selectedRow == -1) {
+            JOptionPane.showMessageDialog(this, "Selecciona un producto de la tabla para editar su receta.", "Advertencia", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        int id = (int) tableModel.getValueAt(selectedRow, 0);
+        String nombre = (String) tableModel.getValueAt(selectedRow, 1);
+
+        List<Insumo> insumos = dbManager.getInventario().getInsumos();
+        if (insumos.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No hay insumos registrados. Agréguelos desde Inventario.", "Advertencia", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        Map<Integer, Long> receta = dbManager.getInventario().getReceta(id);
+        DefaultTableModel recetaModel = new DefaultTableModel(new String[]{"ID", "Insumo", "Unidad", "Cantidad"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return column == 3;
+            }
+            @Override
+            public Class<?> getColumnClass(int column) {
+                if (column == 0) return Integer.class;
+                if (column == 3) return Long.class;
+                return String.class;
+            }
+        };
+        for (Insumo i : insumos) {
+            Long cantidad = receta.get(i.getId());
+            recetaModel.addRow(new Object[]{i.getId(), i.getNombre(), i.getUnidad(), cantidad == null ? 0L : cantidad});
+        }
+        JTable recetaTable = new JTable(recetaModel);
+        recetaTable.setRowHeight(28);
+        JScrollPane scrollPane = new JScrollPane(recetaTable);
+        scrollPane.setPreferredSize(new Dimension(460, 260));
+
+        int opcion = JOptionPane.showConfirmDialog(this, scrollPane,
+            "Receta de " + nombre + " (cantidad por unidad vendida, 0 = no usa)", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (opcion != JOptionPane.OK_OPTION) {
+            return;
+        }
+        if (recetaTable.isEditing()) {
+            recetaTable.getCellEditor().stopCellEditing();
+        }
+        Map<Integer, Long> nuevaReceta = new TreeMap<>();
+        for (int row = 0; row < recetaModel.getRowCount(); row++) {
+            Long cantidad = (Long) recetaModel.getValueAt(row, 3);
+            if (cantidad != null && cantidad < 0) {
+                JOptionPane.showMessageDialog(this, "Las cantidades no pueden ser negativas.", "Error de Validación", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            if (cantidad != null && cantidad > 0) {
+                nuevaReceta.put((Integer) recetaModel.getValueAt(row, 0), cantidad);
+            }
+        }
+        dbManager.async().ejecutarEnSwing(this, () -> dbManager.guardarReceta(id, nuevaReceta), guardada -> {
+            if (guardada) {
+                loadProducts();
+            } else {
+                JOptionPane.showMessageDialog(this, "Error al guardar la receta.", "Error de DB", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
+
+    // Stock del producto: "—" si no lleva control, rojo si está agotado y ámbar si algún insumo está bajo el mínimo.
+    private class StockCellRenderer extends DefaultTableCellRenderer {
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+            super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+            setHorizontalAlignment(JLabel.RIGHT);
+            setFont(table.getFont());
+            setForeground(isSelected ? table.getSelectionForeground() : table.getForeground());
+            long disponibles = value == null ? -1 : (Long) value;
+            if (disponibles < 0) {
+                setText("—");
+            } else if (disponibles == 0) {
+                setText("Agotado");
+                setForeground(COLOR_AGOTADO);
+                setFont(table.getFont().deriveFont(Font.BOLD));
+            } else if (dbManager.getInventario().usaInsumoBajo((int) table.getValueAt(row, 0))) {
+                setForeground(COLOR_STOCK_BAJO);
+                setFont(table.getFont().deriveFont(Font.BOLD));
+            }
+            return this;
+        }
+    }
+}
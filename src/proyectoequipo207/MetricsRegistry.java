@@ -0,0 +1,309 @@
+package proyectoequipo207;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+// Registro de métricas de la aplicación: histogramas de latencia (consultas, préstamo de conexiones,
+// cobro en el POS, tiempo en el EDT) e indicadores que se leen al consultarlos (aciertos de caché, etc.).
+// Registrar una medición no usa locks ni reserva memoria, así que puede ir en los caminos frecuentes.
+// Se consulta desde la ventana de diagnóstico y por JMX (jconsole, VisualVM) en el dominio proyectoequipo207.
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+    private static final String DOMINIO_JMX = "proyectoequipo207";
+
+    private final Map<String, Histograma> histogramas = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> indicadores = new ConcurrentHashMap<>();
+    private volatile MBeanServer jmx;
+
+    private MetricsRegistry() {
+    }
+
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    // Histograma con ese nombre; se crea la primera vez que se pide.
+    public Histograma histograma(String nombre) {
+        Histograma h = histogramas.get(nombre);
+        if (h != null) {
+            return h;
+        }
+        return histogramas.computeIfAbsent(nombre, n -> {
+            Histograma nuevo = new Histograma(n);
+            publicar("Latencia", n, nuevo);
+            return nuevo;
+        });
+    }
+
+    // Indicador que se calcula al leerlo (p. ej. catalogo::getAciertos). Reemplaza al anterior del mismo nombre.
+    public void registrarIndicador(String nombre, LongSupplier valor) {
+        boolean nuevo = indicadores.put(nombre, valor) == null;
+        if (nuevo) {
+            publicar("Indicador", nombre, new Indicador(nombre));
+        }
+    }
+
+    public long leerIndicador(String nombre) {
+        LongSupplier valor = indicadores.get(nombre);
+        return valor == null ? 0 : valor.getAsLong();
+    }
+
+    // Fotos de todos los histogramas, ordenadas por nombre.
+    public List<Histograma.Foto> getHistogramas() {
+        List<Histograma.Foto> fotos = new ArrayList<>();
+        for (Histograma h : new TreeMap<>(histogramas).values()) {
+            fotos.add(h.foto());
+        }
+        return fotos;
+    }
+
+    // Valores actuales de los indicadores, ordenados por nombre.
+    public Map<String, Long> getIndicadores() {
+        Map<String, Long> valores = new TreeMap<>();
+        for (Map.Entry<String, LongSupplier> entry : indicadores.entrySet()) {
+            valores.put(entry.getKey(), entry.getValue().getAsLong());
+        }
+        return Collections.unmodifiableMap(valores);
+    }
+
+    // Pone en cero los histogramas (los indicadores son contadores de otros componentes).
+    public void reiniciar() {
+        for (Histograma h : histogramas.values()) {
+            h.reiniciar();
+        }
+    }
+
+    // Publica las métricas existentes y las que se creen después en el MBeanServer de la plataforma.
+    public synchronized void publicarEnJmx() {
+        if (jmx != null) {
+            return;
+        }
+        jmx = ManagementFactory.getPlatformMBeanServer();
+        for (Histograma h : histogramas.values()) {
+            publicar("Latencia", h.getNombre(), h);
+        }
+        for (String nombre : indicadores.keySet()) {
+            publicar("Indicador", nombre, new Indicador(nombre));
+        }
+    }
+
+    private void publicar(String tipo, String nombre, Object mbean) {
+        MBeanServer servidor = jmx;
+        if (servidor == null) {
+            return;
+        }
+        try {
+            ObjectName objeto = new ObjectName(DOMINIO_JMX + ":type=" + tipo + ",name=" + ObjectName.quote(nombre));
+            if (!servidor.isRegistered(objeto)) {
+                servidor.registerMBean(mbean, objeto);
+            }
+        } catch (JMException e) {
+            Log.warn("No se pudo publicar la métrica " + nombre + " por JMX: " + e.getMessage());
+        }
+    }
+
+    // VISTAS JMX
+
+    public interface HistogramaMXBean {
+        long getCuenta();
+        double getPromedioMs();
+        double getP50Ms();
+        double getP95Ms();
+        double getP99Ms();
+        double getMaximoMs();
+        void reiniciar();
+    }
+
+    public interface IndicadorMXBean {
+        long getValor();
+    }
+
+    private final class Indicador implements IndicadorMXBean {
+        private final String nombre;
+
+        Indicador(String nombre) {
+            this.nombre = nombre;
+        }
+
+        @Override
+        public long getValor() {
+            return leerIndicador(nombre);
+        }
+    }
+
+    // Histograma de duraciones en nanosegundos con cubetas logarítmicas: cuatro cubetas por cada potencia
+    // de dos, así los percentiles tienen un error de a lo sumo ~25% con memoria fija (256 contadores).
+    public static final class Histograma implements HistogramaMXBean {
+
+        private static final int SUBCUBETAS = 4;
+        private static final int CUBETAS = 64 * SUBCUBETAS;
+
+        private final String nombre;
+        private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+        private final AtomicLong cuenta = new AtomicLong();
+        private final AtomicLong sumaNanos = new AtomicLong();
+        private final AtomicLong maximoNanos = new AtomicLong();
+
+        private Histograma(String nombre) {
+            this.nombre = nombre;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public void registrar(long nanos) {
+            if (nanos < 0) {
+                return;
+            }
+            cubetas.incrementAndGet(indice(nanos));
+            cuenta.incrementAndGet();
+            sumaNanos.addAndGet(nanos);
+            long maximo = maximoNanos.get();
+            while (nanos > maximo && !maximoNanos.compareAndSet(maximo, nanos)) {
+                maximo = maximoNanos.get();
+            }
+        }
+
+        // Registra el tiempo transcurrido desde 'inicioNanos' (un System.nanoTime() anterior).
+        public void registrarDesde(long inicioNanos) {
+            registrar(System.nanoTime() - inicioNanos);
+        }
+
+        private static int indice(long nanos) {
+            if (nanos < SUBCUBETAS) {
+                return (int) nanos;
+            }
+            int exponente = 63 - Long.numberOfLeadingZeros(nanos);
+            int sub = (int) (nanos >>> (exponente - 2)) & (SUBCUBETAS - 1);
+            return exponente * SUBCUBETAS + sub;
+        }
+
+        // Punto medio de la cubeta, en nanosegundos.
+        private static long valorDe(int indice) {
+            if (indice < SUBCUBETAS) {
+                return indice;
+            }
+            int exponente = indice / SUBCUBETAS;
+            long ancho = 1L << (exponente - 2);
+            long inicio = (SUBCUBETAS + indice % SUBCUBETAS) * ancho;
+            return inicio + ancho / 2;
+        }
+
+        @Override
+        public void reiniciar() {
+            for (int i = 0; i < CUBETAS; i++) {
+                cubetas.set(i, 0);
+            }
+            cuenta.set(0);
+            sumaNanos.set(0);
+            maximoNanos.set(0);
+        }
+
+        public Foto foto() {
+            long[] copia = new long[CUBETAS];
+            long total = 0;
+            for (int i = 0; i < CUBETAS; i++) {
+                copia[i] = cubetas.get(i);
+                total += copia[i];
+            }
+            long suma = sumaNanos.get();
+            long maximo = maximoNanos.get();
+            return new Foto(nombre, total, total == 0 ? 0 : suma / total,
+                    percentil(copia, total, 0.50, maximo), percentil(copia, total, 0.95, maximo),
+                    percentil(copia, total, 0.99, maximo), maximo);
+        }
+
+        private static long percentil(long[] copia, long total, double p, long maximo) {
+            if (total == 0) {
+                return 0;
+            }
+            long objetivo = (long) Math.ceil(total * p);
+            long acumulado = 0;
+            for (int i = 0; i < copia.length; i++) {
+                acumulado += copia[i];
+                if (acumulado >= objetivo) {
+                    return Math.min(valorDe(i), maximo);
+                }
+            }
+            return maximo;
+        }
+
+        @Override
+        public long getCuenta() {
+            return cuenta.get();
+        }
+
+        @Override
+        public double getPromedioMs() {
+            return foto().getPromedioMs();
+        }
+
+        @Override
+        public double getP50Ms() {
+            return foto().getP50Ms();
+        }
+
+        @Override
+        public double getP95Ms() {
+            return foto().getP95Ms();
+        }
+
+        @Override
+        public double getP99Ms() {
+            return foto().getP99Ms();
+        }
+
+        @Override
+        public double getMaximoMs() {
+            return maximoNanos.get() / 1_000_000.0;
+        }
+
+        // Foto inmutable de un histograma (valores en nanosegundos, con accesos en milisegundos).
+        public static final class Foto {
+            private final String nombre;
+            private final long cuenta;
+            private final long promedio;
+            private final long p50;
+            private final long p95;
+            private final long p99;
+            private final long maximo;
+
+            private Foto(String nombre, long cuenta, long promedio, long p50, long p95, long p99, long maximo) {
+                this.nombre = nombre;
+                this.cuenta = cuenta;
+                this.promedio = promedio;
+                this.p50 = p50;
+                this.p95 = p95;
+                this.p99 = p99;
+                this.maximo = maximo;
+            }
+
+            public String getNombre() { return nombre; }
+            public long getCuenta() { return cuenta; }
+            public double getPromedioMs() { return promedio / 1_000_000.0; }
+            public double getP50Ms() { return p50 / 1_000_000.0; }
+            public double getP95Ms() { return p95 / 1_000_000.0; }
+            public double getP99Ms() { return p99 / 1_000_000.0; }
+            public double getMaximoMs() { return maximo / 1_000_000.0; }
+
+            @Override
+            public String toString() {
+                return String.format(java.util.Locale.US, "%s[n=%d, prom=%.3f ms, p50=%.3f, p95=%.3f, p99=%.3f, máx=%.3f]",
+                        nombre, cuenta, getPromedioMs(), getP50Ms(), getP95Ms(), getP99Ms(), getMaximoMs());
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package proyectoequipo207;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Orden en curso del punto de venta. Las líneas se indexan por id de producto (id -> fila, sin
+// cajas), así que agregar o descontar una unidad es O(1) y un producto nunca aparece en dos líneas
+// aunque el catálogo se haya recargado. Al quitar una línea, la última pasa a ocupar su fila.
+// Cada línea conserva el precio que tenía el producto al agregarlo por primera vez, y el total
+// se mantiene al día con ese precio, así coincide con la suma de los subtotales que se registran.
+public class Orden {
+
+    private final List<LineaOrden> lineas = new ArrayList<>();
+    private final MapaEnteros porProducto = new MapaEnteros();
+    private Dinero total = Dinero.CERO;
+
+    // Suma una unidad del producto. Retorna la línea afectada (nueva o existente).
+    public LineaOrden agregar(Producto p) {
+        return agregar(p, 1);
+    }
+
+    public LineaOrden agregar(Producto p, int cantidad) {
+        int posicion = porProducto.get(p.getId(), -1);
+        LineaOrden linea;
+        if (posicion < 0) {
+            linea = new LineaOrden(p, lineas.size());
+            lineas.add(linea);
+            porProducto.put(p.getId(), linea.posicion);
+        } else {
+            // Si el catálogo se recargó con otro precio, la línea sigue con el de la primera unidad
+            linea = lineas.get(posicion);
+        }
+        linea.sumar(cantidad);
+        total = total.sumar(linea.getProducto().getPrecio().multiplicar(cantidad));
+        assert totalCuadra() : "El total de la orden no coincide con sus líneas";
+        return linea;
+    }
+
+    // Descuenta una unidad de la línea en la posición indicada; si llega a cero la línea se quita
+    // y la última línea pasa a esa posición. Retorna la línea afectada, o null si la posición no existe.
+    public LineaOrden quitarUno(int posicion) {
+        if (posicion < 0 || posicion >= lineas.size()) {
+            return null;
+        }
+        LineaOrden linea = lineas.get(posicion);
+        linea.sumar(-1);
+        total = total.restar(linea.getProducto().getPrecio());
+        if (linea.getCantidad() == 0) {
+            LineaOrden ultima = lineas.remove(lineas.size() - 1);
+            porProducto.remove(linea.getProducto().getId());
+            if (ultima != linea) {
+                lineas.set(posicion, ultima);
+                ultima.posicion = posicion;
+                porProducto.put(ultima.getProducto().getId(), posicion);
+            }
+        }
+        assert totalCuadra() : "El total de la orden no coincide con sus líneas";
+        return linea;
+    }
+
+    public void limpiar() {
+        lineas.clear();
+        porProducto.clear();
+        total = Dinero.CERO;
+    }
+
+    public LineaOrden getLinea(int posicion) {
+        return lineas.get(posicion);
+    }
+
+    public int getCantidadLineas() {
+        return lineas.size();
+    }
+
+    public boolean estaVacia() {
+        return lineas.isEmpty();
+    }
+
+    public Dinero getTotal() {
+        return total;
+    }
+
+    // Solo para los assert (java -ea): recorre las líneas, así que no se usa en el camino normal.
+    private boolean totalCuadra() {
+        Dinero suma = Dinero.CERO;
+        for (LineaOrden linea : lineas) {
+            suma = suma.sumar(linea.getSubtotal());
+        }
+        return suma.equals(total);
+    }
+
+    // Copia producto -> cantidad en el orden de las líneas, para registrarla con DatabaseManager.registrarOrden.
+    public Map<Producto, Integer> comoMapa() {
+        Map<Producto, Integer> mapa = new LinkedHashMap<>();
+        for (LineaOrden linea : lineas) {
+            mapa.put(linea.getProducto(), linea.getCantidad());
+        }
+        return mapa;
+    }
+}
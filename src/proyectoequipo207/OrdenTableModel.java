@@ -0,0 +1,94 @@
+package proyectoequipo207;
+
+import javax.swing.table.AbstractTableModel;
+
+// Modelo de la tabla de la orden en curso. Lee directamente de Orden y avisa solo
+// la fila que cambió, en lugar de reconstruir la tabla en cada toque.
+public class OrdenTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMNAS = {"Producto", "Cant.", "Precio Unit.", "Subtotal"};
+
+    private final Orden orden;
+
+    public OrdenTableModel(Orden orden) {
+        this.orden = orden;
+    }
+
+    public Orden getOrden() {
+        return orden;
+    }
+
+    public void agregar(Producto p) {
+        agregar(p, 1);
+    }
+
+    public void agregar(Producto p, int cantidad) {
+        LineaOrden linea = orden.agregar(p, cantidad);
+        if (linea.getCantidad() == cantidad) {
+            fireTableRowsInserted(linea.getPosicion(), linea.getPosicion());
+        } else {
+            fireTableRowsUpdated(linea.getPosicion(), linea.getPosicion());
+        }
+    }
+
+    public void quitarUno(int fila) {
+        LineaOrden linea = orden.quitarUno(fila);
+        if (linea == null) {
+            return;
+        }
+        if (linea.getCantidad() == 0) {
+            // La última fila pasó a ocupar la quitada
+            int ultima = orden.getCantidadLineas();
+            fireTableRowsDeleted(ultima, ultima);
+            if (fila < ultima) {
+                fireTableRowsUpdated(fila, fila);
+            }
+        } else {
+            fireTableRowsUpdated(fila, fila);
+        }
+    }
+
+    public void limpiar() {
+        orden.limpiar();
+        fireTableDataChanged();
+    }
+
+    @Override
+    public int getRowCount() {
+        return orden.getCantidadLineas();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNAS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNAS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        if (column == 1) return Integer.class;
+        if (column == 2 || column == 3) return Dinero.class;
+        return String.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        LineaOrden linea = orden.getLinea(row);
+        switch (column) {
+            case 0: return linea.getProducto().getNombre();
+            case 1: return linea.getCantidad();
+            case 2: return linea.getProducto().getPrecio();
+            case 3: return linea.getSubtotal();
+            default: return null;
+        }
+    }
+}
@@ -1,13 +1,10 @@
 package proyectoequipo207;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Locale; 
 import java.util.Map;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
@@ -17,10 +14,20 @@ import javax.swing.border.TitledBorder;
 public class POSFrame extends JFrame {
 
     private DatabaseManager dbManager;
-    private DefaultTableModel tableModel;
+    private final PosBackend pos; // la base local, o el servidor de ventas en modo multi-caja
+    private OrdenTableModel tableModel;
     private JLabel totalLabel;
     private JPanel menuPanel;
-    private Map<Producto, Integer> ordenActual; 
+    private Orden ordenActual; 
+    private Usuario usuario;
+    private Turno turnoActual; // turno de caja abierto del usuario, null si no tiene
+    private JLabel turnoLabel;
+    private JLabel stockLabel; // aviso de insumos bajo el mínimo
+    private Runnable cambioDeUsuario; // lo pone el Dashboard: abre el teclado de PIN
+    private List<Producto> productosMostrados; // lista del catálogo con la que se armó el menú
+
+    // Desde que se confirma el pago hasta que la orden quedó registrada y la pantalla lo sabe
+    private static final MetricsRegistry.Histograma COBRO = MetricsRegistry.global().histograma("pos.cobro");
     
     // Constantes de Estilo
     private final Color COLOR_FONDO = new Color(245, 239, 230);
@@ -30,12 +37,15 @@ public class POSFrame extends JFrame {
     private final Color COLOR_EXITO = new Color(74, 49, 39); 
     private final Color COLOR_PELIGRO = new Color(244, 67, 54); 
 
-    public POSFrame(DatabaseManager dbManager) {
+    public POSFrame(DatabaseManager dbManager, Usuario usuario) {
         super("Punto de Venta (POS) - Cafetería");
         this.dbManager = dbManager;
-        this.ordenActual = new HashMap<>();
+        this.pos = dbManager.getPos();
+        this.usuario = usuario;
+        this.ordenActual = new Orden();
         
-        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        // La ventana se oculta al cerrarla y el Dashboard la reutiliza con el siguiente cajero
+        setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
         setSize(1000, 700);
         setLayout(new BorderLayout(0, 0)); // No gaps entre BorderLayout secciones
         setLocationRelativeTo(null);
@@ -61,6 +71,44 @@ public class POSFrame extends JFrame {
         
         // Cargar y mostrar los productos al iniciar
         loadProductsFromDB();
+        loadTurno();
+
+        // La alerta llega desde el hilo que registró la venta; la etiqueta se actualiza en el EDT.
+        // En modo multi-caja el inventario vive en el servidor y el aviso no aplica.
+        if (dbManager.esPosLocal()) {
+            dbManager.getInventario().agregarAlerta(insumo -> SwingUtilities.invokeLater(this::updateStockWarning));
+            updateStockWarning();
+        }
+    }
+
+    // Cambia el cajero de la ventana sin reconstruirla: la orden en curso se descarta y se lee el turno del nuevo usuario.
+    public void setUsuario(Usuario usuario) {
+        this.usuario = usuario;
+        tableModel.limpiar();
+        updateTotal();
+        turnoActual = null;
+        turnoLabel.setText(usuario.getNombreUsuario() + " | Turno: cargando...");
+        loadTurno();
+    }
+
+    public Usuario getUsuario() {
+        return usuario;
+    }
+
+    public boolean tieneOrdenEnCurso() {
+        return !ordenActual.estaVacia();
+    }
+
+    public void setCambioDeUsuario(Runnable cambioDeUsuario) {
+        this.cambioDeUsuario = cambioDeUsuario;
+    }
+
+    // Al volver a mostrar la ventana: el menú se rehace solo si el catálogo cambió mientras estaba oculta.
+    public void refrescarProductos() {
+        loadProductsFromDB();
+        if (dbManager.esPosLocal()) {
+            updateStockWarning();
+        }
     }
     
     private JPanel createHeaderPanel() {
@@ -76,7 +124,7 @@ public class POSFrame extends JFrame {
             leftPanel.add(logoLabel);
         } catch (Exception e) {
             // Fallback en caso de que no se encuentre la imagen del logo
-            System.err.println("No se pudo cargar el logo.png. Usando fallback. " + e.getMessage());
+            Log.warn("No se pudo cargar el logo.png. Usando fallback. " + e.getMessage());
             JLabel fallback = new JLabel("☕");
             fallback.setFont(new Font("SansSerif", Font.PLAIN, 24));
             leftPanel.add(fallback);
@@ -88,6 +136,36 @@ public class POSFrame extends JFrame {
         leftPanel.add(appTitle);
 
         headerPanel.add(leftPanel, BorderLayout.WEST);
+
+        // Turno de caja del usuario
+        JPanel rightPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 5));
+        rightPanel.setBackground(COLOR_HEADER);
+        stockLabel = new JLabel();
+        stockLabel.setFont(new Font("SansSerif", Font.BOLD, 13));
+        stockLabel.setForeground(COLOR_PELIGRO);
+        stockLabel.setVisible(false);
+        rightPanel.add(stockLabel);
+        turnoLabel = new JLabel("Turno: cargando...");
+        turnoLabel.setFont(new Font("SansSerif", Font.PLAIN, 14));
+        turnoLabel.setForeground(COLOR_PRIMARIO);
+        rightPanel.add(turnoLabel);
+
+        JButton cerrarTurnoButton = new JButton("Cerrar Turno");
+        cerrarTurnoButton.setFont(new Font("SansSerif", Font.BOLD, 12));
+        cerrarTurnoButton.setBackground(COLOR_ACCENT_PRODUCTO);
+        cerrarTurnoButton.setForeground(COLOR_PRIMARIO);
+        cerrarTurnoButton.setFocusPainted(false);
+        cerrarTurnoButton.addActionListener(e -> closeTurno());
+        rightPanel.add(cerrarTurnoButton);
+
+        JButton cambiarUsuarioButton = new JButton("Cambiar Usuario");
+        cambiarUsuarioButton.setFont(new Font("SansSerif", Font.BOLD, 12));
+        cambiarUsuarioButton.setBackground(COLOR_ACCENT_PRODUCTO);
+        cambiarUsuarioButton.setForeground(COLOR_PRIMARIO);
+        cambiarUsuarioButton.setFocusPainted(false);
+        cambiarUsuarioButton.addActionListener(e -> switchUser());
+        rightPanel.add(cambiarUsuarioButton);
+        headerPanel.add(rightPanel, BorderLayout.EAST);
         
         return headerPanel;
     }
@@ -119,9 +197,30 @@ public class POSFrame extends JFrame {
         return panel;
     }
     
+    // Si el catálogo ya está en memoria el menú se arma directamente; si no, los productos
+    // se leen en segundo plano y el menú se arma en el EDT al llegar.
     private void loadProductsFromDB() {
+        if (dbManager.esPosLocal() && dbManager.getCatalogo().estaCargado()) {
+            showProducts(dbManager.obtenerProductos());
+            return;
+        }
+        menuPanel.removeAll();
+        JLabel cargando = new JLabel("Cargando productos...", SwingConstants.CENTER);
+        cargando.setFont(new Font("SansSerif", Font.ITALIC, 16));
+        menuPanel.add(cargando);
+        menuPanel.revalidate();
+        menuPanel.repaint();
+
+        dbManager.async().ejecutarEnSwing(this, pos::obtenerProductos, this::showProducts);
+    }
+
+    private void showProducts(List<Producto> productos) {
+        // El catálogo entrega la misma lista mientras no cambie: no hace falta rehacer los botones
+        if (productos == productosMostrados) {
+            return;
+        }
+        productosMostrados = productos;
         menuPanel.removeAll();
-        List<Producto> productos = dbManager.obtenerProductos();
 
         if (productos.isEmpty()) {
             JLabel noData = new JLabel("No hay productos cargados.", SwingConstants.CENTER);
@@ -139,8 +238,8 @@ public class POSFrame extends JFrame {
     }
    
     private JButton createProductButton(Producto p) {
-        // Usar Locale.US para asegurar que el precio se muestre con punto decimal, independientemente del sistema.
-        String precioFormateado = String.format(Locale.US, "%.2f", p.getPrecio());
+        // Dinero se muestra siempre con punto decimal, independientemente del sistema.
+        String precioFormateado = p.getPrecio().toString();
         
         String displayText = String.format("<html><center><b>%s</b><br><span style='font-size:1.2em;'>$%s</span></center></html>", 
                                           p.getNombre(), precioFormateado);
@@ -183,13 +282,7 @@ public class POSFrame extends JFrame {
         panel.add(title, BorderLayout.NORTH);
 
         // 2a. Tabla de Items de la Orden
-        String[] columnNames = {"Producto", "Cant.", "Precio Unit.", "Subtotal"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-               return false; 
-            }
-        };
+        tableModel = new OrdenTableModel(ordenActual);
         JTable orderTable = new JTable(tableModel);
         orderTable.setFont(new Font("SansSerif", Font.PLAIN, 14));
         
@@ -256,11 +349,11 @@ public class POSFrame extends JFrame {
     
     // Agrega o incrementa la cantidad de un producto en la orden.
     private void addProductToOrder(Producto p) {
-        ordenActual.put(p, ordenActual.getOrDefault(p, 0) + 1);
-        updateOrderTable();
+        tableModel.agregar(p);
+        updateTotal();
     }
     
-    //Remueve un item seleccionado de la orden.
+    //Remueve una unidad del item seleccionado de la orden.
      
     private void removeItemFromOrder(int selectedRow) {
         if (selectedRow < 0) {
@@ -268,30 +361,15 @@ public class POSFrame extends JFrame {
             return;
         }
 
-        // Obtener el nombre del producto de la fila seleccionada
-        String productName = (String) tableModel.getValueAt(selectedRow, 0);
-        
-        // Buscar el producto original en la ordenActual (debe tenerse cuidado con la igualdad de objetos)
-        Producto productToRemove = ordenActual.keySet().stream()
-            .filter(p -> p.getNombre().equals(productName))
-            .findFirst()
-            .orElse(null);
-
-        if (productToRemove != null) {
-            int currentQuantity = ordenActual.get(productToRemove);
-            if (currentQuantity > 1) {
-                ordenActual.put(productToRemove, currentQuantity - 1);
-            } else {
-                ordenActual.remove(productToRemove);
-            }
-            updateOrderTable();
-        }
+        // La fila de la tabla es la posición de la línea en la orden
+        tableModel.quitarUno(selectedRow);
+        updateTotal();
     }
     
     // Limpia completamente la orden.
      
     private void clearOrder() {
-        if (ordenActual.isEmpty()) {
+        if (ordenActual.estaVacia()) {
             JOptionPane.showMessageDialog(this, "El carrito ya está vacío.", "Advertencia", JOptionPane.WARNING_MESSAGE);
             return;
         }
@@ -300,59 +378,135 @@ public class POSFrame extends JFrame {
             "Confirmar Limpieza", JOptionPane.YES_NO_OPTION);
             
         if (confirm == JOptionPane.YES_OPTION) {
-            ordenActual.clear();
-            updateOrderTable();
+            tableModel.limpiar();
+            updateTotal();
         }
     }
 
-    // Actualiza la tabla con los contenidos de la ordenActual y recalcula el total.
+    // Lógica del Turno de Caja
 
-    private void updateOrderTable() {
-        tableModel.setRowCount(0); // Limpiar tabla
-        double grandTotal = 0.0;
+    private void loadTurno() {
+        Usuario solicitado = usuario;
+        String nombre = usuario.getNombreUsuario();
+        dbManager.async().ejecutarEnSwing(this, () -> pos.obtenerTurnoAbierto(nombre), turno -> {
+            // Si cambió el cajero mientras se leía, el turno ya no es el de la pantalla
+            if (solicitado == usuario) {
+                setTurno(turno);
+            }
+        });
+    }
+
+    private void switchUser() {
+        if (cambioDeUsuario == null) {
+            return;
+        }
+        if (tieneOrdenEnCurso()) {
+            JOptionPane.showMessageDialog(this, "Cobre o limpie la orden actual antes de cambiar de usuario.", "Cambio de Usuario", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        cambioDeUsuario.run();
+    }
 
-        for (Map.Entry<Producto, Integer> entry : ordenActual.entrySet()) {
-            Producto p = entry.getKey();
-            int cantidad = entry.getValue();
-            double subtotal = p.getPrecio() * cantidad;
-            grandTotal += subtotal;
+    private void setTurno(Turno turno) {
+        turnoActual = turno;
+        turnoLabel.setText(turno == null
+            ? usuario.getNombreUsuario() + " | Sin turno abierto"
+            : usuario.getNombreUsuario() + " | Turno #" + turno.getId() + " desde " + Fechas.formatear(Fechas.REPORTE, turno.getApertura()));
+    }
 
-            // evitando que el sistema local (con coma) cause problemas de lectura futura.
-            tableModel.addRow(new Object[]{
-                p.getNombre(), 
-                cantidad, 
-                String.format(Locale.US, "%.2f", p.getPrecio()), 
-                String.format(Locale.US, "%.2f", subtotal)
+    // Abre el turno del usuario pidiendo el fondo inicial de la caja; al abrirse se ejecuta 'despues'.
+    private void openTurno(Runnable despues) {
+        String input = JOptionPane.showInputDialog(this, 
+            "No tiene un turno de caja abierto.\nIngrese el fondo inicial de la caja para abrirlo:", 
+            "Abrir Turno", JOptionPane.QUESTION_MESSAGE);
+        if (input == null || input.trim().isEmpty()) {
+            return; // Cancelado
+        }
+        try {
+            Dinero fondo = Dinero.parse(input);
+            dbManager.async().ejecutarEnSwing(this, () -> pos.abrirTurno(usuario.getNombreUsuario(), fondo), turno -> {
+                setTurno(turno);
+                if (turno == null) {
+                    JOptionPane.showMessageDialog(this, "No se pudo abrir el turno.", "Error de Turno", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                despues.run();
             });
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Monto inválido. Asegúrese de usar números válidos.", "Error de Formato", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void closeTurno() {
+        if (turnoActual == null) {
+            JOptionPane.showMessageDialog(this, "No tiene un turno de caja abierto.", "Cierre de Caja", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        if (!ordenActual.estaVacia()) {
+            JOptionPane.showMessageDialog(this, "Cobre o limpie la orden actual antes de cerrar el turno.", "Cierre de Caja", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        // Tanto si cerró como si no (p. ej. lo cerró un administrador), se vuelve a leer el estado del turno
+        ReporteCierre.cerrarTurno(this, dbManager, turnoActual, cierre -> loadTurno());
+    }
+
+    private void updateStockWarning() {
+        List<Insumo> bajos = dbManager.getInventario().getBajoMinimo();
+        if (bajos.isEmpty()) {
+            stockLabel.setVisible(false);
+            return;
+        }
+        StringBuilder detalle = new StringBuilder("<html>Bajo el mínimo:");
+        for (Insumo i : bajos) {
+            detalle.append("<br>").append(i);
         }
+        stockLabel.setText("⚠ Stock bajo (" + bajos.size() + ")");
+        stockLabel.setToolTipText(detalle.append("</html>").toString());
+        stockLabel.setVisible(true);
+    }
 
-        // Mostrar el total usando Locale.US para que siempre use el punto decimal
-        totalLabel.setText(String.format(Locale.US, "TOTAL: $%.2f", grandTotal));
+    private boolean confirmStock(Map<Producto, Integer> orden) {
+        // Se valida con la vista en memoria del inventario: no hace falta consultar la base.
+        // En modo multi-caja la valida el servidor al registrar la orden.
+        if (!dbManager.esPosLocal()) {
+            return true;
+        }
+        List<String> faltantes = dbManager.getInventario().faltantes(orden);
+        if (faltantes.isEmpty()) {
+            return true;
+        }
+        JOptionPane.showMessageDialog(this,
+            "No hay stock suficiente para esta orden:\n" + String.join("\n", faltantes),
+            "Stock Insuficiente", JOptionPane.WARNING_MESSAGE);
+        return false;
+    }
+
+    // El total lo mantiene la orden; aquí solo se muestra.
+    private void updateTotal() {
+        totalLabel.setText("TOTAL: $" + ordenActual.getTotal());
     }
     
 
     private void checkoutOrder() {
-        if (ordenActual.isEmpty()) {
+        if (ordenActual.estaVacia()) {
             JOptionPane.showMessageDialog(this, "El carrito está vacío. Agregue productos antes de cobrar.", "Error de Venta", JOptionPane.ERROR_MESSAGE);
             return;
         }
-        
+        // Toda venta pertenece a un turno de caja: si no hay uno abierto, se abre y se continúa con el cobro
+        if (turnoActual == null) {
+            openTurno(this::checkoutOrder);
+            return;
+        }
 
-        String totalString = totalLabel.getText().replace("TOTAL: $", "");
-        totalString = totalString.replace(',', '.'); // Asegurar que solo haya puntos
-        
-        double total;
-        try {
-            // Analizar el string con el punto decimal ya estandarizado
-            total = Double.parseDouble(totalString);
-        } catch (NumberFormatException e) {
-            JOptionPane.showMessageDialog(this, "Error al calcular el total. Por favor, revise los precios.", "Error Fatal de Formato", JOptionPane.ERROR_MESSAGE);
+        if (!confirmStock(ordenActual.comoMapa())) {
             return;
         }
 
+        Dinero total = ordenActual.getTotal();
+
         // Simular el pago/cambio
         String input = JOptionPane.showInputDialog(this, 
-            String.format(Locale.US, "Total a pagar: $%.2f\nIngrese la cantidad recibida:", total), 
+            "Total a pagar: $" + total + "\nIngrese la cantidad recibida:", 
             "Procesar Pago", JOptionPane.QUESTION_MESSAGE);
         
         if (input == null || input.trim().isEmpty()) {
@@ -360,30 +514,44 @@ public class POSFrame extends JFrame {
         }
         
         try {
-            String pagoString = input.trim().replace(',', '.');
-            double pago = Double.parseDouble(pagoString);
+            Dinero pago = Dinero.parse(input);
             
-            if (pago < total) {
+            if (pago.esMenorQue(total)) {
                 JOptionPane.showMessageDialog(this, "Pago insuficiente.", "Error de Pago", JOptionPane.ERROR_MESSAGE);
                 return;
             }
-            double cambio = pago - total;
+            Dinero cambio = pago.restar(total);
             
-            // 1. Registrar cada item en la base de datos 
-            for (Map.Entry<Producto, Integer> entry : ordenActual.entrySet()) {
-                Producto p = entry.getKey();
-                int cantidad = entry.getValue();
-                dbManager.registrarVenta(p.getNombre(), cantidad, p.getPrecio());
-            }
-
-            // 2. Mostrar mensaje de éxito y cambio 
-            JOptionPane.showMessageDialog(this, 
-                String.format(Locale.US, "Venta Exitosa!\nTotal: $%.2f\nPago: $%.2f\nCambio: $%.2f", total, pago, cambio), 
-                "Transacción Finalizada", JOptionPane.INFORMATION_MESSAGE);
-
-            // 3. Limpiar la orden
-            ordenActual.clear();
-            updateOrderTable();
+            // 1. Registrar la orden completa fuera del EDT. Con el diario de ventas la respuesta llega en
+            // cuanto la orden queda escrita en el diario, sin esperar el commit en la base (ver SalesJournal).
+            // Se envía una copia: la orden en pantalla no cambia mientras se guarda (el glass pane bloquea los clics).
+            Map<Producto, Integer> orden = ordenActual.comoMapa();
+            int turnoId = turnoActual.getId();
+            long inicioCobro = System.nanoTime();
+            dbManager.async().ejecutarEnSwing(this, () -> pos.registrarOrden(orden, turnoId), ordenId -> {
+                COBRO.registrarDesde(inicioCobro);
+                if (ordenId < 0) {
+                    // Otra caja pudo haber consumido el stock mientras tanto
+                    if (!confirmStock(orden)) {
+                        return;
+                    }
+                    JOptionPane.showMessageDialog(this, 
+                        "No se pudo registrar la venta. La orden no fue cobrada, intente de nuevo.", 
+                        "Error de Venta", JOptionPane.ERROR_MESSAGE);
+                    // Si el turno fue cerrado mientras tanto, el próximo cobro pedirá abrir uno nuevo
+                    loadTurno();
+                    return;
+                }
+
+                // 2. Mostrar mensaje de éxito y cambio 
+                JOptionPane.showMessageDialog(this, 
+                    String.format("Venta Exitosa! (Orden #%d)\nTotal: $%s\nPago: $%s\nCambio: $%s", ordenId, total, pago, cambio), 
+                    "Transacción Finalizada", JOptionPane.INFORMATION_MESSAGE);
+
+                // 3. Limpiar la orden
+                tableModel.limpiar();
+                updateTotal();
+            });
 
         } catch (NumberFormatException e) {
             JOptionPane.showMessageDialog(this, "Cantidad de pago inválida. Asegúrese de usar números válidos.", "Error de Formato", JOptionPane.ERROR_MESSAGE);
@@ -0,0 +1,96 @@
+package proyectoequipo207;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+// Hash de contraseñas con PBKDF2-HMAC-SHA256 y sal aleatoria por usuario.
+// Se guarda como "pbkdf2$<iteraciones>$<sal>$<hash>" (Base64), así cada hash recuerda su propio
+// factor de trabajo: subir auth.pbkdf2_iteraciones no invalida las contraseñas existentes, que se
+// rehacen con el factor nuevo la próxima vez que el usuario inicia sesión.
+// El factor se elige con PasswordHasherBench para que el login quede dentro del presupuesto de latencia.
+public final class PasswordHasher {
+
+    public static final int ITERACIONES_POR_DEFECTO = 210_000;
+
+    private static final String PREFIJO = "pbkdf2$";
+    private static final String ALGORITMO = "PBKDF2WithHmacSHA256";
+    private static final int BYTES_SAL = 16;
+    private static final int BITS_HASH = 256;
+
+    private static final SecureRandom ALEATORIO = new SecureRandom();
+
+    private final int iteraciones;
+
+    public PasswordHasher(int iteraciones) {
+        if (iteraciones < 1) {
+            throw new IllegalArgumentException("El número de iteraciones debe ser positivo.");
+        }
+        this.iteraciones = iteraciones;
+    }
+
+    public int getIteraciones() {
+        return iteraciones;
+    }
+
+    public String hashear(String password) {
+        byte[] sal = new byte[BYTES_SAL];
+        ALEATORIO.nextBytes(sal);
+        byte[] hash = derivar(password, sal, iteraciones, BITS_HASH);
+        Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+        return PREFIJO + iteraciones + "$" + b64.encodeToString(sal) + "$" + b64.encodeToString(hash);
+    }
+
+    // Compara en tiempo constante. Un valor guardado que no es un hash (texto plano, formato dañado) no verifica.
+    public static boolean verificar(String password, String almacenado) {
+        String[] partes = partes(almacenado);
+        if (partes == null) {
+            return false;
+        }
+        try {
+            int iteraciones = Integer.parseInt(partes[1]);
+            byte[] sal = Base64.getDecoder().decode(partes[2]);
+            byte[] esperado = Base64.getDecoder().decode(partes[3]);
+            if (iteraciones < 1 || esperado.length == 0) {
+                return false;
+            }
+            byte[] calculado = derivar(password, sal, iteraciones, esperado.length * 8);
+            return MessageDigest.isEqual(esperado, calculado);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public static boolean esHash(String almacenado) {
+        return partes(almacenado) != null;
+    }
+
+    // Indica si el hash guardado usa un factor de trabajo distinto al configurado.
+    public boolean necesitaRehash(String almacenado) {
+        String[] partes = partes(almacenado);
+        return partes == null || !partes[1].equals(String.valueOf(iteraciones));
+    }
+
+    private static String[] partes(String almacenado) {
+        if (almacenado == null || !almacenado.startsWith(PREFIJO)) {
+            return null;
+        }
+        String[] partes = almacenado.split("\\$");
+        return partes.length == 4 ? partes : null;
+    }
+
+    private static byte[] derivar(String password, byte[] sal, int iteraciones, int bits) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), sal, iteraciones, bits);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITMO).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            // PBKDF2WithHmacSHA256 es obligatorio en toda JVM desde Java 8
+            throw new IllegalStateException("PBKDF2 no disponible en esta JVM", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
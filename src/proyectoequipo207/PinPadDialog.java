@@ -0,0 +1,233 @@
+package proyectoequipo207;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+// Teclado de PIN para el cambio rápido de cajero: se elige el usuario y se marca su PIN.
+// El diálogo se crea una vez por ventana y se reutiliza en cada cambio; la lista de usuarios
+// se refresca en segundo plano mientras el diálogo ya está visible.
+public class PinPadDialog extends JDialog {
+
+    private static final int MAX_DIGITOS = 6;
+
+    private final DatabaseManager dbManager;
+    private final JPanel usuariosPanel = new JPanel(new GridLayout(0, 3, 8, 8));
+    private final ButtonGroup grupoUsuarios = new ButtonGroup();
+    private final List<JToggleButton> botonesUsuario = new ArrayList<>();
+    private final JLabel pinLabel = new JLabel(" ", SwingConstants.CENTER);
+    private final JLabel mensajeLabel = new JLabel(" ", SwingConstants.CENTER);
+    private final StringBuilder pin = new StringBuilder();
+    private List<String> nombresMostrados = new ArrayList<>();
+    private String sugerido;
+    private Usuario resultado;
+
+    private final Color COLOR_FONDO = new Color(245, 239, 230);
+    private final Color COLOR_PRIMARIO = new Color(74, 49, 39);
+    private final Color COLOR_ACCENT_BOTON = new Color(175, 140, 107);
+
+    public PinPadDialog(Window owner, DatabaseManager dbManager) {
+        super(owner, "CAFESOFT - Cambio de Usuario", ModalityType.APPLICATION_MODAL);
+        this.dbManager = dbManager;
+        setDefaultCloseOperation(JDialog.HIDE_ON_CLOSE);
+        setSize(420, 560);
+        setLayout(new BorderLayout(0, 10));
+        getContentPane().setBackground(COLOR_FONDO);
+
+        JPanel norte = new JPanel(new BorderLayout(0, 10));
+        norte.setBackground(COLOR_FONDO);
+        norte.setBorder(new EmptyBorder(15, 20, 0, 20));
+        JLabel titulo = new JLabel("¿Quién atiende?", SwingConstants.CENTER);
+        titulo.setFont(new Font("Serif", Font.BOLD, 24));
+        titulo.setForeground(COLOR_PRIMARIO);
+        norte.add(titulo, BorderLayout.NORTH);
+        usuariosPanel.setBackground(COLOR_FONDO);
+        norte.add(usuariosPanel, BorderLayout.CENTER);
+
+        pinLabel.setFont(new Font("SansSerif", Font.BOLD, 30));
+        pinLabel.setForeground(COLOR_PRIMARIO);
+        pinLabel.setOpaque(true);
+        pinLabel.setBackground(Color.WHITE);
+        pinLabel.setBorder(BorderFactory.createLineBorder(COLOR_ACCENT_BOTON, 2));
+        norte.add(pinLabel, BorderLayout.SOUTH);
+        add(norte, BorderLayout.NORTH);
+
+        JPanel teclado = new JPanel(new GridLayout(4, 3, 8, 8));
+        teclado.setBackground(COLOR_FONDO);
+        teclado.setBorder(new EmptyBorder(0, 40, 0, 40));
+        for (int i = 1; i <= 9; i++) {
+            teclado.add(crearTecla(String.valueOf(i)));
+        }
+        JButton borrar = crearBoton("⌫", COLOR_ACCENT_BOTON);
+        borrar.addActionListener(e -> borrarDigito());
+        teclado.add(borrar);
+        teclado.add(crearTecla("0"));
+        JButton entrar = crearBoton("OK", COLOR_PRIMARIO);
+        entrar.addActionListener(e -> intentar());
+        teclado.add(entrar);
+        add(teclado, BorderLayout.CENTER);
+
+        mensajeLabel.setFont(new Font("SansSerif", Font.BOLD, 13));
+        mensajeLabel.setForeground(new Color(185, 28, 28));
+        mensajeLabel.setBorder(new EmptyBorder(0, 10, 15, 10));
+        add(mensajeLabel, BorderLayout.SOUTH);
+
+        // El teclado físico también sirve: dígitos, retroceso y Enter
+        KeyAdapter teclas = new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+                    intentar();
+                } else if (e.getKeyCode() == KeyEvent.VK_BACK_SPACE) {
+                    borrarDigito();
+                } else if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
+                    setVisible(false);
+                } else if (Character.isDigit(e.getKeyChar())) {
+                    agregarDigito(e.getKeyChar());
+                }
+            }
+        };
+        addKeyListener(teclas);
+        setFocusable(true);
+    }
+
+    // Muestra el teclado y retorna el usuario que ingresó su PIN, o null si se canceló.
+    // 'sugerido' queda preseleccionado (normalmente el usuario actual).
+    public Usuario pedir(Component relativoA, String sugerido) {
+        this.sugerido = sugerido;
+        resultado = null;
+        limpiarPin();
+        mensajeLabel.setText(" ");
+        seleccionar(sugerido);
+        dbManager.async().alTerminarEnSwing(this, dbManager.async().obtenerUsuariosConPin(), this::mostrarUsuarios);
+        setLocationRelativeTo(relativoA);
+        setVisible(true); // Modal: vuelve al aceptar o cancelar
+        return resultado;
+    }
+
+    private void mostrarUsuarios(List<Usuario> usuarios) {
+        List<String> nombres = new ArrayList<>();
+        for (Usuario u : usuarios) {
+            nombres.add(u.getNombreUsuario());
+        }
+        // Los botones se rehacen solo si cambió la lista de usuarios
+        if (!nombres.equals(nombresMostrados)) {
+            String seleccionado = seleccionado();
+            usuariosPanel.removeAll();
+            for (JToggleButton b : botonesUsuario) {
+                grupoUsuarios.remove(b);
+            }
+            botonesUsuario.clear();
+            for (String nombre : nombres) {
+                JToggleButton b = new JToggleButton(nombre);
+                b.setFont(new Font("SansSerif", Font.BOLD, 14));
+                b.setFocusable(false);
+                b.addActionListener(e -> {
+                    limpiarPin();
+                    mensajeLabel.setText(" ");
+                });
+                grupoUsuarios.add(b);
+                botonesUsuario.add(b);
+                usuariosPanel.add(b);
+            }
+            nombresMostrados = nombres;
+            seleccionar(seleccionado != null ? seleccionado : sugerido);
+            usuariosPanel.revalidate();
+            usuariosPanel.repaint();
+        }
+        if (nombres.isEmpty()) {
+            mensajeLabel.setText("Ningún usuario tiene PIN. Asígnelo desde el Dashboard.");
+        }
+        requestFocusInWindow();
+    }
+
+    private void seleccionar(String nombre) {
+        grupoUsuarios.clearSelection();
+        for (JToggleButton b : botonesUsuario) {
+            if (b.getText().equals(nombre)) {
+                b.setSelected(true);
+            }
+        }
+    }
+
+    private String seleccionado() {
+        for (JToggleButton b : botonesUsuario) {
+            if (b.isSelected()) {
+                return b.getText();
+            }
+        }
+        return null;
+    }
+
+    private JButton crearTecla(String digito) {
+        JButton b = crearBoton(digito, Color.WHITE);
+        b.setForeground(COLOR_PRIMARIO);
+        b.addActionListener(e -> agregarDigito(digito.charAt(0)));
+        return b;
+    }
+
+    private JButton crearBoton(String texto, Color fondo) {
+        JButton b = new JButton(texto);
+        b.setFont(new Font("SansSerif", Font.BOLD, 22));
+        b.setBackground(fondo);
+        b.setForeground(Color.WHITE);
+        b.setFocusable(false); // El foco queda en el diálogo para recibir el teclado físico
+        return b;
+    }
+
+    private void agregarDigito(char digito) {
+        if (pin.length() < MAX_DIGITOS) {
+            pin.append(digito);
+            pinLabel.setText(puntos());
+        }
+    }
+
+    private void borrarDigito() {
+        if (pin.length() > 0) {
+            pin.setLength(pin.length() - 1);
+            pinLabel.setText(pin.length() == 0 ? " " : puntos());
+        }
+    }
+
+    private void limpiarPin() {
+        pin.setLength(0);
+        pinLabel.setText(" ");
+    }
+
+    private String puntos() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < pin.length(); i++) {
+            sb.append("● ");
+        }
+        return sb.toString().trim();
+    }
+
+    private void intentar() {
+        String username = seleccionado();
+        if (username == null) {
+            mensajeLabel.setText("Seleccione un usuario.");
+            return;
+        }
+        String pinIngresado = pin.toString();
+        if (!DatabaseManager.esPinValido(pinIngresado)) {
+            mensajeLabel.setText("El PIN tiene de 4 a 6 dígitos.");
+            return;
+        }
+        limpiarPin();
+        dbManager.async().ejecutarEnSwing(this, () -> dbManager.autenticarPorPin(username, pinIngresado), usuario -> {
+            if (usuario != null) {
+                resultado = usuario;
+                setVisible(false);
+            } else if (dbManager.estaBloqueadoPin(username)) {
+                mensajeLabel.setText("Demasiados intentos. Espere unos segundos o use su contraseña.");
+            } else {
+                mensajeLabel.setText("PIN incorrecto.");
+            }
+            requestFocusInWindow();
+        });
+    }
+}
@@ -0,0 +1,21 @@
+package proyectoequipo207;
+
+import java.util.List;
+import java.util.Map;
+
+// Lo que el punto de venta necesita de la base: el menú, registrar órdenes y los turnos de caja.
+// DatabaseManager lo implementa sobre el archivo local; en el modo multi-caja SalesClient lo
+// implementa hablando con el SalesServer de la máquina que guarda la base.
+// Mismas convenciones que DatabaseManager: -1 o null cuando la operación falla.
+public interface PosBackend {
+
+    List<Producto> obtenerProductos();
+
+    int registrarOrden(Map<Producto, Integer> orden, int turnoId);
+
+    Turno obtenerTurnoAbierto(String usuario);
+
+    Turno abrirTurno(String usuario, Dinero fondoInicial);
+
+    Cierre cerrarTurno(int turnoId, Dinero efectivoContado);
+}
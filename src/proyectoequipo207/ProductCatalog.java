@@ -0,0 +1,134 @@
+package proyectoequipo207;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Caché en memoria de los productos activos. La tabla se lee una sola vez y se sirve como una
+// foto inmutable (lista + índices por id y por nombre) que se reemplaza entera cuando cambia:
+// los lectores nunca ven una foto a medio actualizar y no necesitan sincronizarse.
+// DatabaseManager la invalida después de cada escritura sobre productos (write-through).
+public class ProductCatalog {
+
+    private final Supplier<List<Producto>> cargador;
+    private volatile Snapshot snapshot;
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong recargas = new AtomicLong();
+
+    // El cargador lee los productos activos de la base y retorna null si la lectura falla.
+    public ProductCatalog(Supplier<List<Producto>> cargador) {
+        this.cargador = cargador;
+    }
+
+    // Foto actual del catálogo; si fue invalidada, se vuelve a leer de la base.
+    public Snapshot getSnapshot() {
+        Snapshot actual = snapshot;
+        if (actual != null) {
+            aciertos.incrementAndGet();
+            return actual;
+        }
+        fallos.incrementAndGet();
+        return cargar();
+    }
+
+    // Indica si hay una foto en memoria, es decir, si getSnapshot() no va a tocar la base.
+    public boolean estaCargado() {
+        return snapshot != null;
+    }
+
+    // La lectura y la invalidación se excluyen entre sí: si una escritura invalida mientras
+    // se está cargando, la invalidación espera y descarta esa foto, que podría ser anterior al cambio.
+    private synchronized Snapshot cargar() {
+        if (snapshot == null) {
+            recargas.incrementAndGet();
+            List<Producto> leidos = cargador.get();
+            if (leidos == null) {
+                // Falló la lectura: se responde vacío sin guardar la foto, para reintentar la próxima vez
+                return new Snapshot(Collections.<Producto>emptyList());
+            }
+            snapshot = new Snapshot(leidos);
+        }
+        return snapshot;
+    }
+
+    public synchronized void invalidar() {
+        snapshot = null;
+    }
+
+    // Quita un producto de la foto sin volver a leer la tabla (baja lógica).
+    public synchronized void quitar(int id) {
+        Snapshot actual = snapshot;
+        if (actual == null || actual.porId(id) == null) {
+            return;
+        }
+        List<Producto> restantes = new ArrayList<>(actual.getProductos().size());
+        for (Producto p : actual.getProductos()) {
+            if (p.getId() != id) {
+                restantes.add(p);
+            }
+        }
+        snapshot = new Snapshot(restantes);
+    }
+
+    public long getAciertos() {
+        return aciertos.get();
+    }
+
+    public long getFallos() {
+        return fallos.get();
+    }
+
+    public long getRecargas() {
+        return recargas.get();
+    }
+
+    @Override
+    public String toString() {
+        Snapshot actual = snapshot;
+        return String.format("ProductCatalog[productos=%s, aciertos=%d, fallos=%d, recargas=%d]",
+                actual == null ? "-" : String.valueOf(actual.getProductos().size()),
+                getAciertos(), getFallos(), getRecargas());
+    }
+
+    // Foto inmutable del catálogo. Los productos son copias propias de la foto:
+    // quien necesite cambiar uno debe crear un Producto nuevo y pasar por DatabaseManager.
+    public static final class Snapshot {
+
+        private final List<Producto> productos;
+        private final Map<Integer, Producto> porId;
+        private final Map<String, Producto> porNombre;
+
+        private Snapshot(List<Producto> origen) {
+            List<Producto> lista = new ArrayList<>(origen.size());
+            Map<Integer, Producto> ids = new HashMap<>();
+            Map<String, Producto> nombres = new HashMap<>();
+            for (Producto p : origen) {
+                Producto copia = new Producto(p.getId(), p.getNombre(), p.getPrecio());
+                lista.add(copia);
+                ids.put(copia.getId(), copia);
+                nombres.put(copia.getNombre(), copia);
+            }
+            this.productos = Collections.unmodifiableList(lista);
+            this.porId = Collections.unmodifiableMap(ids);
+            this.porNombre = Collections.unmodifiableMap(nombres);
+        }
+
+        public List<Producto> getProductos() {
+            return productos;
+        }
+
+        public Producto porId(int id) {
+            return porId.get(id);
+        }
+
+        public Producto porNombre(String nombre) {
+            return porNombre.get(nombre);
+        }
+    }
+}
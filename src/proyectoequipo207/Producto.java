@@ -1,11 +1,13 @@
 package proyectoequipo207;
 
+// Entrada del catálogo tal como se leyó: no cambia. Un cambio de precio o de nombre llega
+// como otra instancia con el mismo id en la siguiente lectura del catálogo.
 public class Producto {
-    private int id;
-    private String nombre;
-    private double precio;
+    private final int id;
+    private final String nombre;
+    private final Dinero precio;
 
-    public Producto(int id, String nombre, double precio) {
+    public Producto(int id, String nombre, Dinero precio) {
         this.id = id;
         this.nombre = nombre;
         this.precio = precio;
@@ -14,24 +16,30 @@ public class Producto {
     public int getId() {
         return id;
     }
-    
-    public void setId(int id) {
-        this.id = id;
-    }
 
     public String getNombre() {
         return nombre;
     }
 
-    public double getPrecio() {
+    public Dinero getPrecio() {
         return precio;
     }
-    
-    public void setNombre(String nombre) {
-        this.nombre = nombre;
+
+    // Dos productos son el mismo si tienen el mismo id, aunque vengan de lecturas distintas
+    // del catálogo (el nombre y el precio pueden cambiar; el id no).
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Producto)) {
+            return false;
+        }
+        return id == ((Producto) o).id;
     }
-    
-    public void setPrecio(double precio) {
-        this.precio = precio;
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(id);
     }
-}
\ No newline at end of file
+}
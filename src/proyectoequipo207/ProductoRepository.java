@@ -0,0 +1,24 @@
+package proyectoequipo207;
+
+import java.util.List;
+
+// Productos del menú. Lo implementan DatabaseManager (SQLite) e InMemoryRepository (RAM, para pruebas).
+// Mismas convenciones que el resto de la capa de datos: false o null cuando la operación falla.
+public interface ProductoRepository {
+
+    // Productos activos. La lista no se puede modificar y es la misma instancia mientras el menú no cambie.
+    List<Producto> obtenerProductos();
+
+    Producto obtenerProductoPorId(int id);
+
+    Producto obtenerProductoPorNombre(String nombre);
+
+    // El id del producto recibido se ignora: lo asigna el repositorio.
+    boolean agregarProducto(Producto producto);
+
+    // Cambia nombre y precio del producto con ese id. Retorna false si no existe o el nombre ya está en uso.
+    boolean actualizarProducto(Producto producto);
+
+    // Baja lógica: el producto deja de ofrecerse pero sus ventas lo siguen referenciando.
+    boolean eliminarProducto(int id);
+}
@@ -0,0 +1,105 @@
+package proyectoequipo207;
+
+import javax.swing.JOptionPane;
+import java.awt.Component;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+// Cierre de caja de un turno y presentación de su reporte Z.
+// Lo usan el POS (el vendedor cierra su propio turno) y los reportes (el administrador cierra cualquiera).
+public final class ReporteCierre {
+
+    private ReporteCierre() {
+    }
+
+    private static NumberFormat moneda() {
+        return NumberFormat.getCurrencyInstance(new Locale("es", "CO"));
+    }
+
+    // Pide el efectivo contado en caja, cierra el turno fuera del EDT y muestra el reporte Z guardado.
+    // alCerrar recibe el cierre (o null si no se pudo cerrar) ya en el EDT.
+    public static void cerrarTurno(Component padre, DatabaseManager dbManager, Turno turno, Consumer<Cierre> alCerrar) {
+        String input = JOptionPane.showInputDialog(padre,
+            turno + "\nFondo inicial: $" + turno.getFondoInicial()
+                + "\n\nIngrese el efectivo contado en caja:",
+            "Cierre de Caja", JOptionPane.QUESTION_MESSAGE);
+        if (input == null || input.trim().isEmpty()) {
+            return; // Cancelado
+        }
+        Dinero contado;
+        try {
+            contado = Dinero.parse(input);
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(padre, "Monto inválido. Asegúrese de usar números válidos.", "Error de Formato", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        // En modo multi-caja el cierre lo hace el servidor de ventas, dueño de las ventas del turno
+        PosBackend pos = dbManager.getPos();
+        dbManager.async().ejecutarEnSwing(padre, () -> pos.cerrarTurno(turno.getId(), contado), cierre -> {
+            if (cierre == null) {
+                JOptionPane.showMessageDialog(padre,
+                    "No se pudo cerrar el turno. Es posible que ya haya sido cerrado.",
+                    "Error de Cierre", JOptionPane.ERROR_MESSAGE);
+            } else {
+                mostrar(padre, cierre);
+            }
+            alCerrar.accept(cierre);
+        });
+    }
+
+    public static void mostrar(Component padre, Cierre cierre) {
+        JOptionPane.showMessageDialog(padre, html(cierre),
+            "Reporte Z - Turno #" + cierre.getTurno().getId(), JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    static String html(Cierre cierre) {
+        NumberFormat formato = moneda();
+        StringBuilder filasProductos = new StringBuilder();
+        for (TotalAgrupado t : cierre.getDetalle()) {
+            filasProductos.append("<tr><td>").append(t.getClave()).append("</td>")
+                    .append("<td align='right'>").append(t.getUnidades()).append(" u.</td>")
+                    .append("<td align='right'>").append(formato.format(t.getTotal().aBigDecimal())).append("</td></tr>");
+        }
+        if (cierre.getDetalle().isEmpty()) {
+            filasProductos.append("<tr><td>Sin ventas en el turno</td></tr>");
+        }
+
+        Dinero diferencia = cierre.getDiferencia();
+        String colorDiferencia = diferencia.esCero() ? "#15803d" : (diferencia.esPositivo() ? "#1d4ed8" : "#b91c1c");
+        String etiquetaDiferencia = diferencia.esCero() ? "Cuadre exacto" : (diferencia.esPositivo() ? "Sobrante" : "Faltante");
+        Turno turno = cierre.getTurno();
+
+        return "<html><body style='font-family:SansSerif; padding: 10px;'>"
+                + "<h2 style='color:#4A3127;'>☕ Reporte Z - Cierre de Caja</h2>"
+                + "<hr style='border: 1px solid #A88775;'>"
+                + "<table border='0' cellpadding='3' cellspacing='0' width='100%'>"
+                + "<tr><td>Turno:</td><td align='right'><b>#" + turno.getId() + "</b></td></tr>"
+                + "<tr><td>Usuario:</td><td align='right'><b>" + turno.getUsuario() + "</b></td></tr>"
+                + "<tr><td>Apertura:</td><td align='right'><b>" + Fechas.formatear(Fechas.REPORTE, turno.getApertura()) + "</b></td></tr>"
+                + "<tr><td>Cierre:</td><td align='right'><b>" + Fechas.formatear(Fechas.REPORTE, turno.getCierre()) + "</b></td></tr>"
+                + "</table>"
+                + "<h3>Resumen de Ventas</h3>"
+                + "<table border='0' cellpadding='3' cellspacing='0' width='100%'>"
+                + "<tr><td>Total de Tickets:</td><td align='right'><b>" + cierre.getTickets() + " órdenes</b></td></tr>"
+                + "<tr><td>Total de Transacciones:</td><td align='right'><b>" + cierre.getLineas() + " líneas</b></td></tr>"
+                + "<tr><td>Total de Ítems Vendidos:</td><td align='right'><b>" + cierre.getUnidades() + " unidades</b></td></tr>"
+                + "<tr><td>Ticket Promedio:</td><td align='right'><b>" + formato.format(cierre.getTicketPromedio().aBigDecimal()) + "</b></td></tr>"
+                + "<tr><td>Total Vendido:</td><td align='right'><b>" + formato.format(cierre.getTotal().aBigDecimal()) + "</b></td></tr>"
+                + "</table>"
+                + "<h3>Arqueo de Caja</h3>"
+                + "<table border='0' cellpadding='3' cellspacing='0' width='100%'>"
+                + "<tr><td>Fondo Inicial:</td><td align='right'>" + formato.format(turno.getFondoInicial().aBigDecimal()) + "</td></tr>"
+                + "<tr><td>Efectivo Esperado:</td><td align='right'><b>" + formato.format(cierre.getEfectivoEsperado().aBigDecimal()) + "</b></td></tr>"
+                + "<tr><td>Efectivo Contado:</td><td align='right'><b>" + formato.format(cierre.getEfectivoContado().aBigDecimal()) + "</b></td></tr>"
+                + "<tr><td>" + etiquetaDiferencia + ":</td><td align='right' style='color:" + colorDiferencia + ";'><b>"
+                + formato.format(diferencia.aBigDecimal()) + "</b></td></tr>"
+                + "</table>"
+                + "<h3>Ventas por Producto</h3>"
+                + "<table border='0' cellpadding='3' cellspacing='0' width='100%'>" + filasProductos + "</table>"
+                + "<hr style='border: 1px solid #A88775; margin-top: 20px;'>"
+                + "<p style='font-size: 12px; color: #666;'>Reporte generado por CAFESOFT</p>"
+                + "</body></html>";
+    }
+}
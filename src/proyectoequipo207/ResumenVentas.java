@@ -0,0 +1,37 @@
+package proyectoequipo207;
+
+import java.time.Instant;
+
+// Totales de un periodo calculados por la base de datos (una sola fila).
+public class ResumenVentas {
+    private final int tickets;
+    private final int lineas;
+    private final int unidades;
+    private final Dinero totalRecaudado;
+    private final Instant primeraVenta;
+    private final Instant ultimaVenta;
+
+    public ResumenVentas(int tickets, int lineas, int unidades, Dinero totalRecaudado, Instant primeraVenta, Instant ultimaVenta) {
+        this.tickets = tickets;
+        this.lineas = lineas;
+        this.unidades = unidades;
+        this.totalRecaudado = totalRecaudado;
+        this.primeraVenta = primeraVenta;
+        this.ultimaVenta = ultimaVenta;
+    }
+
+    public int getTickets() { return tickets; }
+    public int getLineas() { return lineas; }
+    public int getUnidades() { return unidades; }
+    public Dinero getTotalRecaudado() { return totalRecaudado; }
+    public Instant getPrimeraVenta() { return primeraVenta; }
+    public Instant getUltimaVenta() { return ultimaVenta; }
+
+    public boolean estaVacio() {
+        return tickets == 0;
+    }
+
+    public Dinero getTicketPromedio() {
+        return tickets == 0 ? Dinero.CERO : totalRecaudado.dividir(tickets);
+    }
+}
@@ -0,0 +1,143 @@
+package proyectoequipo207;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// Caja del modo multi-caja: implementa PosBackend hablando con el SalesServer configurado en servidor.url.
+// Igual que DatabaseManager, un fallo (servidor caído, timeout) se registra y se responde -1 o null.
+// Las escrituras no se reintentan: si la respuesta se pierde la orden pudo haberse registrado igual,
+// y reintentar la cobraría dos veces.
+public class SalesClient implements PosBackend {
+
+    private final HttpClient http;
+    private final String url;
+    private final String clave;
+    private final Duration timeout;
+
+    // Último menú recibido: si el servidor responde 304 se entrega la misma lista y el POS no rehace los botones
+    private volatile List<Producto> productos = Collections.emptyList();
+    private volatile String etagProductos;
+
+    private static final MetricsRegistry.Histograma PETICION = MetricsRegistry.global().histograma("cliente.peticion");
+
+    public SalesClient(StorageProfile perfil) {
+        this(perfil.getUrlServidor(), perfil.getClaveServidor(), perfil.getTimeoutServidorMs());
+    }
+
+    public SalesClient(String url, String clave, long timeoutMs) {
+        this.url = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        this.clave = clave;
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.http = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    @Override
+    public List<Producto> obtenerProductos() {
+        HttpRequest.Builder pedido = pedido(SalesProtocol.PRODUCTOS).GET();
+        String etag = etagProductos;
+        if (etag != null) {
+            pedido.header("If-None-Match", etag);
+        }
+        try {
+            HttpResponse<String> respuesta = enviar(pedido);
+            if (respuesta.statusCode() == 304) {
+                return productos;
+            }
+            if (respuesta.statusCode() != 200) {
+                Log.error("Error obteniendo productos del servidor: HTTP " + respuesta.statusCode() + " " + respuesta.body());
+                return productos;
+            }
+            productos = Collections.unmodifiableList(SalesProtocol.leerProductos(respuesta.body()));
+            etagProductos = respuesta.headers().firstValue("ETag").orElse(null);
+            return productos;
+        } catch (IOException | IllegalArgumentException e) {
+            // Sin servidor se sigue mostrando el último menú conocido
+            Log.error("Error obteniendo productos del servidor: " + e.getMessage());
+            return productos;
+        }
+    }
+
+    @Override
+    public int registrarOrden(Map<Producto, Integer> orden, int turnoId) {
+        if (orden == null || orden.isEmpty()) {
+            return -1;
+        }
+        String cuerpo = escribir(SalesProtocol.ORDENES, SalesProtocol.orden(orden, turnoId), "registrando orden");
+        return cuerpo == null ? -1 : Integer.parseInt(cuerpo.trim());
+    }
+
+    @Override
+    public Turno obtenerTurnoAbierto(String usuario) {
+        HttpRequest.Builder pedido = pedido(SalesProtocol.TURNO_ABIERTO + "?usuario="
+                + URLEncoder.encode(usuario, StandardCharsets.UTF_8)).GET();
+        try {
+            HttpResponse<String> respuesta = enviar(pedido);
+            if (respuesta.statusCode() != 200) {
+                Log.error("Error obteniendo turno del servidor: HTTP " + respuesta.statusCode() + " " + respuesta.body());
+                return null;
+            }
+            return SalesProtocol.leerTurno(respuesta.body());
+        } catch (IOException | IllegalArgumentException e) {
+            Log.error("Error obteniendo turno del servidor: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public Turno abrirTurno(String usuario, Dinero fondoInicial) {
+        String cuerpo = escribir(SalesProtocol.TURNOS,
+                SalesProtocol.campo(usuario) + "\t" + fondoInicial.getCentavos(), "abriendo turno");
+        return cuerpo == null ? null : SalesProtocol.leerTurno(cuerpo);
+    }
+
+    @Override
+    public Cierre cerrarTurno(int turnoId, Dinero efectivoContado) {
+        String cuerpo = escribir(SalesProtocol.CIERRES, turnoId + "\t" + efectivoContado.getCentavos(), "cerrando turno");
+        return cuerpo == null ? null : SalesProtocol.leerCierre(cuerpo);
+    }
+
+    // POST al servidor; retorna el cuerpo de la respuesta, o null si falló.
+    private String escribir(String ruta, String cuerpo, String operacion) {
+        HttpRequest.Builder pedido = pedido(ruta).POST(HttpRequest.BodyPublishers.ofString(cuerpo, StandardCharsets.UTF_8));
+        try {
+            HttpResponse<String> respuesta = enviar(pedido);
+            if (respuesta.statusCode() != 200) {
+                Log.error("Error " + operacion + " en el servidor: HTTP " + respuesta.statusCode() + " " + respuesta.body());
+                return null;
+            }
+            return respuesta.body();
+        } catch (IOException e) {
+            Log.error("Error " + operacion + " en el servidor: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private HttpRequest.Builder pedido(String ruta) {
+        HttpRequest.Builder pedido = HttpRequest.newBuilder(URI.create(url + ruta)).timeout(timeout);
+        if (!clave.isEmpty()) {
+            pedido.header(SalesProtocol.CABECERA_CLAVE, clave);
+        }
+        return pedido;
+    }
+
+    private HttpResponse<String> enviar(HttpRequest.Builder pedido) throws IOException {
+        long inicio = System.nanoTime();
+        try {
+            return http.send(pedido.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrumpido", e);
+        } finally {
+            PETICION.registrarDesde(inicio);
+        }
+    }
+}
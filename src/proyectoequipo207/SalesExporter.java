@@ -0,0 +1,328 @@
+package proyectoequipo207;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Exporta el historial de ventas (una fila por línea de venta) a CSV o a XLSX para contabilidad.
+// Las filas pasan de un ResultSet de solo avance (DatabaseManager.recorrerVentas) directo a un Writer
+// con buffer, sin juntarlas en memoria: exportar un año cuesta lo mismo en memoria que exportar un día.
+// El XLSX se escribe a mano (un ZIP con las partes XML mínimas y celdas de texto en línea), así no
+// hace falta una librería ni una tabla de textos compartidos que crezca con las filas.
+// Se escribe a un archivo temporal que reemplaza al destino solo si la exportación terminó:
+// si se cancela o falla no queda un archivo a medias.
+public class SalesExporter {
+
+    // Filas que el driver trae por vez al recorrer el historial
+    public static final int TAMANO_LOTE = 500;
+    // Cada cuántas filas se informa el progreso
+    private static final int FILAS_POR_AVISO = 2000;
+    // Excel admite 1.048.576 filas por hoja (una es el encabezado); con más se abre otra hoja
+    private static final int FILAS_POR_HOJA = 1_048_575;
+
+    private static final String[] COLUMNAS = {"Venta", "Orden", "Fecha", "Producto ID", "Producto", "Cantidad", "Precio Unitario", "Subtotal"};
+
+    public enum Formato {
+        CSV("csv", "CSV (separado por comas)"),
+        XLSX("xlsx", "Excel (XLSX)");
+
+        private final String extension;
+        private final String descripcion;
+
+        Formato(String extension, String descripcion) {
+            this.extension = extension;
+            this.descripcion = descripcion;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        @Override
+        public String toString() {
+            return descripcion;
+        }
+    }
+
+    // Avance de la exportación; se llama desde el hilo que exporta.
+    public interface Progreso {
+        void avance(long filas, long total);
+    }
+
+    private final DatabaseManager dbManager;
+    private final AtomicBoolean cancelado = new AtomicBoolean();
+
+    public SalesExporter(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+    }
+
+    // Pide detener la exportación en curso; el archivo de destino no se toca.
+    public void cancelar() {
+        cancelado.set(true);
+    }
+
+    public boolean estaCancelado() {
+        return cancelado.get();
+    }
+
+    // Exporta las líneas de venta con fecha en [desde, hasta), de un producto o de todos (productoId <= 0).
+    // Retorna las filas escritas, o -1 si se canceló o falló (el error queda en el log).
+    public long exportar(Path destino, Formato formato, Date desde, Date hasta, int productoId, Progreso progreso) {
+        long total = dbManager.contarLineasVenta(desde, hasta, productoId);
+        Path parcial = Paths.get(destino + ".parcial");
+        long inicio = System.currentTimeMillis();
+        long filas;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(parcial), 64 * 1024)) {
+            Salida salida = formato == Formato.XLSX ? new SalidaXlsx(out) : new SalidaCsv(out);
+            long[] escritas = {0};
+            filas = dbManager.recorrerVentas(desde, hasta, productoId, TAMANO_LOTE, venta -> {
+                if (cancelado.get()) {
+                    return false;
+                }
+                salida.fila(venta);
+                if (++escritas[0] % FILAS_POR_AVISO == 0) {
+                    progreso.avance(escritas[0], total);
+                }
+                return true;
+            });
+            if (filas >= 0 && !cancelado.get()) {
+                salida.terminar();
+            }
+        } catch (IOException e) {
+            Log.error("Error exportando ventas a " + destino + ": " + e.getMessage());
+            filas = -1;
+        }
+
+        try {
+            if (filas < 0 || cancelado.get()) {
+                Files.deleteIfExists(parcial);
+                return -1;
+            }
+            Files.move(parcial, destino, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Log.error("Error guardando la exportación en " + destino + ": " + e.getMessage());
+            return -1;
+        }
+        progreso.avance(filas, total);
+        Log.info(String.format("Exportadas %d líneas de venta a %s en %d ms", filas, destino, System.currentTimeMillis() - inicio));
+        return filas;
+    }
+
+    // FORMATOS
+
+    private interface Salida {
+        void fila(Venta v) throws IOException;
+
+        void terminar() throws IOException;
+    }
+
+    // RFC 4180 en UTF-8 con BOM (Excel lo abre con tildes). Montos con punto decimal, como Dinero.toString.
+    private static final class SalidaCsv implements Salida {
+        private final Writer out;
+
+        SalidaCsv(OutputStream destino) throws IOException {
+            out = new BufferedWriter(new OutputStreamWriter(destino, StandardCharsets.UTF_8));
+            out.write('\uFEFF');
+            for (int i = 0; i < COLUMNAS.length; i++) {
+                out.write(i == 0 ? "" : ",");
+                out.write(COLUMNAS[i]);
+            }
+            out.write("\r\n");
+        }
+
+        @Override
+        public void fila(Venta v) throws IOException {
+            out.write(Integer.toString(v.getIdVenta()));
+            out.write(',');
+            out.write(Integer.toString(v.getIdOrden()));
+            out.write(',');
+            out.write(Fechas.TABLA.format(v.getFechaVenta()));
+            out.write(',');
+            out.write(Integer.toString(v.getIdProducto()));
+            out.write(',');
+            texto(v.getNombreProducto());
+            out.write(',');
+            out.write(Integer.toString(v.getCantidad()));
+            out.write(',');
+            out.write(v.getPrecioUnitario().toString());
+            out.write(',');
+            out.write(v.getSubtotal().toString());
+            out.write("\r\n");
+        }
+
+        private void texto(String valor) throws IOException {
+            if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+                out.write(valor);
+                return;
+            }
+            out.write('"');
+            out.write(valor.replace("\"", "\"\""));
+            out.write('"');
+        }
+
+        @Override
+        public void terminar() throws IOException {
+            out.flush();
+        }
+    }
+
+    // SpreadsheetML mínimo: las hojas se escriben fila por fila y el libro, que necesita saber
+    // cuántas hojas hubo, va al final del ZIP (el orden de las entradas no importa).
+    private static final class SalidaXlsx implements Salida {
+        private static final long MS_POR_DIA = 86_400_000L;
+        // Día 0 de Excel (1899-12-30) respecto de 1970-01-01
+        private static final long DIAS_HASTA_EPOCH = 25_569L;
+
+        private final ZipOutputStream zip;
+        private final Writer out;
+        private final ZoneId zona = ZoneId.systemDefault();
+        private int hojas = 0;
+        private int filasEnHoja = 0;
+
+        SalidaXlsx(OutputStream destino) throws IOException {
+            zip = new ZipOutputStream(destino, StandardCharsets.UTF_8);
+            out = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8));
+            abrirHoja();
+        }
+
+        private void abrirHoja() throws IOException {
+            hojas++;
+            filasEnHoja = 0;
+            zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + hojas + ".xml"));
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                    + "<cols><col min=\"3\" max=\"3\" width=\"20\" customWidth=\"1\"/>"
+                    + "<col min=\"5\" max=\"5\" width=\"30\" customWidth=\"1\"/>"
+                    + "<col min=\"7\" max=\"8\" width=\"16\" customWidth=\"1\"/></cols><sheetData><row>");
+            for (String columna : COLUMNAS) {
+                texto(columna);
+            }
+            out.write("</row>");
+        }
+
+        private void cerrarHoja() throws IOException {
+            out.write("</sheetData></worksheet>");
+            out.flush();
+            zip.closeEntry();
+        }
+
+        @Override
+        public void fila(Venta v) throws IOException {
+            if (filasEnHoja == FILAS_POR_HOJA) {
+                cerrarHoja();
+                abrirHoja();
+            }
+            filasEnHoja++;
+            out.write("<row>");
+            numero(Integer.toString(v.getIdVenta()), 0);
+            numero(Integer.toString(v.getIdOrden()), 0);
+            numero(fechaExcel(v), 1);
+            numero(Integer.toString(v.getIdProducto()), 0);
+            texto(v.getNombreProducto());
+            numero(Integer.toString(v.getCantidad()), 0);
+            numero(v.getPrecioUnitario().toString(), 2);
+            numero(v.getSubtotal().toString(), 2);
+            out.write("</row>");
+        }
+
+        // Días (con fracción) desde el día 0 de Excel, en hora local como el resto de los reportes
+        private String fechaExcel(Venta v) {
+            long local = v.getFechaVenta().toEpochMilli() + zona.getRules().getOffset(v.getFechaVenta()).getTotalSeconds() * 1000L;
+            return Double.toString(DIAS_HASTA_EPOCH + (double) local / MS_POR_DIA);
+        }
+
+        private void numero(String valor, int estilo) throws IOException {
+            out.write(estilo == 0 ? "<c><v>" : "<c s=\"" + estilo + "\"><v>");
+            out.write(valor);
+            out.write("</v></c>");
+        }
+
+        private void texto(String valor) throws IOException {
+            out.write("<c t=\"inlineStr\"><is><t>");
+            for (int i = 0; i < valor.length(); i++) {
+                char ch = valor.charAt(i);
+                switch (ch) {
+                    case '<': out.write("&lt;"); break;
+                    case '>': out.write("&gt;"); break;
+                    case '&': out.write("&amp;"); break;
+                    default:
+                        // XML 1.0 no admite caracteres de control (salvo tab y saltos de línea)
+                        if (ch >= 0x20 || ch == '\t' || ch == '\n' || ch == '\r') {
+                            out.write(ch);
+                        }
+                }
+            }
+            out.write("</t></is></c>");
+        }
+
+        private void parte(String nombre, String contenido) throws IOException {
+            zip.putNextEntry(new ZipEntry(nombre));
+            out.write(contenido);
+            out.flush();
+            zip.closeEntry();
+        }
+
+        @Override
+        public void terminar() throws IOException {
+            cerrarHoja();
+
+            StringBuilder tipos = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                    + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                    + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                    + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+                    + "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+            StringBuilder libro = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" "
+                    + "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>");
+            StringBuilder relaciones = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+            for (int i = 1; i <= hojas; i++) {
+                tipos.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                        .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+                libro.append("<sheet name=\"Ventas").append(hojas > 1 ? " " + i : "").append("\" sheetId=\"").append(i)
+                        .append("\" r:id=\"rId").append(i).append("\"/>");
+                relaciones.append("<Relationship Id=\"rId").append(i)
+                        .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet")
+                        .append(i).append(".xml\"/>");
+            }
+            relaciones.append("<Relationship Id=\"rId").append(hojas + 1)
+                    .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>");
+
+            parte("[Content_Types].xml", tipos.append("</Types>").toString());
+            parte("_rels/.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                    + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                    + "</Relationships>");
+            parte("xl/workbook.xml", libro.append("</sheets></workbook>").toString());
+            parte("xl/_rels/workbook.xml.rels", relaciones.append("</Relationships>").toString());
+            // Estilos: 0 general, 1 fecha y hora, 2 monto con dos decimales
+            parte("xl/styles.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                    + "<numFmts count=\"1\"><numFmt numFmtId=\"164\" formatCode=\"yyyy-mm-dd hh:mm:ss\"/></numFmts>"
+                    + "<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+                    + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>"
+                    + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+                    + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+                    + "<cellXfs count=\"3\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+                    + "<xf numFmtId=\"164\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+                    + "<xf numFmtId=\"4\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/></cellXfs>"
+                    + "<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>"
+                    + "</styleSheet>");
+            zip.finish();
+        }
+    }
+}
@@ -0,0 +1,669 @@
+package proyectoequipo207;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.CRC32;
+
+// Diario de ventas: archivo de solo agregado junto a la base (cafesoft.db-ventas). Una orden cobrada
+// se valida contra la vista en memoria (turno abierto, stock), se escribe al final del diario y se
+// confirma en cuanto el fsync termina; el cobro ya no espera el commit de SQLite, ni a un reporte
+// que esté leyendo. Un único hilo escritor junta las órdenes que llegan mientras hace el fsync
+// anterior y las escribe con un solo fsync. Otro hilo las pasa a la base en lotes (una transacción
+// por lote) y, cuando ya no queda nada sin aplicar, vacía el archivo.
+// Si la aplicación se cierra de golpe, al iniciar se vuelven a aplicar las órdenes del diario que
+// no alcanzaron a llegar a la base. Los ids de orden los asigna el diario, así la orden ya tiene su
+// número de ticket al confirmarse: los toma en bloques reservados en sqlite_sequence, así ningún id
+// se repite aunque la orden no llegue a la base (apartada, o un cierre de golpe) y una venta escrita
+// directo en la base (AUTOINCREMENT) no choca con uno ya entregado.
+// La base queda unos milisegundos detrás de lo confirmado al cajero: los reportes esperan un rato
+// corto a que se aplique lo pendiente (esperarAplicadas) y, si el aplicador está trabado, muestran
+// lo que ya está en la base; el cierre de turno y la exportación esperan hasta ESPERA_APLICADAS_MS.
+// Una orden que la base rechaza una y otra vez (p. ej. un id que ya existe) no frena a las demás:
+// se aparta a cafesoft.db-ventas-rechazadas, con el mismo formato, para revisarla a mano.
+public class SalesJournal {
+
+    private static final long ESPERA_APLICADAS_MS = 30_000;
+    private static final long ESPERA_REINTENTO_MS = 1000;
+    // Intentos de aplicar un lote entero, y luego cada orden por separado, antes de apartarla
+    private static final int INTENTOS = 3;
+    // Ids de orden que se reservan por vez en la base
+    private static final int BLOQUE_IDS = 100;
+
+    private final DatabaseManager dbManager;
+    private final Inventory inventario;
+    private final Path archivo;
+    private final Path rechazadas;
+    private final FileChannel canal;
+    private final int lote;
+
+    private final BlockingQueue<Solicitud> cola = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Entrada> porAplicar = new LinkedBlockingQueue<>();
+    private final Thread escritor;
+    private final Thread aplicador;
+    private volatile boolean activo = true;
+    // Encolar y cerrar no se cruzan: lo encolado con el diario activo el escritor lo atiende antes de salir
+    private final Object cierre = new Object();
+    private volatile boolean aplicando = true;
+
+    // Turnos ya consultados en la base (true = abierto). Un cierre lo marca antes de esperar a la base.
+    private final Map<Integer, Boolean> turnosAbiertos = new ConcurrentHashMap<>();
+
+    // Solo los usa el hilo escritor: próximo id a entregar y último del bloque reservado
+    private int siguienteOrden;
+    private int finBloque = -1;
+    // Id de la última orden escrita en el diario y de la última aplicada en la base, y cuántas
+    // escritas faltan aplicar (protegidas por this; los ids pueden saltar entre bloques)
+    private volatile int ultimaEscrita;
+    private int ultimaAplicada;
+    private int sinAplicar;
+
+    private static final MetricsRegistry.Histograma FSYNC = MetricsRegistry.global().histograma("diario.fsync");
+    private static final MetricsRegistry.Histograma APLICAR = MetricsRegistry.global().histograma("diario.aplicar");
+
+    // Orden confirmada en el diario y todavía no aplicada en la base.
+    static final class Entrada {
+        final int ordenId;
+        final int turnoId;
+        final long fecha;
+        final Map<Producto, Integer> orden;
+        final Map<Integer, Long> requeridos;
+
+        Entrada(int ordenId, int turnoId, long fecha, Map<Producto, Integer> orden, Map<Integer, Long> requeridos) {
+            this.ordenId = ordenId;
+            this.turnoId = turnoId;
+            this.fecha = fecha;
+            this.orden = orden;
+            this.requeridos = requeridos;
+        }
+    }
+
+    // Órdenes que esperan su fsync, o el cierre de un turno (cierreTurno > 0)
+    private static final class Solicitud {
+        final List<DatabaseManager.OrdenPorRegistrar> ordenes;
+        final int cierreTurno;
+        final int[] ids;
+        final CompletableFuture<int[]> resultado = new CompletableFuture<>();
+
+        Solicitud(List<DatabaseManager.OrdenPorRegistrar> ordenes, int cierreTurno) {
+            this.ordenes = ordenes;
+            this.cierreTurno = cierreTurno;
+            this.ids = new int[Math.max(1, ordenes.size())];
+            Arrays.fill(ids, -1);
+        }
+    }
+
+    private SalesJournal(DatabaseManager dbManager, Inventory inventario, Path archivo, int lote) throws IOException {
+        this.dbManager = dbManager;
+        this.inventario = inventario;
+        this.archivo = archivo;
+        this.rechazadas = Paths.get(archivo + "-rechazadas");
+        this.lote = lote;
+        canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Un solo dueño por diario: otro proceso (u otro DatabaseManager en este) asignaría los mismos
+        // ids de orden y al vaciar el archivo borraría las órdenes que el otro no aplicó. El bloqueo
+        // se suelta al cerrar el canal.
+        boolean bloqueado;
+        try {
+            bloqueado = canal.tryLock() != null;
+        } catch (OverlappingFileLockException e) {
+            bloqueado = false;
+        }
+        if (!bloqueado) {
+            canal.close();
+            throw new IOException(archivo + " está en uso por otra instancia de CAFESOFT");
+        }
+
+        escritor = new Thread(this::escribir, "cafesoft-diario-escritor");
+        escritor.setDaemon(true);
+        aplicador = new Thread(this::aplicar, "cafesoft-diario-aplicador");
+        aplicador.setDaemon(true);
+    }
+
+    // Abre el diario según el perfil y pone en cola las órdenes que quedaron sin aplicar.
+    // Retorna null si no se pudo abrir: en ese caso las ventas se escriben directo en la base.
+    static SalesJournal abrir(DatabaseManager dbManager, Inventory inventario, StorageProfile perfil) {
+        SalesJournal diario;
+        try {
+            diario = new SalesJournal(dbManager, inventario, Paths.get(perfil.getArchivoDiarioVentas()), perfil.getLoteDiarioVentas());
+            diario.recuperar();
+        } catch (IOException e) {
+            Log.error("No se pudo abrir el diario de ventas, las ventas se escriben directo en la base: " + e.getMessage());
+            return null;
+        }
+        diario.escritor.start();
+        diario.aplicador.start();
+        MetricsRegistry.global().registrarIndicador("diario.pendientes", diario::getPendientes);
+        return diario;
+    }
+
+    // Lee el diario completo (solo contiene lo no aplicado, o poco más). Un registro incompleto al final
+    // es una escritura cortada por el cierre: nunca se confirmó, así que se descarta.
+    private void recuperar() throws IOException {
+        ByteBuffer contenido = ByteBuffer.allocate((int) canal.size());
+        while (contenido.hasRemaining()) {
+            if (canal.read(contenido, contenido.position()) < 0) {
+                break;
+            }
+        }
+        contenido.flip();
+
+        List<Integer> crcs = new ArrayList<>();
+        List<Entrada> entradas = leerRegistros(contenido, crcs);
+        long valido = contenido.position();
+        int ultimaEnDiario = 0;
+        Set<Integer> enBase = Collections.emptySet();
+        if (!entradas.isEmpty()) {
+            ultimaEnDiario = entradas.get(entradas.size() - 1).ordenId;
+            enBase = dbManager.ordenesRegistradas(entradas.get(0).ordenId, ultimaEnDiario);
+            if (enBase == null) {
+                throw new IOException("no se pudo consultar qué órdenes del diario ya están en la base");
+            }
+        }
+        // Las que ya están en la base llegaron antes de que se vaciara el diario, y las apartadas
+        // (mismo id y mismo registro) no se vuelven a intentar
+        Set<Long> apartadas = clavesRechazadas();
+        List<Entrada> pendientes = new ArrayList<>();
+        for (int i = 0; i < entradas.size(); i++) {
+            Entrada e = entradas.get(i);
+            if (!enBase.contains(e.ordenId) && !apartadas.contains(clave(e.ordenId, crcs.get(i)))) {
+                pendientes.add(e);
+            }
+        }
+        if (valido < canal.size()) {
+            Log.warn("Diario de ventas: se descartan " + (canal.size() - valido) + " bytes de un registro incompleto.");
+            canal.truncate(valido);
+        }
+        if (pendientes.isEmpty() && valido > 0) {
+            canal.truncate(0);
+        }
+        canal.position(canal.size());
+
+        // Se aplican en orden de id, así que las pendientes son las últimas del diario. Si las últimas
+        // son apartadas, lo escrito termina en la última pendiente.
+        ultimaEscrita = pendientes.isEmpty() ? ultimaEnDiario : pendientes.get(pendientes.size() - 1).ordenId;
+        ultimaAplicada = pendientes.isEmpty() ? ultimaEnDiario : pendientes.get(0).ordenId - 1;
+        sinAplicar = pendientes.size();
+        for (Entrada e : pendientes) {
+            // Lo que consumen ya no está en la tabla insumos: se reserva hasta aplicarlas
+            inventario.reservar(e.requeridos);
+            porAplicar.add(e);
+        }
+        if (!pendientes.isEmpty()) {
+            Log.warn("Diario de ventas: " + pendientes.size() + " órdenes sin aplicar de la sesión anterior, se aplican ahora.");
+        }
+    }
+
+    // Órdenes ya apartadas en sesiones anteriores (id y CRC del registro, ver clave).
+    private Set<Long> clavesRechazadas() {
+        Set<Long> claves = new HashSet<>();
+        try {
+            List<Integer> crcs = new ArrayList<>();
+            List<Entrada> entradas = leerRegistros(ByteBuffer.wrap(Files.readAllBytes(rechazadas)), crcs);
+            for (int i = 0; i < entradas.size(); i++) {
+                claves.add(clave(entradas.get(i).ordenId, crcs.get(i)));
+            }
+        } catch (NoSuchFileException e) {
+            // Nunca se apartó ninguna orden
+        } catch (IOException e) {
+            Log.warn("No se pudo leer " + rechazadas + ": " + e.getMessage());
+        }
+        return claves;
+    }
+
+    private static long clave(int ordenId, int crc) {
+        return ((long) ordenId << 32) | (crc & 0xFFFFFFFFL);
+    }
+
+    // Confirma las órdenes en el diario. Retorna el id de cada una, o -1 en las rechazadas
+    // (orden vacía, turno cerrado, stock insuficiente) o si no se pudo escribir.
+    public int[] registrar(List<DatabaseManager.OrdenPorRegistrar> ordenes) {
+        int[] sinRegistrar = new int[ordenes.size()];
+        Arrays.fill(sinRegistrar, -1);
+        Solicitud s = new Solicitud(ordenes, 0);
+        if (!encolar(s)) {
+            Log.error("Error registrando orden: el diario de ventas está cerrado");
+            return sinRegistrar;
+        }
+        int[] ids = esperar(s);
+        return ids == null ? sinRegistrar : ids;
+    }
+
+    // Marca el turno como cerrado (las órdenes que lleguen después se rechazan) y espera a que todas
+    // las anteriores estén en la base, para que el reporte Z las incluya.
+    // Retorna false si no se aplicaron a tiempo.
+    public boolean cerrarTurno(int turnoId) {
+        Solicitud s = new Solicitud(Collections.<DatabaseManager.OrdenPorRegistrar>emptyList(), turnoId);
+        if (!encolar(s)) {
+            Log.error("Error cerrando turno: el diario de ventas está cerrado");
+            return false;
+        }
+        int[] hasta = esperar(s);
+        return hasta != null && esperarAplicadas(hasta[0]);
+    }
+
+    // El cierre no se completó en la base: el turno se vuelve a consultar en la próxima venta.
+    public void olvidarTurno(int turnoId) {
+        turnosAbiertos.remove(turnoId);
+    }
+
+    // Espera a que las órdenes confirmadas hasta ahora lleguen a la base (p. ej. antes de un reporte exacto).
+    public boolean esperarAplicadas() {
+        return esperarAplicadas(ultimaEscrita, ESPERA_APLICADAS_MS);
+    }
+
+    // Igual, pero espera como mucho esperaMs. Retorna false si quedaron órdenes sin aplicar.
+    public boolean esperarAplicadas(long esperaMs) {
+        return esperarAplicadas(ultimaEscrita, esperaMs);
+    }
+
+    private boolean esperarAplicadas(int ordenId) {
+        return esperarAplicadas(ordenId, ESPERA_APLICADAS_MS);
+    }
+
+    private synchronized boolean esperarAplicadas(int ordenId, long esperaMs) {
+        long limite = System.currentTimeMillis() + esperaMs;
+        try {
+            while (ultimaAplicada < ordenId) {
+                long resta = limite - System.currentTimeMillis();
+                if (resta <= 0) {
+                    return false;
+                }
+                wait(resta);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Órdenes confirmadas que todavía no están en la base.
+    public synchronized int getPendientes() {
+        return sinAplicar;
+    }
+
+    private boolean encolar(Solicitud s) {
+        synchronized (cierre) {
+            if (!activo) {
+                return false;
+            }
+            cola.add(s);
+            return true;
+        }
+    }
+
+    // Espera la respuesta del escritor. Si no llega a tiempo se da por rechazada (la caja no queda
+    // esperando para siempre), aunque el escritor todavía podría confirmarla después.
+    private int[] esperar(Solicitud s) {
+        try {
+            return s.resultado.get(ESPERA_APLICADAS_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            Log.error("El diario de ventas no respondió en " + ESPERA_APLICADAS_MS + " ms");
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            Log.error("Error en el diario de ventas", e.getCause());
+            return null;
+        }
+    }
+
+    // Termina de escribir lo que hay en cola y espera a que todo llegue a la base. Lo que no alcance
+    // a aplicarse queda en el archivo y se aplica en el próximo inicio.
+    public void cerrar() {
+        synchronized (cierre) {
+            activo = false;
+        }
+        try {
+            escritor.join(ESPERA_APLICADAS_MS);
+            esperarAplicadas();
+            aplicando = false;
+            aplicador.join(ESPERA_APLICADAS_MS);
+            if (aplicador.isAlive()) {
+                aplicador.interrupt();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (getPendientes() == 0) {
+                canal.truncate(0);
+            } else {
+                Log.warn("Diario de ventas: " + getPendientes() + " órdenes quedan en " + archivo + " para el próximo inicio.");
+            }
+            canal.close();
+        } catch (IOException e) {
+            Log.error("Error cerrando el diario de ventas: " + e.getMessage());
+        }
+    }
+
+    // HILO ESCRITOR
+
+    private void escribir() {
+        List<Solicitud> pendientes = new ArrayList<>();
+        while (activo || !cola.isEmpty()) {
+            try {
+                Solicitud primera = cola.poll(200, TimeUnit.MILLISECONDS);
+                if (primera == null) {
+                    compactar();
+                    continue;
+                }
+                pendientes.add(primera);
+                cola.drainTo(pendientes, lote - 1);
+                escribir(pendientes);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                Log.error("Error en el escritor del diario de ventas", e);
+                for (Solicitud s : pendientes) {
+                    s.resultado.completeExceptionally(e);
+                }
+            } finally {
+                pendientes.clear();
+            }
+        }
+    }
+
+    private void escribir(List<Solicitud> pendientes) {
+        // Validación en orden de llegada: la reserva de stock de una orden cuenta para la siguiente,
+        // y un cierre rechaza las órdenes de su turno que vengan detrás
+        List<Entrada> nuevas = new ArrayList<>();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        long fecha = System.currentTimeMillis();
+        for (Solicitud s : pendientes) {
+            if (s.cierreTurno > 0) {
+                turnosAbiertos.put(s.cierreTurno, false);
+                continue;
+            }
+            for (int i = 0; i < s.ordenes.size(); i++) {
+                Entrada e = validar(s.ordenes.get(i), fecha);
+                if (e != null) {
+                    nuevas.add(e);
+                    codificar(e, buffer);
+                    s.ids[i] = e.ordenId;
+                }
+            }
+        }
+
+        if (!nuevas.isEmpty()) {
+            long inicio = System.nanoTime();
+            long posicion = -1;
+            try {
+                posicion = canal.position();
+                ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+                while (bytes.hasRemaining()) {
+                    canal.write(bytes);
+                }
+                canal.force(false);
+                FSYNC.registrarDesde(inicio);
+                synchronized (this) {
+                    ultimaEscrita = nuevas.get(nuevas.size() - 1).ordenId;
+                    sinAplicar += nuevas.size();
+                }
+                porAplicar.addAll(nuevas);
+            } catch (IOException e) {
+                Log.error("Error escribiendo en el diario de ventas: " + e.getMessage());
+                deshacerEscritura(posicion);
+                for (Entrada rechazada : nuevas) {
+                    inventario.liberar(rechazada.requeridos);
+                }
+                for (Solicitud s : pendientes) {
+                    Arrays.fill(s.ids, -1);
+                }
+            }
+        }
+
+        for (Solicitud s : pendientes) {
+            if (s.cierreTurno > 0) {
+                // El cierre espera a que se aplique todo lo escrito hasta aquí
+                s.ids[0] = ultimaEscrita;
+            }
+            s.resultado.complete(s.ids);
+        }
+    }
+
+    // Retorna la entrada lista para escribir, o null si la orden se rechaza.
+    private Entrada validar(DatabaseManager.OrdenPorRegistrar o, long fecha) {
+        if (o.orden == null || o.orden.isEmpty()) {
+            return null;
+        }
+        if (o.turnoId > 0 && !turnoAbierto(o.turnoId)) {
+            Log.error("Error registrando orden: el turno #" + o.turnoId + " no está abierto");
+            return null;
+        }
+        List<String> faltantes = inventario.faltantes(o.orden);
+        if (!faltantes.isEmpty()) {
+            Log.warn("Orden rechazada por falta de stock: " + String.join("; ", faltantes));
+            return null;
+        }
+        int ordenId = siguienteId();
+        if (ordenId < 0) {
+            return null;
+        }
+        Map<Integer, Long> requeridos = inventario.requerimientos(o.orden);
+        inventario.reservar(requeridos);
+        return new Entrada(ordenId, o.turnoId, fecha, new LinkedHashMap<>(o.orden), requeridos);
+    }
+
+    // Próximo id de orden; al agotarse el bloque se reserva otro en la base. Retorna -1 si no se pudo.
+    private int siguienteId() {
+        if (siguienteOrden > finBloque) {
+            // Por encima también de lo que ya está en el diario (diarios escritos antes de reservar bloques)
+            int primero = dbManager.reservarOrdenIds(BLOQUE_IDS, ultimaEscrita);
+            if (primero < 0) {
+                Log.error("Error registrando orden: no se pudieron reservar ids de orden");
+                return -1;
+            }
+            siguienteOrden = primero;
+            finBloque = primero + BLOQUE_IDS - 1;
+        }
+        return siguienteOrden++;
+    }
+
+    private boolean turnoAbierto(int turnoId) {
+        Boolean abierto = turnosAbiertos.get(turnoId);
+        if (abierto == null) {
+            abierto = dbManager.turnoAbierto(turnoId);
+            turnosAbiertos.put(turnoId, abierto);
+        }
+        return abierto;
+    }
+
+    // Quita del archivo un lote que no se terminó de escribir, para no dejar basura antes del siguiente.
+    private void deshacerEscritura(long posicion) {
+        if (posicion < 0) {
+            return;
+        }
+        try {
+            canal.truncate(posicion);
+            canal.position(posicion);
+        } catch (IOException e) {
+            Log.error("Error recortando el diario de ventas: " + e.getMessage());
+        }
+    }
+
+    // Con todo aplicado en la base el diario ya no hace falta: se vacía mientras no hay cobros.
+    private void compactar() {
+        try {
+            if (canal.position() > 0 && getPendientes() == 0) {
+                canal.truncate(0);
+            }
+        } catch (IOException e) {
+            Log.warn("No se pudo vaciar el diario de ventas: " + e.getMessage());
+        }
+    }
+
+    // HILO APLICADOR
+
+    private void aplicar() {
+        List<Entrada> pendientes = new ArrayList<>();
+        while (aplicando || !porAplicar.isEmpty()) {
+            try {
+                Entrada primera = porAplicar.poll(200, TimeUnit.MILLISECONDS);
+                if (primera == null) {
+                    continue;
+                }
+                pendientes.add(primera);
+                porAplicar.drainTo(pendientes, lote - 1);
+                long inicio = System.nanoTime();
+                // Las órdenes ya se confirmaron al cliente: se reintenta, y si el lote sigue fallando
+                // se aplican de a una para apartar solo la que la base no acepta
+                if (aplicar(pendientes)) {
+                    APLICAR.registrarDesde(inicio);
+                    marcarAplicadas(pendientes.get(pendientes.size() - 1).ordenId, pendientes.size());
+                } else {
+                    for (Entrada e : pendientes) {
+                        if (!aplicar(Collections.singletonList(e))) {
+                            apartar(e);
+                        }
+                        marcarAplicadas(e.ordenId, 1);
+                    }
+                }
+                pendientes.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private boolean aplicar(List<Entrada> entradas) throws InterruptedException {
+        for (int intento = 1; intento <= INTENTOS; intento++) {
+            if (dbManager.aplicarDelDiario(entradas)) {
+                return true;
+            }
+            if (intento < INTENTOS) {
+                Thread.sleep(ESPERA_REINTENTO_MS);
+            }
+        }
+        return false;
+    }
+
+    private synchronized void marcarAplicadas(int ordenId, int cantidad) {
+        ultimaAplicada = ordenId;
+        sinAplicar -= cantidad;
+        notifyAll();
+    }
+
+    // Copia la orden al archivo de rechazadas y suelta su reserva de stock (nunca se descontó en la base).
+    // Si ni eso se puede escribir, la orden sigue en el diario hasta que se vacíe.
+    private void apartar(Entrada e) {
+        Log.error("Orden #" + e.ordenId + " rechazada por la base después de " + INTENTOS + " intentos; se aparta a " + rechazadas);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        codificar(e, buffer);
+        try (FileChannel out = FileChannel.open(rechazadas, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+            while (bytes.hasRemaining()) {
+                out.write(bytes);
+            }
+            out.force(false);
+        } catch (IOException ex) {
+            Log.error("Error apartando la orden #" + e.ordenId + ": " + ex.getMessage());
+        }
+        inventario.liberar(e.requeridos);
+    }
+
+    // FORMATO
+    // Cada registro: longitud (int), CRC32 de los datos (int) y los datos: orden, turno, fecha y
+    // por cada línea el producto (id, nombre, precio en centavos) y la cantidad.
+
+    private static void codificar(Entrada e, ByteArrayOutputStream destino) {
+        try {
+            ByteArrayOutputStream datos = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(datos);
+            out.writeInt(e.ordenId);
+            out.writeInt(e.turnoId);
+            out.writeLong(e.fecha);
+            out.writeInt(e.orden.size());
+            for (Map.Entry<Producto, Integer> linea : e.orden.entrySet()) {
+                Producto p = linea.getKey();
+                out.writeInt(p.getId());
+                out.writeUTF(p.getNombre());
+                out.writeLong(p.getPrecio().getCentavos());
+                out.writeInt(linea.getValue());
+            }
+            out.flush();
+            byte[] bytes = datos.toByteArray();
+            DataOutputStream registro = new DataOutputStream(destino);
+            registro.writeInt(bytes.length);
+            registro.writeInt(crc(bytes));
+            registro.write(bytes);
+            registro.flush();
+        } catch (IOException ex) {
+            // ByteArrayOutputStream no lanza IOException
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    // Lee registros hasta el final o hasta el primero incompleto o dañado; deja la posición
+    // del buffer justo después del último registro válido. En crcs deja el CRC de cada uno.
+    private List<Entrada> leerRegistros(ByteBuffer contenido, List<Integer> crcs) throws IOException {
+        List<Entrada> entradas = new ArrayList<>();
+        int valido = contenido.position();
+        while (contenido.remaining() >= 8) {
+            int longitud = contenido.getInt();
+            int crc = contenido.getInt();
+            if (longitud <= 0 || longitud > contenido.remaining()) {
+                break;
+            }
+            byte[] datos = new byte[longitud];
+            contenido.get(datos);
+            if (crc != crc(datos)) {
+                break;
+            }
+            entradas.add(decodificar(datos));
+            crcs.add(crc);
+            valido = contenido.position();
+        }
+        contenido.position(valido);
+        return entradas;
+    }
+
+    private Entrada decodificar(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int ordenId = in.readInt();
+        int turnoId = in.readInt();
+        long fecha = in.readLong();
+        int lineas = in.readInt();
+        Map<Producto, Integer> orden = new LinkedHashMap<>();
+        for (int i = 0; i < lineas; i++) {
+            Producto p = new Producto(in.readInt(), in.readUTF(), Dinero.deCentavos(in.readLong()));
+            orden.put(p, in.readInt());
+        }
+        return new Entrada(ordenId, turnoId, fecha, orden, inventario.requerimientos(orden));
+    }
+
+    private static int crc(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,156 @@
+package proyectoequipo207;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+// Formato de los mensajes entre SalesServer y SalesClient: texto UTF-8, un registro por línea y
+// campos separados por tabulador. Los montos van en centavos y las fechas en milisegundos, igual que en la base.
+final class SalesProtocol {
+
+    static final String PRODUCTOS = "/productos";
+    static final String ORDENES = "/ordenes";
+    static final String TURNO_ABIERTO = "/turnos/abierto";
+    static final String TURNOS = "/turnos";
+    static final String CIERRES = "/turnos/cierre";
+
+    static final String CABECERA_CLAVE = "X-Cafesoft-Clave";
+
+    private SalesProtocol() {
+    }
+
+    // Un texto no puede romper el registro: tabuladores y saltos de línea se cambian por espacios.
+    static String campo(String texto) {
+        return texto == null ? "" : texto.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    static String[] campos(String linea, int esperados) {
+        String[] campos = linea.split("\t", -1);
+        if (campos.length != esperados) {
+            throw new IllegalArgumentException("se esperaban " + esperados + " campos: " + linea);
+        }
+        return campos;
+    }
+
+    static List<String> lineas(String cuerpo) {
+        List<String> lineas = new ArrayList<>();
+        for (String linea : cuerpo.split("\n")) {
+            if (!linea.isEmpty()) {
+                lineas.add(linea);
+            }
+        }
+        return lineas;
+    }
+
+    // PRODUCTOS: id, nombre, precio
+
+    static String productos(List<Producto> productos) {
+        StringBuilder sb = new StringBuilder();
+        for (Producto p : productos) {
+            sb.append(p.getId()).append('\t').append(campo(p.getNombre())).append('\t')
+                    .append(p.getPrecio().getCentavos()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    static List<Producto> leerProductos(String cuerpo) {
+        List<Producto> productos = new ArrayList<>();
+        for (String linea : lineas(cuerpo)) {
+            String[] c = campos(linea, 3);
+            productos.add(new Producto(Integer.parseInt(c[0]), c[1], Dinero.deCentavos(Long.parseLong(c[2]))));
+        }
+        return productos;
+    }
+
+    // ORDEN: la primera línea es el turno y cada línea siguiente un id de producto con su cantidad.
+    // Nombre y precio no viajan: el servidor los toma de su catálogo.
+
+    static String orden(Map<Producto, Integer> orden, int turnoId) {
+        StringBuilder sb = new StringBuilder().append(turnoId).append('\n');
+        for (Map.Entry<Producto, Integer> entry : orden.entrySet()) {
+            sb.append(entry.getKey().getId()).append('\t').append(entry.getValue()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    // catalogo da el producto activo con ese id, o null: un id desconocido o inactivo rechaza la orden.
+    static DatabaseManager.OrdenPorRegistrar leerOrden(String cuerpo, IntFunction<Producto> catalogo) {
+        List<String> lineas = lineas(cuerpo);
+        if (lineas.isEmpty()) {
+            throw new IllegalArgumentException("orden vacía");
+        }
+        int turnoId = Integer.parseInt(lineas.get(0).trim());
+        Map<Producto, Integer> orden = new LinkedHashMap<>();
+        for (String linea : lineas.subList(1, lineas.size())) {
+            String[] c = campos(linea, 2);
+            int cantidad = Integer.parseInt(c[1]);
+            if (cantidad <= 0) {
+                throw new IllegalArgumentException("cantidad inválida: " + linea);
+            }
+            Producto p = catalogo.apply(Integer.parseInt(c[0]));
+            if (p == null) {
+                throw new IllegalArgumentException("producto inexistente o inactivo: " + c[0]);
+            }
+            orden.merge(p, cantidad, Integer::sum);
+        }
+        return new DatabaseManager.OrdenPorRegistrar(orden, turnoId);
+    }
+
+    // TURNO: id, usuario, apertura, cierre (vacío si está abierto), fondo inicial. Cuerpo vacío = sin turno.
+
+    static String turno(Turno t) {
+        if (t == null) {
+            return "";
+        }
+        return t.getId() + "\t" + campo(t.getUsuario()) + "\t" + t.getApertura().toEpochMilli() + "\t"
+                + (t.getCierre() == null ? "" : String.valueOf(t.getCierre().toEpochMilli())) + "\t"
+                + t.getFondoInicial().getCentavos() + "\n";
+    }
+
+    static Turno leerTurno(String linea) {
+        if (linea.trim().isEmpty()) {
+            return null;
+        }
+        String[] c = campos(linea.trim(), 5);
+        Instant cierre = c[3].isEmpty() ? null : Instant.ofEpochMilli(Long.parseLong(c[3]));
+        return new Turno(Integer.parseInt(c[0]), c[1], Instant.ofEpochMilli(Long.parseLong(c[2])), cierre,
+                Dinero.deCentavos(Long.parseLong(c[4])));
+    }
+
+    // CIERRE: turno, totales y una línea por producto del reporte Z. Cuerpo vacío = no se cerró.
+
+    static String cierre(Cierre ci) {
+        if (ci == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(turno(ci.getTurno()));
+        sb.append(ci.getTickets()).append('\t').append(ci.getLineas()).append('\t').append(ci.getUnidades()).append('\t')
+                .append(ci.getTotal().getCentavos()).append('\t').append(ci.getEfectivoEsperado().getCentavos()).append('\t')
+                .append(ci.getEfectivoContado().getCentavos()).append('\n');
+        for (TotalAgrupado t : ci.getDetalle()) {
+            sb.append(campo(t.getClave())).append('\t').append(t.getUnidades()).append('\t')
+                    .append(t.getTotal().getCentavos()).append('\t').append(t.getTickets()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    static Cierre leerCierre(String cuerpo) {
+        List<String> lineas = lineas(cuerpo);
+        if (lineas.size() < 2) {
+            return null;
+        }
+        Turno turno = leerTurno(lineas.get(0));
+        String[] c = campos(lineas.get(1), 6);
+        List<TotalAgrupado> detalle = new ArrayList<>();
+        for (String linea : lineas.subList(2, lineas.size())) {
+            String[] d = campos(linea, 4);
+            detalle.add(new TotalAgrupado(d[0], Integer.parseInt(d[1]), Dinero.deCentavos(Long.parseLong(d[2])), Integer.parseInt(d[3])));
+        }
+        return new Cierre(turno, Integer.parseInt(c[0]), Integer.parseInt(c[1]), Integer.parseInt(c[2]),
+                Dinero.deCentavos(Long.parseLong(c[3])), Dinero.deCentavos(Long.parseLong(c[4])),
+                Dinero.deCentavos(Long.parseLong(c[5])), detalle);
+    }
+}
@@ -1,18 +1,20 @@
 package proyectoequipo207;
 
 import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.text.NumberFormat;
-import java.text.SimpleDateFormat;
-import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.Locale;
 public class SalesReporter extends JFrame {
 
     private DatabaseManager dbManager;
-    private DefaultTableModel tableModel;
+    private VentasTableModel tableModel;
     private JLabel lblTotalVentas;
+    private static final int TOP_PRODUCTOS = 5;
+    private static final int CIERRES_LISTADOS = 100;
     private final NumberFormat currencyFormatter = NumberFormat.getCurrencyInstance(new Locale("es", "CO")); // Formato de moneda
 
     // Colores basados en el Dashboard
@@ -52,24 +54,14 @@ public class SalesReporter extends JFrame {
     }
 
     private JPanel createTablePanel() {
-        // Definición de las columnas de la tabla de ventas
-        String[] columnNames = {"ID Venta", "Fecha", "Producto", "Cantidad", "Precio Unitario", "Subtotal"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; 
-            }
-            @Override
-            public Class<?> getColumnClass(int column) {
-                if (column == 0 || column == 3) return Integer.class; // ID, Cantidad
-                if (column == 4 || column == 5) return Double.class; // Precios, Subtotal
-                return String.class;
-            }
-        };
+        // Modelo paginado: las filas se leen de la base de datos a medida que se hace scroll
+        tableModel = new VentasTableModel(dbManager);
         JTable salesTable = new JTable(tableModel);
         salesTable.setFont(new Font("SansSerif", Font.PLAIN, 14));
         salesTable.setRowHeight(25);
         salesTable.getTableHeader().setFont(new Font("SansSerif", Font.BOLD, 15));
+        salesTable.setDefaultRenderer(java.time.Instant.class, new FechaRenderer());
+        salesTable.setDefaultRenderer(Dinero.class, new DineroRenderer(currencyFormatter));
         
         JScrollPane scrollPane = new JScrollPane(salesTable);
         scrollPane.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
@@ -89,20 +81,29 @@ public class SalesReporter extends JFrame {
         JPanel totalPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 20, 5));
         totalPanel.setOpaque(false);
         
-        lblTotalVentas = new JLabel("Total de Ventas: " + currencyFormatter.format(0.00));
+        lblTotalVentas = new JLabel("Total de Ventas: " + currencyFormatter.format(Dinero.CERO.aBigDecimal()));
         lblTotalVentas.setFont(new Font("SansSerif", Font.BOLD, 24));
         lblTotalVentas.setForeground(Color.WHITE);
         totalPanel.add(lblTotalVentas);
         
         panel.add(totalPanel, BorderLayout.CENTER);
 
-        // Botón de Cierre de Caja a la derecha
-        JButton btnCierre = createStyledButton("Generar Reporte de Cierre");
-        btnCierre.addActionListener(e -> generateClosingReport());
+        // Botones de Resumen y Cierre de Caja a la derecha
+        JButton btnResumen = createStyledButton("Resumen del Día");
+        btnResumen.addActionListener(e -> generateDailyReport());
+        JButton btnCierre = createStyledButton("Cerrar Turno");
+        btnCierre.addActionListener(e -> closeShift());
+        JButton btnCierres = createStyledButton("Cierres Anteriores");
+        btnCierres.addActionListener(e -> showPastClosings());
+        JButton btnExportar = createStyledButton("Exportar");
+        btnExportar.addActionListener(e -> new ExportDialog(this, dbManager).setVisible(true));
         
         JPanel buttonWrapper = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         buttonWrapper.setOpaque(false);
+        buttonWrapper.add(btnResumen);
         buttonWrapper.add(btnCierre);
+        buttonWrapper.add(btnCierres);
+        buttonWrapper.add(btnExportar);
         
         panel.add(buttonWrapper, BorderLayout.EAST);
         
@@ -120,84 +121,77 @@ public class SalesReporter extends JFrame {
 
     //  Lógica de Negocio 
 
+    // Carga en segundo plano la foto del historial y el total global (desde el resumen diario).
     private void loadSalesData() {
-        tableModel.setRowCount(0);
-        List<Venta> ventas = dbManager.obtenerVentas();
-        double totalGlobal = 0.0;
-        
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-
-        // Ordenar ventas por ID de forma descendente 
-        ventas.sort(Comparator.comparing(Venta::getIdVenta).reversed());
-
-        for (Venta v : ventas) {
-            double subtotal = v.getCantidad() * v.getPrecioUnitario();
-            totalGlobal += subtotal;
-            
-            tableModel.addRow(new Object[]{
-                v.getIdVenta(),
-                dateFormat.format(v.getFechaVenta()),
-                v.getNombreProducto(),
-                v.getCantidad(),
-                v.getPrecioUnitario(),
-                subtotal
-            });
-        }
-        
-        lblTotalVentas.setText("Total de Ventas Global: " + currencyFormatter.format(totalGlobal));
+        lblTotalVentas.setText("Cargando ventas...");
+        tableModel.refrescar(() -> dbManager.async().ejecutarEnSwing(this,
+            dbManager::obtenerTotalHistorico,
+            totalGlobal -> lblTotalVentas.setText("Total de Ventas Global: " + currencyFormatter.format(totalGlobal.aBigDecimal()))));
     }
     
-    // Aqui se genera un reporte de cierre de caja (simple) y lo muestra en un diálog.
+    // Aqui se genera un resumen de las ventas del día en curso y lo muestra en un diálogo.
+    // Los totales salen de las tablas de resumen; el cierre de caja formal es por turno (closeShift).
      
-    private void generateClosingReport() {
-        List<Venta> ventas = dbManager.obtenerVentas();
-        
-        if (ventas.isEmpty()) {
+    private void generateDailyReport() {
+        java.util.Date inicioDia = DatabaseManager.inicioDelDia(new java.util.Date());
+        java.util.Date finDia = DatabaseManager.sumarDias(inicioDia, 1);
+        // Las tres consultas corren en paralelo en segundo plano; el diálogo se arma en el EDT
+        AsyncDatabase async = dbManager.async();
+        CompletableFuture<ResumenVentas> resumen = async.obtenerResumenVentas(inicioDia, finDia);
+        CompletableFuture<List<TotalAgrupado>> top = async.obtenerTopProductos(inicioDia, finDia, TOP_PRODUCTOS);
+        CompletableFuture<List<TotalAgrupado>> horas = async.obtenerVentasPorHora(inicioDia, finDia);
+        async.alTerminarEnSwing(this, CompletableFuture.allOf(resumen, top, horas),
+            listo -> showDailyReport(resumen.join(), top.join(), horas.join()));
+    }
+
+    private void showDailyReport(ResumenVentas resumen, List<TotalAgrupado> topProductos, List<TotalAgrupado> porHora) {
+        if (resumen.estaVacio()) {
             JOptionPane.showMessageDialog(this, 
-                "No hay ventas registradas para generar un reporte.", 
+                "No hay ventas registradas hoy para generar un reporte.", 
                 "Reporte Vacío", JOptionPane.INFORMATION_MESSAGE);
             return;
         }
 
-        // 1. Cálculos de Totales y Productos Vendidos
-        double totalRecaudado = 0.0;
-        int totalItemsVendidos = 0;
-        String productoMasVendido = "";
-        int maxCantidad = 0;
-        
-        for (Venta v : ventas) {
-            double subtotal = v.getCantidad() * v.getPrecioUnitario();
-            totalRecaudado += subtotal;
-            totalItemsVendidos += v.getCantidad();
-            
-            if (v.getCantidad() > maxCantidad) {
-                maxCantidad = v.getCantidad();
-                productoMasVendido = v.getNombreProducto();
-            }
-            
-            // Lógica simple para simular el producto más vendido, solo se queda con el item de mayor cantidad en una sola transacción.
+        StringBuilder filasTop = new StringBuilder();
+        for (TotalAgrupado t : topProductos) {
+            filasTop.append("<tr><td>").append(t.getClave()).append("</td>")
+                    .append("<td align='right'>").append(t.getUnidades()).append(" u.</td>")
+                    .append("<td align='right'>").append(currencyFormatter.format(t.getTotal().aBigDecimal())).append("</td></tr>");
         }
+        StringBuilder filasHora = new StringBuilder();
+        for (TotalAgrupado t : porHora) {
+            filasHora.append("<tr><td>").append(t.getClave()).append(":00</td>")
+                    .append("<td align='right'>").append(t.getTickets()).append(" tickets</td>")
+                    .append("<td align='right'>").append(currencyFormatter.format(t.getTotal().aBigDecimal())).append("</td></tr>");
+        }
+        String productoMasVendido = topProductos.isEmpty() ? "-" : topProductos.get(0).getClave();
         
-        String inicioOperaciones = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss").format(ventas.get(0).getFechaVenta());
-        String fechaCierre = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss").format(new java.util.Date());
+        String inicioOperaciones = Fechas.formatear(Fechas.REPORTE, resumen.getPrimeraVenta());
+        String fechaCierre = Fechas.formatear(Fechas.REPORTE, java.time.Instant.now());
         
         // 2. Construcción del Mensaje del Reporte
         String reporte = "<html><body style='font-family:SansSerif; padding: 10px;'>"
-                + "<h2 style='color:#4A3127;'>☕ Reporte de Cierre de Caja</h2>"
+                + "<h2 style='color:#4A3127;'>☕ Resumen de Ventas del Día</h2>"
                 + "<hr style='border: 1px solid #A88775;'>"
                 + "<h3>Resumen Financiero</h3>"
                 + "<table border='0' cellpadding='5' cellspacing='0' width='100%'>"
-                + "<tr><td>Total de Transacciones:</td><td align='right'><b>" + ventas.size() + " líneas</b></td></tr>"
-                + "<tr><td>Total de Ítems Vendidos:</td><td align='right'><b>" + totalItemsVendidos + " unidades</b></td></tr>"
-                + "<tr><td>Producto con Mayor Venta Individual:</td><td align='right'><b>" + productoMasVendido + "</b></td></tr>"
+                + "<tr><td>Total de Tickets:</td><td align='right'><b>" + resumen.getTickets() + " órdenes</b></td></tr>"
+                + "<tr><td>Total de Transacciones:</td><td align='right'><b>" + resumen.getLineas() + " líneas</b></td></tr>"
+                + "<tr><td>Total de Ítems Vendidos:</td><td align='right'><b>" + resumen.getUnidades() + " unidades</b></td></tr>"
+                + "<tr><td>Ticket Promedio:</td><td align='right'><b>" + currencyFormatter.format(resumen.getTicketPromedio().aBigDecimal()) + "</b></td></tr>"
+                + "<tr><td>Producto Más Vendido:</td><td align='right'><b>" + productoMasVendido + "</b></td></tr>"
                 + "</table>"
                 + "<h3>Total Recaudado</h3>"
                 + "<div style='font-size: 36px; color: #15803d; text-align: center; background-color: #e0f2f1; padding: 15px; border-radius: 8px; margin-bottom: 20px;'>"
-                + "<b>" + currencyFormatter.format(totalRecaudado) + "</b>"
+                + "<b>" + currencyFormatter.format(resumen.getTotalRecaudado().aBigDecimal()) + "</b>"
                 + "</div>"
+                + "<h3>Top " + TOP_PRODUCTOS + " Productos</h3>"
+                + "<table border='0' cellpadding='3' cellspacing='0' width='100%'>" + filasTop + "</table>"
+                + "<h3>Ventas por Hora</h3>"
+                + "<table border='0' cellpadding='3' cellspacing='0' width='100%'>" + filasHora + "</table>"
                 + "<h3>Periodo del Reporte</h3>"
-                + "Inicio de Operaciones (Primer registro): <b>" + inicioOperaciones + "</b><br>"
-                + "Fecha y Hora de Cierre: <b>" + fechaCierre + "</b>"
+                + "Inicio de Operaciones (Primer registro del día): <b>" + inicioOperaciones + "</b><br>"
+                + "Fecha y Hora del Reporte: <b>" + fechaCierre + "</b>"
                 + "<hr style='border: 1px solid #A88775; margin-top: 20px;'>"
                 + "<p style='font-size: 12px; color: #666;'>Reporte generado por CAFESOFT</p>"
                 + "</body></html>";
@@ -205,7 +199,99 @@ public class SalesReporter extends JFrame {
         // 3. Mostrar el reporte
         JOptionPane.showMessageDialog(this, 
             reporte, 
-            "Reporte de Cierre de Caja", 
+            "Resumen de Ventas del Día", 
             JOptionPane.INFORMATION_MESSAGE);
     }
+
+    // Cierra uno de los turnos abiertos (de cualquier usuario) y muestra su reporte Z.
+    private void closeShift() {
+        dbManager.async().ejecutarEnSwing(this, dbManager::obtenerTurnosAbiertos, abiertos -> {
+            if (abiertos.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "No hay turnos de caja abiertos.", "Cierre de Caja", JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
+            Turno turno = (Turno) JOptionPane.showInputDialog(this, 
+                "Seleccione el turno a cerrar:", "Cierre de Caja", JOptionPane.QUESTION_MESSAGE, 
+                null, abiertos.toArray(), abiertos.get(0));
+            if (turno != null) {
+                ReporteCierre.cerrarTurno(this, dbManager, turno, cierre -> { });
+            }
+        });
+    }
+
+    // Lista los cierres guardados; doble clic en una fila muestra su reporte Z.
+    // Todo sale de las tablas de cierre: no se vuelven a sumar las ventas de cada turno.
+    private void showPastClosings() {
+        dbManager.async().ejecutarEnSwing(this, () -> dbManager.obtenerCierres(CIERRES_LISTADOS), cierres -> {
+            if (cierres.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "Todavía no hay cierres de caja registrados.", "Cierres Anteriores", JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
+            String[] columnas = {"Turno", "Usuario", "Apertura", "Cierre", "Tickets", "Total", "Esperado", "Contado", "Diferencia"};
+            Class<?>[] tipos = {Integer.class, String.class, java.time.Instant.class, java.time.Instant.class, Integer.class,
+                                Dinero.class, Dinero.class, Dinero.class, Dinero.class};
+            DefaultTableModel modelo = new DefaultTableModel(columnas, 0) {
+                @Override
+                public Class<?> getColumnClass(int columnIndex) {
+                    return tipos[columnIndex];
+                }
+
+                @Override
+                public boolean isCellEditable(int row, int column) {
+                    return false;
+                }
+            };
+            for (Cierre c : cierres) {
+                modelo.addRow(new Object[]{c.getTurno().getId(), c.getTurno().getUsuario(), c.getTurno().getApertura(),
+                    c.getFecha(), c.getTickets(), c.getTotal(), c.getEfectivoEsperado(), c.getEfectivoContado(), c.getDiferencia()});
+            }
+
+            JTable tabla = new JTable(modelo);
+            tabla.setRowHeight(22);
+            tabla.setDefaultRenderer(java.time.Instant.class, new FechaRenderer());
+            tabla.setDefaultRenderer(Dinero.class, new DineroRenderer(currencyFormatter));
+            tabla.addMouseListener(new java.awt.event.MouseAdapter() {
+                @Override
+                public void mouseClicked(java.awt.event.MouseEvent e) {
+                    int fila = tabla.getSelectedRow();
+                    if (e.getClickCount() == 2 && fila >= 0) {
+                        int turnoId = (Integer) modelo.getValueAt(fila, 0);
+                        dbManager.async().ejecutarEnSwing(tabla, () -> dbManager.obtenerCierre(turnoId),
+                            cierre -> {
+                                if (cierre != null) {
+                                    ReporteCierre.mostrar(tabla, cierre);
+                                }
+                            });
+                    }
+                }
+            });
+
+            JScrollPane scroll = new JScrollPane(tabla);
+            scroll.setPreferredSize(new Dimension(900, 400));
+            JOptionPane.showMessageDialog(this, scroll, "Cierres Anteriores (doble clic para ver el reporte Z)", JOptionPane.PLAIN_MESSAGE);
+        });
+    }
+
+    // Formatea las fechas al pintar la celda con el formateador compartido de Fechas.
+    private static class FechaRenderer extends DefaultTableCellRenderer {
+        @Override
+        protected void setValue(Object value) {
+            setText(value instanceof java.time.Instant ? Fechas.TABLA.format((java.time.Instant) value) : "");
+        }
+    }
+
+    // Montos alineados a la derecha con el formato de moneda del reporte.
+    private static class DineroRenderer extends DefaultTableCellRenderer {
+        private final NumberFormat formato;
+
+        DineroRenderer(NumberFormat formato) {
+            this.formato = formato;
+            setHorizontalAlignment(JLabel.RIGHT);
+        }
+
+        @Override
+        protected void setValue(Object value) {
+            setText(value instanceof Dinero ? formato.format(((Dinero) value).aBigDecimal()) : "");
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package proyectoequipo207;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Map;
+
+// Tablas de resumen de ventas por hora y por día, por producto. Se actualizan en la misma
+// transacción que registra cada orden, así los reportes leen unas pocas filas por periodo
+// en lugar de recorrer todas las líneas de venta.
+//
+// En cada periodo, la fila con producto_id = 0 (TODOS) acumula la orden completa: es la que da
+// los tickets del periodo, que no se pueden obtener sumando las filas por producto
+// (una orden con dos productos contaría dos veces).
+//
+// Las horas son horas locales, como las muestran los reportes: en zonas con desfase de media hora
+// (p. ej. UTC+5:30) la hora local empieza a los :30 de la hora UTC. Si se cambia la zona horaria
+// del equipo, reconstruirResumenes vuelve a agrupar el historial con la zona nueva.
+final class SalesRollup {
+
+    static final int TODOS = 0;
+
+    static final String POR_HORA = "ventas_por_hora";
+    static final String DIARIAS = "ventas_diarias";
+
+    static final long MS_POR_HORA = 3600000L;
+
+    // Clave de cada tabla a partir de la fecha de la orden (ms desde epoch): inicio de la hora local
+    // en ms (igual que inicioDeHora; el desfase local sale de strftime con 'localtime'), y el día
+    // local 'yyyy-MM-dd' (igual que date(..., 'localtime')).
+    static final String CLAVE_HORA = "(%1$s - (%1$s + (strftime('%%s', %1$s / 1000, 'unixepoch', 'localtime') - %1$s / 1000) * 1000) %% "
+            + MS_POR_HORA + ")";
+    static final String CLAVE_DIA = "date(%s / 1000, 'unixepoch', 'localtime')";
+
+    private static final String DDL_POR_HORA = "CREATE TABLE IF NOT EXISTS " + POR_HORA + " ("
+            + "hora INTEGER NOT NULL,"
+            + "producto_id INTEGER NOT NULL,"
+            + "tickets INTEGER NOT NULL,"
+            + "lineas INTEGER NOT NULL,"
+            + "unidades INTEGER NOT NULL,"
+            + "total INTEGER NOT NULL,"
+            + "PRIMARY KEY (hora, producto_id)) WITHOUT ROWID";
+
+    private static final String DDL_DIARIAS = "CREATE TABLE IF NOT EXISTS " + DIARIAS + " ("
+            + "dia TEXT NOT NULL,"
+            + "producto_id INTEGER NOT NULL,"
+            + "tickets INTEGER NOT NULL,"
+            + "lineas INTEGER NOT NULL,"
+            + "unidades INTEGER NOT NULL,"
+            + "total INTEGER NOT NULL,"
+            + "PRIMARY KEY (dia, producto_id)) WITHOUT ROWID";
+
+    private SalesRollup() {
+    }
+
+    // Inicio (ms desde epoch) de la hora local que contiene la fecha.
+    static long inicioDeHora(long fecha) {
+        long desfase = ZoneId.systemDefault().getRules().getOffset(Instant.ofEpochMilli(fecha)).getTotalSeconds() * 1000L;
+        return fecha - Math.floorMod(fecha + desfase, MS_POR_HORA);
+    }
+
+    // Indica si la tabla por hora tiene claves que no son horas locales: bases escritas con las
+    // horas UTC de versiones anteriores, o con otra zona horaria.
+    static boolean horasDesalineadas(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM " + POR_HORA + " WHERE hora <> "
+                + String.format(CLAVE_HORA, "hora") + " LIMIT 1")) {
+            return rs.next();
+        }
+    }
+
+    static void crearTablas(Statement stmt) throws SQLException {
+        stmt.execute(DDL_POR_HORA);
+        stmt.execute(DDL_DIARIAS);
+    }
+
+    // Suma una orden recién insertada a ambas tablas. Debe llamarse dentro de la transacción
+    // de la orden: si algo falla, el rollback deshace la orden y su resumen juntos.
+    // (Sin UPSERT en esta versión de SQLite: se asegura la fila con INSERT OR IGNORE y luego se suma.)
+    static void acumular(ConnectionPool.Conexion c, long fecha, Map<Producto, Integer> orden) throws SQLException {
+        int lineas = 0;
+        int unidades = 0;
+        Dinero total = Dinero.CERO;
+        for (Map.Entry<Producto, Integer> entry : orden.entrySet()) {
+            Dinero subtotal = entry.getKey().getPrecio().multiplicar(entry.getValue());
+            lineas++;
+            unidades += entry.getValue();
+            total = total.sumar(subtotal);
+        }
+
+        for (String tabla : new String[]{POR_HORA, DIARIAS}) {
+            boolean porHora = POR_HORA.equals(tabla);
+            String clave = porHora ? "hora" : "dia";
+            // La hora local se calcula aquí: CLAVE_HORA usa la fecha más de una vez
+            String expresion = porHora ? "?" : String.format(CLAVE_DIA, "?");
+            long valor = porHora ? inicioDeHora(fecha) : fecha;
+            PreparedStatement asegurar = c.preparar("INSERT OR IGNORE INTO " + tabla
+                    + "(" + clave + ", producto_id, tickets, lineas, unidades, total) VALUES(" + expresion + ", ?, 0, 0, 0, 0)");
+            PreparedStatement sumar = c.preparar("UPDATE " + tabla
+                    + " SET tickets = tickets + ?, lineas = lineas + ?, unidades = unidades + ?, total = total + ?"
+                    + " WHERE " + clave + " = " + expresion + " AND producto_id = ?");
+
+            agregarFila(asegurar, sumar, valor, TODOS, lineas, unidades, total.getCentavos());
+            for (Map.Entry<Producto, Integer> entry : orden.entrySet()) {
+                Producto p = entry.getKey();
+                agregarFila(asegurar, sumar, valor, p.getId(), 1, entry.getValue(), p.getPrecio().multiplicar(entry.getValue()).getCentavos());
+            }
+            // Primero todas las filas aseguradas, después las sumas
+            asegurar.executeBatch();
+            sumar.executeBatch();
+        }
+    }
+
+    // valor: lo que recibe la expresión de la clave (la hora local ya calculada, o la fecha de la orden)
+    private static void agregarFila(PreparedStatement asegurar, PreparedStatement sumar, long valor, int productoId,
+                                    int lineas, int unidades, long total) throws SQLException {
+        asegurar.setLong(1, valor);
+        asegurar.setInt(2, productoId);
+        asegurar.addBatch();
+
+        sumar.setInt(1, 1);
+        sumar.setInt(2, lineas);
+        sumar.setInt(3, unidades);
+        sumar.setLong(4, total);
+        sumar.setLong(5, valor);
+        sumar.setInt(6, productoId);
+        sumar.addBatch();
+    }
+
+    // Recalcula ambas tablas desde ordenes + orden_items (datos históricos o tras un arreglo manual).
+    // Debe correr dentro de una transacción para que los reportes no vean las tablas vacías.
+    static void reconstruir(Statement stmt) throws SQLException {
+        reconstruirTabla(stmt, POR_HORA, "hora", String.format(CLAVE_HORA, "o.fecha"));
+        reconstruirTabla(stmt, DIARIAS, "dia", String.format(CLAVE_DIA, "o.fecha"));
+    }
+
+    private static void reconstruirTabla(Statement stmt, String tabla, String clave, String expresion) throws SQLException {
+        String columnas = "(" + clave + ", producto_id, tickets, lineas, unidades, total) ";
+        String desde = "FROM ordenes o JOIN orden_items oi ON oi.orden_id = o.id ";
+        stmt.executeUpdate("DELETE FROM " + tabla);
+        stmt.executeUpdate("INSERT INTO " + tabla + columnas
+                + "SELECT " + expresion + " AS k, " + TODOS + ", COUNT(DISTINCT o.id), COUNT(*), SUM(oi.cantidad), "
+                + "SUM(oi.cantidad * oi.precio_unitario) " + desde + "GROUP BY k");
+        stmt.executeUpdate("INSERT INTO " + tabla + columnas
+                + "SELECT " + expresion + " AS k, oi.producto_id, COUNT(DISTINCT o.id), COUNT(*), SUM(oi.cantidad), "
+                + "SUM(oi.cantidad * oi.precio_unitario) " + desde + "GROUP BY k, oi.producto_id");
+    }
+}
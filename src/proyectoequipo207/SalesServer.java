@@ -0,0 +1,342 @@
+package proyectoequipo207;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Servidor de ventas del modo multi-caja: corre en la máquina que guarda cafesoft.db y atiende por HTTP
+// a las demás cajas (SalesClient). Las lecturas se responden en paralelo desde DatabaseManager; todas
+// las escrituras pasan por una cola que consume un único hilo escritor, así SQLite nunca tiene dos
+// escritores peleando por el lock. Las órdenes que llegan mientras se confirma un lote se escriben
+// juntas en la siguiente transacción (group commit): con varias cajas cobrando a la vez, un solo
+// commit cubre a todas. Para pruebas se puede levantar en el mismo proceso sobre localhost y puerto 0.
+public class SalesServer {
+
+    private static final long ESPERA_ESCRITURA_MS = 30_000;
+
+    private final DatabaseManager dbManager;
+    private final HttpServer http;
+    private final ExecutorService atencion;
+    private final byte[] clave; // vacía = sin clave
+    private final int loteMaximo;
+
+    private final BlockingQueue<Escritura> cola = new LinkedBlockingQueue<>();
+    private final Thread escritor;
+    private volatile boolean activo = true;
+
+    // Respuesta de /productos ya codificada: se rehace solo cuando el catálogo entrega otra lista
+    private volatile ProductosCodificados productosCodificados;
+
+    private final AtomicLong lotes = new AtomicLong();
+    private final AtomicLong ordenesEscritas = new AtomicLong();
+    private static final MetricsRegistry.Histograma COMMIT = MetricsRegistry.global().histograma("servidor.commit");
+
+    // Una escritura en espera. Las órdenes se agrupan; cualquier otra escritura se ejecuta sola, en su turno.
+    private static final class Escritura {
+        final DatabaseManager.OrdenPorRegistrar orden;
+        final Supplier<String> accion;
+        final CompletableFuture<String> resultado = new CompletableFuture<>();
+
+        Escritura(DatabaseManager.OrdenPorRegistrar orden, Supplier<String> accion) {
+            this.orden = orden;
+            this.accion = accion;
+        }
+    }
+
+    private static final class ProductosCodificados {
+        final List<Producto> lista;
+        final String cuerpo;
+        final String etag;
+
+        ProductosCodificados(List<Producto> lista) {
+            this.lista = lista;
+            this.cuerpo = SalesProtocol.productos(lista);
+            this.etag = "\"" + Integer.toHexString(cuerpo.hashCode()) + "-" + cuerpo.length() + "\"";
+        }
+    }
+
+    // Respuesta HTTP distinta de 200 (petición mal formada, clave incorrecta...).
+    private static final class Rechazo extends RuntimeException {
+        final int estado;
+
+        Rechazo(int estado, String mensaje) {
+            super(mensaje);
+            this.estado = estado;
+        }
+    }
+
+    public SalesServer(DatabaseManager dbManager, InetSocketAddress direccion, String clave, int loteMaximo) throws IOException {
+        this.dbManager = dbManager;
+        this.clave = clave.getBytes(StandardCharsets.UTF_8);
+        this.loteMaximo = Math.max(1, loteMaximo);
+
+        AtomicInteger hilos = new AtomicInteger();
+        atencion = Executors.newFixedThreadPool(8, r -> {
+            Thread t = new Thread(r, "cafesoft-servidor-" + hilos.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        http = HttpServer.create(direccion, 0);
+        http.setExecutor(atencion);
+        http.createContext(SalesProtocol.PRODUCTOS, manejador(this::productos));
+        http.createContext(SalesProtocol.ORDENES, manejador(this::orden));
+        // El contexto más específico gana: /turnos/abierto y /turnos/cierre no caen en /turnos
+        http.createContext(SalesProtocol.TURNO_ABIERTO, manejador(this::turnoAbierto));
+        http.createContext(SalesProtocol.CIERRES, manejador(this::cierre));
+        http.createContext(SalesProtocol.TURNOS, manejador(this::abrirTurno));
+
+        escritor = new Thread(this::escribir, "cafesoft-servidor-escritor");
+        escritor.setDaemon(true);
+
+        MetricsRegistry metricas = MetricsRegistry.global();
+        metricas.registrarIndicador("servidor.cola", cola::size);
+        metricas.registrarIndicador("servidor.lotes", lotes::get);
+        metricas.registrarIndicador("servidor.ordenes", ordenesEscritas::get);
+    }
+
+    // Levanta el servidor según cafesoft.properties, o retorna null si esta máquina no es servidor.
+    public static SalesServer iniciar(DatabaseManager dbManager) {
+        StorageProfile perfil = dbManager.getPerfil();
+        if (perfil.getPuertoServidor() <= 0) {
+            return null;
+        }
+        try {
+            SalesServer servidor = new SalesServer(dbManager, new InetSocketAddress(perfil.getPuertoServidor()),
+                    perfil.getClaveServidor(), perfil.getLoteMaximoServidor());
+            servidor.iniciar();
+            return servidor;
+        } catch (IOException e) {
+            Log.error("No se pudo iniciar el servidor de ventas en el puerto " + perfil.getPuertoServidor() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public void iniciar() {
+        escritor.start();
+        http.start();
+        if (clave.length == 0) {
+            Log.warn("Servidor de ventas sin clave (servidor.clave): cualquier equipo de la red puede registrar ventas.");
+        }
+        Log.info("Servidor de ventas escuchando en el puerto " + getPuerto());
+    }
+
+    public int getPuerto() {
+        return http.getAddress().getPort();
+    }
+
+    // Deja de aceptar peticiones y termina de escribir lo que ya estaba en la cola.
+    public void detener() {
+        http.stop(1);
+        activo = false;
+        try {
+            escritor.join(ESPERA_ESCRITURA_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        atencion.shutdown();
+        Log.info(String.format("Servidor de ventas detenido: %d órdenes en %d lotes", ordenesEscritas.get(), lotes.get()));
+    }
+
+    // LECTURAS (en los hilos de atención)
+
+    private String productos(HttpExchange ex) {
+        List<Producto> productos = dbManager.obtenerProductos();
+        // El catálogo entrega la misma lista mientras no cambie
+        ProductosCodificados codificados = productosCodificados;
+        if (codificados == null || codificados.lista != productos) {
+            codificados = new ProductosCodificados(productos);
+            productosCodificados = codificados;
+        }
+        ex.getResponseHeaders().set("ETag", codificados.etag);
+        // La caja ya tiene este menú: se responde sin cuerpo
+        if (codificados.etag.equals(ex.getRequestHeaders().getFirst("If-None-Match"))) {
+            throw new Rechazo(304, null);
+        }
+        return codificados.cuerpo;
+    }
+
+    private String turnoAbierto(HttpExchange ex) {
+        String consulta = ex.getRequestURI().getRawQuery();
+        if (consulta == null || !consulta.startsWith("usuario=")) {
+            throw new Rechazo(400, "falta el usuario");
+        }
+        String usuario = URLDecoder.decode(consulta.substring("usuario=".length()), StandardCharsets.UTF_8);
+        return SalesProtocol.turno(dbManager.obtenerTurnoAbierto(usuario));
+    }
+
+    // ESCRITURAS (se encolan y el hilo de atención espera su resultado)
+
+    private String orden(HttpExchange ex) throws IOException {
+        // Se cobra con el precio del catálogo del servidor, no con el que mande la caja
+        DatabaseManager.OrdenPorRegistrar orden = SalesProtocol.leerOrden(leerCuerpo(ex), dbManager::obtenerProductoPorId);
+        return encolar(new Escritura(orden, null));
+    }
+
+    private String abrirTurno(HttpExchange ex) throws IOException {
+        String[] c = SalesProtocol.campos(leerCuerpo(ex).trim(), 2);
+        Dinero fondo = Dinero.deCentavos(Long.parseLong(c[1]));
+        return encolar(new Escritura(null, () -> SalesProtocol.turno(dbManager.abrirTurno(c[0], fondo))));
+    }
+
+    private String cierre(HttpExchange ex) throws IOException {
+        String[] c = SalesProtocol.campos(leerCuerpo(ex).trim(), 2);
+        int turnoId = Integer.parseInt(c[0]);
+        Dinero contado = Dinero.deCentavos(Long.parseLong(c[1]));
+        return encolar(new Escritura(null, () -> SalesProtocol.cierre(dbManager.cerrarTurno(turnoId, contado))));
+    }
+
+    private String encolar(Escritura escritura) {
+        if (!activo) {
+            throw new Rechazo(503, "el servidor se está deteniendo");
+        }
+        cola.add(escritura);
+        try {
+            return escritura.resultado.get(ESPERA_ESCRITURA_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Rechazo(503, "interrumpido");
+        } catch (ExecutionException e) {
+            throw new Rechazo(500, e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            // La escritura sigue en la cola y puede llegar a aplicarse: la caja no debe reintentar a ciegas
+            throw new Rechazo(504, "la escritura no terminó a tiempo");
+        }
+    }
+
+    // Hilo escritor: toma lo que haya en la cola (hasta loteMaximo) y lo aplica respetando el orden de llegada.
+    private void escribir() {
+        List<Escritura> lote = new ArrayList<>();
+        while (activo || !cola.isEmpty()) {
+            try {
+                Escritura primera = cola.poll(200, TimeUnit.MILLISECONDS);
+                if (primera == null) {
+                    continue;
+                }
+                lote.add(primera);
+                cola.drainTo(lote, loteMaximo - 1);
+                aplicar(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                Log.error("Error en el escritor del servidor de ventas", e);
+                for (Escritura pendiente : lote) {
+                    pendiente.resultado.completeExceptionally(e);
+                }
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    private void aplicar(List<Escritura> lote) {
+        List<Escritura> ordenes = new ArrayList<>();
+        for (Escritura e : lote) {
+            if (e.orden != null) {
+                ordenes.add(e);
+                continue;
+            }
+            // Las órdenes que llegaron antes se confirman antes (p. ej. la última venta antes de un cierre)
+            confirmar(ordenes);
+            e.resultado.complete(e.accion.get());
+        }
+        confirmar(ordenes);
+    }
+
+    private void confirmar(List<Escritura> ordenes) {
+        if (ordenes.isEmpty()) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        List<DatabaseManager.OrdenPorRegistrar> pendientes = new ArrayList<>(ordenes.size());
+        for (Escritura e : ordenes) {
+            pendientes.add(e.orden);
+        }
+        int[] ids = dbManager.registrarOrdenes(pendientes);
+        COMMIT.registrarDesde(inicio);
+        lotes.incrementAndGet();
+        ordenesEscritas.addAndGet(ordenes.size());
+        for (int i = 0; i < ids.length; i++) {
+            ordenes.get(i).resultado.complete(String.valueOf(ids[i]));
+        }
+        ordenes.clear();
+    }
+
+    // HTTP
+
+    private interface Operacion {
+        String atender(HttpExchange ex) throws IOException;
+    }
+
+    private HttpHandler manejador(Operacion operacion) {
+        return ex -> {
+            int estado = 200;
+            String cuerpo;
+            try {
+                if (!claveValida(ex)) {
+                    throw new Rechazo(401, "clave incorrecta");
+                }
+                cuerpo = operacion.atender(ex);
+            } catch (Rechazo r) {
+                estado = r.estado;
+                cuerpo = r.getMessage();
+            } catch (IllegalArgumentException e) {
+                // Números o campos mal formados (NumberFormatException incluida)
+                estado = 400;
+                cuerpo = e.getMessage();
+            } catch (RuntimeException e) {
+                Log.error("Error atendiendo " + ex.getRequestURI(), e);
+                estado = 500;
+                cuerpo = e.getMessage();
+            }
+            responder(ex, estado, cuerpo);
+        };
+    }
+
+    private boolean claveValida(HttpExchange ex) {
+        if (clave.length == 0) {
+            return true;
+        }
+        String recibida = ex.getRequestHeaders().getFirst(SalesProtocol.CABECERA_CLAVE);
+        return recibida != null && MessageDigest.isEqual(clave, recibida.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String leerCuerpo(HttpExchange ex) throws IOException {
+        if (!"POST".equals(ex.getRequestMethod())) {
+            throw new Rechazo(405, "se esperaba POST");
+        }
+        try (InputStream in = ex.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void responder(HttpExchange ex, int estado, String cuerpo) throws IOException {
+        byte[] bytes = cuerpo == null || estado == 304 ? new byte[0] : cuerpo.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+        ex.sendResponseHeaders(estado, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
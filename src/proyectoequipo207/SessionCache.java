@@ -0,0 +1,136 @@
+package proyectoequipo207;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Caché de corta duración de credenciales ya verificadas. Volver a entrar con el mismo usuario y
+// contraseña dentro de la vigencia no consulta la base ni recalcula el PBKDF2 (que es lento a propósito).
+// No se guarda la contraseña: solo un HMAC con una clave aleatoria que vive en memoria mientras corre la aplicación.
+public class SessionCache {
+
+    private final long vigenciaNanos;
+    private final byte[] clave = new byte[32];
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+
+    // Intentos fallidos seguidos por usuario: un PIN de 4 dígitos se adivina rápido si no se limita
+    private static final int MAX_INTENTOS = 5;
+    private static final long BLOQUEO_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private final Map<String, Intentos> intentos = new ConcurrentHashMap<>();
+
+    private static final class Entrada {
+        final byte[] huella;
+        final String rol;
+        final long expira;
+
+        Entrada(byte[] huella, String rol, long expira) {
+            this.huella = huella;
+            this.rol = rol;
+            this.expira = expira;
+        }
+    }
+
+    private static final class Intentos {
+        final int fallidos;
+        final long bloqueadoHasta;
+
+        Intentos(int fallidos, long bloqueadoHasta) {
+            this.fallidos = fallidos;
+            this.bloqueadoHasta = bloqueadoHasta;
+        }
+    }
+
+    // Una vigencia de 0 segundos desactiva la caché.
+    public SessionCache(long vigenciaSegundos) {
+        this.vigenciaNanos = TimeUnit.SECONDS.toNanos(Math.max(0, vigenciaSegundos));
+        new SecureRandom().nextBytes(clave);
+    }
+
+    // Usuario autenticado si las credenciales se verificaron hace menos de la vigencia; si no, null.
+    public Usuario buscar(String username, String password) {
+        if (vigenciaNanos == 0) {
+            return null;
+        }
+        Entrada entrada = entradas.get(username);
+        if (entrada == null) {
+            fallos.incrementAndGet();
+            return null;
+        }
+        if (System.nanoTime() - entrada.expira > 0) {
+            entradas.remove(username, entrada);
+            fallos.incrementAndGet();
+            return null;
+        }
+        if (!MessageDigest.isEqual(entrada.huella, huella(username, password))) {
+            fallos.incrementAndGet();
+            return null;
+        }
+        aciertos.incrementAndGet();
+        return new Usuario(username, entrada.rol);
+    }
+
+    public void guardar(String username, String password, String rol) {
+        if (vigenciaNanos == 0) {
+            return;
+        }
+        entradas.put(username, new Entrada(huella(username, password), rol, System.nanoTime() + vigenciaNanos));
+    }
+
+    // Se llama cuando cambian la contraseña o el rol del usuario.
+    public void invalidar(String username) {
+        entradas.remove(username);
+    }
+
+    public void invalidarTodo() {
+        entradas.clear();
+    }
+
+    // Indica si el usuario superó los intentos permitidos y todavía está dentro del bloqueo.
+    public boolean estaBloqueado(String username) {
+        Intentos actuales = intentos.get(username);
+        return actuales != null && actuales.fallidos >= MAX_INTENTOS && System.nanoTime() - actuales.bloqueadoHasta < 0;
+    }
+
+    public void registrarFallo(String username) {
+        intentos.compute(username, (u, actuales) -> {
+            // Pasado el bloqueo se empieza a contar de nuevo
+            int fallidos = actuales == null || actuales.fallidos >= MAX_INTENTOS ? 1 : actuales.fallidos + 1;
+            return new Intentos(fallidos, System.nanoTime() + BLOQUEO_NANOS);
+        });
+    }
+
+    public void registrarExito(String username) {
+        intentos.remove(username);
+    }
+
+    public long getAciertos() {
+        return aciertos.get();
+    }
+
+    public long getFallos() {
+        return fallos.get();
+    }
+
+    private byte[] huella(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(clave, "HmacSHA256"));
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            // HmacSHA256 es obligatorio en toda JVM
+            throw new IllegalStateException("HmacSHA256 no disponible en esta JVM", e);
+        }
+    }
+}
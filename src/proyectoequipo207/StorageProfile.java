@@ -0,0 +1,234 @@
+package proyectoequipo207;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+// Perfil de almacenamiento de SQLite: URL, tamaño del pool y PRAGMAs que se aplican
+// a cada conexión nueva. Se lee de cafesoft.properties (o de -Dcafesoft.config=ruta);
+// si el archivo no existe se usan los valores por defecto (WAL + synchronous NORMAL).
+public class StorageProfile {
+
+    public static final String ARCHIVO_POR_DEFECTO = "cafesoft.properties";
+
+    private static final List<String> JOURNAL_MODES = Arrays.asList("DELETE", "TRUNCATE", "PERSIST", "MEMORY", "WAL", "OFF");
+    private static final List<String> SYNCHRONOUS = Arrays.asList("OFF", "NORMAL", "FULL", "EXTRA");
+    private static final List<String> TEMP_STORE = Arrays.asList("DEFAULT", "FILE", "MEMORY");
+    private static final List<String> CHECKPOINT_MODOS = Arrays.asList("PASSIVE", "FULL", "RESTART", "TRUNCATE");
+
+    private final Properties props;
+
+    private StorageProfile(Properties props) {
+        this.props = props;
+    }
+
+    public static StorageProfile cargar() {
+        return cargar(Paths.get(System.getProperty("cafesoft.config", ARCHIVO_POR_DEFECTO)));
+    }
+
+    public static StorageProfile cargar(Path archivo) {
+        Properties props = new Properties();
+        if (Files.exists(archivo)) {
+            try (InputStream in = Files.newInputStream(archivo)) {
+                props.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                Log.warn("No se pudo leer " + archivo + ", usando valores por defecto: " + e.getMessage());
+            }
+        }
+        return new StorageProfile(props);
+    }
+
+    // Copia del perfil con otra base de datos (p. ej. un archivo temporal para pruebas de rendimiento).
+    public StorageProfile conUrl(String url) {
+        return con("db.url", url);
+    }
+
+    // Copia del perfil con el diario de ventas fijado, sin importar lo que diga cafesoft.properties
+    // (las pruebas de rendimiento miden los dos caminos de cobro por separado).
+    public StorageProfile conDiarioVentas(boolean activo) {
+        return con("ventas.diario", String.valueOf(activo));
+    }
+
+    private StorageProfile con(String clave, String valor) {
+        Properties copia = new Properties();
+        copia.putAll(props);
+        copia.setProperty(clave, valor);
+        return new StorageProfile(copia);
+    }
+
+    public String getUrl() {
+        return props.getProperty("db.url", "jdbc:sqlite:cafesoft.db").trim();
+    }
+
+    public int getMaxConexiones() {
+        return (int) numero("db.pool.max", 4);
+    }
+
+    public long getEsperaMaximaMs() {
+        return numero("db.pool.espera_ms", 5000);
+    }
+
+    public String getJournalMode() {
+        return opcion("sqlite.journal_mode", "WAL", JOURNAL_MODES);
+    }
+
+    public String getSynchronous() {
+        return opcion("sqlite.synchronous", "NORMAL", SYNCHRONOUS);
+    }
+
+    // Negativo = KiB, positivo = páginas (misma convención que PRAGMA cache_size)
+    public long getCacheSize() {
+        return numero("sqlite.cache_size", -8000);
+    }
+
+    public long getMmapSize() {
+        return numero("sqlite.mmap_size", 64L * 1024 * 1024);
+    }
+
+    public long getBusyTimeoutMs() {
+        return numero("sqlite.busy_timeout", 5000);
+    }
+
+    public String getTempStore() {
+        return opcion("sqlite.temp_store", "MEMORY", TEMP_STORE);
+    }
+
+    // Cada cuántos segundos se hace un checkpoint del WAL; 0 lo desactiva.
+    public long getCheckpointSegundos() {
+        return numero("sqlite.checkpoint_segundos", 60);
+    }
+
+    public String getCheckpointModo() {
+        return opcion("sqlite.checkpoint_modo", "PASSIVE", CHECKPOINT_MODOS);
+    }
+
+    // Umbral para registrar un despacho lento del EDT (ver EdtWatchdog). 0 = sin vigilancia.
+    public long getUmbralEdtMs() {
+        return numero("ui.edt_umbral_ms", 250);
+    }
+
+    // Factor de trabajo de PBKDF2 para las contraseñas (ver PasswordHasherBench).
+    public int getIteracionesHash() {
+        return (int) Math.max(1, numero("auth.pbkdf2_iteraciones", PasswordHasher.ITERACIONES_POR_DEFECTO));
+    }
+
+    // Vigencia de las credenciales ya verificadas en SessionCache; 0 la desactiva.
+    public long getCacheSesionSegundos() {
+        return numero("auth.cache_segundos", 300);
+    }
+
+    // Modo multi-caja (ver SalesServer). Puerto en el que esta máquina atiende a las demás cajas; 0 = no es servidor.
+    public int getPuertoServidor() {
+        return (int) numero("servidor.puerto", 0);
+    }
+
+    // URL del servidor de ventas (p. ej. http://192.168.1.10:8207). Vacía = el POS usa la base local.
+    public String getUrlServidor() {
+        return props.getProperty("servidor.url", "").trim();
+    }
+
+    // Clave compartida entre servidor y cajas. Vacía = sin clave (solo para redes de confianza).
+    public String getClaveServidor() {
+        return props.getProperty("servidor.clave", "").trim();
+    }
+
+    // Máximo de órdenes que se escriben en una misma transacción (group commit).
+    public int getLoteMaximoServidor() {
+        return (int) Math.max(1, numero("servidor.lote_max", 64));
+    }
+
+    public long getTimeoutServidorMs() {
+        return numero("servidor.timeout_ms", 5000);
+    }
+
+    // Diario de ventas (ver SalesJournal): el cobro se confirma al quedar escrito en el diario
+    // y las órdenes pasan a la base en segundo plano.
+    public boolean usaDiarioVentas() {
+        return Boolean.parseBoolean(props.getProperty("ventas.diario", "true").trim()) && !getArchivoDiarioVentas().isEmpty();
+    }
+
+    // Junto al archivo de la base (cafesoft.db -> cafesoft.db-ventas). Vacío para una base en memoria.
+    public String getArchivoDiarioVentas() {
+        String archivo = getUrl().replaceFirst("^jdbc:sqlite:", "").replaceFirst("^file:", "");
+        if (archivo.startsWith(":memory:") || archivo.contains("mode=memory")) {
+            return "";
+        }
+        int parametros = archivo.indexOf('?');
+        if (parametros >= 0) {
+            archivo = archivo.substring(0, parametros);
+        }
+        if (archivo.isEmpty()) {
+            return "";
+        }
+        return props.getProperty("ventas.diario_archivo", archivo + "-ventas").trim();
+    }
+
+    // Máximo de órdenes del diario que se escriben en la base en una misma transacción.
+    public int getLoteDiarioVentas() {
+        return (int) Math.max(1, numero("ventas.diario_lote", 256));
+    }
+
+    public boolean usaWal() {
+        return "WAL".equals(getJournalMode());
+    }
+
+    // Aplica los PRAGMAs del perfil sobre una conexión recién abierta.
+    public void aplicar(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            // busy_timeout primero: journal_mode=WAL necesita un lock que otra conexión puede tener
+            stmt.execute("PRAGMA busy_timeout = " + getBusyTimeoutMs());
+            stmt.execute("PRAGMA journal_mode = " + getJournalMode());
+            stmt.execute("PRAGMA synchronous = " + getSynchronous());
+            stmt.execute("PRAGMA cache_size = " + getCacheSize());
+            stmt.execute("PRAGMA mmap_size = " + getMmapSize());
+            stmt.execute("PRAGMA temp_store = " + getTempStore());
+        }
+    }
+
+    private long numero(String clave, long porDefecto) {
+        String valor = props.getProperty(clave);
+        if (valor == null || valor.trim().isEmpty()) {
+            return porDefecto;
+        }
+        try {
+            return Long.parseLong(valor.trim());
+        } catch (NumberFormatException e) {
+            Log.warn("Valor inválido para " + clave + ": '" + valor + "'. Se usa " + porDefecto);
+            return porDefecto;
+        }
+    }
+
+    // Los PRAGMAs no admiten parámetros, así que solo se aceptan valores conocidos.
+    private String opcion(String clave, String porDefecto, List<String> permitidos) {
+        String valor = props.getProperty(clave);
+        if (valor == null || valor.trim().isEmpty()) {
+            return porDefecto;
+        }
+        String normalizado = valor.trim().toUpperCase(Locale.ROOT);
+        if (!permitidos.contains(normalizado)) {
+            Log.warn("Valor inválido para " + clave + ": '" + valor + "'. Se usa " + porDefecto);
+            return porDefecto;
+        }
+        return normalizado;
+    }
+
+    @Override
+    public String toString() {
+        return "StorageProfile[url=" + getUrl() + ", journal_mode=" + getJournalMode()
+                + ", synchronous=" + getSynchronous() + ", cache_size=" + getCacheSize()
+                + ", mmap_size=" + getMmapSize() + ", busy_timeout=" + getBusyTimeoutMs()
+                + ", temp_store=" + getTempStore() + ", checkpoint=" + getCheckpointModo()
+                + "/" + getCheckpointSegundos() + "s]";
+    }
+}
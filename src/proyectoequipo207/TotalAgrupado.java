@@ -0,0 +1,21 @@
+package proyectoequipo207;
+
+// Una fila de un GROUP BY de ventas: la clave es el producto, la hora ("14") o el día ("2025-12-03").
+public class TotalAgrupado {
+    private final String clave;
+    private final int unidades;
+    private final Dinero total;
+    private final int tickets;
+
+    public TotalAgrupado(String clave, int unidades, Dinero total, int tickets) {
+        this.clave = clave;
+        this.unidades = unidades;
+        this.total = total;
+        this.tickets = tickets;
+    }
+
+    public String getClave() { return clave; }
+    public int getUnidades() { return unidades; }
+    public Dinero getTotal() { return total; }
+    public int getTickets() { return tickets; }
+}
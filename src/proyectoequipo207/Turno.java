@@ -0,0 +1,36 @@
+package proyectoequipo207;
+
+import java.time.Instant;
+
+// Turno de caja de un usuario: desde que lo abre con un fondo inicial hasta el cierre.
+// Las órdenes cobradas durante el turno quedan asociadas a él (ordenes.turno_id).
+public class Turno {
+    private final int id;
+    private final String usuario;
+    private final Instant apertura;
+    private final Instant cierre; // null mientras el turno está abierto
+    private final Dinero fondoInicial;
+
+    public Turno(int id, String usuario, Instant apertura, Instant cierre, Dinero fondoInicial) {
+        this.id = id;
+        this.usuario = usuario;
+        this.apertura = apertura;
+        this.cierre = cierre;
+        this.fondoInicial = fondoInicial;
+    }
+
+    public int getId() { return id; }
+    public String getUsuario() { return usuario; }
+    public Instant getApertura() { return apertura; }
+    public Instant getCierre() { return cierre; }
+    public Dinero getFondoInicial() { return fondoInicial; }
+
+    public boolean estaAbierto() {
+        return cierre == null;
+    }
+
+    @Override
+    public String toString() {
+        return "Turno #" + id + " - " + usuario + " (desde " + Fechas.formatear(Fechas.REPORTE, apertura) + ")";
+    }
+}
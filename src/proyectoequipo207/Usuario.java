@@ -3,10 +3,17 @@ package proyectoequipo207;
 public class Usuario {
     private String nombreUsuario;
     private String rol; 
+    private boolean debeCambiarCredenciales;
 
     public Usuario(String nombreUsuario, String rol) {
+        this(nombreUsuario, rol, false);
+    }
+
+    // debeCambiarCredenciales: la cuenta entró con las credenciales de fábrica (ver CambioCredencialesDialog)
+    public Usuario(String nombreUsuario, String rol, boolean debeCambiarCredenciales) {
         this.nombreUsuario = nombreUsuario;
         this.rol = rol;
+        this.debeCambiarCredenciales = debeCambiarCredenciales;
     }
 
     public String getNombreUsuario() {
@@ -17,6 +24,10 @@ public class Usuario {
         return rol;
     }
 
+    public boolean debeCambiarCredenciales() {
+        return debeCambiarCredenciales;
+    }
+
     public boolean esAdmin() {
         return "ADMIN".equalsIgnoreCase(rol);
     }
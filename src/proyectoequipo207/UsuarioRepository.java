@@ -0,0 +1,24 @@
+package proyectoequipo207;
+
+import java.util.List;
+
+// Usuarios, contraseñas y PIN de cambio rápido. Las credenciales se guardan con PasswordHasher.
+public interface UsuarioRepository {
+
+    boolean registrarUsuario(String username, String password, String rol);
+
+    // Usuario autenticado, o null si las credenciales no coinciden.
+    Usuario autenticarUsuario(String username, String password);
+
+    boolean asignarPin(String username, String pin);
+
+    Usuario autenticarPorPin(String username, String pin);
+
+    boolean estaBloqueadoPin(String username);
+
+    // Nueva contraseña y nuevo PIN a la vez; quita la obligación de cambiarlos al entrar.
+    boolean cambiarCredenciales(String username, String password, String pin);
+
+    // Usuarios que tienen PIN asignado, para el teclado de cambio rápido.
+    List<Usuario> obtenerUsuariosConPin();
+}
@@ -1,17 +1,21 @@
 package proyectoequipo207;
 
-import java.util.Date;
+import java.time.Instant;
 
 public class Venta {
     private int idVenta; 
-    private Date fechaVenta;
+    private int idOrden;
+    private Instant fechaVenta;
+    private int idProducto;
     private String nombreProducto;
     private int cantidad;
-    private double precioUnitario;
+    private Dinero precioUnitario;
 
-    public Venta(int idVenta, Date fechaVenta, String nombreProducto, int cantidad, double precioUnitario) {
+    public Venta(int idVenta, int idOrden, Instant fechaVenta, int idProducto, String nombreProducto, int cantidad, Dinero precioUnitario) {
         this.idVenta = idVenta;
+        this.idOrden = idOrden;
         this.fechaVenta = fechaVenta;
+        this.idProducto = idProducto;
         this.nombreProducto = nombreProducto;
         this.cantidad = cantidad;
         this.precioUnitario = precioUnitario;
@@ -19,14 +23,19 @@ public class Venta {
 
     // Getters
     public int getIdVenta() { return idVenta; }
-    public Date getFechaVenta() { return fechaVenta; }
+    public int getIdOrden() { return idOrden; }
+    public Instant getFechaVenta() { return fechaVenta; }
+    public int getIdProducto() { return idProducto; }
     public String getNombreProducto() { return nombreProducto; }
     public int getCantidad() { return cantidad; }
-    public double getPrecioUnitario() { return precioUnitario; }
+    public Dinero getPrecioUnitario() { return precioUnitario; }
+    public Dinero getSubtotal() { return precioUnitario.multiplicar(cantidad); }
     //se pusiero setters por si acaso 
     public void setIdVenta(int idVenta) { this.idVenta = idVenta; }
-    public void setFechaVenta(Date fechaVenta) { this.fechaVenta = fechaVenta; }
+    public void setIdOrden(int idOrden) { this.idOrden = idOrden; }
+    public void setFechaVenta(Instant fechaVenta) { this.fechaVenta = fechaVenta; }
+    public void setIdProducto(int idProducto) { this.idProducto = idProducto; }
     public void setNombreProducto(String nombreProducto) { this.nombreProducto = nombreProducto; }
     public void setCantidad(int cantidad) { this.cantidad = cantidad; }
-    public void setPrecioUnitario(double precioUnitario) { this.precioUnitario = precioUnitario; }
+    public void setPrecioUnitario(Dinero precioUnitario) { this.precioUnitario = precioUnitario; }
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package proyectoequipo207;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+// Ventas: órdenes completas y el historial de líneas vendidas.
+public interface VentaRepository {
+
+    // Registra la orden completa (todas sus líneas o ninguna). turnoId 0 = fuera de turno.
+    // Retorna el id de la orden, o -1 si falló.
+    int registrarOrden(Map<Producto, Integer> orden, int turnoId);
+
+    // Venta de un solo producto, registrada como una orden de una línea.
+    boolean registrarVenta(String producto, int cantidad, Dinero precioUnitario);
+
+    // Líneas de venta con fecha en [desde, hasta), de la más reciente a la más antigua.
+    List<Venta> obtenerVentas(Date desde, Date hasta);
+}
@@ -0,0 +1,157 @@
+package proyectoequipo207;
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Modelo de tabla del historial de ventas que carga las filas por páginas a medida que se muestran.
+// La cantidad de filas sale de un COUNT(*) y solo se guardan en memoria las últimas páginas usadas (LRU),
+// así que abrir el historial cuesta lo mismo con cien ventas que con cientos de miles.
+// Las páginas se piden en segundo plano; mientras llegan, la fila muestra "Cargando...".
+// Todo el estado del modelo se toca solo desde el EDT.
+public class VentasTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMNAS = {"ID Venta", "Fecha", "Producto", "Cantidad", "Precio Unitario", "Subtotal"};
+    static final int TAMANO_PAGINA = 200;
+    private static final int PAGINAS_EN_CACHE = 16;
+
+    private final DatabaseManager dbManager;
+    private final AsyncDatabase async;
+
+    // Foto del historial: solo se muestran líneas con id <= maxId, así las ventas nuevas no desplazan las filas
+    private int maxId;
+    private int filas;
+
+    private final Map<Integer, List<Venta>> paginas = new LinkedHashMap<Integer, List<Venta>>(PAGINAS_EN_CACHE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Venta>> eldest) {
+            return size() > PAGINAS_EN_CACHE;
+        }
+    };
+    // Último id de cada página ya vista: permite pedir la siguiente por keyset
+    private final Map<Integer, Integer> ultimoIdPorPagina = new HashMap<>();
+    private final Set<Integer> paginasPendientes = new HashSet<>();
+    // Cambia en cada refresco para descartar páginas que llegan de una foto anterior
+    private int generacion = 0;
+
+    public VentasTableModel(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+        this.async = dbManager.async();
+    }
+
+    // Vuelve a tomar la foto del historial (en segundo plano) y descarta las páginas cargadas.
+    public void refrescar(Runnable alTerminar) {
+        async.ejecutar(() -> {
+            int id = dbManager.obtenerMaxIdVenta();
+            return new int[]{id, dbManager.contarLineasVenta(id)};
+        }).thenAccept(foto -> SwingUtilities.invokeLater(() -> {
+            generacion++;
+            maxId = foto[0];
+            filas = foto[1];
+            paginas.clear();
+            ultimoIdPorPagina.clear();
+            paginasPendientes.clear();
+            fireTableDataChanged();
+            alTerminar.run();
+        }));
+    }
+
+    public int getMaxId() {
+        return maxId;
+    }
+
+    @Override
+    public int getRowCount() {
+        return filas;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNAS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNAS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        if (column == 0 || column == 3) return Integer.class; // ID, Cantidad
+        if (column == 1) return Instant.class;
+        if (column == 4 || column == 5) return Dinero.class; // Precios, Subtotal
+        return String.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Venta v = getVenta(row);
+        if (v == null) {
+            return column == 2 ? "Cargando..." : null;
+        }
+        switch (column) {
+            case 0: return v.getIdVenta();
+            case 1: return v.getFechaVenta();
+            case 2: return v.getNombreProducto();
+            case 3: return v.getCantidad();
+            case 4: return v.getPrecioUnitario();
+            case 5: return v.getSubtotal();
+            default: return null;
+        }
+    }
+
+    // Retorna la venta de la fila, o null si su página todavía se está cargando.
+    public Venta getVenta(int row) {
+        int numeroPagina = row / TAMANO_PAGINA;
+        List<Venta> pagina = paginas.get(numeroPagina);
+        if (pagina == null) {
+            solicitarPagina(numeroPagina);
+            return null;
+        }
+        int indice = row % TAMANO_PAGINA;
+        return indice < pagina.size() ? pagina.get(indice) : null;
+    }
+
+    private void solicitarPagina(int numeroPagina) {
+        if (!paginasPendientes.add(numeroPagina)) {
+            return;
+        }
+        int generacionSolicitud = generacion;
+        int foto = maxId;
+        Integer ultimoIdAnterior = numeroPagina == 0 ? Integer.valueOf(foto + 1) : ultimoIdPorPagina.get(numeroPagina - 1);
+
+        async.ejecutar(() -> ultimoIdAnterior != null
+                ? dbManager.obtenerPaginaVentas(ultimoIdAnterior, TAMANO_PAGINA)
+                : dbManager.obtenerPaginaVentasPorPosicion(foto, numeroPagina * TAMANO_PAGINA, TAMANO_PAGINA))
+            .whenComplete((pagina, error) -> SwingUtilities.invokeLater(() -> {
+                if (generacionSolicitud != generacion) {
+                    return;
+                }
+                paginasPendientes.remove(numeroPagina);
+                if (error != null) {
+                    Log.error("Error cargando página " + numeroPagina + " del historial: " + error.getMessage());
+                    return;
+                }
+                if (!pagina.isEmpty()) {
+                    ultimoIdPorPagina.put(numeroPagina, pagina.get(pagina.size() - 1).getIdVenta());
+                }
+                paginas.put(numeroPagina, pagina);
+                int primera = numeroPagina * TAMANO_PAGINA;
+                int ultima = Math.min(filas, primera + TAMANO_PAGINA) - 1;
+                if (ultima >= primera) {
+                    fireTableRowsUpdated(primera, ultima);
+                }
+            }));
+    }
+}